@@ -45,6 +45,11 @@ public class BasicExpirationSetting implements ExpirationSetting {
      */
     private final Map<String, TimeoutExpression> expirationSetting = new HashMap<String, TimeoutExpression>();;
 
+    /**
+     * IDとキャッシュ領域名のマッピング。
+     * （例: "ID001", "large"）
+     */
+    private final Map<String, String> regionSetting = new HashMap<String, String>();
 
     /** {@inheritDoc} */
     @Override
@@ -65,6 +70,25 @@ public class BasicExpirationSetting implements ExpirationSetting {
         return timeout.evaluate();
     }
 
+    /**
+     * 指定されたIDのキャッシュ領域名を取得する。
+     *
+     * @param id 判定対象となるID
+     * @return キャッシュ領域名（キャッシュ領域が設定されていない場合はnull）
+     */
+    public String getRegion(String id) {
+        return regionSetting.get(id);
+    }
+
+    /**
+     * IDとキャッシュ領域名のマッピングを取得する。
+     *
+     * @return IDとキャッシュ領域名のマッピング(変更不可)
+     */
+    public Map<String, String> getRegions() {
+        return unmodifiableMap(regionSetting);
+    }
+
     /**
      * システム日時提供クラスを設定する（必須）。
      * 本メソッドはDIコンテナから使用されることを想定している。
@@ -108,6 +132,18 @@ public class BasicExpirationSetting implements ExpirationSetting {
 
     }
 
+    /**
+     * IDとキャッシュ領域名のマッピングを設定する。
+     * <p/>
+     * キャッシュ領域ごとに容量を管理するキャッシュで、IDごとの格納先を決定するために使用する。
+     * 本メソッドはDIコンテナから使用されることを想定している。
+     *
+     * @param region IDとキャッシュ領域名のマッピング
+     */
+    public void setRegion(Map<String, String> region) {
+        regionSetting.putAll(region);
+    }
+
     /**
      * 時間単位のマッピングを取得する。
      * 本メソッドをオーバーライドすることで、
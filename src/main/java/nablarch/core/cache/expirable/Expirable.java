@@ -35,7 +35,7 @@ public class Expirable<V> {
      *
      * @return キャッシュ値
      */
-    V getContent() {
+    public V getContent() {
         return content;
     }
 
@@ -44,7 +44,7 @@ public class Expirable<V> {
      *
      * @return 有効期限日時
      */
-    Date getExpiredDate() {
+    public Date getExpiredDate() {
         return new Date(expiredDate.getTime());
     }
 
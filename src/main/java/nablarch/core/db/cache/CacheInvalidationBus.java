@@ -0,0 +1,453 @@
+package nablarch.core.db.cache;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.disposal.Disposable;
+import nablarch.core.repository.initialization.Initializable;
+import nablarch.core.util.Builder;
+
+/**
+ * 結果セットキャッシュの無効化を、他のノードに通知するクラス。
+ * <p/>
+ * 各ノードは同じ{@link InvalidationTransport}の宛先を使用する本クラスのインスタンスを持ち、
+ * あるノードで発生した無効化を他のノードの{@link Listener}に配信する。
+ * 通知する無効化は以下の3種類である。
+ * <ul>
+ * <li>テーブルの更新({@link ResultSetCacheInvalidator}が通知する)</li>
+ * <li>SQL IDのエントリの削除({@link DistributedResultSetCache}が通知する)</li>
+ * <li>キャッシュのクリア({@link DistributedResultSetCache}が通知する)</li>
+ * </ul>
+ * 通知は即座に送信せず、一定時間({@link #setBatchInterval(long)})ごとに、重複を除いて1つのメッセージにまとめて送信する。
+ * これにより、大量の更新を行った場合も送信するメッセージ数を抑える。
+ * 未送信の通知数が{@link #setMaxBatchSize(int)}に達した場合は、送信間隔を待たずに送信する。
+ * 送信は常に定期的な送信を行うスレッドで行うため、通知したスレッドが送信の失敗の影響を受けることはない。
+ * 初期化前と廃棄後の通知は、警告ログを出力して破棄する。
+ * <p/>
+ * 送信元ノードが受信したメッセージは無視するため、受信した無効化を再度通知することはない。
+ * <p/>
+ * メッセージには{@link #setClusterId(String)}で設定したクラスタIDを含め、クラスタIDが異なるメッセージは無視する。
+ * これにより、同じ宛先を使用する別のシステムや環境からの通知で、キャッシュが無効化されることを防ぐ。
+ * {@link #setSharedSecret(String)}が設定されている場合は、共有鍵によるHMAC-SHA256の署名をメッセージに付与し、
+ * 署名を検証できないメッセージは無視する。
+ * 宛先に第三者がメッセージを送信できるネットワークでは、共有鍵を設定すること。
+ * <p/>
+ * 本クラスは{@link Initializable}と{@link Disposable}を実装するため、DIコンテナの初期化対象と廃棄対象に設定すること。
+ * 初期化時にメッセージの受信と、定期的な送信を開始し、廃棄時に終了する。
+ */
+public class CacheInvalidationBus implements Initializable, Disposable {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("RS_CACHE");
+
+    /** メッセージの文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** メッセージの先頭行(形式の識別子) */
+    private static final String HEADER = "NABLARCH-RS-CACHE-INVALIDATION/2";
+
+    /** 署名の行の接頭辞 */
+    private static final String SIGNATURE = "H:";
+
+    /** 署名のアルゴリズム */
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /** 署名の行のバイト数(接頭辞、Base64で表したHMAC-SHA256、改行) */
+    private static final int SIGNATURE_BYTES = SIGNATURE.length() + 44 + 1;
+
+    /** テーブルの更新を表す接頭辞 */
+    private static final String TABLE = "T:";
+
+    /** SQL IDのエントリの削除を表す接頭辞 */
+    private static final String SQL_ID = "S:";
+
+    /** キャッシュのクリアを表す行 */
+    private static final String CLEAR = "C:";
+
+    /** 1つのメッセージの最大バイト数(UDPで分割されずに送信できるサイズ) */
+    private static final int MAX_MESSAGE_BYTES = 8192;
+
+    /** このノードの識別子 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 無効化を受け取るリスナー */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    /** 未送信の通知(重複を除くため集合で保持する) */
+    private final Set<String> pending = new LinkedHashSet<String>();
+
+    /** 未送信の通知を送信する処理 */
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // 以降の送信を止めないよう、ログ出力のみ行う。
+                LOGGER.logWarn("failed to send cache invalidation message.", e);
+            }
+        }
+    };
+
+    /** 通知数が上限に達したことによる送信を要求済みの場合、真(未送信の通知と同じロックで保護する) */
+    private boolean flushRequested;
+
+    /** メッセージを送受信するクラス */
+    private InvalidationTransport transport;
+
+    /** クラスタID */
+    private String clusterId = "default";
+
+    /** 署名に使用する共有鍵(署名しない場合はnull) */
+    private SecretKeySpec sharedSecret;
+
+    /** 送信間隔(ミリ秒) */
+    private long batchInterval = 100;
+
+    /** 送信する前に保持する通知数の上限 */
+    private int maxBatchSize = 256;
+
+    /** 定期的な送信を行うスレッド(初期化していない場合、または廃棄後はnull) */
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * メッセージを送受信するクラスを設定する(必須)。
+     *
+     * @param transport メッセージを送受信するクラス
+     */
+    public void setTransport(InvalidationTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * クラスタIDを設定する。(デフォルトは"default")
+     * <p/>
+     * 同じクラスタIDを設定したノード間でのみ、無効化を通知する。
+     * 改行を含めることはできない。
+     *
+     * @param clusterId クラスタID
+     * @throws IllegalArgumentException クラスタIDが空の場合、または改行を含む場合
+     */
+    public void setClusterId(String clusterId) {
+        if (clusterId == null || clusterId.isEmpty() || clusterId.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("clusterId must not be empty or contain line breaks.");
+        }
+        this.clusterId = clusterId;
+    }
+
+    /**
+     * メッセージの署名に使用する共有鍵を設定する。
+     * <p/>
+     * 設定した場合は、送信するメッセージにHMAC-SHA256の署名を付与し、署名を検証できないメッセージは受信しても無視する。
+     * 同じクラスタの全てのノードに、同じ共有鍵を設定すること。
+     *
+     * @param sharedSecret 共有鍵
+     * @throws IllegalArgumentException 共有鍵が空の場合
+     */
+    public void setSharedSecret(String sharedSecret) {
+        if (sharedSecret == null || sharedSecret.isEmpty()) {
+            throw new IllegalArgumentException("sharedSecret must not be empty.");
+        }
+        this.sharedSecret = new SecretKeySpec(sharedSecret.getBytes(UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * 通知をまとめて送信する間隔を設定する。(デフォルトは100ミリ秒)
+     *
+     * @param batchInterval 送信間隔(ミリ秒)
+     */
+    public void setBatchInterval(long batchInterval) {
+        this.batchInterval = batchInterval;
+    }
+
+    /**
+     * 送信する前に保持する通知数の上限を設定する。
+     * <p/>
+     * 未送信の通知数が上限に達した場合は、送信間隔を待たずに送信する。(デフォルトは256)
+     *
+     * @param maxBatchSize 通知数の上限
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 他のノードの無効化を受け取るリスナーを追加する。
+     *
+     * @param listener リスナー
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * メッセージの受信と、定期的な送信を開始する。
+     *
+     * @throws IllegalStateException メッセージを送受信するクラスが設定されていない場合
+     */
+    @Override
+    public synchronized void initialize() {
+        if (transport == null) {
+            throw new IllegalStateException("transport must be set.");
+        }
+        if (scheduler != null) {
+            return;
+        }
+        transport.start(new InvalidationTransport.Receiver() {
+            @Override
+            public void onReceive(byte[] message) {
+                dispatch(message);
+            }
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "nablarch-rs-cache-invalidation-flush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(flushTask, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 未送信の通知を送信し、メッセージの受信と定期的な送信を終了する。
+     */
+    @Override
+    public synchronized void dispose() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        flush();
+        transport.stop();
+    }
+
+    /**
+     * テーブルの更新を通知する。
+     *
+     * @param table テーブル名
+     */
+    public void publishTable(String table) {
+        publish(TABLE + table);
+    }
+
+    /**
+     * SQL IDのエントリの削除を通知する。
+     *
+     * @param sqlId SQL ID
+     */
+    public void publishSqlId(String sqlId) {
+        publish(SQL_ID + sqlId);
+    }
+
+    /**
+     * キャッシュのクリアを通知する。
+     */
+    public void publishClear() {
+        publish(CLEAR);
+    }
+
+    /**
+     * 通知を未送信の通知に追加する。
+     * <p/>
+     * 未送信の通知数が上限に達した場合は、定期的な送信を行うスレッドに送信を要求する。
+     * 本メソッドはトランザクションの終了後に呼び出されるため、送信は行わず、例外も送出しない。
+     * 初期化前と廃棄後は、警告ログを出力して通知を破棄する。
+     *
+     * @param line 通知
+     */
+    private void publish(String line) {
+        final ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            LOGGER.logWarn(Builder.concat(
+                    "cache invalidation was discarded because the bus is not running. invalidation=[", line, "]"));
+            return;
+        }
+        synchronized (pending) {
+            pending.add(line);
+            if (flushRequested || pending.size() < maxBatchSize) {
+                return;
+            }
+            flushRequested = true;
+        }
+        try {
+            current.execute(flushTask);
+        } catch (RejectedExecutionException e) {
+            // 廃棄と同時に通知された場合。未送信の通知は廃棄時に送信される。
+            LOGGER.logWarn("cache invalidation was not sent because the bus has been disposed.", e);
+        }
+    }
+
+    /**
+     * 未送信の通知を送信する。
+     * <p/>
+     * 通知は、1つのメッセージが{@value #MAX_MESSAGE_BYTES}バイトを超えないよう分割して送信する。
+     */
+    void flush() {
+        final List<String> lines;
+        synchronized (pending) {
+            flushRequested = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            lines = new ArrayList<String>(pending);
+            pending.clear();
+        }
+        final String header = HEADER + '\n' + clusterId + '\n' + nodeId + '\n';
+        final int maxBodyBytes = MAX_MESSAGE_BYTES - (sharedSecret == null ? 0 : SIGNATURE_BYTES);
+        StringBuilder message = new StringBuilder(header);
+        for (String line : lines) {
+            if (message.length() > header.length()
+                    && (message.length() + line.length()) * 3 > maxBodyBytes) {
+                transport.send(sign(message.toString().getBytes(UTF_8)));
+                message = new StringBuilder(header);
+            }
+            message.append(line).append('\n');
+        }
+        transport.send(sign(message.toString().getBytes(UTF_8)));
+    }
+
+    /**
+     * 受信したメッセージをリスナーに配信する。
+     * 形式が不正なメッセージ、署名を検証できないメッセージ、クラスタIDが異なるメッセージと、
+     * このノードが送信したメッセージは無視する。
+     *
+     * @param message 受信したメッセージ
+     */
+    void dispatch(byte[] message) {
+        final byte[] body = verify(message);
+        if (body == null) {
+            LOGGER.logWarn("cache invalidation message was ignored because the signature could not be verified.");
+            return;
+        }
+        final String[] lines = new String(body, UTF_8).split("\n");
+        if (lines.length < 3 || !HEADER.equals(lines[0]) || !clusterId.equals(lines[1]) || nodeId.equals(lines[2])) {
+            return;
+        }
+        for (int i = 3; i < lines.length; i++) {
+            final String line = lines[i];
+            for (Listener listener : listeners) {
+                if (line.startsWith(TABLE)) {
+                    listener.onTableInvalidated(line.substring(TABLE.length()));
+                } else if (line.startsWith(SQL_ID)) {
+                    listener.onSqlIdInvalidated(line.substring(SQL_ID.length()));
+                } else if (line.equals(CLEAR)) {
+                    listener.onCleared();
+                }
+            }
+        }
+    }
+
+    /**
+     * 共有鍵が設定されている場合、メッセージの先頭に署名の行を付与する。
+     *
+     * @param body 署名するメッセージ
+     * @return 署名を付与したメッセージ(共有鍵が設定されていない場合は引数のメッセージ)
+     */
+    private byte[] sign(byte[] body) {
+        if (sharedSecret == null) {
+            return body;
+        }
+        final byte[] signature = (SIGNATURE + Base64.getEncoder().encodeToString(hmac(body)) + '\n').getBytes(UTF_8);
+        final byte[] signed = Arrays.copyOf(signature, signature.length + body.length);
+        System.arraycopy(body, 0, signed, signature.length, body.length);
+        return signed;
+    }
+
+    /**
+     * 共有鍵が設定されている場合、メッセージの先頭の署名を検証する。
+     *
+     * @param message 受信したメッセージ
+     * @return 署名を除いたメッセージ(署名を検証できない場合は{@code null}、共有鍵が設定されていない場合は引数のメッセージ)
+     */
+    private byte[] verify(byte[] message) {
+        if (sharedSecret == null) {
+            return message;
+        }
+        int end = 0;
+        while (end < message.length && message[end] != '\n') {
+            end++;
+        }
+        final String signatureLine = new String(message, 0, end, UTF_8);
+        if (end == message.length || !signatureLine.startsWith(SIGNATURE)) {
+            return null;
+        }
+        final byte[] body = Arrays.copyOfRange(message, end + 1, message.length);
+        final byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(signatureLine.substring(SIGNATURE.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return MessageDigest.isEqual(expected, hmac(body)) ? body : null;
+    }
+
+    /**
+     * 共有鍵でHMAC-SHA256を算出する。
+     *
+     * @param body メッセージ
+     * @return HMAC-SHA256
+     */
+    private byte[] hmac(byte[] body) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(sharedSecret);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256は全てのJava実装で提供される。
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 他のノードの無効化を受け取るリスナー。
+     * <p/>
+     * リスナーは、{@link InvalidationTransport}の受信スレッドから呼び出される。
+     */
+    public interface Listener {
+
+        /**
+         * 他のノードでテーブルが更新された場合に呼び出される。
+         *
+         * @param table テーブル名
+         */
+        void onTableInvalidated(String table);
+
+        /**
+         * 他のノードでSQL IDのエントリが削除された場合に呼び出される。
+         *
+         * @param sqlId SQL ID
+         */
+        void onSqlIdInvalidated(String sqlId);
+
+        /**
+         * 他のノードでキャッシュがクリアされた場合に呼び出される。
+         */
+        void onCleared();
+    }
+}
@@ -0,0 +1,492 @@
+package nablarch.core.db.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import nablarch.core.cache.expirable.ExpirableCacheListener;
+import nablarch.core.date.SystemTimeProvider;
+import nablarch.core.db.statement.ResultSetSizeEstimator;
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.Builder;
+
+/**
+ * 多数のスレッドから同時に参照されることを前提とした、メモリ上にキャッシュを保持する結果セットキャッシュ実装クラス。
+ * <p/>
+ * {@link InMemoryResultSetCache}は、同期化した{@link nablarch.core.util.map.LRUMap}を使用するため、
+ * キャッシュヒット時にも全てのスレッドが1つのロックを取得する。
+ * 本クラスは、参照をロックを取得せずに{@link ConcurrentHashMap}から行い、ロックは登録・削除時のみ取得する。
+ * <p/>
+ * キャッシュ上限を超過した場合は、参照頻度を考慮したクロック方式(GCLOCK)で削除するエントリを決定する。
+ * 各エントリは参照されるたびに上限付きの参照カウンタを加算し、削除対象を探す際に、
+ * カウンタが0のエントリを削除し、0でないエントリはカウンタを減算して次のエントリに進む。
+ * これにより、直近に参照されたエントリに加えて、繰り返し参照されるエントリも残りやすくなる。
+ * <p/>
+ * 有効期限は登録時に残り時間に変換し、{@link System#nanoTime()}を基準とした期限として保持する。
+ * このため、参照時に{@link SystemTimeProvider}から現在日時を取得しない。
+ * 登録時の残り時間の算出には、{@link SystemTimeProvider}が設定されている場合はその日時を、
+ * 設定されていない場合はシステム日時を使用する。
+ * <p/>
+ * 件数の上限に加えて、結果セットの推定バイト数の合計による上限({@link #setMaxBytes(long)})を設定できる。
+ * 推定バイト数は{@link ResultSetSizeEstimator}で算出し、合計が上限を超過した場合は件数超過時と同様にエントリを削除する。
+ * 推定バイト数が上限を超える結果セットはキャッシュしない。
+ */
+public class ConcurrentResultSetCache implements ResultSetCache {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("RS_CACHE");
+
+    /** 参照カウンタの上限 */
+    private static final int MAX_FREQUENCY = 3;
+
+    /** 有効期限無しを表す日時 */
+    private static final Date UNLIMITED = new Date(Long.MAX_VALUE);
+
+    /** キャッシュの実体 */
+    private final ConcurrentMap<ResultSetCacheKey, Node> cache = new ConcurrentHashMap<ResultSetCacheKey, Node>();
+
+    /** 登録・削除時に取得するロック */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 削除対象を探すためのエントリの配列(ロック内でのみ参照する) */
+    private Node[] ring;
+
+    /** 空いている配列の位置(ロック内でのみ参照する) */
+    private final Deque<Integer> freeSlots = new ArrayDeque<Integer>();
+
+    /** 削除対象を探す位置(ロック内でのみ参照する) */
+    private int hand;
+
+    /** 推定バイト数の上限(0以下の場合は上限無し) */
+    private long maxBytes;
+
+    /** 推定バイト数の合計(ロック内でのみ参照する) */
+    private long totalBytes;
+
+    /** 結果セットのバイト数を推定するクラス */
+    private ResultSetSizeEstimator sizeEstimator = new ResultSetSizeEstimator();
+
+    /** システム日時提供クラス */
+    private SystemTimeProvider systemTimeProvider;
+
+    /** キャッシュリスナー(設定されていない場合はnull) */
+    private volatile ExpirableCacheListener<ResultSetCacheKey> listener;
+
+    /** デフォルトコンストラクタ。 */
+    public ConcurrentResultSetCache() {
+        if (isLoggerEnabled()) {
+            // ログレベルDEBUGが有効の場合はログ出力リスナーを使用する。
+            listener = new InMemoryResultSetCache.ResultSetCacheLoggingListener();
+        }
+    }
+
+    /**
+     * キャッシュ上限値を設定する。
+     * ここで設定された件数を超過してキャッシュに値が設定された場合、参照頻度の低いエントリが削除される。
+     *
+     * @param max 上限値
+     * @throws IllegalArgumentException 上限値が1未満の場合
+     */
+    public void setCacheSize(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("cacheSize must be greater than 0. cacheSize = [" + max + ']');
+        }
+        lock.lock();
+        try {
+            cache.clear();
+            ring = new Node[max];
+            freeSlots.clear();
+            for (int i = 0; i < max; i++) {
+                freeSlots.add(i);
+            }
+            hand = 0;
+            totalBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * キャッシュする結果セットの推定バイト数の合計の上限を設定する。
+     * <p/>
+     * 0以下を設定した場合は上限無しとなる(デフォルト)。
+     *
+     * @param maxBytes 推定バイト数の上限
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 結果セットのバイト数を推定するクラスを設定する。
+     * <p/>
+     * 設定されていない場合は{@link ResultSetSizeEstimator}を使用する。
+     *
+     * @param sizeEstimator 結果セットのバイト数を推定するクラス
+     */
+    public void setSizeEstimator(ResultSetSizeEstimator sizeEstimator) {
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    /**
+     * システム日時提供クラスを設定する。
+     * <p/>
+     * 登録時に、有効期限までの残り時間を算出するために使用する。
+     *
+     * @param systemTimeProvider システム日時提供クラス
+     */
+    public void setSystemTimeProvider(SystemTimeProvider systemTimeProvider) {
+        this.systemTimeProvider = systemTimeProvider;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCacheListener(ExpirableCacheListener<ResultSetCacheKey> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 本メソッドはロックを取得しない。
+     */
+    @Override
+    public SqlResultSet getIfNotExpired(ResultSetCacheKey key) {
+        checkStatus();
+        final Node node = cache.get(key);
+        final ExpirableCacheListener<ResultSetCacheKey> currentListener = listener;
+        if (node == null) {
+            if (currentListener != null) {
+                currentListener.onCacheNotHit(key);
+            }
+            return null;
+        }
+        final long now = nanoTime();
+        if (node.isExpired(now)) {
+            if (currentListener != null) {
+                currentListener.onExpire(key, toDate(now), node.expiredDate);
+            }
+            removeNode(key, node);
+            return null;
+        }
+        node.recordAccess();
+        if (currentListener != null) {
+            currentListener.onCacheHit(key, toDate(now));
+        }
+        return node.value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void add(ResultSetCacheKey key, SqlResultSet value, Date timeout) {
+        checkStatus();
+        final long weight = maxBytes > 0 ? sizeEstimator.estimate(value) : 0;
+        if (maxBytes > 0 && weight > maxBytes) {
+            // 単独で上限を超える結果セットはキャッシュせず、古い結果セットも破棄する。
+            if (isLoggerEnabled()) {
+                LOGGER.logDebug(Builder.concat("result set is too large to cache: key=[", key, "], bytes=[", weight, "]"));
+            }
+            remove(key);
+            return;
+        }
+        final Node node = new Node(key, value, timeout, toDeadline(timeout), weight);
+        lock.lock();
+        try {
+            final Node old = cache.put(key, node);
+            if (old != null) {
+                node.slot = old.slot;
+                totalBytes -= old.weight;
+            } else {
+                node.slot = freeSlots.isEmpty() ? evict(node) : freeSlots.poll();
+            }
+            ring[node.slot] = node;
+            totalBytes += weight;
+            while (maxBytes > 0 && totalBytes > maxBytes) {
+                freeSlots.push(evict(node));
+            }
+        } finally {
+            lock.unlock();
+        }
+        final ExpirableCacheListener<ResultSetCacheKey> currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onCacheAdded(key, timeout);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addUnlimited(ResultSetCacheKey key, SqlResultSet value) {
+        add(key, value, UNLIMITED);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove(ResultSetCacheKey key) {
+        checkStatus();
+        final Node removed;
+        lock.lock();
+        try {
+            removed = cache.remove(key);
+            if (removed != null) {
+                releaseSlot(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+        final ExpirableCacheListener<ResultSetCacheKey> currentListener = listener;
+        if (removed != null && currentListener != null) {
+            currentListener.onRemove(key);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void removeBySqlId(String sqlId) {
+        checkStatus();
+        final List<ResultSetCacheKey> targets = new ArrayList<ResultSetCacheKey>();
+        for (ResultSetCacheKey key : cache.keySet()) {
+            if (key.getSqlId().equals(sqlId)) {
+                targets.add(key);
+            }
+        }
+        for (ResultSetCacheKey key : targets) {
+            remove(key);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        checkStatus();
+        final ExpirableCacheListener<ResultSetCacheKey> currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onClear();
+        }
+        lock.lock();
+        try {
+            cache.clear();
+            Arrays.fill(ring, null);
+            freeSlots.clear();
+            for (int i = 0; i < ring.length; i++) {
+                freeSlots.add(i);
+            }
+            hand = 0;
+            totalBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 削除対象のエントリを決定して削除し、空いた配列の位置を返却する。
+     * <p/>
+     * 有効期限切れのエントリ、または参照カウンタが0のエントリが見つかるまで、
+     * 参照カウンタを減算しながら配列を巡回する。
+     * 本メソッドはロック内で呼び出すこと。
+     *
+     * @param added 登録中のエントリ(削除対象としない)
+     * @return 空いた配列の位置
+     */
+    private int evict(Node added) {
+        final long now = nanoTime();
+        while (true) {
+            final Node candidate = ring[hand];
+            final int slot = hand;
+            hand = (hand + 1) % ring.length;
+            if (candidate == null || candidate == added) {
+                continue;
+            }
+            if (candidate.isExpired(now) || candidate.frequency == 0) {
+                cache.remove(candidate.key, candidate);
+                ring[slot] = null;
+                totalBytes -= candidate.weight;
+                if (isLoggerEnabled()) {
+                    LOGGER.logDebug(Builder.concat("the eldest entry removed: key=[", candidate.key, "]"));
+                }
+                return slot;
+            }
+            candidate.frequency--;
+        }
+    }
+
+    /**
+     * 有効期限切れのエントリを削除する。
+     * <p/>
+     * 他のスレッドにより既に置き換えられている場合は削除しない。
+     *
+     * @param key キー
+     * @param node 有効期限切れのエントリ
+     */
+    private void removeNode(ResultSetCacheKey key, Node node) {
+        lock.lock();
+        try {
+            if (cache.remove(key, node)) {
+                releaseSlot(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * エントリが使用していた配列の位置を解放する。
+     * 本メソッドはロック内で呼び出すこと。
+     *
+     * @param node 削除したエントリ
+     */
+    private void releaseSlot(Node node) {
+        if (ring[node.slot] == node) {
+            ring[node.slot] = null;
+            totalBytes -= node.weight;
+            freeSlots.push(node.slot);
+        }
+    }
+
+    /**
+     * 有効期限を、{@link #nanoTime()}を基準とした期限に変換する。
+     *
+     * @param timeout 有効期限
+     * @return {@link #nanoTime()}を基準とした期限(有効期限無しの場合は{@link Long#MAX_VALUE})
+     */
+    private long toDeadline(Date timeout) {
+        if (timeout.getTime() == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        final long remainingMillis = timeout.getTime() - currentTimeMillis();
+        // 期限の加算で桁あふれしないよう、残り時間の上限を抑える。
+        final long remainingNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.min(remainingMillis, TimeUnit.DAYS.toMillis(365L * 100)));
+        final long deadline = nanoTime() + remainingNanos;
+        return deadline == Long.MAX_VALUE ? deadline - 1 : deadline;
+    }
+
+    /**
+     * {@link #nanoTime()}を基準とした時刻を、日時に変換する。
+     * リスナーへの通知にのみ使用する。
+     *
+     * @param nanos {@link #nanoTime()}を基準とした時刻
+     * @return 日時
+     */
+    private Date toDate(long nanos) {
+        return new Date(currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(nanoTime() - nanos));
+    }
+
+    /**
+     * 現在日時をミリ秒で取得する。
+     *
+     * @return 現在日時
+     */
+    private long currentTimeMillis() {
+        return systemTimeProvider == null ? System.currentTimeMillis() : systemTimeProvider.getDate().getTime();
+    }
+
+    /**
+     * 有効期限の判定に使用する時刻を取得する。
+     *
+     * @return 時刻(ナノ秒)
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * ログ出力可能であるか判定する。
+     *
+     * @return ログ出力可能である場合、真
+     */
+    boolean isLoggerEnabled() {
+        return LOGGER.isDebugEnabled();
+    }
+
+    /**
+     * インスタンスの状態をチェックする。
+     *
+     * @throws IllegalStateException キャッシュ上限値が設定されていない場合
+     */
+    private void checkStatus() throws IllegalStateException {
+        if (ring == null) {
+            throw new IllegalStateException("cacheSize must be set.");
+        }
+    }
+
+    /**
+     * キャッシュのエントリ。
+     */
+    private static final class Node {
+
+        /** キー */
+        private final ResultSetCacheKey key;
+
+        /** 値 */
+        private final SqlResultSet value;
+
+        /** 有効期限(リスナーへの通知に使用する) */
+        private final Date expiredDate;
+
+        /** {@link ConcurrentResultSetCache#nanoTime()}を基準とした期限(有効期限無しの場合は{@link Long#MAX_VALUE}) */
+        private final long deadline;
+
+        /**
+         * 参照カウンタ。
+         * <p/>
+         * 参照時はロックを取得せずに加算するため、同時に参照された場合は加算が失われることがあるが、
+         * 削除対象の決定に使用する概算値であるため問題ない。
+         */
+        private volatile int frequency;
+
+        /** 推定バイト数(上限が設定されていない場合は0) */
+        private final long weight;
+
+        /** 配列の位置(ロック内でのみ参照する) */
+        private int slot;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param key キー
+         * @param value 値
+         * @param expiredDate 有効期限
+         * @param deadline 期限
+         * @param weight 推定バイト数
+         */
+        private Node(ResultSetCacheKey key, SqlResultSet value, Date expiredDate, long deadline, long weight) {
+            this.key = key;
+            this.value = value;
+            this.expiredDate = expiredDate;
+            this.deadline = deadline;
+            this.weight = weight;
+        }
+
+        /**
+         * 参照されたことを記録する。
+         * <p/>
+         * 参照カウンタが上限に達している場合は書き込みを行わないため、頻繁に参照されるエントリでも
+         * スレッド間でキャッシュラインを奪い合わない。
+         */
+        private void recordAccess() {
+            final int current = frequency;
+            if (current < MAX_FREQUENCY) {
+                frequency = current + 1;
+            }
+        }
+
+        /**
+         * 有効期限切れかどうか判定する。
+         *
+         * @param now 判定基準となる時刻
+         * @return 有効期限切れの場合、真
+         */
+        private boolean isExpired(long now) {
+            return deadline != Long.MAX_VALUE && now - deadline > 0;
+        }
+    }
+}
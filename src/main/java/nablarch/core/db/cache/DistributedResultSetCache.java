@@ -0,0 +1,108 @@
+package nablarch.core.db.cache;
+
+import java.util.Date;
+
+import nablarch.core.cache.expirable.ExpirableCacheListener;
+import nablarch.core.db.statement.SqlResultSet;
+
+/**
+ * エントリの削除とクリアを、他のノードの結果セットキャッシュにも反映する結果セットキャッシュ実装クラス。
+ * <p/>
+ * 本クラスは結果セットを保持せず、{@link #setResultSetCache(ResultSetCache)}で設定されたキャッシュに委譲する。
+ * 削除とクリアは、委譲先のキャッシュに反映した後に{@link CacheInvalidationBus}で他のノードに通知し、
+ * 他のノードから通知された削除とクリアを委譲先のキャッシュに反映する。
+ * <p/>
+ * バインド変数の値は通知しないため、{@link #remove(ResultSetCacheKey)}による削除は、
+ * 他のノードではSQL IDの全てのエントリの削除({@link ResultSetCache#removeBySqlId(String)})として反映する。
+ */
+public class DistributedResultSetCache implements ResultSetCache {
+
+    /** 委譲先のキャッシュ */
+    private ResultSetCache delegate;
+
+    /** 他のノードに無効化を通知するクラス */
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 委譲先のキャッシュを設定する(必須)。
+     *
+     * @param delegate 委譲先のキャッシュ
+     */
+    public void setResultSetCache(ResultSetCache delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 他のノードに無効化を通知するクラスを設定する(必須)。
+     *
+     * @param invalidationBus 他のノードに無効化を通知するクラス
+     */
+    public void setInvalidationBus(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void onTableInvalidated(String table) {
+                // テーブルの更新はResultSetCacheInvalidatorが処理する。
+            }
+
+            @Override
+            public void onSqlIdInvalidated(String sqlId) {
+                delegate.removeBySqlId(sqlId);
+            }
+
+            @Override
+            public void onCleared() {
+                delegate.clear();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCacheListener(ExpirableCacheListener<ResultSetCacheKey> listener) {
+        delegate.setCacheListener(listener);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SqlResultSet getIfNotExpired(ResultSetCacheKey key) {
+        return delegate.getIfNotExpired(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void add(ResultSetCacheKey key, SqlResultSet value, Date timeout) {
+        delegate.add(key, value, timeout);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addUnlimited(ResultSetCacheKey key, SqlResultSet value) {
+        delegate.addUnlimited(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 他のノードには、キャッシュキーのSQL IDの全てのエントリの削除を通知する。
+     */
+    @Override
+    public void remove(ResultSetCacheKey key) {
+        delegate.remove(key);
+        invalidationBus.publishSqlId(key.getSqlId());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void removeBySqlId(String sqlId) {
+        delegate.removeBySqlId(sqlId);
+        invalidationBus.publishSqlId(sqlId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        delegate.clear();
+        invalidationBus.publishClear();
+    }
+}
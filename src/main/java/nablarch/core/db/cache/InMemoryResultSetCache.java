@@ -1,8 +1,10 @@
 package nablarch.core.db.cache;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import nablarch.core.cache.expirable.Expirable;
@@ -17,6 +19,9 @@ import nablarch.core.util.map.LRUMap.RemoveListener;
 
 /**
  * メモリ上にキャッシュを保持する結果セットキャッシュ実装クラス。
+ * <p/>
+ * {@link #setOffHeapStore(OffHeapResultSetStore)}が設定されている場合、キャッシュ上限を超えて追い出された結果セットを
+ * ヒープ外に移動し、ヒープ外の結果セットにヒットした場合はヒープ上に戻す。
  *
  * @author T.Kawasaki
  */
@@ -30,6 +35,12 @@ public class InMemoryResultSetCache
     /** ログ出力を行うリスナー */
     private final ResultSetCacheLoggingListener listener = new ResultSetCacheLoggingListener();
 
+    /** キャッシュの実体(SQL IDによる削除時にキーを列挙するために保持する) */
+    private Map<ResultSetCacheKey, Expirable<SqlResultSet>> container;
+
+    /** 追い出された結果セットを保持するヒープ外の領域(移動しない場合はnull) */
+    private OffHeapResultSetStore offHeapStore;
+
     /** デフォルトコンストラクタ。 */
     public InMemoryResultSetCache() {
         if (isLoggerEnabled()) {
@@ -39,21 +50,95 @@ public class InMemoryResultSetCache
         // ログが有効でない場合は設定しないのでログ出力されない。
     }
 
+    /**
+     * キャッシュ上限を超えて追い出された結果セットを保持する、ヒープ外の領域を設定する。
+     *
+     * @param offHeapStore ヒープ外の領域
+     */
+    public void setOffHeapStore(OffHeapResultSetStore offHeapStore) {
+        this.offHeapStore = offHeapStore;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected Map<ResultSetCacheKey, Expirable<SqlResultSet>> createCacheContainer(int max) {
-        LRUMap<ResultSetCacheKey, Expirable<SqlResultSet>> lruMap;
-        if (isLoggerEnabled()) {
-            // ログレベルDEBUGが有効の場合はログ出力リスナーを使用する。
-            lruMap = new LRUMap<ResultSetCacheKey, Expirable<SqlResultSet>>(max, listener);
-        } else {
-            // ログが有効でない場合は設定しないのでログ出力されない。
-            lruMap = new LRUMap<ResultSetCacheKey, Expirable<SqlResultSet>>(max);
-        }
+        // 追い出された結果セットをヒープ外に移動するため、ログ出力の有無に関わらずリスナーを使用する。
+        final LRUMap<ResultSetCacheKey, Expirable<SqlResultSet>> lruMap =
+                new LRUMap<ResultSetCacheKey, Expirable<SqlResultSet>>(max, new EvictionListener());
         // マルチスレッドで使用できるよう同期化する。
         // LRUMapは元がLinkedHashMapなので、
         // java.util.concurrentのクラスに置き換えることは難しい。
-        return Collections.synchronizedMap(lruMap);
+        container = Collections.synchronizedMap(lruMap);
+        return container;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * ヒープ上に無い結果セットがヒープ外の領域にある場合は、ヒープ上に戻してから取得する。
+     */
+    @Override
+    public SqlResultSet getIfNotExpired(ResultSetCacheKey key) {
+        if (offHeapStore != null && container != null && !container.containsKey(key)) {
+            final OffHeapResultSetStore.Entry entry = offHeapStore.take(key);
+            if (entry != null) {
+                add(key, entry.getValue(), entry.getExpiredDate());
+            }
+        }
+        return super.getIfNotExpired(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * ヒープ外の領域にある結果セットも削除する。
+     */
+    @Override
+    protected Expirable<SqlResultSet> removeFromCache(ResultSetCacheKey key) {
+        if (offHeapStore != null) {
+            offHeapStore.remove(key);
+        }
+        return super.removeFromCache(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * ヒープ外の領域にある結果セットも削除する。
+     */
+    @Override
+    protected void clearCache() {
+        super.clearCache();
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * キャッシュのキーを列挙して、SQL IDが一致するエントリを削除する。
+     * ヒープ外の領域にある結果セットも削除する。
+     */
+    @Override
+    public void removeBySqlId(String sqlId) {
+        if (container == null) {
+            throw new IllegalStateException("cacheSize must be set.");
+        }
+        final List<ResultSetCacheKey> targets = new ArrayList<ResultSetCacheKey>();
+        synchronized (container) {
+            for (ResultSetCacheKey key : container.keySet()) {
+                if (key.getSqlId().equals(sqlId)) {
+                    targets.add(key);
+                }
+            }
+        }
+        for (ResultSetCacheKey key : targets) {
+            remove(key);
+        }
+        if (offHeapStore != null) {
+            offHeapStore.removeBySqlId(sqlId);
+        }
     }
 
     /**
@@ -65,10 +150,29 @@ public class InMemoryResultSetCache
         return LOGGER.isDebugEnabled();
     }
 
+    /**
+     * キャッシュ上限を超えて追い出された結果セットを、ヒープ外の領域に移動するリスナー。
+     * ログレベルDEBUGが有効の場合は、ログ出力も行う。
+     */
+    private class EvictionListener implements RemoveListener<ResultSetCacheKey, Expirable<SqlResultSet>> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void onRemoveEldest(ResultSetCacheKey key, Expirable<SqlResultSet> value) {
+            if (isLoggerEnabled()) {
+                listener.onRemoveEldest(key, value);
+            }
+            // 有効期限切れの結果セットは移動しない。
+            if (offHeapStore != null && !getNowDate().after(value.getExpiredDate())) {
+                offHeapStore.store(key, value.getContent(), value.getExpiredDate());
+            }
+        }
+    }
+
     /**
      * 各種イベント発生時にログ出力を行うリスナー実装クラス。
      */
-    private static class ResultSetCacheLoggingListener implements
+    static class ResultSetCacheLoggingListener implements
             ExpirableCacheListener<ResultSetCacheKey>,
             RemoveListener<ResultSetCacheKey, Expirable<SqlResultSet>> {
 
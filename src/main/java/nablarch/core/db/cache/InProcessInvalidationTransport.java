@@ -0,0 +1,77 @@
+package nablarch.core.db.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同一JVM内でメッセージを配信する{@link InvalidationTransport}実装クラス。
+ * <p/>
+ * 同じ{@link Hub}を使用するインスタンスの間で、送信したメッセージを呼び出し元スレッドで同期的に配信する。
+ * 1つのJVM内で複数のノードを模擬するテストで、ネットワークを使用する実装の代わりに使用する。
+ */
+public class InProcessInvalidationTransport implements InvalidationTransport {
+
+    /** メッセージを配信する先 */
+    private final Hub hub;
+
+    /** 受信したメッセージを処理するクラス(受信を開始していない場合はnull) */
+    private volatile Receiver receiver;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param hub メッセージを配信する先
+     */
+    public InProcessInvalidationTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        hub.transports.add(this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void send(byte[] message) {
+        hub.sentCount.incrementAndGet();
+        for (InProcessInvalidationTransport transport : hub.transports) {
+            final Receiver current = transport.receiver;
+            if (current != null) {
+                current.onReceive(message.clone());
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void stop() {
+        hub.transports.remove(this);
+        receiver = null;
+    }
+
+    /**
+     * メッセージの配信先となる、ノード間で共有するクラス。
+     */
+    public static class Hub {
+
+        /** 受信を開始したインスタンス */
+        private final List<InProcessInvalidationTransport> transports =
+                new CopyOnWriteArrayList<InProcessInvalidationTransport>();
+
+        /** 送信したメッセージ数 */
+        private final AtomicInteger sentCount = new AtomicInteger();
+
+        /**
+         * これまでに送信したメッセージ数を取得する。
+         *
+         * @return 送信したメッセージ数
+         */
+        public int getSentCount() {
+            return sentCount.get();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package nablarch.core.db.cache;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 結果セットキャッシュの無効化通知を、他のノードと送受信するインタフェース。
+ * <p/>
+ * 実装クラスは、{@link #send(byte[])}で送信したメッセージを、同じ宛先を使用する全てのノードの
+ * {@link Receiver}に配信する。送信元ノード自身に配信してもよい(受信側で送信元ノードのメッセージは無視する)。
+ * 配信の順序と到達は保証しなくてよい。通知が失われた場合も、キャッシュは有効期限で更新される。
+ *
+ * @see CacheInvalidationBus
+ */
+@Published(tag = "architect")
+public interface InvalidationTransport {
+
+    /**
+     * メッセージの受信を開始する。
+     *
+     * @param receiver 受信したメッセージを処理するクラス
+     */
+    void start(Receiver receiver);
+
+    /**
+     * メッセージを送信する。
+     *
+     * @param message メッセージ
+     */
+    void send(byte[] message);
+
+    /**
+     * メッセージの受信を終了し、使用しているリソースを解放する。
+     */
+    void stop();
+
+    /**
+     * 受信したメッセージを処理するインタフェース。
+     */
+    interface Receiver {
+
+        /**
+         * 受信したメッセージを処理する。
+         *
+         * @param message メッセージ
+         */
+        void onReceive(byte[] message);
+    }
+}
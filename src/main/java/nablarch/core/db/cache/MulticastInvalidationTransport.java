@@ -0,0 +1,181 @@
+package nablarch.core.db.cache;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Arrays;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * UDPマルチキャストでメッセージを送受信する{@link InvalidationTransport}実装クラス。
+ * <p/>
+ * 同じマルチキャストグループとポートを設定した全てのノードにメッセージを配信する。
+ * UDPを使用するため、メッセージが失われることがある。
+ * 受信はデーモンスレッドで行い、{@link InvalidationTransport.Receiver}はそのスレッドから呼び出される。
+ */
+public class MulticastInvalidationTransport implements InvalidationTransport {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(MulticastInvalidationTransport.class);
+
+    /** 受信バッファのサイズ(UDPの最大ペイロード) */
+    private static final int RECEIVE_BUFFER_SIZE = 65507;
+
+    /** マルチキャストグループのアドレス */
+    private String group;
+
+    /** ポート番号 */
+    private int port;
+
+    /** マルチキャストパケットのTTL */
+    private int timeToLive = 1;
+
+    /** 使用するネットワークインタフェース名(設定されていない場合はnull) */
+    private String networkInterface;
+
+    /** ソケット(受信を開始していない場合はnull) */
+    private volatile MulticastSocket socket;
+
+    /** 受信を行うスレッド */
+    private Thread receiverThread;
+
+    /**
+     * マルチキャストグループのアドレスを設定する(必須)。
+     *
+     * @param group マルチキャストグループのアドレス(例: "239.255.0.1")
+     */
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    /**
+     * ポート番号を設定する(必須)。
+     *
+     * @param port ポート番号
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * マルチキャストパケットのTTLを設定する。
+     * <p/>
+     * ルータを越えてメッセージを配信する場合に、越えるルータの数より大きな値を設定する。(デフォルトは1)
+     *
+     * @param timeToLive TTL
+     */
+    public void setTimeToLive(int timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * 使用するネットワークインタフェース名を設定する。
+     * <p/>
+     * 設定されていない場合は、OSのデフォルトのネットワークインタフェースを使用する。
+     *
+     * @param networkInterface ネットワークインタフェース名(例: "eth0")
+     */
+    public void setNetworkInterface(String networkInterface) {
+        this.networkInterface = networkInterface;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException マルチキャストグループへの参加に失敗した場合
+     */
+    @Override
+    public synchronized void start(final Receiver receiver) {
+        if (group == null || port <= 0) {
+            throw new IllegalStateException("group and port must be set.");
+        }
+        final MulticastSocket created;
+        try {
+            created = new MulticastSocket(port);
+            created.setTimeToLive(timeToLive);
+            final NetworkInterface nif = networkInterface == null ? null : NetworkInterface.getByName(networkInterface);
+            if (nif != null) {
+                created.setNetworkInterface(nif);
+            }
+            created.joinGroup(new InetSocketAddress(InetAddress.getByName(group), port), nif);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "failed to join multicast group. group = [" + group + "], port = [" + port + ']', e);
+        }
+        socket = created;
+        receiverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receive(created, receiver);
+            }
+        }, "nablarch-rs-cache-invalidation");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    /**
+     * ソケットが閉じられるまでメッセージを受信する。
+     *
+     * @param receivingSocket 受信に使用するソケット
+     * @param receiver 受信したメッセージを処理するクラス
+     */
+    private void receive(MulticastSocket receivingSocket, Receiver receiver) {
+        final byte[] buffer = new byte[RECEIVE_BUFFER_SIZE];
+        while (!receivingSocket.isClosed()) {
+            final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                receivingSocket.receive(packet);
+            } catch (SocketException e) {
+                // stopによりソケットが閉じられた場合
+                return;
+            } catch (IOException e) {
+                LOGGER.logWarn("failed to receive cache invalidation message.", e);
+                continue;
+            }
+            try {
+                receiver.onReceive(Arrays.copyOfRange(packet.getData(), packet.getOffset(),
+                        packet.getOffset() + packet.getLength()));
+            } catch (RuntimeException e) {
+                // 受信スレッドを終了させないよう、ログ出力のみ行う。
+                LOGGER.logWarn("failed to process cache invalidation message.", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 送信に失敗した場合は、ログを出力して処理を継続する。
+     * 無効化通知が失われた場合も、他のノードのキャッシュは有効期限で更新されるため、業務処理は中断しない。
+     */
+    @Override
+    public void send(byte[] message) {
+        final MulticastSocket current = socket;
+        if (current == null) {
+            throw new IllegalStateException("transport is not started.");
+        }
+        try {
+            current.send(new DatagramPacket(message, message.length, InetAddress.getByName(group), port));
+        } catch (IOException e) {
+            LOGGER.logWarn("failed to send cache invalidation message.", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void stop() {
+        final MulticastSocket current = socket;
+        if (current == null) {
+            return;
+        }
+        socket = null;
+        current.close();
+        receiverThread = null;
+    }
+}
@@ -0,0 +1,387 @@
+package nablarch.core.db.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.db.statement.SqlResultSetSerializer;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.Builder;
+
+/**
+ * {@link InMemoryResultSetCache}から追い出された結果セットを、ヒープ外に保持するクラス。
+ * <p/>
+ * 結果セットは{@link SqlResultSetSerializer}でバイト配列に変換し、ヒープ外の{@link ByteBuffer}に保持する。
+ * ヒープ上にはキャッシュキーと格納位置のみを保持するため、有効期限まで保持する大きな結果セットがGCの負荷となることを避けられる。
+ * {@link #setFile(String)}が設定されている場合は、ファイルをメモリにマッピングして使用する。
+ * <p/>
+ * 領域は先頭から順に使用し、末尾に達した場合は先頭に戻って古い結果セットを上書きする。
+ * このため、削除した結果セットや有効期限切れの結果セットの領域は、上書きされるまで解放されない。
+ * <p/>
+ * 本クラスで保持できない結果セット(LOBなど、変換できない型の値を含む結果セット)は保持せず破棄する。
+ * <p/>
+ * 本クラスはスレッドセーフである。
+ */
+public class OffHeapResultSetStore {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("RS_CACHE");
+
+    /** 結果セットの格納位置(格納した順に保持する) */
+    private final Map<ResultSetCacheKey, Slot> slots = new LinkedHashMap<ResultSetCacheKey, Slot>();
+
+    /** 領域のバイト数 */
+    private int maxBytes = 64 * 1024 * 1024;
+
+    /** マッピングするファイルのパス(ヒープ外のメモリを使用する場合はnull) */
+    private String file;
+
+    /** 結果セットを圧縮するか否か */
+    private boolean compression;
+
+    /** 領域(使用するまではnull) */
+    private ByteBuffer buffer;
+
+    /** 次に書き込む位置 */
+    private int writePosition;
+
+    /**
+     * 領域のバイト数を設定する。(デフォルトは64MB)
+     * <p/>
+     * バイト数には単位(B、KB、MB、GB)を指定できる。(例: "256MB")
+     * 1つの{@link ByteBuffer}で保持するため、2GB未満とすること。
+     *
+     * @param maxBytes 領域のバイト数
+     * @throws IllegalArgumentException 形式が不正な場合、または2GB以上の場合
+     */
+    public void setMaxBytes(String maxBytes) {
+        final long bytes = RegionalResultSetCache.parseSize(maxBytes);
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes must be between 1 and " + Integer.MAX_VALUE
+                    + ". maxBytes = [" + maxBytes + ']');
+        }
+        this.maxBytes = (int) bytes;
+    }
+
+    /**
+     * メモリにマッピングするファイルのパスを設定する。
+     * <p/>
+     * 設定されていない場合は、ヒープ外のメモリ({@link ByteBuffer#allocateDirect(int)})を使用する。
+     * ファイルの内容はプロセス内でのみ有効であり、再起動後に引き継がれることはない。
+     *
+     * @param file ファイルのパス
+     */
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    /**
+     * 結果セットを圧縮して保持するか否かを設定する。(デフォルトは圧縮しない)
+     * <p/>
+     * 圧縮してもサイズが小さくならない結果セットは、圧縮せずに保持する。
+     *
+     * @param compression 圧縮する場合は真
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 結果セットを保持する。
+     * <p/>
+     * 同じキャッシュキーの結果セットを保持している場合は置き換える。
+     *
+     * @param key キャッシュキー
+     * @param value 結果セット
+     * @param expiredDate 有効期限
+     * @return 保持した場合は真(保持できない結果セットの場合は偽)
+     */
+    synchronized boolean store(ResultSetCacheKey key, SqlResultSet value, Date expiredDate) {
+        slots.remove(key);
+        byte[] bytes = SqlResultSetSerializer.serialize(value);
+        if (bytes == null || bytes.length > maxBytes) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug(Builder.concat("result set can not be stored off-heap: key=[", key, "]"));
+            }
+            return false;
+        }
+        final int rawLength = bytes.length;
+        boolean compressed = false;
+        if (compression) {
+            final byte[] deflated = deflate(bytes);
+            if (deflated.length < bytes.length) {
+                bytes = deflated;
+                compressed = true;
+            }
+        }
+        final int offset = allocate(bytes.length);
+        final ByteBuffer target = buffer.duplicate();
+        target.position(offset);
+        target.put(bytes);
+        final RestorableResultSet.Restorer restorer = value instanceof RestorableResultSet
+                ? ((RestorableResultSet) value).getRestorer() : null;
+        slots.put(key, new Slot(offset, bytes.length, compressed ? rawLength : -1, expiredDate, restorer));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.logDebug(Builder.concat(
+                    "result set stored off-heap: key=[", key, "], bytes=[", bytes.length, "]"));
+        }
+        return true;
+    }
+
+    /**
+     * 結果セットを取り出す。
+     * <p/>
+     * 取り出した結果セットは、本クラスから削除する。
+     *
+     * @param key キャッシュキー
+     * @return 取り出した結果セット(保持していない場合は{@code null})
+     */
+    synchronized Entry take(ResultSetCacheKey key) {
+        final Slot slot = slots.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] bytes = new byte[slot.length];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(slot.offset);
+        source.get(bytes);
+        if (slot.rawLength >= 0) {
+            bytes = inflate(bytes, slot.rawLength);
+        }
+        final SqlResultSet rows = SqlResultSetSerializer.deserialize(bytes);
+        final SqlResultSet value = slot.restorer == null ? rows : slot.restorer.restore(rows);
+        return new Entry(value, slot.expiredDate);
+    }
+
+    /**
+     * 結果セットを削除する。
+     *
+     * @param key キャッシュキー
+     */
+    synchronized void remove(ResultSetCacheKey key) {
+        slots.remove(key);
+    }
+
+    /**
+     * 指定されたSQL IDの全ての結果セットを削除する。
+     *
+     * @param sqlId SQL ID
+     */
+    synchronized void removeBySqlId(String sqlId) {
+        final Iterator<ResultSetCacheKey> keys = slots.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().getSqlId().equals(sqlId)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * 全ての結果セットを削除する。
+     */
+    synchronized void clear() {
+        slots.clear();
+        writePosition = 0;
+    }
+
+    /**
+     * 結果セットを書き込む位置を確保する。
+     * <p/>
+     * 書き込む範囲と重なる古い結果セットは削除する。
+     * 結果セットは格納した順に領域を使用するため、重なる結果セットは常に最も古いものから順に並ぶ。
+     *
+     * @param length バイト数
+     * @return 書き込む位置
+     */
+    private int allocate(int length) {
+        if (buffer == null) {
+            buffer = createBuffer();
+        }
+        if (writePosition + length > maxBytes) {
+            // 末尾の古い結果セットを削除して、先頭に戻る。
+            evict(writePosition, maxBytes);
+            writePosition = 0;
+        }
+        evict(writePosition, writePosition + length);
+        final int offset = writePosition;
+        writePosition += length;
+        return offset;
+    }
+
+    /**
+     * 指定された範囲から始まる結果セットを、古いものから順に削除する。
+     *
+     * @param from 範囲の開始位置
+     * @param to 範囲の終了位置(この位置を含まない)
+     */
+    private void evict(int from, int to) {
+        final Iterator<Slot> oldest = slots.values().iterator();
+        while (oldest.hasNext()) {
+            final Slot slot = oldest.next();
+            if (slot.offset < from || slot.offset >= to) {
+                return;
+            }
+            oldest.remove();
+        }
+    }
+
+    /**
+     * 領域を生成する。
+     *
+     * @return 領域
+     * @throws IllegalStateException ファイルをマッピングできない場合
+     */
+    private ByteBuffer createBuffer() {
+        if (file == null) {
+            return ByteBuffer.allocateDirect(maxBytes);
+        }
+        try {
+            final RandomAccessFile mapped = new RandomAccessFile(file, "rw");
+            try {
+                // マッピングはチャネルを閉じた後も有効である。
+                return mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, maxBytes);
+            } finally {
+                mapped.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to map file. file = [" + file + ']', e);
+        }
+    }
+
+    /**
+     * バイト配列を圧縮する。
+     *
+     * @param bytes バイト配列
+     * @return 圧縮したバイト配列
+     */
+    private static byte[] deflate(byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            final byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 圧縮したバイト配列を展開する。
+     *
+     * @param bytes 圧縮したバイト配列
+     * @param rawLength 展開後のバイト数
+     * @return 展開したバイト配列
+     * @throws IllegalStateException 展開できない場合
+     */
+    private static byte[] inflate(byte[] bytes, int rawLength) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            final byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(raw, length, rawLength - length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("failed to inflate result set.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 取り出した結果セットと有効期限。
+     */
+    static final class Entry {
+
+        /** 結果セット */
+        private final SqlResultSet value;
+
+        /** 有効期限 */
+        private final Date expiredDate;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param value 結果セット
+         * @param expiredDate 有効期限
+         */
+        private Entry(SqlResultSet value, Date expiredDate) {
+            this.value = value;
+            this.expiredDate = expiredDate;
+        }
+
+        /**
+         * 結果セットを取得する。
+         *
+         * @return 結果セット
+         */
+        SqlResultSet getValue() {
+            return value;
+        }
+
+        /**
+         * 有効期限を取得する。
+         *
+         * @return 有効期限
+         */
+        Date getExpiredDate() {
+            return expiredDate;
+        }
+    }
+
+    /**
+     * 結果セットの格納位置。
+     */
+    private static final class Slot {
+
+        /** 開始位置 */
+        private final int offset;
+
+        /** バイト数 */
+        private final int length;
+
+        /** 圧縮前のバイト数(圧縮していない場合は-1) */
+        private final int rawLength;
+
+        /** 有効期限 */
+        private final Date expiredDate;
+
+        /** 行データから結果セットを復元するクラス(行データのみの場合はnull) */
+        private final RestorableResultSet.Restorer restorer;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param offset 開始位置
+         * @param length バイト数
+         * @param rawLength 圧縮前のバイト数(圧縮していない場合は-1)
+         * @param expiredDate 有効期限
+         * @param restorer 行データから結果セットを復元するクラス
+         */
+        private Slot(int offset, int length, int rawLength, Date expiredDate, RestorableResultSet.Restorer restorer) {
+            this.offset = offset;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.expiredDate = expiredDate;
+            this.restorer = restorer;
+        }
+    }
+}
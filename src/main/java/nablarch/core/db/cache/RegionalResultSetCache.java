@@ -0,0 +1,331 @@
+package nablarch.core.db.cache;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import nablarch.core.cache.expirable.BasicExpirationSetting;
+import nablarch.core.cache.expirable.ExpirableCacheListener;
+import nablarch.core.date.SystemTimeProvider;
+import nablarch.core.db.statement.ResultSetSizeEstimator;
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.repository.initialization.Initializable;
+
+/**
+ * キャッシュ領域ごとに推定バイト数の上限を管理する結果セットキャッシュ実装クラス。
+ * <p/>
+ * SQL IDごとの格納先のキャッシュ領域は、{@link BasicExpirationSetting#setRegion(Map)}で設定する。
+ * キャッシュ領域が設定されていないSQL IDの結果セットは、デフォルトのキャッシュ領域に格納する。
+ * <p/>
+ * 各キャッシュ領域は{@link ConcurrentResultSetCache}であり、推定バイト数の上限を超過した場合は、
+ * そのキャッシュ領域内のエントリのみを削除する。
+ * これにより、大きな結果セットを専用のキャッシュ領域に分離することで、
+ * 頻繁に参照される小さな結果セットが削除されることを防ぐ。
+ * <p/>
+ * 推定バイト数の上限は、数値または数値と単位(KB、MB、GB)の組み合わせで設定する(例: "512KB", "64MB")。
+ * <p/>
+ * 本クラスは{@link Initializable}を実装するため、DIコンテナの初期化対象に設定すること。
+ * 初期化時にキャッシュ領域を生成し、SQL IDに対応付けられたキャッシュ領域名が設定されているかを検証する。
+ */
+public class RegionalResultSetCache implements ResultSetCache, Initializable {
+
+    /** 推定バイト数の上限のパターン(数字＋任意の単位) */
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+)\\s*(|B|KB|MB|GB)");
+
+    /** キャッシュ領域名とキャッシュ領域の推定バイト数の上限 */
+    private final Map<String, String> regionSizes = new HashMap<String, String>();
+
+    /** 生成したキャッシュ領域(未生成の場合、または設定が変更された場合はnull) */
+    private volatile Regions regions;
+
+    /** デフォルトのキャッシュ領域の推定バイト数の上限(設定されていない場合は上限無し) */
+    private String defaultMaxBytes;
+
+    /** キャッシュ領域ごとのキャッシュ上限件数 */
+    private int cacheSize;
+
+    /** SQL IDとキャッシュ領域名のマッピングを保持する設定 */
+    private BasicExpirationSetting expirationSetting;
+
+    /** システム日時提供クラス */
+    private SystemTimeProvider systemTimeProvider;
+
+    /** 結果セットのバイト数を推定するクラス */
+    private ResultSetSizeEstimator sizeEstimator = new ResultSetSizeEstimator();
+
+    /** キャッシュリスナー */
+    private ExpirableCacheListener<ResultSetCacheKey> listener;
+
+    /**
+     * キャッシュ領域名と推定バイト数の上限を設定する。
+     *
+     * @param regions キャッシュ領域名と推定バイト数の上限(例: "large", "256MB")
+     */
+    public void setRegions(Map<String, String> regions) {
+        regionSizes.putAll(regions);
+        this.regions = null;
+    }
+
+    /**
+     * デフォルトのキャッシュ領域の推定バイト数の上限を設定する。
+     * <p/>
+     * 設定されていない場合は上限無しとなる。
+     *
+     * @param defaultMaxBytes 推定バイト数の上限(例: "64MB")
+     */
+    public void setDefaultMaxBytes(String defaultMaxBytes) {
+        this.defaultMaxBytes = defaultMaxBytes;
+        this.regions = null;
+    }
+
+    /**
+     * キャッシュ領域ごとのキャッシュ上限件数を設定する(必須)。
+     *
+     * @param cacheSize キャッシュ上限件数
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.regions = null;
+    }
+
+    /**
+     * SQL IDとキャッシュ領域名のマッピングを保持する設定を設定する(必須)。
+     *
+     * @param expirationSetting 有効期限設定
+     */
+    public void setExpirationSetting(BasicExpirationSetting expirationSetting) {
+        this.expirationSetting = expirationSetting;
+        this.regions = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * キャッシュ領域を生成する。
+     *
+     * @throws IllegalStateException 必須項目が設定されていない場合
+     * @throws IllegalArgumentException 設定されていないキャッシュ領域名がSQL IDに対応付けられている場合
+     */
+    @Override
+    public void initialize() {
+        getRegions();
+    }
+
+    /**
+     * システム日時提供クラスを設定する。
+     *
+     * @param systemTimeProvider システム日時提供クラス
+     * @see ConcurrentResultSetCache#setSystemTimeProvider(SystemTimeProvider)
+     */
+    public void setSystemTimeProvider(SystemTimeProvider systemTimeProvider) {
+        this.systemTimeProvider = systemTimeProvider;
+        this.regions = null;
+    }
+
+    /**
+     * 結果セットのバイト数を推定するクラスを設定する。
+     * <p/>
+     * 設定されていない場合は{@link ResultSetSizeEstimator}を使用する。
+     *
+     * @param sizeEstimator 結果セットのバイト数を推定するクラス
+     */
+    public void setSizeEstimator(ResultSetSizeEstimator sizeEstimator) {
+        this.sizeEstimator = sizeEstimator;
+        this.regions = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void setCacheListener(ExpirableCacheListener<ResultSetCacheKey> listener) {
+        this.listener = listener;
+        final Regions current = regions;
+        if (current != null) {
+            current.defaultRegion.setCacheListener(listener);
+            for (ConcurrentResultSetCache region : current.named.values()) {
+                region.setCacheListener(listener);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SqlResultSet getIfNotExpired(ResultSetCacheKey key) {
+        return regionOf(key).getIfNotExpired(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void add(ResultSetCacheKey key, SqlResultSet value, Date timeout) {
+        regionOf(key).add(key, value, timeout);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addUnlimited(ResultSetCacheKey key, SqlResultSet value) {
+        regionOf(key).addUnlimited(key, value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove(ResultSetCacheKey key) {
+        regionOf(key).remove(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void removeBySqlId(String sqlId) {
+        regionOf(sqlId).removeBySqlId(sqlId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        final Regions current = getRegions();
+        current.defaultRegion.clear();
+        for (ConcurrentResultSetCache region : current.named.values()) {
+            region.clear();
+        }
+    }
+
+    /**
+     * キャッシュキーのSQL IDに対応するキャッシュ領域を取得する。
+     *
+     * @param key キャッシュキー
+     * @return キャッシュ領域
+     * @throws IllegalArgumentException 設定されていないキャッシュ領域名がSQL IDに対応付けられている場合
+     */
+    private ConcurrentResultSetCache regionOf(ResultSetCacheKey key) {
+        return regionOf(key.getSqlId());
+    }
+
+    /**
+     * SQL IDに対応するキャッシュ領域を取得する。
+     *
+     * @param sqlId SQL ID
+     * @return キャッシュ領域
+     * @throws IllegalArgumentException 設定されていないキャッシュ領域名がSQL IDに対応付けられている場合
+     */
+    private ConcurrentResultSetCache regionOf(String sqlId) {
+        final Regions current = getRegions();
+        final String name = expirationSetting.getRegion(sqlId);
+        if (name == null) {
+            return current.defaultRegion;
+        }
+        final ConcurrentResultSetCache region = current.named.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException(
+                    "region was not found. sqlId = [" + sqlId + "], region = [" + name + ']');
+        }
+        return region;
+    }
+
+    /**
+     * キャッシュ領域を取得する。
+     * 生成されていない場合は生成する。
+     *
+     * @return キャッシュ領域
+     */
+    private Regions getRegions() {
+        final Regions current = regions;
+        return current != null ? current : createRegions();
+    }
+
+    /**
+     * キャッシュ領域を生成する。
+     * 既に生成済みの場合は生成済みのキャッシュ領域を返却する。
+     *
+     * @return キャッシュ領域
+     * @throws IllegalStateException 必須項目が設定されていない場合
+     * @throws IllegalArgumentException 設定されていないキャッシュ領域名がSQL IDに対応付けられている場合
+     */
+    private synchronized Regions createRegions() {
+        if (regions != null) {
+            return regions;
+        }
+        if (expirationSetting == null) {
+            throw new IllegalStateException("expirationSetting must be set.");
+        }
+        for (Map.Entry<String, String> entry : expirationSetting.getRegions().entrySet()) {
+            if (!regionSizes.containsKey(entry.getValue())) {
+                throw new IllegalArgumentException("region was not found. sqlId = [" + entry.getKey()
+                        + "], region = [" + entry.getValue() + ']');
+            }
+        }
+        final Map<String, ConcurrentResultSetCache> named = new HashMap<String, ConcurrentResultSetCache>();
+        for (Map.Entry<String, String> entry : regionSizes.entrySet()) {
+            named.put(entry.getKey(), createRegion(parseSize(entry.getValue())));
+        }
+        regions = new Regions(named, createRegion(defaultMaxBytes == null ? 0 : parseSize(defaultMaxBytes)));
+        return regions;
+    }
+
+    /**
+     * キャッシュ領域を生成する。
+     *
+     * @param maxBytes 推定バイト数の上限
+     * @return キャッシュ領域
+     */
+    private ConcurrentResultSetCache createRegion(long maxBytes) {
+        final ConcurrentResultSetCache region = new ConcurrentResultSetCache();
+        region.setCacheSize(cacheSize);
+        region.setMaxBytes(maxBytes);
+        region.setSizeEstimator(sizeEstimator);
+        region.setSystemTimeProvider(systemTimeProvider);
+        if (listener != null) {
+            region.setCacheListener(listener);
+        }
+        return region;
+    }
+
+    /**
+     * 推定バイト数の上限の文字列表現を、バイト数に変換する。
+     *
+     * @param size 推定バイト数の上限の文字列表現
+     * @return バイト数
+     * @throws IllegalArgumentException 文字列表現が不正な場合
+     */
+    static long parseSize(String size) {
+        final Matcher matcher = SIZE_PATTERN.matcher(size.trim().toUpperCase(Locale.ENGLISH));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("invalid size format. size = [" + size + ']');
+        }
+        final long value = Long.parseLong(matcher.group(1));
+        final String unit = matcher.group(2);
+        if ("KB".equals(unit)) {
+            return value * 1024L;
+        }
+        if ("MB".equals(unit)) {
+            return value * 1024L * 1024L;
+        }
+        if ("GB".equals(unit)) {
+            return value * 1024L * 1024L * 1024L;
+        }
+        return value;
+    }
+
+    /**
+     * 生成したキャッシュ領域。
+     */
+    private static final class Regions {
+
+        /** キャッシュ領域名とキャッシュ領域 */
+        private final Map<String, ConcurrentResultSetCache> named;
+
+        /** デフォルトのキャッシュ領域 */
+        private final ConcurrentResultSetCache defaultRegion;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param named キャッシュ領域名とキャッシュ領域
+         * @param defaultRegion デフォルトのキャッシュ領域
+         */
+        private Regions(Map<String, ConcurrentResultSetCache> named, ConcurrentResultSetCache defaultRegion) {
+            this.named = named;
+            this.defaultRegion = defaultRegion;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package nablarch.core.db.cache;
+
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 行データ以外の情報を持つ、キャッシュする結果セットのインタフェース。
+ * <p/>
+ * {@link OffHeapResultSetStore}は行データのみをヒープ外に保持するため、
+ * 本インタフェースを実装した結果セットは、行データ以外の情報を{@link Restorer}としてヒープ上に残し、
+ * ヒープに戻す際に行データと組み合わせて復元する。
+ * 本インタフェースを実装しない結果セットは、行データのみの{@link SqlResultSet}として復元する。
+ */
+@Published(tag = "architect")
+public interface RestorableResultSet {
+
+    /**
+     * 行データから結果セットを復元するクラスを取得する。
+     *
+     * @return 行データから結果セットを復元するクラス
+     */
+    Restorer getRestorer();
+
+    /**
+     * 行データから結果セットを復元するクラス。
+     */
+    interface Restorer {
+
+        /**
+         * 行データから結果セットを復元する。
+         *
+         * @param rows ヒープ外から読み込んだ行データ
+         * @return 復元した結果セット
+         */
+        SqlResultSet restore(SqlResultSet rows);
+    }
+}
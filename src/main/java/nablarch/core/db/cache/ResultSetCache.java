@@ -2,6 +2,7 @@ package nablarch.core.db.cache;
 
 import nablarch.core.cache.expirable.ExpirableCache;
 import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.util.annotation.Published;
 
 /**
  * 結果セットを格納対象とするキャッシュインタフェース。
@@ -9,4 +10,17 @@ import nablarch.core.db.statement.SqlResultSet;
  * @author T.Kawasaki
  */
 public interface ResultSetCache extends ExpirableCache<ResultSetCacheKey, SqlResultSet> {
+
+    /**
+     * 指定されたSQL IDの全てのエントリをキャッシュから削除する。
+     * <p/>
+     * バインド変数の値に関係なく削除するため、キャッシュキーを特定できない場合(他のノードからの無効化通知など)に使用する。
+     * デフォルト実装では、キャッシュをクリアする。
+     *
+     * @param sqlId 削除対象のSQL ID
+     */
+    @Published(tag = "architect")
+    default void removeBySqlId(String sqlId) {
+        clear();
+    }
 }
@@ -0,0 +1,345 @@
+package nablarch.core.db.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nablarch.core.db.connection.AppDbConnection;
+import nablarch.core.db.connection.BasicDbConnection;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.db.statement.SqlWriteListener;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.Builder;
+
+/**
+ * テーブルの更新に応じて、そのテーブルを参照する結果セットキャッシュを無効化するクラス。
+ * <p/>
+ * テーブルごとに更新のたびに加算するバージョンを管理する。
+ * キャッシュする結果セットは、検索前に参照するテーブルのバージョンを{@link Snapshot}として保持し、
+ * キャッシュヒット時に{@link Snapshot#isStale()}でバージョンが変わっていないことを確認する。
+ * このため、キャッシュのエントリを列挙せずに、バインド変数の値に関係なくSQL IDの全てのエントリを無効化できる。
+ * <p/>
+ * 更新時は、更新したトランザクション内の以降の検索が更新前の結果を参照しないよう、直ちにバージョンを加算する。
+ * 加えて、トランザクションの終了後に再度バージョンを加算する。(コネクションが{@link BasicDbConnection}の場合のみ)
+ * コミットした場合は、更新を確定する前に他のトランザクションがキャッシュした更新前の結果を無効化する。
+ * ロールバックした場合は、更新したトランザクション内でキャッシュした、取り消された更新を含む結果を無効化する。
+ * なお、未確定の更新を含む結果が他のトランザクションから参照されないよう、
+ * 参照するテーブルを更新したトランザクション内の検索では、キャッシュを使用しない。({@link #isWrittenInTransaction})
+ * <p/>
+ * 参照するテーブルは、{@link #setCacheTables(Map)}で設定されたSQL IDの場合は設定値を使用し、
+ * 設定されていない場合はSQL文のFROM句、JOIN句から抽出する。
+ * 更新するテーブルは、更新系のSQL文(INSERT、UPDATE、DELETE、MERGE、TRUNCATEなど)から抽出する。
+ * ストアドプロシージャの呼び出しなど、SQL文から更新するテーブルを抽出できない場合は無効化しないため、
+ * 必要に応じて{@link #invalidate(String)}で明示的に無効化すること。
+ * 本クラスは{@link SqlWriteListener}として{@link nablarch.core.db.statement.BasicStatementFactory}に設定する。
+ * <p/>
+ * {@link #setInvalidationBus(CacheInvalidationBus)}が設定されている場合、更新を他のノードに通知し、
+ * 他のノードから通知された更新に応じて無効化する。
+ * 更新を確定する前の更新は他のノードから参照されないため、トランザクションの終了後の無効化のみ通知する。
+ */
+public class ResultSetCacheInvalidator implements SqlWriteListener {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("RS_CACHE");
+
+    /** 参照するテーブルが無い場合のテーブル名 */
+    private static final String[] NO_TABLES = new String[0];
+
+    /** テーブル名とバージョン */
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+
+    /** 設定されたSQL IDと参照するテーブル名 */
+    private final Map<String, String[]> declaredTables = new HashMap<String, String[]>();
+
+    /** SQL IDと参照するテーブル名(SQL文から抽出した結果を保持する) */
+    private final ConcurrentMap<String, String[]> resolvedTables = new ConcurrentHashMap<String, String[]>();
+
+    /** 他のノードに無効化を通知するクラス(通知しない場合はnull) */
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * SQL IDと参照するテーブル名を設定する。
+     * <p/>
+     * SQL文からテーブル名を抽出できない場合(ビューやストアドファンクションを参照する場合など)に、
+     * 無効化の契機となるテーブル名を明示的に設定する。
+     * 本メソッドはDIコンテナから使用されることを想定している。
+     *
+     * @param cacheTables SQL IDとカンマ区切りのテーブル名(例: "SQL_RESOURCE#FIND_USER", "USERS,USER_ROLES")
+     */
+    public void setCacheTables(Map<String, String> cacheTables) {
+        for (Map.Entry<String, String> entry : cacheTables.entrySet()) {
+            final String[] tables = entry.getValue().split(",");
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = SqlTableNames.normalize(tables[i].trim());
+            }
+            declaredTables.put(entry.getKey(), tables);
+        }
+        resolvedTables.clear();
+    }
+
+    /**
+     * 他のノードに無効化を通知するクラスを設定する。
+     * <p/>
+     * 他のノードから通知されたテーブルの更新に応じて、このノードのキャッシュも無効化する。
+     *
+     * @param invalidationBus 他のノードに無効化を通知するクラス
+     */
+    public void setInvalidationBus(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.addListener(new CacheInvalidationBus.Listener() {
+            @Override
+            public void onTableInvalidated(String table) {
+                // 受信した無効化は、他のノードに再度通知しない。
+                increment(table);
+            }
+
+            @Override
+            public void onSqlIdInvalidated(String sqlId) {
+                // SQL IDのエントリの削除はキャッシュが処理する。
+            }
+
+            @Override
+            public void onCleared() {
+                // キャッシュのクリアはキャッシュが処理する。
+            }
+        });
+    }
+
+    /**
+     * 検索前に、参照するテーブルの現在のバージョンを取得する。
+     *
+     * @param sqlId SQL ID
+     * @param sql SQL文(SQL IDのテーブル名が設定されていない場合に、テーブル名の抽出に使用する)
+     * @return 参照するテーブルのバージョン
+     */
+    public Snapshot snapshot(String sqlId, String sql) {
+        final String[] tables = readTables(sqlId, sql);
+        final AtomicLong[] counters = new AtomicLong[tables.length];
+        final long[] snapshot = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            counters[i] = versionOf(tables[i]);
+            snapshot[i] = counters[i].get();
+        }
+        return new Snapshot(counters, snapshot);
+    }
+
+    /**
+     * 検索するトランザクション内で、参照するテーブルを更新済みか判定する。
+     * <p/>
+     * 更新済みの場合、検索結果には未確定の更新が含まれるため、キャッシュを参照せず、キャッシュに設定してもならない。
+     * コネクションが{@link BasicDbConnection}でない場合は、トランザクション内の更新を判定できないため偽を返す。
+     *
+     * @param connection 検索するコネクション
+     * @param sqlId SQL ID
+     * @param sql SQL文(SQL IDのテーブル名が設定されていない場合に、テーブル名の抽出に使用する)
+     * @return 更新済みの場合、真
+     */
+    public boolean isWrittenInTransaction(AppDbConnection connection, String sqlId, String sql) {
+        if (!(connection instanceof BasicDbConnection)) {
+            return false;
+        }
+        final BasicDbConnection basicDbConnection = (BasicDbConnection) connection;
+        for (String table : readTables(sqlId, sql)) {
+            if (basicDbConnection.hasCompletionAction(new InvalidateOnCompletion(table))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、更新系のSQL文(INSERT、UPDATE、DELETE、MERGE、TRUNCATEなど)から抽出する。
+     */
+    @Override
+    public String getWrittenTable(String sql) {
+        return SqlTableNames.writtenTable(sql);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、更新したテーブルを参照する結果セットキャッシュを直ちに無効化し、
+     * コネクションが{@link BasicDbConnection}の場合はトランザクションの終了後(コミットまたはロールバック後)にも無効化する。
+     */
+    @Override
+    public void onWritten(TransactionManagerConnection connection, String table) {
+        increment(table);
+        if (connection instanceof BasicDbConnection) {
+            ((BasicDbConnection) connection).addCompletionAction(new InvalidateOnCompletion(table));
+        } else {
+            // コミットを検知できないため、更新時に通知する。
+            publish(table);
+        }
+    }
+
+    /**
+     * 指定されたテーブルを参照する結果セットキャッシュを無効化する。
+     *
+     * @param table テーブル名
+     */
+    public void invalidate(String table) {
+        final String normalized = SqlTableNames.normalize(table);
+        increment(normalized);
+        publish(normalized);
+    }
+
+    /**
+     * 他のノードにテーブルの更新を通知する。
+     *
+     * @param table 変換済みのテーブル名
+     */
+    private void publish(String table) {
+        if (invalidationBus != null) {
+            invalidationBus.publishTable(table);
+        }
+    }
+
+    /**
+     * テーブルのバージョンを加算する。
+     *
+     * @param table 変換済みのテーブル名
+     */
+    private void increment(String table) {
+        versionOf(table).incrementAndGet();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.logDebug(Builder.concat("result set cache invalidated: table=[", table, "]"));
+        }
+    }
+
+    /**
+     * テーブルのバージョンを取得する。
+     *
+     * @param table テーブル名
+     * @return バージョン
+     */
+    private AtomicLong versionOf(String table) {
+        AtomicLong version = versions.get(table);
+        if (version == null) {
+            final AtomicLong created = new AtomicLong();
+            version = versions.putIfAbsent(table, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        return version;
+    }
+
+    /**
+     * SQL IDが参照するテーブル名を取得する。
+     *
+     * @param sqlId SQL ID
+     * @param sql SQL文
+     * @return 変換済みのテーブル名
+     */
+    private String[] readTables(String sqlId, String sql) {
+        String[] tables = declaredTables.get(sqlId);
+        if (tables == null) {
+            tables = resolvedTables.get(sqlId);
+            if (tables == null) {
+                tables = toArray(SqlTableNames.readTables(sql));
+                resolvedTables.putIfAbsent(sqlId, tables);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * テーブル名の集合を配列に変換する。
+     *
+     * @param tables テーブル名の集合
+     * @return テーブル名の配列
+     */
+    private static String[] toArray(Collection<String> tables) {
+        return tables.isEmpty() ? NO_TABLES : tables.toArray(new String[tables.size()]);
+    }
+
+    /**
+     * 検索前に取得した、参照するテーブルのバージョン。
+     */
+    public static final class Snapshot {
+
+        /** テーブルのバージョン */
+        private final AtomicLong[] counters;
+
+        /** 取得時のバージョン */
+        private final long[] versions;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param counters テーブルのバージョン
+         * @param versions 取得時のバージョン
+         */
+        private Snapshot(AtomicLong[] counters, long[] versions) {
+            this.counters = counters;
+            this.versions = versions;
+        }
+
+        /**
+         * 取得後に、参照するテーブルが更新されたか判定する。
+         *
+         * @return 更新された場合、真
+         */
+        public boolean isStale() {
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i].get() != versions[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * トランザクションの終了後にテーブルを参照する結果セットキャッシュを無効化する処理。
+     * <p/>
+     * 同じテーブルへの更新を繰り返した場合に1回のみ実行するよう、テーブル名で等価性を判定する。
+     */
+    private final class InvalidateOnCompletion implements Runnable {
+
+        /** テーブル名 */
+        private final String table;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param table テーブル名
+         */
+        private InvalidateOnCompletion(String table) {
+            this.table = table;
+        }
+
+        @Override
+        public void run() {
+            increment(table);
+            publish(table);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof InvalidateOnCompletion)) {
+                return false;
+            }
+            final InvalidateOnCompletion other = (InvalidateOnCompletion) o;
+            return table.equals(other.table) && owner() == other.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return table.hashCode();
+        }
+
+        /**
+         * この処理を生成した{@link ResultSetCacheInvalidator}を取得する。
+         *
+         * @return {@link ResultSetCacheInvalidator}
+         */
+        private ResultSetCacheInvalidator owner() {
+            return ResultSetCacheInvalidator.this;
+        }
+    }
+}
@@ -55,6 +55,15 @@ public final class ResultSetCacheKey {
         this.hashCode = calcHashCode();  // インスタンス生成時にハッシュコードを計算して保持しておく。
     }
 
+    /**
+     * SQL IDを取得する。
+     *
+     * @return SQL ID
+     */
+    public String getSqlId() {
+        return sqlId;
+    }
+
     /**
      * {@inheritDoc}
      * 以下の項目が等しい場合に等価と判定する。
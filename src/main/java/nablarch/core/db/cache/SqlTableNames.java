@@ -0,0 +1,169 @@
+package nablarch.core.db.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL文から、参照・更新するテーブル名を抽出するクラス。
+ * <p/>
+ * SQL文を構文解析せず、キーワードの並びから簡易的に抽出する。
+ * このため、抽出結果には実在しないテーブル名が含まれることがあるが、キャッシュの無効化に使用する分には、
+ * 余分に無効化するのみであり問題ない。
+ * 抽出できないテーブルがある場合は、{@link ResultSetCacheInvalidator#setCacheTables(java.util.Map)}で明示的に設定する。
+ * <p/>
+ * テーブル名は、引用符とスキーマ名を除いて大文字に変換する。
+ */
+final class SqlTableNames {
+
+    /** 文字列リテラルとコメントのパターン */
+    private static final Pattern LITERAL_OR_COMMENT = Pattern.compile("'(?:[^']|'')*'|--[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+
+    /** トークンのパターン(引用符で囲んだ識別子、修飾された識別子、または記号1文字) */
+    private static final Pattern TOKEN = Pattern.compile(
+            "(?:\"[^\"]*\"|[\\w$#]+)(?:\\.(?:\"[^\"]*\"|[\\w$#]+))*|\\S");
+
+    /** テーブル名の後に続く、別名でないキーワード */
+    private static final Set<String> CLAUSE_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "WHERE", "ON", "USING", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "OUTER", "NATURAL",
+            "GROUP", "ORDER", "HAVING", "UNION", "INTERSECT", "EXCEPT", "MINUS", "LIMIT", "OFFSET", "FETCH",
+            "FOR", "WINDOW", "CONNECT", "START", "SET", "VALUES", "SELECT"));
+
+    /** 隠蔽コンストラクタ。 */
+    private SqlTableNames() {
+    }
+
+    /**
+     * SQL文のFROM句、JOIN句から参照するテーブル名を抽出する。
+     *
+     * @param sql SQL文
+     * @return 参照するテーブル名
+     */
+    static Set<String> readTables(String sql) {
+        final List<String> tokens = tokenize(sql);
+        final Set<String> tables = new LinkedHashSet<String>();
+        for (int i = 0; i < tokens.size(); i++) {
+            final String keyword = tokens.get(i).toUpperCase(Locale.ENGLISH);
+            if (!"FROM".equals(keyword) && !"JOIN".equals(keyword)) {
+                continue;
+            }
+            int pos = i + 1;
+            while (pos < tokens.size() && isIdentifier(tokens.get(pos))) {
+                tables.add(normalize(tokens.get(pos)));
+                pos = skipAlias(tokens, pos + 1);
+                if (pos >= tokens.size() || !",".equals(tokens.get(pos))) {
+                    break;
+                }
+                pos++;
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 更新系のSQL文から更新するテーブル名を抽出する。
+     * <p/>
+     * INSERT、UPDATE、DELETE、MERGE、TRUNCATE文に対応する。
+     *
+     * @param sql SQL文
+     * @return 更新するテーブル名(抽出できない場合は{@code null})
+     */
+    static String writtenTable(String sql) {
+        final List<String> tokens = tokenize(sql);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        final String command = tokens.get(0).toUpperCase(Locale.ENGLISH);
+        int pos = 1;
+        if ("INSERT".equals(command) || "MERGE".equals(command) || "REPLACE".equals(command)) {
+            pos = skipKeyword(tokens, pos, "INTO");
+        } else if ("DELETE".equals(command)) {
+            pos = skipKeyword(tokens, pos, "FROM");
+        } else if ("TRUNCATE".equals(command)) {
+            pos = skipKeyword(tokens, pos, "TABLE");
+        } else if (!"UPDATE".equals(command)) {
+            return null;
+        }
+        if (pos >= tokens.size() || !isIdentifier(tokens.get(pos))) {
+            return null;
+        }
+        return normalize(tokens.get(pos));
+    }
+
+    /**
+     * SQL文を、文字列リテラルとコメントを除いたトークンに分割する。
+     *
+     * @param sql SQL文
+     * @return トークン
+     */
+    private static List<String> tokenize(String sql) {
+        final String stripped = LITERAL_OR_COMMENT.matcher(sql).replaceAll(" ");
+        final List<String> tokens = new ArrayList<String>();
+        final Matcher matcher = TOKEN.matcher(stripped);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    /**
+     * テーブル名の後に続く別名を読み飛ばす。
+     *
+     * @param tokens トークン
+     * @param pos テーブル名の次の位置
+     * @return 別名の次の位置
+     */
+    private static int skipAlias(List<String> tokens, int pos) {
+        if (pos < tokens.size() && "AS".equalsIgnoreCase(tokens.get(pos))) {
+            return pos + 2;
+        }
+        if (pos < tokens.size() && isIdentifier(tokens.get(pos))
+                && !CLAUSE_KEYWORDS.contains(tokens.get(pos).toUpperCase(Locale.ENGLISH))) {
+            return pos + 1;
+        }
+        return pos;
+    }
+
+    /**
+     * 指定された位置のトークンがキーワードの場合は読み飛ばす。
+     *
+     * @param tokens トークン
+     * @param pos 位置
+     * @param keyword キーワード
+     * @return キーワードの次の位置(キーワードでない場合は指定された位置)
+     */
+    private static int skipKeyword(List<String> tokens, int pos, String keyword) {
+        return pos < tokens.size() && keyword.equalsIgnoreCase(tokens.get(pos)) ? pos + 1 : pos;
+    }
+
+    /**
+     * トークンが識別子か判定する。
+     *
+     * @param token トークン
+     * @return 識別子の場合、真
+     */
+    private static boolean isIdentifier(String token) {
+        final char first = token.charAt(0);
+        return first == '"' || Character.isLetter(first) || first == '_';
+    }
+
+    /**
+     * テーブル名から引用符とスキーマ名を除いて、大文字に変換する。
+     *
+     * @param name テーブル名
+     * @return 変換したテーブル名
+     */
+    static String normalize(String name) {
+        final int dot = name.lastIndexOf('.');
+        // 引用符で囲んだ識別子内のドットは、スキーマ名の区切りとして扱わない。
+        final boolean qualified = dot >= 0 && (name.indexOf('"', dot) < 0 || name.charAt(dot + 1) == '"');
+        final String table = qualified ? name.substring(dot + 1) : name;
+        return table.replace("\"", "").toUpperCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,171 @@
+package nablarch.core.db.cache.statement;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.date.SystemTimeProvider;
+
+/**
+ * キャッシュする結果セットの有効期限と、期限前の再読み込みのタイミングを決定するクラス。
+ * <p/>
+ * 以下の設定を保持する。
+ * <ul>
+ * <li>有効期限のゆらぎ: 有効期限から最大この時間までのランダムな時間を差し引く。
+ * 同時に読み込まれたエントリの有効期限が一斉に切れることを防ぐ。</li>
+ * <li>再読み込みの開始時間: 期限前の再読み込みの対象となるSQL IDの場合、有効期限のこの時間前から、
+ * 最初に参照したスレッドが再読み込みを行う。再読み込み中も、他のスレッドには現在の値を返却する。</li>
+ * <li>期限切れ後の猶予時間: 期限前の再読み込みの対象となるSQL IDの場合、有効期限後もこの時間はキャッシュに保持し、
+ * 再読み込みが完了するまで他のスレッドに現在の値を返却する。</li>
+ * </ul>
+ * 複数のステートメントで共有するため、{@link CacheableStatementFactory}が保持する。
+ */
+class CacheRefreshPolicy {
+
+    /** 期限前の再読み込みの対象となるSQL ID */
+    private Set<String> refreshAheadSqlIds = Collections.emptySet();
+
+    /** 再読み込みを開始する、有効期限までの時間(ミリ秒) */
+    private long refreshAheadTime;
+
+    /** 有効期限後もキャッシュに保持する時間(ミリ秒) */
+    private long staleWhileRevalidateTime;
+
+    /** 有効期限から差し引く時間の最大値(ミリ秒) */
+    private long expirationJitter;
+
+    /** システム日時提供クラス */
+    private SystemTimeProvider systemTimeProvider;
+
+    /**
+     * 指定されたSQL IDが期限前の再読み込みの対象か判定する。
+     *
+     * @param sqlId SQL ID
+     * @return 対象の場合、真
+     */
+    boolean isRefreshAheadTarget(String sqlId) {
+        return refreshAheadSqlIds.contains(sqlId);
+    }
+
+    /**
+     * 有効期限設定から取得した有効期限に、ゆらぎを加える。
+     *
+     * @param expiredDate 有効期限設定から取得した有効期限
+     * @return ゆらぎを加えた有効期限
+     */
+    Date applyJitter(Date expiredDate) {
+        if (expirationJitter <= 0) {
+            return expiredDate;
+        }
+        return new Date(expiredDate.getTime() - ThreadLocalRandom.current().nextLong(expirationJitter + 1));
+    }
+
+    /**
+     * キャッシュに保持する期限を取得する。
+     * 期限前の再読み込みの対象となるSQL IDの場合、有効期限に期限切れ後の猶予時間を加える。
+     *
+     * @param sqlId SQL ID
+     * @param expiredDate 有効期限
+     * @return キャッシュに保持する期限
+     */
+    Date getRetainUntil(String sqlId, Date expiredDate) {
+        if (!isRefreshAheadTarget(sqlId) || staleWhileRevalidateTime <= 0) {
+            return expiredDate;
+        }
+        return new Date(expiredDate.getTime() + staleWhileRevalidateTime);
+    }
+
+    /**
+     * 再読み込みを開始する時刻を、{@link #nanoTime()}を基準とした時刻で取得する。
+     * <p/>
+     * 参照のたびに{@link SystemTimeProvider}から現在日時を取得しないよう、登録時に変換しておく。
+     *
+     * @param sqlId SQL ID
+     * @param expiredDate 有効期限
+     * @return 再読み込みを開始する時刻(再読み込みの対象でない場合は{@link Long#MAX_VALUE})
+     */
+    long getRefreshAt(String sqlId, Date expiredDate) {
+        if (!isRefreshAheadTarget(sqlId)) {
+            return Long.MAX_VALUE;
+        }
+        final long remainingMillis = expiredDate.getTime() - refreshAheadTime - currentTimeMillis();
+        return nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+    }
+
+    /**
+     * 再読み込みを開始する時刻を経過したか判定する。
+     *
+     * @param refreshAt {@link #getRefreshAt(String, Date)}で取得した時刻
+     * @return 経過した場合、真
+     */
+    boolean isRefreshTime(long refreshAt) {
+        return refreshAt != Long.MAX_VALUE && nanoTime() - refreshAt >= 0;
+    }
+
+    /**
+     * 期限前の再読み込みの対象となるSQL IDを設定する。
+     *
+     * @param sqlIds SQL ID(SQLリソース名 + "#" + SQL_ID)
+     */
+    void setRefreshAheadSqlIds(List<String> sqlIds) {
+        refreshAheadSqlIds = new HashSet<String>(sqlIds);
+    }
+
+    /**
+     * 再読み込みを開始する、有効期限までの時間を設定する。
+     *
+     * @param refreshAheadTime 有効期限までの時間(ミリ秒)
+     */
+    void setRefreshAheadTime(long refreshAheadTime) {
+        this.refreshAheadTime = refreshAheadTime;
+    }
+
+    /**
+     * 有効期限後もキャッシュに保持する時間を設定する。
+     *
+     * @param staleWhileRevalidateTime 有効期限後もキャッシュに保持する時間(ミリ秒)
+     */
+    void setStaleWhileRevalidateTime(long staleWhileRevalidateTime) {
+        this.staleWhileRevalidateTime = staleWhileRevalidateTime;
+    }
+
+    /**
+     * 有効期限から差し引く時間の最大値を設定する。
+     *
+     * @param expirationJitter 有効期限から差し引く時間の最大値(ミリ秒)
+     */
+    void setExpirationJitter(long expirationJitter) {
+        this.expirationJitter = expirationJitter;
+    }
+
+    /**
+     * システム日時提供クラスを設定する。
+     *
+     * @param systemTimeProvider システム日時提供クラス
+     */
+    void setSystemTimeProvider(SystemTimeProvider systemTimeProvider) {
+        this.systemTimeProvider = systemTimeProvider;
+    }
+
+    /**
+     * 現在日時をミリ秒で取得する。
+     *
+     * @return 現在日時
+     */
+    private long currentTimeMillis() {
+        return systemTimeProvider == null ? System.currentTimeMillis() : systemTimeProvider.getDate().getTime();
+    }
+
+    /**
+     * 再読み込みの判定に使用する時刻を取得する。
+     *
+     * @return 時刻(ナノ秒)
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+}
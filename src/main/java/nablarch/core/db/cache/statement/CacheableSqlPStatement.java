@@ -5,12 +5,17 @@ import java.util.Date;
 import java.util.List;
 
 import nablarch.core.cache.expirable.ExpirationSetting;
+import nablarch.core.db.DbAccessException;
 import nablarch.core.db.cache.ResultSetCache;
+import nablarch.core.db.cache.ResultSetCacheInvalidator;
 import nablarch.core.db.cache.ResultSetCacheKey;
 import nablarch.core.db.statement.BasicSqlPStatement;
 import nablarch.core.db.statement.ParameterHolder;
 import nablarch.core.db.statement.SqlResultSet;
 import nablarch.core.db.statement.exception.SqlStatementException;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.Builder;
 
 /**
  * キャッシュ機構を備えた{@link nablarch.core.db.statement.SqlPStatement}実装クラス。
@@ -19,6 +24,9 @@ import nablarch.core.db.statement.exception.SqlStatementException;
  */
 public class CacheableSqlPStatement extends BasicSqlPStatement {
 
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("RS_CACHE");
+
     /** キャッシュ */
     private ResultSetCache cache;
 
@@ -28,6 +36,21 @@ public class CacheableSqlPStatement extends BasicSqlPStatement {
     /** SQL ID */
     private final String sqlId;
 
+    /** 実行中の検索(同時のキャッシュミスを待ち合わせない場合はnull) */
+    private InFlightLoads inFlightLoads;
+
+    /** 実行中の検索を待ち合わせる最大時間(ミリ秒) */
+    private long loadWaitTimeout;
+
+    /** 有効期限と再読み込みのタイミングを決定するクラス(設定されていない場合はnull) */
+    private CacheRefreshPolicy refreshPolicy;
+
+    /** 実行中の再読み込み */
+    private InFlightLoads refreshes;
+
+    /** 更新したテーブルの結果セットキャッシュを無効化するクラス(無効化しない場合はnull) */
+    private ResultSetCacheInvalidator resultSetCacheInvalidator;
+
     /**
      * コンストラクタ。
      * 本クラスではSQLIDが必須である。その他の値はスーパクラスに渡される。
@@ -66,12 +89,36 @@ public class CacheableSqlPStatement extends BasicSqlPStatement {
      * キャッシュに値がある場合はキャッシュされた{@link SqlResultSet}が返却される。
      * キャッシュにヒットしない場合、有効期限切れの場合、DBアクセスを行い、
      * キャッシュに値を設定する。
+     * <p/>
+     * キャッシュする{@link SqlResultSet}は、キャッシュへの設定時に変更できない{@link ImmutableSqlResultSet}に変換し、
+     * キャッシュヒット時にはコピーせずにそのまま返却する。
+     * このため、返却した{@link SqlResultSet}を変更した場合は{@link UnsupportedOperationException}が送出される。
+     * <p/>
+     * 期限前の再読み込みの対象となるSQL IDの場合、再読み込みを開始する時刻を経過したエントリを最初に参照したスレッドが
+     * DBアクセスを行いキャッシュを更新する。再読み込み中に参照した他のスレッドには、現在のエントリを返却する。
+     * 再読み込みに失敗した場合は、警告ログを出力して現在のエントリを返却する。
+     * ただし、再読み込みは呼び出し元のトランザクションで行うため、DBアクセスの失敗({@link DbAccessException})は送出する。
+     * <p/>
+     * {@link ResultSetCacheInvalidator}が設定されている場合、検索後に参照するテーブルが更新されたエントリは、
+     * キャッシュミスとして扱う。
+     * また、参照するテーブルを同じトランザクション内で更新済みの場合は、キャッシュを使用せずにDBアクセスを行う。
+     * 未確定の更新を含む検索結果は、キャッシュに設定せず、同時にキャッシュミスした他のスレッドにも返却しない。
      */
     @Override
     protected SqlResultSet doRetrieve(int startPos, int max)
             throws SqlStatementException {
-        SqlResultSet result = getFromCacheOrRetrieve(startPos, max);
-        return new ImmutableSqlResultSet(result);
+        return getFromCacheOrRetrieve(startPos, max);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link #doRetrieve(int, int)}と同じくキャッシュからの値取得を試行し、
+     * 取得した{@link SqlResultSet}の各行をBeanに変換して返却する。
+     */
+    @Override
+    protected <T> List<T> doRetrieveBeans(Class<T> beanClass, int startPos, int max)
+            throws SqlStatementException {
+        return toBeans(beanClass, getFromCacheOrRetrieve(startPos, max));
     }
 
     /**
@@ -82,18 +129,152 @@ public class CacheableSqlPStatement extends BasicSqlPStatement {
      * @return 結果セット
      */
     private SqlResultSet getFromCacheOrRetrieve(int startPos, int max) {
+        if (resultSetCacheInvalidator != null
+                && resultSetCacheInvalidator.isWrittenInTransaction(getConnection(), sqlId, getSql())) {
+            // 未確定の更新を含むため、キャッシュを参照せず、他のトランザクションに参照されないようキャッシュもしない。
+            return new ImmutableSqlResultSet(super.doRetrieve(startPos, max));
+        }
         ResultSetCacheKey key = buildCacheKey(startPos, max);
-        SqlResultSet resultSet = cache.getIfNotExpired(key);
+        SqlResultSet resultSet = getFromCache(key);
         if (resultSet == null) {  // キャッシュミス
+            if (inFlightLoads != null) {
+                return retrieveOnce(key, startPos, max);
+            }
             // 同時実行性を優先するため、
             // ここに複数スレッドが同時に到達する可能性を許容する。
             // （その場合、同じクエリが発行される）
-            resultSet = super.doRetrieve(startPos, max);
-            addToCache(key, resultSet);
+            resultSet = retrieveAndCache(key, startPos, max);
+        } else if (isRefreshTime(resultSet)) {
+            return refresh(key, resultSet, startPos, max);
         }
         return resultSet;
     }
 
+    /**
+     * キャッシュから有効な結果セットを取得する。
+     * <p/>
+     * 参照するテーブルが検索後に更新された結果セットは、キャッシュミスとして扱う。
+     * テーブルの更新は他のノードにも通知されるため、エントリは削除せず検索結果で上書きする。
+     *
+     * @param key キャッシュキー
+     * @return 結果セット(キャッシュミスの場合は{@code null})
+     */
+    private SqlResultSet getFromCache(ResultSetCacheKey key) {
+        final SqlResultSet resultSet = cache.getIfNotExpired(key);
+        if (resultSet instanceof ImmutableSqlResultSet && ((ImmutableSqlResultSet) resultSet).isStale()) {
+            return null;
+        }
+        return resultSet;
+    }
+
+    /**
+     * キャッシュから取得した結果セットが、再読み込みを開始する時刻を経過しているか判定する。
+     *
+     * @param resultSet キャッシュから取得した結果セット
+     * @return 経過している場合、真
+     */
+    private boolean isRefreshTime(SqlResultSet resultSet) {
+        return refreshPolicy != null
+                && resultSet instanceof ImmutableSqlResultSet
+                && refreshPolicy.isRefreshTime(((ImmutableSqlResultSet) resultSet).getRefreshAt());
+    }
+
+    /**
+     * DBアクセスを行い、キャッシュを更新する。
+     * <p/>
+     * 同じキャッシュキーの再読み込みが実行中の場合は、DBアクセスを行わずに現在の結果セットを返却する。
+     * 再読み込みは有効期限前に行うため、失敗した場合は警告ログを出力し、現在の結果セットを返却する。
+     * ただし、DBアクセスに失敗した場合は呼び出し元のトランザクションが使用できない可能性があるため、
+     * 例外をそのまま送出する。
+     *
+     * @param key      キャッシュキー
+     * @param current  キャッシュから取得した現在の結果セット
+     * @param startPos 開始位置
+     * @param max      最大件数
+     * @return 結果セット
+     * @throws DbAccessException DBアクセスに失敗した場合
+     */
+    private SqlResultSet refresh(ResultSetCacheKey key, SqlResultSet current, int startPos, int max) {
+        final InFlightLoads.Load load = refreshes.start(key);
+        if (load == null) {
+            return current;
+        }
+        SqlResultSet resultSet = null;
+        try {
+            resultSet = retrieveAndCache(key, startPos, max);
+            return resultSet;
+        } catch (DbAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            LOGGER.logWarn(Builder.concat("failed to refresh cached result set. key=[", key, "]"), e);
+            return current;
+        } finally {
+            refreshes.complete(key, load, resultSet);
+        }
+    }
+
+    /**
+     * 同じキャッシュキーで同時に発生したキャッシュミスを待ち合わせて、DBアクセスを行う。
+     * <p/>
+     * 同じキャッシュキーの検索が実行中でない場合は、DBアクセスを行いキャッシュに値を設定する。
+     * 実行中の場合はその検索結果を待ち合わせる。
+     * 待ち合わせがタイムアウトした場合、または実行中の検索が失敗した場合は、DBアクセスを行う。
+     * ただし、実行中の検索が待ち合わせを開始する前に完了していた場合は、その検索結果をキャッシュから取得する。
+     *
+     * @param key      キャッシュキー
+     * @param startPos 開始位置
+     * @param max      最大件数
+     * @return 結果セット
+     */
+    private SqlResultSet retrieveOnce(ResultSetCacheKey key, int startPos, int max) {
+        final InFlightLoads.Load load = inFlightLoads.start(key);
+        if (load == null) {
+            final SqlResultSet loaded = inFlightLoads.await(key, loadWaitTimeout);
+            if (loaded != null) {
+                return loaded;
+            }
+            // 実行中の検索が待ち合わせの開始前に完了した場合は、キャッシュに設定されている。
+            final SqlResultSet cached = getFromCache(key);
+            if (cached != null) {
+                return cached;
+            }
+            return retrieveAndCache(key, startPos, max);
+        }
+        SqlResultSet resultSet = null;
+        try {
+            resultSet = retrieveAndCache(key, startPos, max);
+            return resultSet;
+        } finally {
+            inFlightLoads.complete(key, load, resultSet);
+        }
+    }
+
+    /**
+     * DBアクセスを行い、結果を変更できない{@link ImmutableSqlResultSet}に変換してキャッシュに設定する。
+     *
+     * @param key      キャッシュキー
+     * @param startPos 開始位置
+     * @param max      最大件数
+     * @return キャッシュに設定した結果セット
+     */
+    private SqlResultSet retrieveAndCache(ResultSetCacheKey key, int startPos, int max) {
+        // 検索中の更新を検知できるよう、テーブルのバージョンは検索前に取得する。
+        final ResultSetCacheInvalidator.Snapshot snapshot = resultSetCacheInvalidator == null
+                ? null : resultSetCacheInvalidator.snapshot(sqlId, getSql());
+        final SqlResultSet retrieved = super.doRetrieve(startPos, max);
+        Date timeout = expirationSetting.getExpiredDate(sqlId);
+        if (refreshPolicy == null) {
+            final SqlResultSet resultSet = new ImmutableSqlResultSet(retrieved, Long.MAX_VALUE, snapshot);
+            cache.add(key, resultSet, timeout);
+            return resultSet;
+        }
+        timeout = refreshPolicy.applyJitter(timeout);
+        final SqlResultSet resultSet = new ImmutableSqlResultSet(
+                retrieved, refreshPolicy.getRefreshAt(sqlId, timeout), snapshot);
+        cache.add(key, resultSet, refreshPolicy.getRetainUntil(sqlId, timeout));
+        return resultSet;
+    }
+
     /**
      * 以下の要素からキャッシュキーの組み立てを行う。
      * <ul>
@@ -112,17 +293,6 @@ public class CacheableSqlPStatement extends BasicSqlPStatement {
         return new ResultSetCacheKey(sqlId, params, startPos, max);
     }
 
-    /**
-     * キャッシュに値を追加する。
-     *
-     * @param key   キャッシュキー
-     * @param value キャッシュ値
-     */
-    private void addToCache(ResultSetCacheKey key, SqlResultSet value) {
-        Date timeout = expirationSetting.getExpiredDate(sqlId);
-        cache.add(key, value, timeout);
-    }
-
     /**
      * {@inheritDoc}
      * 本クラスでは、ログレベルに関係なく{@link ParameterHolder}を生成する。
@@ -149,4 +319,35 @@ public class CacheableSqlPStatement extends BasicSqlPStatement {
     void setCacheExpiration(ExpirationSetting expiration) {
         this.expirationSetting = expiration;
     }
+
+    /**
+     * 同じキャッシュキーで同時に発生したキャッシュミスを待ち合わせるための設定を行う。
+     *
+     * @param inFlightLoads 実行中の検索(待ち合わせない場合はnull)
+     * @param loadWaitTimeout 実行中の検索を待ち合わせる最大時間(ミリ秒)
+     */
+    void setInFlightLoads(InFlightLoads inFlightLoads, long loadWaitTimeout) {
+        this.inFlightLoads = inFlightLoads;
+        this.loadWaitTimeout = loadWaitTimeout;
+    }
+
+    /**
+     * 更新したテーブルの結果セットキャッシュを無効化するクラスを設定する。
+     *
+     * @param resultSetCacheInvalidator 結果セットキャッシュを無効化するクラス(無効化しない場合はnull)
+     */
+    void setResultSetCacheInvalidator(ResultSetCacheInvalidator resultSetCacheInvalidator) {
+        this.resultSetCacheInvalidator = resultSetCacheInvalidator;
+    }
+
+    /**
+     * 有効期限と再読み込みのタイミングを決定するための設定を行う。
+     *
+     * @param refreshPolicy 有効期限と再読み込みのタイミングを決定するクラス
+     * @param refreshes 実行中の再読み込み
+     */
+    void setRefreshPolicy(CacheRefreshPolicy refreshPolicy, InFlightLoads refreshes) {
+        this.refreshPolicy = refreshPolicy;
+        this.refreshes = refreshes;
+    }
 }
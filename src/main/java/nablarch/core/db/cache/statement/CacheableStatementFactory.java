@@ -2,14 +2,17 @@ package nablarch.core.db.cache.statement;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import nablarch.core.db.DbExecutionContext;
 import nablarch.core.db.cache.ResultSetCache;
+import nablarch.core.db.cache.ResultSetCacheInvalidator;
 import nablarch.core.cache.expirable.ExpirationSetting;
+import nablarch.core.date.SystemTimeProvider;
 import nablarch.core.db.statement.BasicStatementFactory;
 import nablarch.core.db.statement.ParameterizedSqlPStatement;
+import nablarch.core.db.statement.ParsedSql;
 import nablarch.core.db.statement.SqlPStatement;
-import nablarch.core.db.statement.SqlParameterParser;
 
 /**
  * キャッシュ機能を備えた{@link nablarch.core.db.statement.StatementFactory}実装クラス。
@@ -24,6 +27,24 @@ public class CacheableStatementFactory extends BasicStatementFactory {
     /** キャッシュ */
     private ResultSetCache resultSetCache;
 
+    /** 同じキャッシュキーで同時に発生したキャッシュミスを待ち合わせるか否か */
+    private boolean singleFlight;
+
+    /** 実行中の検索を待ち合わせる最大時間(ミリ秒) */
+    private long loadWaitTimeout = 5000;
+
+    /** 実行中の検索 */
+    private final InFlightLoads inFlightLoads = new InFlightLoads();
+
+    /** 有効期限と再読み込みのタイミングを決定するクラス */
+    private final CacheRefreshPolicy refreshPolicy = new CacheRefreshPolicy();
+
+    /** 実行中の再読み込み */
+    private final InFlightLoads refreshes = new InFlightLoads();
+
+    /** 更新したテーブルの結果セットキャッシュを無効化するクラス(無効化しない場合はnull) */
+    private ResultSetCacheInvalidator resultSetCacheInvalidator;
+
     /**
      * {@inheritDoc}
      * 指定されたSQL IDがキャッシュ対象かどうかを判定し、
@@ -44,6 +65,7 @@ public class CacheableStatementFactory extends BasicStatementFactory {
         CacheableSqlPStatement p = new CacheableSqlPStatement(sql, con.prepareStatement(sql), sqlId);
         setCommonPropsTo(p, context);
         p.setAdditionalInfo(String.format("SQL_ID = [%s]", sqlId));
+        setSqlIdPropsTo(p, sqlId);
         setRSCacheAttrTo(p);         // キャッシュ設定
         return p;
     }
@@ -92,13 +114,12 @@ public class CacheableStatementFactory extends BasicStatementFactory {
         }
 
         // 名前付きバインド変数の置き換え
-        SqlParameterParser parser = createParser();
-        parser.parse(original);
-        String parsedSql = parser.getSql();
+        ParsedSql parsed = parseSql(original);
+        String parsedSql = parsed.getSql();
         CacheableSqlPStatement sqlp = new CacheableSqlPStatement(
                 parsedSql,
                 con.prepareStatement(parsedSql),
-                parser.getNameList(),
+                parsed.getNameList(),
                 sqlId);
         setCommonPropsTo(sqlp, context); // 共通設定
         setObjectFieldPropsTo(sqlp);     // オブジェクトのフィールドの値を扱う場合の設定
@@ -106,6 +127,7 @@ public class CacheableStatementFactory extends BasicStatementFactory {
         setRSCacheAttrTo(sqlp);          // 結果セットキャッシュ設定
         // 追加情報にSQLIDとオリジナルのSQLを設定する。
         sqlp.setAdditionalInfo(buildAdditionalInfoForSqlID(sqlId, original));
+        setSqlIdPropsTo(sqlp, sqlId);
         return sqlp;
     }
 
@@ -114,6 +136,9 @@ public class CacheableStatementFactory extends BasicStatementFactory {
      * <ul>
      * <li>有効期限設定</li>
      * <li>キャッシュ</li>
+     * <li>キャッシュミス時の待ち合わせ</li>
+     * <li>有効期限のゆらぎと期限前の再読み込み</li>
+     * <li>更新したテーブルの結果セットキャッシュを無効化するクラス</li>
      * </ul>
      *
      * @param sqlp 設定対象となるステートメント
@@ -121,6 +146,9 @@ public class CacheableStatementFactory extends BasicStatementFactory {
     protected void setRSCacheAttrTo(CacheableSqlPStatement sqlp) {
         sqlp.setCacheExpiration(expirationSetting);
         sqlp.setResultSetCache(resultSetCache);
+        sqlp.setInFlightLoads(singleFlight ? inFlightLoads : null, loadWaitTimeout);
+        sqlp.setRefreshPolicy(refreshPolicy, refreshes);
+        sqlp.setResultSetCacheInvalidator(resultSetCacheInvalidator);
     }
 
     /**
@@ -153,6 +181,111 @@ public class CacheableStatementFactory extends BasicStatementFactory {
         this.resultSetCache = resultSetCache;
     }
 
+    /**
+     * 更新したテーブルの結果セットキャッシュを無効化するクラスを設定する。
+     * <p/>
+     * 設定した場合、更新系のSQL文の実行時に、更新したテーブルを参照する結果セットキャッシュを無効化する。
+     * 無効化はキャッシュヒット時に判定する。(デフォルトは無効化しない)
+     * <p/>
+     * 本メソッドは、{@link #setSqlWriteListener(nablarch.core.db.statement.SqlWriteListener)}にも同じクラスを設定する。
+     * キャッシュ対象でないステートメントを生成する他の{@link BasicStatementFactory}にも、
+     * {@code sqlWriteListener}として同じクラスを設定すること。
+     *
+     * @param resultSetCacheInvalidator 結果セットキャッシュを無効化するクラス
+     */
+    public void setResultSetCacheInvalidator(ResultSetCacheInvalidator resultSetCacheInvalidator) {
+        this.resultSetCacheInvalidator = resultSetCacheInvalidator;
+        setSqlWriteListener(resultSetCacheInvalidator);
+    }
+
+    /**
+     * 同じキャッシュキーで同時に発生したキャッシュミスを待ち合わせるか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合、同じキャッシュキーで同時にキャッシュミスが発生すると、
+     * 最初のスレッドのみがDBアクセスを行い、他のスレッドはその検索結果を待ち合わせる。
+     * 頻繁に参照されるエントリの有効期限切れ時に、同じクエリが一斉に発行されることを防ぐ。
+     * (デフォルトは待ち合わせない)
+     *
+     * @param singleFlight 待ち合わせる場合{@code true}
+     * @see #setLoadWaitTimeout(long)
+     */
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * 実行中の検索を待ち合わせる最大時間を設定する。
+     * <p/>
+     * 待ち合わせがタイムアウトした場合は、待ち合わせを止めてDBアクセスを行う。(デフォルトは5000ミリ秒)
+     *
+     * @param loadWaitTimeout 待ち合わせる最大時間(ミリ秒)
+     */
+    public void setLoadWaitTimeout(long loadWaitTimeout) {
+        this.loadWaitTimeout = loadWaitTimeout;
+    }
+
+    /**
+     * 期限前の再読み込みの対象となるSQL IDを設定する。
+     * <p/>
+     * 対象のSQL IDの結果セットは、有効期限の{@link #setRefreshAheadTime(long)}前を経過した後、
+     * 最初に参照したスレッドがDBアクセスを行いキャッシュを更新する。
+     * 再読み込み中に参照した他のスレッドには、DBアクセスを行わずに現在の結果セットを返却する。
+     * 頻繁に参照されるSQL IDで、有効期限切れ直後の参照がDBアクセスを待たされることを防ぐ。
+     *
+     * @param refreshAheadSqlIds SQL ID(SQLリソース名 + "#" + SQL_ID)
+     */
+    public void setRefreshAheadSqlIds(List<String> refreshAheadSqlIds) {
+        refreshPolicy.setRefreshAheadSqlIds(refreshAheadSqlIds);
+    }
+
+    /**
+     * 期限前の再読み込みを開始する、有効期限までの時間を設定する。(デフォルトは0ミリ秒)
+     *
+     * @param refreshAheadTime 有効期限までの時間(ミリ秒)
+     * @see #setRefreshAheadSqlIds(List)
+     */
+    public void setRefreshAheadTime(long refreshAheadTime) {
+        refreshPolicy.setRefreshAheadTime(refreshAheadTime);
+    }
+
+    /**
+     * 期限前の再読み込みの対象となるSQL IDの結果セットを、有効期限後もキャッシュに保持する時間を設定する。
+     * <p/>
+     * この時間内は、有効期限切れ後も再読み込みが完了するまで他のスレッドに現在の結果セットを返却する。
+     * (デフォルトは0ミリ秒)
+     *
+     * @param staleWhileRevalidateTime 有効期限後もキャッシュに保持する時間(ミリ秒)
+     * @see #setRefreshAheadSqlIds(List)
+     */
+    public void setStaleWhileRevalidateTime(long staleWhileRevalidateTime) {
+        refreshPolicy.setStaleWhileRevalidateTime(staleWhileRevalidateTime);
+    }
+
+    /**
+     * 有効期限から差し引くランダムな時間の最大値を設定する。
+     * <p/>
+     * 同時にキャッシュされた結果セットの有効期限が、一斉に切れることを防ぐ。
+     * (デフォルトは0ミリ秒)
+     *
+     * @param expirationJitter 有効期限から差し引く時間の最大値(ミリ秒)
+     */
+    public void setExpirationJitter(long expirationJitter) {
+        refreshPolicy.setExpirationJitter(expirationJitter);
+    }
+
+    /**
+     * システム日時提供クラスを設定する。
+     * <p/>
+     * 期限前の再読み込みを開始する時刻の算出に使用する。
+     * 有効期限設定と同じシステム日時提供クラスを設定すること。
+     * 設定されていない場合はシステム日時を使用する。
+     *
+     * @param systemTimeProvider システム日時提供クラス
+     */
+    public void setSystemTimeProvider(SystemTimeProvider systemTimeProvider) {
+        refreshPolicy.setSystemTimeProvider(systemTimeProvider);
+    }
+
     /**
      * ステータスのチェックを行う。
      * 必要なプロパティが全て設定されていることを確認する。
@@ -1,45 +1,289 @@
 package nablarch.core.db.cache.statement;
 
 import java.sql.Timestamp;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import nablarch.core.db.cache.ResultSetCacheInvalidator;
+import nablarch.core.db.cache.RestorableResultSet;
 import nablarch.core.db.statement.SqlResultSet;
 import nablarch.core.db.statement.SqlRow;
 
 /**
- * 変更可能な値を変更から保護する{@link SqlResultSet}サブクラス。
+ * 変更できない{@link SqlResultSet}サブクラス。
  * 元の{@link SqlResultSet}の値をコピーして生成される。
+ * 行の追加や削除、行の値の変更を行った場合は、{@link UnsupportedOperationException}を送出する。
  * また、変更可能な値に対して読み出し要求が発生した場合、値をコピーして返却する。
  * これにより元の値が変更されることを防ぐ。
  * <p/>
  * {@link SqlResultSet}インスタンスは変更可能であるため、そのままキャッシュ値として
- * 使用することができない。キャッシュした{@link SqlResultSet}を変更から保護するために
- * 本クラスを使用する。
+ * 使用することができない。キャッシュする{@link SqlResultSet}は、キャッシュへの設定時に
+ * 本クラスに変換する。本クラスは変更できないため、キャッシュヒット時には同じインスタンスを
+ * コピーせずに複数スレッドで共有できる。
+ * <p/>
+ * ヒープ外に移動した場合は、再読み込みを開始する時刻と参照するテーブルのバージョンを
+ * {@link RestorableResultSet.Restorer}としてヒープ上に残し、ヒープに戻す際に引き継ぐ。
  *
  * @author T.Kawasaki
  */
-class ImmutableSqlResultSet extends SqlResultSet {
+class ImmutableSqlResultSet extends SqlResultSet implements RestorableResultSet {
+
+    /** 変更操作を受け付けない、全ての行を参照するビュー */
+    private final transient List<SqlRow> readOnlyView;
+
+    /** 再読み込みを開始する時刻(再読み込みを行わない場合は{@link Long#MAX_VALUE}) */
+    private final long refreshAt;
+
+    /** 検索前に取得した、参照するテーブルのバージョン(テーブルの更新で無効化しない場合はnull) */
+    private final transient ResultSetCacheInvalidator.Snapshot snapshot;
 
     /**
      * コンストラクタ。
      * @param original コピー元の{@link SqlResultSet}
      */
     ImmutableSqlResultSet(SqlResultSet original) {
+        this(original, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param original コピー元の{@link SqlResultSet}
+     * @param refreshAt 再読み込みを開始する時刻({@link CacheRefreshPolicy#getRefreshAt(String, Date)}で取得した時刻)
+     * @param snapshot 検索前に取得した、参照するテーブルのバージョン(テーブルの更新で無効化しない場合は{@code null})
+     */
+    ImmutableSqlResultSet(SqlResultSet original, long refreshAt, ResultSetCacheInvalidator.Snapshot snapshot) {
         super(original.size());
+        this.refreshAt = refreshAt;
+        this.snapshot = snapshot;
         for (SqlRow origRow : original) {
-            add(new ImmutableSqlRow(origRow));
+            super.add(new ImmutableSqlRow(origRow));
         }
+        readOnlyView = Collections.unmodifiableList(new AbstractList<SqlRow>() {
+            @Override
+            public SqlRow get(int index) {
+                return ImmutableSqlResultSet.super.get(index);
+            }
+
+            @Override
+            public int size() {
+                return ImmutableSqlResultSet.super.size();
+            }
+        });
+    }
+
+    /**
+     * 再読み込みを開始する時刻を取得する。
+     *
+     * @return 再読み込みを開始する時刻(再読み込みを行わない場合は{@link Long#MAX_VALUE})
+     */
+    long getRefreshAt() {
+        return refreshAt;
+    }
+
+    /**
+     * 検索後に、参照するテーブルが更新されたか判定する。
+     *
+     * @return 更新された場合、真
+     */
+    boolean isStale() {
+        return snapshot != null && snapshot.isStale();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Restorer getRestorer() {
+        final long currentRefreshAt = refreshAt;
+        final ResultSetCacheInvalidator.Snapshot currentSnapshot = snapshot;
+        return new Restorer() {
+            @Override
+            public SqlResultSet restore(SqlResultSet rows) {
+                return new ImmutableSqlResultSet(rows, currentRefreshAt, currentSnapshot);
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<SqlRow> iterator() {
+        return readOnlyView.iterator();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListIterator<SqlRow> listIterator() {
+        return readOnlyView.listIterator();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListIterator<SqlRow> listIterator(int index) {
+        return readOnlyView.listIterator(index);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SqlRow> subList(int fromIndex, int toIndex) {
+        return readOnlyView.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean add(SqlRow row) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public void add(int index, SqlRow element) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean addAll(Collection<? extends SqlRow> c) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends SqlRow> c) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public SqlRow set(int index, SqlRow element) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public SqlRow remove(int index) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public boolean removeIf(Predicate<? super SqlRow> filter) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public void replaceAll(UnaryOperator<SqlRow> operator) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public void sort(Comparator<? super SqlRow> c) {
+        throw unsupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本クラスでは、{@link UnsupportedOperationException}を送出する。
+     */
+    @Override
+    public void clear() {
+        throw unsupported();
     }
 
     /**
-     * 変更可能な値を変更から保護する{@link SqlRow}サブクラス。
+     * 変更操作が行われた場合に送出する例外を生成する。
+     *
+     * @return 例外
+     */
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("cached result set is unmodifiable.");
+    }
+
+    /**
+     * 変更できない{@link SqlRow}サブクラス。
      * 元の{@link SqlRow}の値をコピーして生成される。
+     * 値の設定や削除を行った場合は、{@link UnsupportedOperationException}を送出する。
      * また、変更可能な値に対して読み出し要求が発生した場合、値をコピーして返却する。
      * これにより元の値が変更されることを防ぐ。
      */
     static class ImmutableSqlRow extends SqlRow {
 
+        /** 変更操作を受け付けないビュー */
+        private final transient Map<String, Object> readOnlyView;
+
+        /**
+         * 値のコピーを終えたか否か。
+         * <p/>
+         * コピー元の値は、スーパクラスのコンストラクタで設定されるため、
+         * コンストラクタの完了までは変更操作を受け付ける。
+         */
+        private final boolean frozen;
+
         /**
          * コンストラクタ。
          *
@@ -47,6 +291,82 @@ class ImmutableSqlResultSet extends SqlResultSet {
          */
         ImmutableSqlRow(SqlRow orig) {
             super(orig);
+            readOnlyView = Collections.unmodifiableMap(new AbstractMap<String, Object>() {
+                @Override
+                public Set<Entry<String, Object>> entrySet() {
+                    return ImmutableSqlRow.super.entrySet();
+                }
+            });
+            frozen = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         * 本クラスでは、値のコピー後は{@link UnsupportedOperationException}を送出する。
+         */
+        @Override
+        public Object put(String key, Object value) {
+            verifyNotFrozen();
+            return super.put(key, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         * 本クラスでは、値のコピー後は{@link UnsupportedOperationException}を送出する。
+         */
+        @Override
+        public void putAll(Map<? extends String, ?> m) {
+            verifyNotFrozen();
+            super.putAll(m);
+        }
+
+        /**
+         * {@inheritDoc}
+         * 本クラスでは、値のコピー後は{@link UnsupportedOperationException}を送出する。
+         */
+        @Override
+        public Object remove(Object key) {
+            verifyNotFrozen();
+            return super.remove(key);
+        }
+
+        /**
+         * {@inheritDoc}
+         * 本クラスでは、値のコピー後は{@link UnsupportedOperationException}を送出する。
+         */
+        @Override
+        public void clear() {
+            verifyNotFrozen();
+            super.clear();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return frozen ? readOnlyView.entrySet() : super.entrySet();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Set<String> keySet() {
+            return frozen ? readOnlyView.keySet() : super.keySet();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Collection<Object> values() {
+            return frozen ? readOnlyView.values() : super.values();
+        }
+
+        /**
+         * 値のコピー後であることを検証する。
+         *
+         * @throws UnsupportedOperationException 値のコピー後の場合
+         */
+        private void verifyNotFrozen() {
+            if (frozen) {
+                throw unsupported();
+            }
         }
 
         /**
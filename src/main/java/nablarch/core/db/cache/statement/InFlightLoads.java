@@ -0,0 +1,87 @@
+package nablarch.core.db.cache.statement;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.db.cache.ResultSetCacheKey;
+import nablarch.core.db.statement.SqlResultSet;
+
+/**
+ * キャッシュミス時に実行中の検索を、キャッシュキーごとに管理するクラス。
+ * <p/>
+ * 同じキャッシュキーで同時にキャッシュミスが発生した場合に、最初のスレッドのみが検索を行い、
+ * 他のスレッドはその検索結果を待ち合わせるために使用する。
+ * 複数のステートメントで共有するため、{@link CacheableStatementFactory}が保持する。
+ */
+final class InFlightLoads {
+
+    /** キャッシュキーと実行中の検索の対応 */
+    private final ConcurrentMap<ResultSetCacheKey, Load> loads = new ConcurrentHashMap<ResultSetCacheKey, Load>();
+
+    /**
+     * 指定されたキャッシュキーの検索を開始する。
+     * <p/>
+     * 同じキャッシュキーの検索が実行中でない場合は、新たな検索を登録して返却する。
+     * 呼び出し元は検索を行い、{@link #complete(ResultSetCacheKey, Load, SqlResultSet)}で結果を通知しなければならない。
+     * 実行中の場合は{@code null}を返却する。この場合、呼び出し元は{@link #await(ResultSetCacheKey, long)}で結果を待ち合わせる。
+     *
+     * @param key キャッシュキー
+     * @return 登録した検索(実行中の検索が存在する場合は{@code null})
+     */
+    Load start(ResultSetCacheKey key) {
+        final Load load = new Load();
+        return loads.putIfAbsent(key, load) == null ? load : null;
+    }
+
+    /**
+     * 検索の終了を通知する。
+     * <p/>
+     * 待ち合わせているスレッドを再開する。検索に失敗した場合は、結果に{@code null}を指定する。
+     *
+     * @param key キャッシュキー
+     * @param load 開始時に登録した検索
+     * @param result 検索結果(検索に失敗した場合は{@code null})
+     */
+    void complete(ResultSetCacheKey key, Load load, SqlResultSet result) {
+        loads.remove(key, load);
+        load.result = result;
+        load.latch.countDown();
+    }
+
+    /**
+     * 実行中の検索の結果を待ち合わせる。
+     *
+     * @param key キャッシュキー
+     * @param timeoutMillis 待ち合わせる最大時間(ミリ秒)
+     * @return 検索結果(実行中の検索が存在しない場合、検索に失敗した場合、または待ち合わせがタイムアウトした場合は{@code null})
+     */
+    SqlResultSet await(ResultSetCacheKey key, long timeoutMillis) {
+        final Load load = loads.get(key);
+        if (load == null) {
+            return null;
+        }
+        try {
+            if (!load.latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return load.result;
+    }
+
+    /**
+     * 実行中の検索。
+     */
+    static final class Load {
+
+        /** 検索の終了を通知するラッチ */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /** 検索結果 */
+        private volatile SqlResultSet result;
+    }
+}
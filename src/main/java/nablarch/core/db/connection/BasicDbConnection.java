@@ -6,12 +6,15 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import nablarch.core.db.DbAccessException;
 import nablarch.core.db.DbExecutionContext;
 import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.BasicSqlPStatement;
 import nablarch.core.db.statement.ParameterizedSqlPStatement;
 import nablarch.core.db.statement.SelectOption;
 import nablarch.core.db.statement.SqlCStatement;
@@ -53,6 +56,9 @@ public class BasicDbConnection implements TransactionManagerConnection {
     /** SqlPStatementのキャッシュ */
     private Map<String, SqlStatement> cacheStatements = null;
 
+    /** ページングの取得範囲をバインド変数で指定するか否か */
+    private boolean paginationParameterBinding;
+
     /** {@link nablarch.core.db.DbAccessException}ファクトリオブジェクト */
     private DbAccessExceptionFactory dbAccessExceptionFactory;
 
@@ -62,6 +68,9 @@ public class BasicDbConnection implements TransactionManagerConnection {
     /** DBアクセス時の実行コンテキスト */
     private DbExecutionContext context;
 
+    /** トランザクションの終了後に実行する処理(登録されていない場合はnull) */
+    private Set<Runnable> completionActions;
+
     /**
      * 指定されたデータ接続を保持するオブジェクトを生成する。
      *
@@ -102,15 +111,22 @@ public class BasicDbConnection implements TransactionManagerConnection {
         } catch (SQLException e) {
             throw dbAccessExceptionFactory.createDbAccessException("failed to commit.", e, this);
         }
+        runCompletionActions();
     }
 
-    /** 現在のデータベース接続に対してrollbackを実行する。 */
+    /**
+     * 現在のデータベース接続に対してrollbackを実行する。
+     * <p/>
+     * rollbackに失敗した場合も、登録されたトランザクションの終了後に実行する処理を実行する。
+     */
     @Override
     public void rollback() {
         try {
             con.rollback();
         } catch (SQLException e) {
             throw dbAccessExceptionFactory.createDbAccessException("failed to rollback.", e, this);
+        } finally {
+            runCompletionActions();
         }
     }
 
@@ -151,6 +167,55 @@ public class BasicDbConnection implements TransactionManagerConnection {
         }
     }
 
+    /**
+     * 現在のトランザクションの終了後に実行する処理を登録する。
+     * <p/>
+     * 登録した処理は、コミットが成功した後、またはロールバックした後に登録順に実行される。
+     * 処理から送出された実行時例外は、トランザクションの終了を妨げないよう警告ログを出力して無視し、残りの処理を実行する。
+     * 等価な処理が既に登録されている場合は登録しない。
+     * 更新したテーブルの結果セットキャッシュを、更新の確定時または取り消し時に無効化するために使用する。
+     *
+     * @param action トランザクションの終了後に実行する処理
+     */
+    public void addCompletionAction(Runnable action) {
+        if (completionActions == null) {
+            completionActions = new LinkedHashSet<Runnable>();
+        }
+        completionActions.add(action);
+    }
+
+    /**
+     * 等価な処理が、現在のトランザクションの終了後に実行する処理として登録されているか判定する。
+     * <p/>
+     * 現在のトランザクションで更新したテーブルの検索結果を、結果セットキャッシュに設定しないために使用する。
+     *
+     * @param action 判定する処理
+     * @return 登録されている場合、真
+     */
+    public boolean hasCompletionAction(Runnable action) {
+        return completionActions != null && completionActions.contains(action);
+    }
+
+    /**
+     * 登録されたトランザクションの終了後に実行する処理を実行する。
+     * <p/>
+     * トランザクションは既に終了しているため、処理に失敗した場合も例外は送出せず、全ての処理を実行する。
+     */
+    private void runCompletionActions() {
+        final Set<Runnable> actions = completionActions;
+        if (actions == null) {
+            return;
+        }
+        completionActions = null;
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.logWarn("failed to run the action after the transaction completed.", e);
+            }
+        }
+    }
+
     /**
      * コネクションをクローズする。<br/>
      * {@link java.sql.Connection#close()}を呼び出す。
@@ -591,6 +656,22 @@ public class BasicDbConnection implements TransactionManagerConnection {
         this.statementReuse = statementReuse;
     }
 
+    /**
+     * ページングの取得範囲をバインド変数で指定するか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合、{@link Dialect#supportsPaginationParameterBinding()}が{@code true}を返す方言では、
+     * 取得範囲をバインド変数で指定したページング用SQL文を使用する。
+     * SQL文が取得範囲に依存しなくなるため、取得範囲が異なる検索でも同一のステートメントを再利用できる。
+     * (デフォルトは、取得範囲をSQL文に埋め込む)
+     * <p/>
+     * 本設定を有効にする場合、{@link StatementFactory}は{@link BasicSqlPStatement}を生成する必要がある。
+     *
+     * @param paginationParameterBinding 取得範囲をバインド変数で指定する場合{@code true}
+     */
+    public void setPaginationParameterBinding(boolean paginationParameterBinding) {
+        this.paginationParameterBinding = paginationParameterBinding;
+    }
+
     /**
      * {@link nablarch.core.db.DbAccessException}ファクトリオブジェクトを設定する。
      *
@@ -627,6 +708,32 @@ public class BasicDbConnection implements TransactionManagerConnection {
             return statement;
         }
 
+        /**
+         * 検索処理オプションを指定して{@link SqlStatement}を生成する。
+         * <p/>
+         * ページングの取得範囲をバインド変数で指定する場合は、取得範囲が異なっても同一のステートメントを再利用し、
+         * ステートメントに今回の検索処理オプションを設定する。
+         *
+         * @param sql ステートメントを生成するためのSQL文
+         * @param selectOption 検索処理オプション
+         * @return 生成したステートメント
+         */
+        public SqlStatement create(String sql, SelectOption selectOption) {
+            if (!isPaginationParameterBinding(selectOption)) {
+                return create(sql, (Object) selectOption);
+            }
+            final SqlStatement statement = create(sql, "pagination parameter binding");
+            if (!(statement instanceof BasicSqlPStatement)) {
+                throw new IllegalStateException(
+                        "pagination parameter binding requires BasicSqlPStatement. statement class = ["
+                                + statement.getClass().getName() + ']');
+            }
+            final BasicSqlPStatement sqlp = (BasicSqlPStatement) statement;
+            sqlp.setSelectOption(selectOption);
+            sqlp.setPaginationParameterBinding(true);
+            return statement;
+        }
+
         /**
          * SQLをキャッシュするためのキー値を生成する。
          * @param sql SQL
@@ -705,12 +812,26 @@ public class BasicDbConnection implements TransactionManagerConnection {
      * @return dialectがoffsetをサポートする場合、検索範囲を設定したSQL
      */
     private String convertPaginationSql(String sql, final SelectOption selectOption) {
-        if (isConvertToPaginatingSql(selectOption)) {
+        if (isPaginationParameterBinding(selectOption)) {
+            sql = getDialect().convertPaginationSqlWithParameters(sql, selectOption);
+        } else if (isConvertToPaginatingSql(selectOption)) {
             sql = getDialect().convertPaginationSql(sql, selectOption);
         }
         return sql;
     }
 
+    /**
+     * ページングの取得範囲をバインド変数で指定するかどうかを判定する。
+     *
+     * @param selectOption 検索処理オプション
+     * @return 取得範囲をバインド変数で指定する場合はtrue
+     */
+    private boolean isPaginationParameterBinding(SelectOption selectOption) {
+        return paginationParameterBinding
+            && getDialect().supportsPaginationParameterBinding()
+            && isConvertToPaginatingSql(selectOption);
+    }
+
     /**
      * ページングの変換処理をかけるかどうかを判定する。
      *
@@ -22,6 +22,9 @@ public abstract class ConnectionFactorySupport implements ConnectionFactory {
     /** Statementのキャッシュ有無(デフォルトは、キャッシュ無) */
     protected boolean statementReuse = true; // SUPPRESS CHECKSTYLE サブクラスで使用するフィールドのため。
 
+    /** ページングの取得範囲をバインド変数で指定するか否か(デフォルトは、取得範囲をSQL文に埋め込む) */
+    protected boolean paginationParameterBinding; // SUPPRESS CHECKSTYLE サブクラスで使用するフィールドのため。
+
     /** {@link nablarch.core.db.DbAccessException}ファクトリオブジェクト */
     protected DbAccessExceptionFactory dbAccessExceptionFactory; // SUPPRESS CHECKSTYLE サブクラスで使用するフィールドのため。
 
@@ -47,6 +50,16 @@ public abstract class ConnectionFactorySupport implements ConnectionFactory {
         this.statementReuse = statementReuse;
     }
 
+    /**
+     * ページングの取得範囲をバインド変数で指定するか否かを設定する。
+     *
+     * @param paginationParameterBinding 取得範囲をバインド変数で指定する場合{@code true}
+     * @see BasicDbConnection#setPaginationParameterBinding(boolean)
+     */
+    public void setPaginationParameterBinding(boolean paginationParameterBinding) {
+        this.paginationParameterBinding = paginationParameterBinding;
+    }
+
     /**
      * {@link nablarch.core.db.DbAccessException}ファクトリオブジェクトを設定する。
      * @param dbAccessExceptionFactory {@link nablarch.core.db.DbAccessException}ファクトリオブジェクト
@@ -72,6 +85,7 @@ public abstract class ConnectionFactorySupport implements ConnectionFactory {
      * <li>BasicDbConnection#initialize()を呼び出し初期化を行う。</li>
      * <li>Statement生成用Factoryを設定する。</li>
      * <li>ステートメントのキャッシュ有無を設定する。</li>
+     * <li>ページングの取得範囲をバインド変数で指定するか否かを設定する。</li>
      * <li>{@link nablarch.core.db.DbAccessException}ファクトリオブジェクトを設定する。</li>
      * </ul>
      * @param dbConnection データベース接続オブジェクト
@@ -81,6 +95,7 @@ public abstract class ConnectionFactorySupport implements ConnectionFactory {
         dbConnection.initialize();
         dbConnection.setFactory(statementFactory);
         dbConnection.setStatementReuse(statementReuse);
+        dbConnection.setPaginationParameterBinding(paginationParameterBinding);
         dbConnection.setDbAccessExceptionFactory(dbAccessExceptionFactory);
         setContext(dbConnection, connectionName);
     }
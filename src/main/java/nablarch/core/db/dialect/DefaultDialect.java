@@ -4,6 +4,8 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 
+import nablarch.core.db.statement.ColumnReader;
+import nablarch.core.db.statement.ColumnReaders;
 import nablarch.core.db.statement.ResultSetConvertor;
 import nablarch.core.db.statement.SelectOption;
 import nablarch.core.db.statement.StatementFactory;
@@ -22,6 +24,9 @@ public class DefaultDialect implements Dialect {
     /** {@link ResultSet}から値を取得するクラス */
     private static final ResultSetConvertor RESULT_SET_CONVERTOR = new DefaultResultSetConvertor();
 
+    /** IN句の要素の一覧を格納する一時表の名前 */
+    private String inListTemporaryTableName;
+
     /**
      * @return {@code false}を返す。
      */
@@ -100,6 +105,71 @@ public class DefaultDialect implements Dialect {
         return sql;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 本実装では、IN句の要素の一覧を格納する一時表の名前が設定されている場合に{@code true}を返す。
+     *
+     * @see #setInListTemporaryTableName(String)
+     */
+    @Override
+    public boolean supportsInListParameter() {
+        return inListTemporaryTableName != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 本実装では、一時表を検索する副問合せを使用した以下形式の条件に変換する。<br/>
+     * {@code IN (SELECT VAL FROM 一時表 WHERE LIST_ID = バインド変数)}
+     *
+     * @throws UnsupportedOperationException 一時表の名前が設定されていない場合
+     */
+    @Override
+    public String convertInListCondition(String parameter, boolean negated) throws UnsupportedOperationException {
+        if (inListTemporaryTableName == null) {
+            throw new UnsupportedOperationException("in list parameter is unsupported.");
+        }
+        return (negated ? "NOT IN" : "IN")
+                + " (SELECT VAL FROM " + inListTemporaryTableName + " WHERE LIST_ID = " + parameter + ')';
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see #setInListTemporaryTableName(String)
+     */
+    @Override
+    public String getInListTemporaryTableName() {
+        return inListTemporaryTableName;
+    }
+
+    /**
+     * IN句の要素の一覧を格納する一時表の名前を設定する。
+     * <p/>
+     * 配列型のバインド変数を使用できないデータベースで、要素数の多いIN句を1つのバインド変数で実行する場合に設定する。
+     * 一時表は、以下のカラムをもつセッション単位の一時表として、事前に作成しておくこと。
+     * <ul>
+     * <li>LIST_ID: 要素の一覧の識別子を格納する、36文字以上の文字列型のカラム</li>
+     * <li>VAL: 要素を格納するカラム(比較対象のカラムと同じ型とすること)</li>
+     * </ul>
+     * 要素の一覧はバインドのたびに新たな識別子で登録するため、登録したレコードはコミット時に削除されるようにすること。
+     * 例えばOracleの場合は、以下のように作成する。
+     * <pre>
+     * CREATE GLOBAL TEMPORARY TABLE IN_LIST_TEMP (
+     *   LIST_ID VARCHAR2(36),
+     *   VAL VARCHAR2(100)
+     * ) ON COMMIT DELETE ROWS
+     * </pre>
+     * 一時表への登録を行うため、読み取り専用のコネクションでは使用できない。
+     * 設定しない場合(デフォルト)は、IN句の要素の一覧を1つのバインド変数で指定する機能はサポートしない。
+     *
+     * @param inListTemporaryTableName 一時表の名前
+     */
+    public void setInListTemporaryTableName(String inListTemporaryTableName) {
+        this.inListTemporaryTableName = inListTemporaryTableName;
+    }
+
     /**
      * {@inheritDoc}
      * <p/>
@@ -146,6 +216,11 @@ public class DefaultDialect implements Dialect {
         public boolean isConvertible(ResultSetMetaData rsmd, int columnIndex) {
             return true;
         }
+
+        @Override
+        public ColumnReader createColumnReader(ResultSetMetaData rsmd, int columnIndex) {
+            return ColumnReaders.object(columnIndex);
+        }
     }
 
 }
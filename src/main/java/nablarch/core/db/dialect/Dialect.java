@@ -1,5 +1,6 @@
 package nablarch.core.db.dialect;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import nablarch.core.db.statement.ResultSetConvertor;
@@ -87,6 +88,121 @@ public interface Dialect {
      */
     String convertPaginationSql(String sql, SelectOption selectOption);
 
+    /**
+     * 取得範囲をバインド変数で指定するページング用SQL文が使用できるか否か。
+     * <p/>
+     * デフォルト実装では、{@code false}を返す。
+     *
+     * @return 使用可能な場合は、{@code true}
+     */
+    default boolean supportsPaginationParameterBinding() {
+        return false;
+    }
+
+    /**
+     * SQL文を、取得範囲をバインド変数で指定するページング用のSQL文に変換する。
+     * <p/>
+     * 取得範囲はSQL文の末尾のバインド変数となる。
+     * 変換後のSQL文は取得範囲の値に依存しないため、ページが異なっても同一のSQL文となる。
+     * バインド変数への値の設定は、{@link #setPaginationParameters(PreparedStatement, int, SelectOption)}で行う。
+     * <p/>
+     * デフォルト実装では、取得範囲をバインド変数で指定するページングはサポートしない。
+     *
+     * @param sql SQL文
+     * @param selectOption 検索時のオプション
+     * @return 変換したSQL文
+     * @throws UnsupportedOperationException サポートしない場合
+     */
+    default String convertPaginationSqlWithParameters(String sql, SelectOption selectOption)
+            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("pagination parameter binding is unsupported.");
+    }
+
+    /**
+     * {@link #convertPaginationSqlWithParameters(String, SelectOption)}で変換したSQL文のバインド変数に、取得範囲を設定する。
+     * <p/>
+     * 取得範囲のバインド変数はSQL文の末尾にあるため、{@code parameterCount}から位置を決定すること。
+     * デフォルト実装では、取得範囲をバインド変数で指定するページングはサポートしない。
+     *
+     * @param statement ステートメント
+     * @param parameterCount ステートメントのバインド変数の数(取得範囲のバインド変数を含む。
+     *                       {@link java.sql.ParameterMetaData#getParameterCount()}で取得した値)
+     * @param selectOption 検索時のオプション
+     * @throws SQLException バインド変数の設定に失敗した場合
+     * @throws UnsupportedOperationException サポートしない場合
+     */
+    default void setPaginationParameters(PreparedStatement statement, int parameterCount, SelectOption selectOption)
+            throws SQLException, UnsupportedOperationException {
+        throw new UnsupportedOperationException("pagination parameter binding is unsupported.");
+    }
+
+    /**
+     * IN句の要素の一覧を、1つのバインド変数で指定できるか否か。
+     * <p/>
+     * 要素数の多いIN句を、要素ごとのバインド変数に展開せずに実行するために使用する。
+     * 配列型のバインド変数をサポートするデータベースでは配列を、サポートしないデータベースでは一時表を使用する。
+     * <p/>
+     * デフォルト実装では、{@code false}を返す。
+     *
+     * @return 使用可能な場合は、{@code true}
+     */
+    default boolean supportsInListParameter() {
+        return false;
+    }
+
+    /**
+     * IN句を、要素の一覧を1つのバインド変数で指定する条件に変換する。
+     * <p/>
+     * 引数の{@code parameter}は、要素の一覧をバインドするバインド変数を表す文字列で、変換後の条件にそのまま埋め込むこと。
+     * 変換後の条件は、比較対象の式の直後に記述されるため、「{@code IN (...)}」の代わりとなる述語を返すこと。
+     * バインド変数への値の設定は、{@link #setInListParameter(PreparedStatement, int, String, Object[])}で行う。
+     * <p/>
+     * デフォルト実装では、IN句の要素の一覧を1つのバインド変数で指定する機能はサポートしない。
+     *
+     * @param parameter バインド変数を表す文字列
+     * @param negated {@code NOT IN}の場合は{@code true}
+     * @return 変換した条件
+     * @throws UnsupportedOperationException サポートしない場合
+     */
+    default String convertInListCondition(String parameter, boolean negated) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("in list parameter is unsupported.");
+    }
+
+    /**
+     * {@link #convertInListCondition(String, boolean)}で変換した条件のバインド変数に、要素の一覧を設定する。
+     * <p/>
+     * 本メソッドはバインド変数への値の設定のみを行い、SQL文の実行などの副作用を伴ってはならない。
+     * デフォルト実装では、IN句の要素の一覧を1つのバインド変数で指定する機能はサポートしない。
+     *
+     * @param statement ステートメント
+     * @param parameterIndex バインド変数のインデックス(1始まり)
+     * @param parameterName バインド変数の名前
+     * @param values 要素の一覧
+     * @throws SQLException バインド変数の設定に失敗した場合
+     * @throws UnsupportedOperationException サポートしない場合
+     * @see #getInListTemporaryTableName()
+     */
+    default void setInListParameter(PreparedStatement statement, int parameterIndex, String parameterName,
+            Object[] values) throws SQLException, UnsupportedOperationException {
+        throw new UnsupportedOperationException("in list parameter is unsupported.");
+    }
+
+    /**
+     * IN句の要素の一覧を格納する一時表の名前を取得する。
+     * <p/>
+     * 一時表の名前を返した場合、{@link #convertInListCondition(String, boolean)}で変換した条件のバインド変数には、
+     * {@link #setInListParameter(PreparedStatement, int, String, Object[])}の代わりに、
+     * ステートメントが一時表に登録した要素の一覧の識別子(LIST_ID)を設定する。
+     * 一時表への登録は、ステートメントと同じコネクションからSQL文を実行して行う。
+     * <p/>
+     * デフォルト実装では、一時表を使用しないため{@code null}を返す。
+     *
+     * @return 一時表の名前(一時表を使用しない場合は{@code null})
+     */
+    default String getInListTemporaryTableName() {
+        return null;
+    }
+
     /**
      * SQL文をレコード数取得用のSQL文に変換する。
      *
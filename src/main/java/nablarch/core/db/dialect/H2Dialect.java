@@ -1,5 +1,6 @@
 package nablarch.core.db.dialect;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import nablarch.core.db.statement.SelectOption;
@@ -120,6 +121,81 @@ public class H2Dialect extends DefaultDialect {
         return result.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * H2では、{@code limit}と{@code offset}にバインド変数を使用できるため、{@code true}を返す。
+     */
+    @Override
+    public boolean supportsPaginationParameterBinding() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * {@code limit ? offset ?}(limitの指定が無い場合は{@code offset ?})を付加したSQL文に変換する。
+     */
+    @Override
+    public String convertPaginationSqlWithParameters(String sql, SelectOption selectOption) {
+        if (selectOption.getLimit() > 0) {
+            return sql + " limit ? offset ?";
+        }
+        return sql + " offset ?";
+    }
+
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int parameterCount, SelectOption selectOption)
+            throws SQLException {
+        final int offset = Math.max(selectOption.getOffset(), 0);
+        if (selectOption.getLimit() > 0) {
+            statement.setInt(parameterCount - 1, selectOption.getLimit());
+        }
+        statement.setInt(parameterCount, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * H2では、配列型のバインド変数を使用できるため、{@code true}を返す。
+     */
+    @Override
+    public boolean supportsInListParameter() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 配列型のバインド変数を使用した{@code = ANY(バインド変数)}({@code NOT IN}の場合は{@code <> ALL(バインド変数)})に変換する。
+     */
+    @Override
+    public String convertInListCondition(String parameter, boolean negated) {
+        return (negated ? "<> ALL(" : "= ANY(") + parameter + ')';
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * {@link java.sql.Connection#createArrayOf(String, Object[])}で生成した配列を設定する。
+     * H2では配列の型名は使用されないため、要素の型は要素の値から決定される。
+     */
+    @Override
+    public void setInListParameter(PreparedStatement statement, int parameterIndex, String parameterName,
+            Object[] values) throws SQLException {
+        statement.setArray(parameterIndex, statement.getConnection().createArrayOf("VARCHAR", values));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * H2では配列型のバインド変数を使用するため、一時表の名前が設定されていても{@code null}を返す。
+     */
+    @Override
+    public String getInListTemporaryTableName() {
+        return null;
+    }
+
     @Override
     public String getPingSql() {
         return "select 1";
@@ -1,10 +1,13 @@
 package nablarch.core.db.dialect;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import nablarch.core.db.statement.ColumnReader;
+import nablarch.core.db.statement.ColumnReaders;
 import nablarch.core.db.statement.ResultSetConvertor;
 import nablarch.core.db.statement.SelectOption;
 import nablarch.core.util.annotation.Published;
@@ -130,6 +133,46 @@ public class OracleDialect extends DefaultDialect {
         return result.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Oracleでは、rownum擬似列の条件にバインド変数を使用できるため、{@code true}を返す。
+     */
+    @Override
+    public boolean supportsPaginationParameterBinding() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * rownum擬似列の条件をバインド変数({@code ROWNUM_ > ? AND ROWNUM_ <= ?})で指定したSQL文に変換する。
+     * limitの指定が無い場合は、{@code ROWNUM_ > ?}のみを指定する。
+     */
+    @Override
+    public String convertPaginationSqlWithParameters(String sql, SelectOption selectOption) {
+        final StringBuilder result = new StringBuilder(256);
+        result.append("SELECT SUB2.* FROM (SELECT SUB1.*, ROWNUM ROWNUM_ FROM (")
+                .append(sql)
+                .append(") SUB1 ) SUB2 WHERE SUB2.ROWNUM_ > ?");
+        if (selectOption.getLimit() > 0) {
+            result.append(" AND SUB2.ROWNUM_ <= ?");
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int parameterCount, SelectOption selectOption)
+            throws SQLException {
+        final int offset = Math.max(selectOption.getOffset(), 0);
+        if (selectOption.getLimit() > 0) {
+            statement.setInt(parameterCount - 1, offset);
+            statement.setInt(parameterCount, offset + selectOption.getLimit());
+        } else {
+            statement.setInt(parameterCount, offset);
+        }
+    }
+
     /**
      * ResultSetから値を取得するクラス。
      */
@@ -151,6 +194,17 @@ public class OracleDialect extends DefaultDialect {
         public boolean isConvertible(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
             return true;
         }
+
+        @Override
+        public ColumnReader createColumnReader(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
+            switch (rsmd.getColumnType(columnIndex)) {
+                case Types.TIMESTAMP:
+                case Types.DATE:
+                    return ColumnReaders.timestamp(columnIndex);
+                default:
+                    return ColumnReaders.object(columnIndex);
+            }
+        }
     }
 
     @Override
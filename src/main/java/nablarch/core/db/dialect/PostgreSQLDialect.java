@@ -1,6 +1,11 @@
 package nablarch.core.db.dialect;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
 
 import nablarch.core.db.statement.SelectOption;
 import nablarch.core.util.annotation.Published;
@@ -19,6 +24,22 @@ public class PostgreSQLDialect extends DefaultDialect {
     /** Query Timeアウト時に発生する例外のエラーコード */
     private static final String QUERY_CANCEL_SQL_STATE = "57014";
 
+    /** 要素の型と配列の型名の対応 */
+    private static final Map<Class<?>, String> ARRAY_TYPE_NAMES = new HashMap<Class<?>, String>();
+
+    static {
+        ARRAY_TYPE_NAMES.put(String.class, "varchar");
+        ARRAY_TYPE_NAMES.put(Short.class, "int2");
+        ARRAY_TYPE_NAMES.put(Integer.class, "int4");
+        ARRAY_TYPE_NAMES.put(Long.class, "int8");
+        ARRAY_TYPE_NAMES.put(Float.class, "float4");
+        ARRAY_TYPE_NAMES.put(Double.class, "float8");
+        ARRAY_TYPE_NAMES.put(BigDecimal.class, "numeric");
+        ARRAY_TYPE_NAMES.put(Boolean.class, "bool");
+        ARRAY_TYPE_NAMES.put(java.sql.Date.class, "date");
+        ARRAY_TYPE_NAMES.put(Timestamp.class, "timestamp");
+    }
+
     /**
      * {@inheritDoc}
      * <p/>
@@ -113,6 +134,102 @@ public class PostgreSQLDialect extends DefaultDialect {
         return result.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * PostgreSQLでは、{@code offset}と{@code limit}にバインド変数を使用できるため、{@code true}を返す。
+     */
+    @Override
+    public boolean supportsPaginationParameterBinding() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * {@code offset ? limit ?}(limitの指定が無い場合は{@code offset ?})を付加したSQL文に変換する。
+     */
+    @Override
+    public String convertPaginationSqlWithParameters(String sql, SelectOption selectOption) {
+        if (selectOption.getLimit() > 0) {
+            return sql + " offset ? limit ?";
+        }
+        return sql + " offset ?";
+    }
+
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int parameterCount, SelectOption selectOption)
+            throws SQLException {
+        final int offset = Math.max(selectOption.getOffset(), 0);
+        if (selectOption.getLimit() > 0) {
+            statement.setInt(parameterCount - 1, offset);
+            statement.setInt(parameterCount, selectOption.getLimit());
+        } else {
+            statement.setInt(parameterCount, offset);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * PostgreSQLでは、配列型のバインド変数を使用できるため、{@code true}を返す。
+     */
+    @Override
+    public boolean supportsInListParameter() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 配列型のバインド変数を使用した{@code = ANY(バインド変数)}({@code NOT IN}の場合は{@code <> ALL(バインド変数)})に変換する。
+     */
+    @Override
+    public String convertInListCondition(String parameter, boolean negated) {
+        return (negated ? "<> ALL(" : "= ANY(") + parameter + ')';
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * {@link java.sql.Connection#createArrayOf(String, Object[])}で生成した配列を設定する。
+     * 配列の型名は、最初の{@code null}でない要素の型から決定する。
+     */
+    @Override
+    public void setInListParameter(PreparedStatement statement, int parameterIndex, String parameterName,
+            Object[] values) throws SQLException {
+        statement.setArray(parameterIndex, statement.getConnection().createArrayOf(toArrayTypeName(values), values));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * PostgreSQLでは配列型のバインド変数を使用するため、一時表の名前が設定されていても{@code null}を返す。
+     */
+    @Override
+    public String getInListTemporaryTableName() {
+        return null;
+    }
+
+    /**
+     * 要素の型に対応する配列の型名を返す。
+     * <p/>
+     * 対応する型名が存在しない場合や、全ての要素が{@code null}の場合は{@code varchar}とする。
+     *
+     * @param values 要素の一覧
+     * @return 配列の型名
+     */
+    static String toArrayTypeName(Object[] values) {
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            final String typeName = ARRAY_TYPE_NAMES.get(value.getClass());
+            return typeName != null ? typeName : "varchar";
+        }
+        return "varchar";
+    }
+
     @Override
     public String getPingSql() {
         return "select 1";
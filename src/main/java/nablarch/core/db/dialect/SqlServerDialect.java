@@ -5,6 +5,8 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import nablarch.core.db.statement.ColumnReader;
+import nablarch.core.db.statement.ColumnReaders;
 import nablarch.core.db.statement.ResultSetConvertor;
 import nablarch.core.util.annotation.Published;
 
@@ -123,6 +125,24 @@ public class SqlServerDialect extends DefaultDialect {
         public boolean isConvertible(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
             return true;
         }
+
+        /**
+         * {@inheritDoc}
+         * <p/>
+         * データタイプによる取得方法の判定は、本メソッドの呼び出し時に一度だけ行う。
+         * ただし、サブクラスで{@link #convert(ResultSet, ResultSetMetaData, int)}がオーバーライドされている可能性があるため、
+         * サブクラスの場合は{@link #convert(ResultSet, ResultSetMetaData, int)}で値を取得する。
+         */
+        @Override
+        public ColumnReader createColumnReader(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
+            if (getClass() != SqlServerResultSetConvertor.class) {
+                return ResultSetConvertor.super.createColumnReader(rsmd, columnIndex);
+            }
+            if (rsmd.getColumnType(columnIndex) == Types.LONGVARBINARY) {
+                return ColumnReaders.binaryStream(columnIndex);
+            }
+            return ColumnReaders.object(columnIndex);
+        }
     }
 
     @Override
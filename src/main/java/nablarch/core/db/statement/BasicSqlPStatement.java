@@ -16,9 +16,14 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,6 +68,9 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     /** 名前付きバインド変数の情報 */
     private final List<NamedParameterHolder> namedParameterHolderList = new ArrayList<NamedParameterHolder>();
 
+    /** オブジェクトのクラスごとのバインドプラン */
+    private final Map<Class<?>, ObjectBindPlan> objectBindPlans = new HashMap<Class<?>, ObjectBindPlan>();
+
     /** パラメータホルダー */
     protected nablarch.core.db.statement.ParameterHolder paramHolder = createParamHolder();        // SUPPRESS CHECKSTYLE サブクラスで使用するフィールドのため。
 
@@ -96,9 +104,36 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     /** DBアクセス時の実行時のコンテキスト */
     private DbExecutionContext context;
 
+    /** バインド処理中に配列へ変換したCollection */
+    private Object arraySource;
+
+    /** {@link #arraySource}を変換した配列 */
+    private Object[] arrayElements;
+
     /** 検索条件オプション */
     private SelectOption selectOption;
 
+    /** 検索条件オプションの取得範囲をバインド変数に設定するか否か */
+    private boolean paginationParameterBinding;
+
+    /** SQL文のバインド変数の数(未算出の場合は-1) */
+    private int parameterCount = -1;
+
+    /** 簡易検索の結果を一時ファイルに書き出す設定(書き出さない場合はnull) */
+    private ResultSetSpillSetting resultSetSpillSetting;
+
+    /** 検索結果の同じ値を集約する際の、カラムごとの値の種類数の上限(0以下の場合は集約しない) */
+    private int valueDictionaryMaxEntries;
+
+    /** 更新系のSQL文の実行を通知するリスナ(通知しない場合はnull) */
+    private SqlWriteListener sqlWriteListener;
+
+    /** 更新するテーブル名({@link #writtenTableResolved}が真の場合のみ有効。抽出できない場合はnull) */
+    private String writtenTable;
+
+    /** 更新するテーブル名を抽出済みの場合、真 */
+    private boolean writtenTableResolved;
+
     /**
      * コンストラクタ。
      *
@@ -148,6 +183,67 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
      * @param max 最大取得件数
      */
     protected SqlResultSet doRetrieve(final int startPos, final int max) throws SqlStatementException {
+        return executeRetrieve(startPos, max, new ResultBuilder<SqlResultSet>() {
+            @Override
+            public SqlResultSet build(ResultSetIterator rs, int start, int limit) {
+                return createSqlResultSet(rs, start, limit);
+            }
+        });
+    }
+
+    /**
+     * 簡易検索処理を実行し、検索結果の各行をBeanに変換する。
+     *
+     * @param beanClass Beanのクラス
+     * @param startPos 検索開始位置
+     * @param max 最大取得件数
+     * @param <T> Beanの型
+     * @return 取得結果
+     * @throws SqlStatementException SQL実行時に{@link SQLException}が発生した場合
+     */
+    protected <T> List<T> doRetrieveBeans(final Class<T> beanClass, final int startPos, final int max)
+            throws SqlStatementException {
+        return executeRetrieve(startPos, max, new ResultBuilder<List<T>>() {
+            @Override
+            public List<T> build(ResultSetIterator rs, int start, int limit) {
+                final List<T> result = new ArrayList<T>(limit <= 0 ? 10 : limit);
+                // 開始位置まで空回し
+                for (int i = 0; (i < (start - 1)) && rs.next(); i++) ;
+
+                while (rs.next()) {
+                    result.add(rs.getRow(beanClass));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * {@link SqlRow}のリストを、Beanのリストに変換する。
+     * <p/>
+     * プロパティとカラムの対応付け、値の型変換は{@link ResultSetIterator#getRow(Class)}と同じとなる。
+     *
+     * @param beanClass Beanのクラス
+     * @param rows 変換対象の行
+     * @param <T> Beanの型
+     * @return Beanのリスト
+     */
+    protected <T> List<T> toBeans(final Class<T> beanClass, final List<SqlRow> rows) {
+        return BeanRowMapper.mapRows(beanClass, rows);
+    }
+
+    /**
+     * 簡易検索処理を実行する。
+     *
+     * @param startPos 検索開始位置
+     * @param max 最大取得件数
+     * @param builder 検索結果から取得結果を構築するオブジェクト
+     * @param <R> 取得結果の型
+     * @return 取得結果
+     * @throws SqlStatementException SQL実行時に{@link SQLException}が発生した場合
+     */
+    private <R extends List<?>> R executeRetrieve(final int startPos, final int max, final ResultBuilder<R> builder)
+            throws SqlStatementException {
         final int start;
         final int limit;
         if (needsClientSidePagination()) {
@@ -157,7 +253,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             start = startPos;
             limit = max;
         }
-        return new BasicSqlPStatement.SqlExecutor<SqlResultSet>() {
+        return new BasicSqlPStatement.SqlExecutor<R>() {
 
             /** 検索開始ポジション */
             private int searchStartPos;
@@ -177,16 +273,17 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             }
 
             @Override
-            SqlResultSet execute() throws SQLException {
+            R execute() throws SQLException {
+                setPaginationParameters();
                 long executeStart = System.currentTimeMillis();
                 ResultSet rs = statement.executeQuery();
                 executeTime = System.currentTimeMillis() - executeStart;
-                SqlResultSet result;
+                R result;
                 Throwable error = null; //ステートメント実行中に発生した実行時例外/エラー
 
                 try {
                     long fetchStart = System.currentTimeMillis();
-                    result = createSqlResultSet(new ResultSetIterator(rs, getResultSetConvertor()), start, limit);
+                    result = builder.build(createResultSetIterator(rs), start, limit);
                     fetchTime = System.currentTimeMillis() - fetchStart;
 
                 } catch (RuntimeException e) {
@@ -196,14 +293,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
                     error = e;
                     throw e;
                 } finally {
-                    try {
-                        rs.close();
-                    } catch (Throwable e) {
-                        LOGGER.logWarn("failed to close result set.", e);
-                        if (error == null) {
-                            throw new RuntimeException(e);
-                        }
-                    }
+                    closeResultSet(rs, error);
                 }
                 return result;
             }
@@ -216,7 +306,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             }
 
             @Override
-            void writeEndLog(long executeTime, SqlResultSet result) {
+            void writeEndLog(long executeTime, R result) {
                 SQL_LOGGER.logDebug(SqlLogUtil.endRetrieve(CLASS_NAME + '#' + getSqlType(),
                         this.executeTime, fetchTime, result.size()));
             }
@@ -229,9 +319,135 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
         .doSql();
     }
 
+    /**
+     * 検索処理を実行し、検索結果を1行ずつコールバックに渡す。
+     * <p/>
+     * フェッチサイズは変更せずに、{@link #setFetchSize(int)}で設定された値を使用する。
+     *
+     * @param callback 1行ごとに呼び出されるコールバック
+     * @return 処理した行数
+     * @throws SqlStatementException SQL実行時に{@link SQLException}が発生した場合
+     */
+    protected int doForEachRow(final SqlRowCallback callback) throws SqlStatementException {
+        final int start;
+        final int limit;
+        if (needsClientSidePagination()) {
+            start = selectOption.getStartPosition();
+            limit = selectOption.getLimit();
+        } else {
+            start = 1;
+            limit = 0;
+        }
+        return new BasicSqlPStatement.SqlExecutor<Integer>() {
+
+            /** 検索開始ポジション */
+            private int searchStartPos;
+
+            /** SQL実行時間 */
+            private long executeTime;
+
+            /** fetch時間(コールバックの処理時間を含む) */
+            private long fetchTime;
+
+            @Override
+            void preprocess() {
+                searchStartPos = start <= 0 ? 1 : start;
+                setMaxRows(limit <= 0 ? 0 : limit + searchStartPos - 1);
+            }
+
+            @Override
+            Integer execute() throws SQLException {
+                setPaginationParameters();
+                long executeStart = System.currentTimeMillis();
+                ResultSet rs = statement.executeQuery();
+                executeTime = System.currentTimeMillis() - executeStart;
+                int count = 0;
+                Throwable error = null; //ステートメント実行中に発生した実行時例外/エラー
+
+                try {
+                    long fetchStart = System.currentTimeMillis();
+                    final ResultSetIterator iterator = createResultSetIterator(rs);
+                    iterator.setStatement(BasicSqlPStatement.this);
+                    // 開始位置まで空回し
+                    for (int i = 0; (i < (searchStartPos - 1)) && iterator.next(); i++) ;
+
+                    while ((limit <= 0 || count < limit) && iterator.next()) {
+                        callback.handle(iterator.getRow());
+                        count++;
+                    }
+                    fetchTime = System.currentTimeMillis() - fetchStart;
+
+                } catch (RuntimeException e) {
+                    error = e;
+                    throw e;
+                } catch (Error e) {
+                    error = e;
+                    throw e;
+                } finally {
+                    closeResultSet(rs, error);
+                }
+                return count;
+            }
+
+            @Override
+            void writeStartLog() {
+                SQL_LOGGER.logDebug(SqlLogUtil.startRetrieve(CLASS_NAME + '#' + getSqlType(), sql,
+                        searchStartPos, limit, getQueryTimeout(), getFetchSize(), additionalInfo));
+                writeParameter();
+            }
+
+            @Override
+            void writeEndLog(long executeTime, Integer result) {
+                SQL_LOGGER.logDebug(SqlLogUtil.endRetrieve(CLASS_NAME + '#' + getSqlType(),
+                        this.executeTime, fetchTime, result));
+            }
+
+            @Override
+            String getSqlType() {
+                return "forEachRow";
+            }
+        }
+        .doSql();
+    }
+
+    /**
+     * {@link ResultSet}をクローズする。
+     * <p/>
+     * クローズに失敗した場合は警告ログを出力し、処理中に例外が発生していなければ実行時例外を送出する。
+     *
+     * @param rs クローズ対象の{@link ResultSet}
+     * @param error 処理中に発生した例外(発生していない場合は{@code null})
+     */
+    private static void closeResultSet(final ResultSet rs, final Throwable error) {
+        try {
+            rs.close();
+        } catch (Throwable e) {
+            LOGGER.logWarn("failed to close result set.", e);
+            if (error == null) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * {@link ResultSetIterator}を生成する。
+     *
+     * @param rs 検索結果
+     * @return 生成したインスタンス
+     */
+    private ResultSetIterator createResultSetIterator(ResultSet rs) {
+        final ResultSetIterator iterator = new ResultSetIterator(rs, getResultSetConvertor());
+        if (valueDictionaryMaxEntries > 0) {
+            iterator.enableValueDictionary(valueDictionaryMaxEntries);
+        }
+        return iterator;
+    }
+
     /**
      * {@link SqlResultSet}を生成する。
      * オーバライドすることで、生成する{@link SqlResultSet}クラスを切り替えることができる。
+     * <p/>
+     * 一時ファイルに書き出す設定がされている場合は、{@link SpillableSqlResultSet}を生成する。
      *
      * @param rs 元となる{@link ResultSetIterator}
      * @param startPos 読み出し開始位置
@@ -239,6 +455,9 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
      * @return 生成したインスタンス
      */
     protected SqlResultSet createSqlResultSet(ResultSetIterator rs, int startPos, int max) {
+        if (resultSetSpillSetting != null) {
+            return new SpillableSqlResultSet(rs, startPos, max, resultSetSpillSetting);
+        }
         return new SqlResultSet(rs, startPos, max);
     }
 
@@ -309,6 +528,66 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public <T> List<T> retrieveBeans(Class<T> beanClass) throws SqlStatementException {
+        return doRetrieveBeans(beanClass, 1, 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> List<T> retrieveBeans(Class<T> beanClass, Map<String, ?> data) throws SqlStatementException {
+        try {
+            setMap(data);
+            return doRetrieveBeans(beanClass, 1, 0);
+        } catch (SQLException e) {
+            throw sqlStatementExceptionFactory
+                    .createSqlStatementException("failed to retrieve.", e, context);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> List<T> retrieveBeans(Class<T> beanClass, Object data) throws SqlStatementException {
+        try {
+            setObject(data);
+            return doRetrieveBeans(beanClass, 1, 0);
+        } catch (SQLException e) {
+            throw sqlStatementExceptionFactory
+                    .createSqlStatementException("failed to retrieve.", e, context);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int forEachRow(SqlRowCallback callback) throws SqlStatementException {
+        return doForEachRow(callback);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int forEachRow(Map<String, ?> data, SqlRowCallback callback) throws SqlStatementException {
+        try {
+            setMap(data);
+            return doForEachRow(callback);
+        } catch (SQLException e) {
+            throw sqlStatementExceptionFactory
+                    .createSqlStatementException("failed to forEachRow.", e, context);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int forEachRow(Object data, SqlRowCallback callback) throws SqlStatementException {
+        try {
+            setObject(data);
+            return doForEachRow(callback);
+        } catch (SQLException e) {
+            throw sqlStatementExceptionFactory
+                    .createSqlStatementException("failed to forEachRow.", e, context);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public ResultSetIterator executeQueryByMap(Map<String, ?> data) throws SqlStatementException {
@@ -438,7 +717,8 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
 
             @Override
             ResultSetIterator execute() throws SQLException {
-                ResultSetIterator iter = new ResultSetIterator(statement.executeQuery(), getResultSetConvertor());
+                setPaginationParameters();
+                ResultSetIterator iter = createResultSetIterator(statement.executeQuery());
                 iter.setStatement(BasicSqlPStatement.this);
                 if (needsClientSidePagination()) {
                     for (int i = 0; (i < selectOption.getOffset()) && iter.next(); i++);
@@ -470,7 +750,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     /** {@inheritDoc} */
     @Override
     public int executeUpdate() throws SqlStatementException {
-        return new BasicSqlPStatement.SqlExecutor<Integer>() {
+        final int result = new BasicSqlPStatement.SqlExecutor<Integer>() {
             @Override
             Integer execute() throws SQLException {
                 return statement.executeUpdate();
@@ -494,6 +774,8 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             }
         }
         .doSql();
+        notifyWritten();
+        return result;
     }
 
     /** {@inheritDoc} */
@@ -707,7 +989,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     /** {@inheritDoc} */
     @Override
     public boolean execute() throws SqlStatementException {
-        return new BasicSqlPStatement.SqlExecutor<Boolean>() {
+        final boolean result = new BasicSqlPStatement.SqlExecutor<Boolean>() {
             @Override
             Boolean execute() throws SQLException {
                 return statement.execute();
@@ -730,6 +1012,8 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             }
         }
         .doSql();
+        notifyWritten();
+        return result;
     }
 
     /** {@inheritDoc} */
@@ -982,7 +1266,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     /** {@inheritDoc} */
     @Override
     public int[] executeBatch() throws SqlStatementException {
-        return new BasicSqlPStatement.SqlExecutor<int[]>() {
+        final int[] result = new BasicSqlPStatement.SqlExecutor<int[]>() {
             @Override
             int[] execute() throws SQLException {
                 int[] result = statement.executeBatch();
@@ -1008,6 +1292,26 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
             }
         }
         .doSql();
+        notifyWritten();
+        return result;
+    }
+
+    /**
+     * 更新系のSQL文を実行したことを、リスナに通知する。
+     * <p/>
+     * SQL文は変更されないため、更新するテーブルは最初の通知時にのみ抽出する。
+     */
+    private void notifyWritten() {
+        if (sqlWriteListener == null) {
+            return;
+        }
+        if (!writtenTableResolved) {
+            writtenTable = sqlWriteListener.getWrittenTable(sql);
+            writtenTableResolved = true;
+        }
+        if (writtenTable != null) {
+            sqlWriteListener.onWritten(context.getConnection(), writtenTable);
+        }
     }
 
     /**
@@ -1085,31 +1389,155 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
      * @throws SQLException データベースアクセス例外が発生した場合
      */
     private void setMap(Map<String, ?> map) throws SQLException {
-        for (int i = 0; i < namedParameterHolderList.size(); i++) {
-            final NamedParameterHolder namedParameterHolder = namedParameterHolderList.get(i);
-            if (!map.containsKey(namedParameterHolder.getParameterName())) {
-                throw new IllegalArgumentException(
-                        String.format("SQL parameter was not found in Object. parameter name=[%s]",
-                                namedParameterHolder.getParameterName()));
+        try {
+            for (int i = 0; i < namedParameterHolderList.size(); i++) {
+                final NamedParameterHolder namedParameterHolder = namedParameterHolderList.get(i);
+                if (!map.containsKey(namedParameterHolder.getParameterName())) {
+                    throw new IllegalArgumentException(
+                            String.format("SQL parameter was not found in Object. parameter name=[%s]",
+                                    namedParameterHolder.getParameterName()));
+                }
+                setNamedParameter(i, namedParameterHolder, map.get(namedParameterHolder.getParameterName()));
             }
+        } finally {
+            clearArrayElements();
+        }
+    }
 
-            Object value = map.get(namedParameterHolder.getParameterName());
-            if (namedParameterHolder.isLikeParameter()) {
-                value = likeEscape(
-                        value == null ? "" : value.toString(),
-                        namedParameterHolder.isBackWardMatch(),
-                        namedParameterHolder.isForwardMatch());
-            } else if (namedParameterHolder.isArray()) {
-                final Integer position = namedParameterHolder.getArrayPosition();
-                if (position == null) {
-                    value = null;
-                } else {
-                    value = DbUtil.getArrayValue(value, position);
-                }
+    /**
+     * 名前付きバインド変数に値を設定する。
+     * <p/>
+     * like条件、配列要素の場合は、バインド変数の定義に従い値を変換してから設定する。
+     *
+     * @param index 名前付きバインド変数のインデックス(0始まり)
+     * @param namedParameterHolder 名前付きバインド変数の情報
+     * @param value 設定する値
+     * @throws SQLException データベースアクセス例外が発生した場合
+     */
+    private void setNamedParameter(int index, NamedParameterHolder namedParameterHolder, Object value)
+            throws SQLException {
+        if (namedParameterHolder.isLikeParameter()) {
+            value = likeEscape(
+                    value == null ? "" : value.toString(),
+                    namedParameterHolder.isBackWardMatch(),
+                    namedParameterHolder.isForwardMatch());
+        } else if (namedParameterHolder.isInList()) {
+            // 要素の一覧を1つのバインド変数に設定する。
+            final Object[] values = toObjectArray(value);
+            final String temporaryTableName = context.getDialect().getInListTemporaryTableName();
+            if (temporaryTableName == null) {
+                context.getDialect().setInListParameter(
+                        statement, index + 1, namedParameterHolder.getParameterName(), values);
+            } else {
+                statement.setString(index + 1, insertInListTemporaryTable(temporaryTableName, values));
+            }
+            paramHolder.add(namedParameterHolder.getOriginalParameterName(), Arrays.asList(values));
+            return;
+        } else if (namedParameterHolder.isArray()) {
+            final Integer position = namedParameterHolder.getArrayPosition();
+            if (position == null) {
+                value = null;
+            } else if (namedParameterHolder.isPadding() && value != null) {
+                // 切り上げにより追加された項目には、最後の要素を設定する。
+                value = getArrayElement(value, Math.min(position, DbUtil.getArraySize(value) - 1));
+            } else {
+                value = getArrayElement(value, position);
             }
-            statement.setObject(i + 1, value);
-            paramHolder.add(namedParameterHolder.getOriginalParameterName(), value);
         }
+        statement.setObject(index + 1, value);
+        paramHolder.add(namedParameterHolder.getOriginalParameterName(), value);
+    }
+
+    /**
+     * IN句の要素の一覧を一時表に登録する。
+     * <p/>
+     * 要素の一覧は、バインドのたびに生成する識別子(LIST_ID)で登録する。
+     * これにより、同じステートメントでバッチ実行する場合や、同じセッションで複数のカーソルを開いている場合も、
+     * 要素の一覧が混在することはない。
+     * 登録は本ステートメントと同じコネクションから生成した{@link SqlPStatement}でバッチ実行するため、
+     * SQLログの出力やクエリタイムアウトは、他のSQL文と同様に行われる。
+     *
+     * @param temporaryTableName 一時表の名前
+     * @param values 要素の一覧
+     * @return 登録した要素の一覧の識別子
+     * @throws SQLException データベースアクセス例外が発生した場合
+     * @throws IllegalStateException コネクションが読み取り専用の場合
+     */
+    private String insertInListTemporaryTable(String temporaryTableName, Object[] values) throws SQLException {
+        if (statement.getConnection().isReadOnly()) {
+            throw new IllegalStateException(
+                    "in list temporary table can not be used with a read-only connection. table = ["
+                            + temporaryTableName + ']');
+        }
+        final String listId = UUID.randomUUID().toString();
+        if (values.length == 0) {
+            return listId;
+        }
+        final SqlPStatement insert = context.getConnection().prepareStatement(
+                "INSERT INTO " + temporaryTableName + " (LIST_ID, VAL) VALUES (?, ?)");
+        try {
+            for (Object value : values) {
+                insert.setString(1, listId);
+                insert.setObject(2, value);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } finally {
+            insert.close();
+        }
+        return listId;
+    }
+
+    /**
+     * 配列またはCollectionから、指定された要素の値を取得する。
+     * <p/>
+     * 添字でアクセスできないCollectionは、最初に要素を取得する際に一度だけ配列に変換し、
+     * 同じバインド処理の中では変換結果を再利用する。
+     * これにより、要素ごとに配列へ変換したり、先頭から走査したりすることを防ぐ。
+     *
+     * @param value 配列またはCollection
+     * @param position 要素の添字
+     * @return 要素の値
+     */
+    private Object getArrayElement(Object value, int position) {
+        if (value instanceof Collection && !(value instanceof RandomAccess)) {
+            if (value != arraySource) {
+                arraySource = value;
+                arrayElements = ((Collection<?>) value).toArray();
+            }
+            return DbUtil.getArrayValue(arrayElements, position);
+        }
+        return DbUtil.getArrayValue(value, position);
+    }
+
+    /**
+     * バインド処理で変換した配列要素の取得元をクリアする。
+     * <p/>
+     * 次のバインド処理で、内容が変更されたCollectionの変換結果を使用しないよう、バインド処理の終了時に呼び出すこと。
+     */
+    private void clearArrayElements() {
+        arraySource = null;
+        arrayElements = null;
+    }
+
+    /**
+     * 配列またはCollectionを、オブジェクトの配列に変換する。
+     *
+     * @param value 配列またはCollection({@code null}の場合は要素なしとみなす)
+     * @return オブジェクトの配列
+     */
+    private static Object[] toObjectArray(Object value) {
+        if (value == null) {
+            return new Object[0];
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).toArray();
+        }
+        final Object[] values = new Object[DbUtil.getArraySize(value)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = java.lang.reflect.Array.get(value, i);
+        }
+        return values;
     }
 
     /**
@@ -1125,13 +1553,46 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
                 anUpdatePreHookObjectHandlerList.handle(data);
             }
         }
-        if(DbUtil.isFieldAccess()) {
+        final boolean fieldAccess = DbUtil.isFieldAccess();
+        final ObjectBindPlan plan = getObjectBindPlan(data.getClass(), fieldAccess);
+        if (plan.isApplicable()) {
+            // オブジェクトをMapにコピーせずに、アクセサから直接値を取得して設定する。
+            try {
+                for (int i = 0; i < namedParameterHolderList.size(); i++) {
+                    setNamedParameter(i, namedParameterHolderList.get(i), plan.getValue(data, i));
+                }
+            } finally {
+                clearArrayElements();
+            }
+        } else if (fieldAccess) {
             setMap(DbUtil.createMapAndCopy(data));
         } else {
             setMap(BeanUtil.createMapAndCopy(data));
         }
     }
 
+    /**
+     * オブジェクトのクラスに対応するバインドプランを取得する。
+     * <p/>
+     * バインドプランはクラスごとに一度だけ構築し、本ステートメント内で再利用する。
+     *
+     * @param beanClass オブジェクトのクラス
+     * @param fieldAccess フィールドアクセスする場合{@code true}
+     * @return バインドプラン
+     */
+    private ObjectBindPlan getObjectBindPlan(Class<?> beanClass, boolean fieldAccess) {
+        ObjectBindPlan plan = objectBindPlans.get(beanClass);
+        if (plan == null || plan.isFieldAccess() != fieldAccess) {
+            final List<String> parameterNames = new ArrayList<String>(namedParameterHolderList.size());
+            for (NamedParameterHolder namedParameterHolder : namedParameterHolderList) {
+                parameterNames.add(namedParameterHolder.getParameterName());
+            }
+            plan = ObjectBindPlan.create(beanClass, parameterNames, fieldAccess);
+            objectBindPlans.put(beanClass, plan);
+        }
+        return plan;
+    }
+
     /**
      * like条件をエスケープする。<br/>
      *
@@ -1245,6 +1706,24 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
         return context.getConnection();
     }
 
+    /**
+     * 検索結果から取得結果を構築するインタフェース。
+     *
+     * @param <R> 取得結果の型
+     */
+    private interface ResultBuilder<R> {
+
+        /**
+         * 検索結果から取得結果を構築する。
+         *
+         * @param rs 検索結果
+         * @param startPos 読み出し開始位置
+         * @param max 読み込み最大件数
+         * @return 取得結果
+         */
+        R build(ResultSetIterator rs, int startPos, int max);
+    }
+
     /**
      * SQL文を実行するためのテンプレートクラス。
      *
@@ -1402,6 +1881,82 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
        this.selectOption = selectOption;
     }
 
+    /**
+     * 検索処理条件の取得範囲をバインド変数に設定するか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合、SQL文は{@link nablarch.core.db.dialect.Dialect#convertPaginationSqlWithParameters(String, SelectOption)}
+     * で変換されている必要がある。
+     * 取得範囲は、検索処理の実行時に{@link nablarch.core.db.dialect.Dialect#setPaginationParameters(PreparedStatement, int, SelectOption)}
+     * を使用してバインド変数に設定する。
+     *
+     * @param paginationParameterBinding 取得範囲をバインド変数に設定する場合{@code true}
+     */
+    public void setPaginationParameterBinding(boolean paginationParameterBinding) {
+        this.paginationParameterBinding = paginationParameterBinding;
+    }
+
+    /**
+     * 簡易検索の結果を一時ファイルに書き出す設定を設定する。
+     *
+     * @param resultSetSpillSetting 簡易検索の結果を一時ファイルに書き出す設定({@code null}の場合は書き出さない)
+     */
+    public void setResultSetSpillSetting(ResultSetSpillSetting resultSetSpillSetting) {
+        this.resultSetSpillSetting = resultSetSpillSetting;
+    }
+
+    /**
+     * 更新系のSQL文の実行を通知するリスナを設定する。
+     * <p/>
+     * 設定した場合、{@link #executeUpdate()}、{@link #executeBatch()}の実行後に更新したテーブルを通知する。
+     *
+     * @param sqlWriteListener 更新系のSQL文の実行を通知するリスナ({@code null}の場合は通知しない)
+     */
+    public void setSqlWriteListener(SqlWriteListener sqlWriteListener) {
+        this.sqlWriteListener = sqlWriteListener;
+        writtenTable = null;
+        writtenTableResolved = false;
+    }
+
+    /**
+     * SQL文を取得する。
+     *
+     * @return SQL文
+     */
+    protected String getSql() {
+        return sql;
+    }
+
+    /**
+     * 検索結果の同じ値を集約する際の、カラムごとの値の種類数の上限を設定する。
+     * <p/>
+     * 1以上を設定した場合、検索結果のカラムごとに、同じ値の文字列と数値を1つのインスタンスに集約する。
+     * ステータスコードや区分値のように、少ない種類の値が多くの行で繰り返される検索結果で、保持するヒープを削減できる。
+     * 値の種類数が上限に達したカラムは、以降の集約を行わない。
+     *
+     * @param valueDictionaryMaxEntries カラムごとの値の種類数の上限(0以下の場合は集約しない)
+     */
+    public void setValueDictionaryMaxEntries(int valueDictionaryMaxEntries) {
+        this.valueDictionaryMaxEntries = valueDictionaryMaxEntries;
+    }
+
+    /**
+     * 検索処理条件の取得範囲をバインド変数に設定する。
+     * <p/>
+     * 取得範囲をバインド変数に設定しない場合は、何もしない。
+     * バインド変数の数は、SQL文を解析せずにJDBCドライバ({@link java.sql.ParameterMetaData#getParameterCount()})から取得する。
+     * これにより、データベース固有の演算子やエスケープを含むSQL文でも、取得範囲を正しい位置に設定する。
+     *
+     * @throws SQLException バインド変数の設定に失敗した場合
+     */
+    private void setPaginationParameters() throws SQLException {
+        if (paginationParameterBinding && hasSelectOption()) {
+            if (parameterCount < 0) {
+                parameterCount = statement.getParameterMetaData().getParameterCount();
+            }
+            context.getDialect().setPaginationParameters(statement, parameterCount, selectOption);
+        }
+    }
+
     /**
      * {@link nablarch.core.db.dialect.Dialect}に設定された{@link ResultSetConvertor}を取得する。
      *
@@ -1418,7 +1973,7 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
     private static class NamedParameterHolder {
 
         /** 配列パターン */
-        private static final Pattern array_pattern = Pattern.compile("^(.+)\\[([0-9]*)\\]$");
+        private static final Pattern array_pattern = Pattern.compile("^(.+)\\[([0-9]*)(\\*?)\\]$");
 
         /** パラメータ名 */
         private final String parameterName;
@@ -1438,6 +1993,9 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
         /** 配列ポジション */
         private final Integer arrayPosition;
 
+        /** 要素数が足りない場合に最後の要素を使用する配列要素か否か */
+        private final boolean padding;
+
         /**
          * パラメータ名をもとに構築する。
          *
@@ -1466,9 +2024,11 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
                 array = true;
                 tmpParameterName = matcher.group(1);
                 arrayPosition = toIntPosition(tmpParameterName, matcher.group(2));
+                padding = !matcher.group(3).isEmpty();
             } else {
                 array = false;
                 arrayPosition = null;
+                padding = false;
             }
             this.parameterName = tmpParameterName;
         }
@@ -1577,6 +2137,30 @@ public class BasicSqlPStatement implements SqlPStatement, ParameterizedSqlPState
         public Integer getArrayPosition() {
             return arrayPosition;
         }
+
+        /**
+         * 要素数が足りない場合に最後の要素を使用する配列要素か否か。
+         * <p/>
+         * 添字の後ろに"*"が付加された配列要素(例えば{@code ids[3*]})の場合、{@code true}を返す。
+         *
+         * @return 要素数が足りない場合に最後の要素を使用する場合{@code true}
+         * @see nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor#setPaddingStep(int)
+         */
+        public boolean isPadding() {
+            return padding;
+        }
+
+        /**
+         * 要素の一覧を1つのバインド変数に設定する配列パラメータか否か。
+         * <p/>
+         * 添字の代わりに"*"が指定された配列パラメータ(例えば{@code ids[*]})の場合、{@code true}を返す。
+         *
+         * @return 要素の一覧を1つのバインド変数に設定する場合{@code true}
+         * @see nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor#setInListParameterThreshold(int)
+         */
+        public boolean isInList() {
+            return array && arrayPosition == null && padding;
+        }
     }
 }
 
@@ -6,6 +6,7 @@ import java.util.List;
 import nablarch.core.db.statement.sqlconvertor.VariableConditionSyntaxConvertor;
 import nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor;
 import nablarch.core.db.statement.sqlconvertor.VariableOrderBySyntaxConvertor;
+import nablarch.core.db.statement.sqlconvertor.VariableSyntaxSqlTemplate;
 
 /**
  * 名前付きバインド変数を持つSQL文を解析するクラス。<br>
@@ -41,6 +42,9 @@ public class BasicSqlParameterParser implements SqlParameterParser {
             new VariableOrderBySyntaxConvertor()
     };
 
+    /** 拡張構文を解析したテンプレートのキャッシュ(キャッシュしない場合はnull) */
+    private SqlTemplateCache sqlTemplateCache;
+
     /**
      * SQL文を解析する。<br>
      *
@@ -70,8 +74,18 @@ public class BasicSqlParameterParser implements SqlParameterParser {
      * <li>{@link nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor}</li>
      * <li>{@link nablarch.core.db.statement.sqlconvertor.VariableOrderBySyntaxConvertor}</li>
      * </ul>
+     * テンプレートのキャッシュが設定されている場合は、SQL文を解析したテンプレートを使用して変換する。
+     * テンプレートを使用できない場合は、{@link nablarch.core.db.statement.SqlConvertor}を使用して変換する。
+     *
+     * @see VariableSyntaxSqlTemplate
      */
     public String convertToJdbcSql(String sql, Object obj) {
+        if (sqlTemplateCache != null) {
+            VariableSyntaxSqlTemplate template = sqlTemplateCache.get(sql, sqlConvertors);
+            if (template != null) {
+                return template.convert(obj);
+            }
+        }
         String replaceSql = sql;
         for (SqlConvertor sqlConvertor : sqlConvertors) {
             replaceSql = sqlConvertor.convert(replaceSql, obj);
@@ -203,7 +217,7 @@ public class BasicSqlParameterParser implements SqlParameterParser {
         boolean valid = false;
         while (startPos < sql.length()) {
             char c = sql.charAt(startPos++);
-            if (c == '[' || c == ']' || ('0' <= c && c <= '9')) {
+            if (c == '[' || c == ']' || ('0' <= c && c <= '9') || c == '*') {
                 inParam.append(c);
                 if (c == ']') {
                     valid = true;
@@ -269,5 +283,15 @@ public class BasicSqlParameterParser implements SqlParameterParser {
     public void setSqlConvertors(List<SqlConvertor> sqlConvertors) {
         this.sqlConvertors = sqlConvertors.toArray(new SqlConvertor[sqlConvertors.size()]);
     }
-}
 
+    /**
+     * 拡張構文を解析したテンプレートのキャッシュを設定する。
+     * <p/>
+     * キャッシュは、同一の{@link SqlConvertor}構成のパーサ間でのみ共有すること。
+     *
+     * @param sqlTemplateCache テンプレートのキャッシュ
+     */
+    public void setSqlTemplateCache(SqlTemplateCache sqlTemplateCache) {
+        this.sqlTemplateCache = sqlTemplateCache;
+    }
+}
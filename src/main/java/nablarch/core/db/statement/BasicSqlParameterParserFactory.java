@@ -12,6 +12,9 @@ public class BasicSqlParameterParserFactory implements SqlParameterParserFactory
     /** {@link nablarch.core.db.statement.SqlConvertor}のリスト */
     private List<SqlConvertor> sqlConvertors;
 
+    /** 拡張構文を解析したテンプレートのキャッシュ(キャッシュしない場合はnull) */
+    private SqlTemplateCache sqlTemplateCache;
+
     /**
      * {@link nablarch.core.db.statement.BasicSqlParameterParser}を生成し返却する。
      *
@@ -22,6 +25,7 @@ public class BasicSqlParameterParserFactory implements SqlParameterParserFactory
         if (sqlConvertors != null && !sqlConvertors.isEmpty()) {
             parser.setSqlConvertors(sqlConvertors);
         }
+        parser.setSqlTemplateCache(sqlTemplateCache);
         return parser;
     }
 
@@ -32,5 +36,32 @@ public class BasicSqlParameterParserFactory implements SqlParameterParserFactory
      */
     public void setSqlConvertors(List<SqlConvertor> sqlConvertors) {
         this.sqlConvertors = sqlConvertors;
+        if (sqlTemplateCache != null) {
+            // SqlConvertorの構成が変わるため、構築済みのテンプレートは使用できない。
+            sqlTemplateCache.clear();
+        }
+    }
+
+    /**
+     * 拡張構文を解析したテンプレートをキャッシュする件数を設定する。
+     * <p/>
+     * 1以上を設定した場合、{@link SqlParameterParser#convertToJdbcSql(String, Object)}で変換するSQL文ごとに
+     * 拡張構文を解析したテンプレートをキャッシュし、2回目以降の変換ではSQL文の解析を省略する。
+     * 0以下を設定した場合は、キャッシュしない。(デフォルトはキャッシュしない)
+     *
+     * @param sqlTemplateCacheSize キャッシュ件数
+     * @see nablarch.core.db.statement.sqlconvertor.VariableSyntaxSqlTemplate
+     */
+    public void setSqlTemplateCacheSize(int sqlTemplateCacheSize) {
+        sqlTemplateCache = sqlTemplateCacheSize > 0 ? new SqlTemplateCache(sqlTemplateCacheSize) : null;
+    }
+
+    /**
+     * 拡張構文を解析したテンプレートのキャッシュを取得する。
+     *
+     * @return テンプレートのキャッシュ(キャッシュしない場合はnull)
+     */
+    public SqlTemplateCache getSqlTemplateCache() {
+        return sqlTemplateCache;
     }
 }
@@ -4,8 +4,11 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import nablarch.core.cache.StaticDataCache;
 import nablarch.core.cache.StaticDataLoader;
@@ -50,6 +53,24 @@ public class BasicStatementFactory implements StatementFactory {
     /** ロードしたSQL文のキャッシュ */
     private final CachingSqlLoader cachingSqlLoader = new CachingSqlLoader();
 
+    /** 名前付きバインド変数の解析結果のキャッシュ(キャッシュしない場合はnull) */
+    private ParsedSqlCache parsedSqlCache;
+
+    /** SQLIDごとの変換後のSQL文の種類数の集計(集計しない場合はnull) */
+    private SqlShapeStatistics sqlShapeStatistics;
+
+    /** 簡易検索の結果を一時ファイルに書き出す設定(書き出さない場合はnull) */
+    private ResultSetSpillSetting resultSetSpillSetting;
+
+    /** 更新系のSQL文の実行を通知するリスナ */
+    private SqlWriteListener sqlWriteListener;
+
+    /** 検索結果の同じ値を集約する際の、カラムごとの値の種類数の上限 */
+    private int valueDictionaryMaxEntries = 256;
+
+    /** 検索結果の同じ値を集約するSQL_ID */
+    private Set<String> valueDictionarySqlIds = Collections.emptySet();
+
     /** {@inheritDoc} */
     @Override
     public SqlPStatement getSqlPStatement(final String sql, final Connection con, DbExecutionContext context) throws SQLException {
@@ -124,6 +145,21 @@ public class BasicStatementFactory implements StatementFactory {
         sqlp.setFetchSize(fetchSize);
         sqlp.setQueryTimeout(queryTimeout);
         sqlp.setContext(context);
+        sqlp.setResultSetSpillSetting(resultSetSpillSetting);
+        sqlp.setSqlWriteListener(sqlWriteListener);
+    }
+
+    /**
+     * 指定された{@link BasicSqlPStatement}に対して、
+     * SQL_IDごとに必要となるプロパティを設定する。
+     *
+     * @param sqlp 設定対象となるインスタンス。
+     * @param sqlId SQL_ID
+     */
+    protected final void setSqlIdPropsTo(BasicSqlPStatement sqlp, String sqlId) {
+        if (valueDictionarySqlIds.contains(sqlId)) {
+            sqlp.setValueDictionaryMaxEntries(valueDictionaryMaxEntries);
+        }
     }
 
     /**
@@ -139,6 +175,7 @@ public class BasicStatementFactory implements StatementFactory {
         String sql = getSql(sqlId);
         BasicSqlPStatement sqlp = (BasicSqlPStatement) getSqlPStatement(sql, con, context);
         sqlp.setAdditionalInfo("SQL_ID = [" + sqlId + "]");
+        setSqlIdPropsTo(sqlp, sqlId);
         return sqlp;
     }
 
@@ -195,6 +232,7 @@ public class BasicStatementFactory implements StatementFactory {
         // 追加情報にSQLIDとオリジナルのSQLを設定する。
         String additional = buildAdditionalInfoForSqlID(sqlId, sql);
         sqlp.setAdditionalInfo(additional);
+        setSqlIdPropsTo(sqlp, sqlId);
         return sqlp;
     }
 
@@ -208,6 +246,7 @@ public class BasicStatementFactory implements StatementFactory {
         // 追加情報にSQLIDとオリジナルのSQLを設定する。
         String additional = buildAdditionalInfoForSqlID(sqlId, sql);
         sqlp.setAdditionalInfo(additional);
+        setSqlIdPropsTo(sqlp, sqlId);
         return sqlp;
     }
 
@@ -221,6 +260,7 @@ public class BasicStatementFactory implements StatementFactory {
         // 追加情報にSQLIDとオリジナルのSQLを設定する。
         String additional = buildAdditionalInfoForSqlID(sqlId, sql);
         sqlp.setAdditionalInfo(additional);
+        setSqlIdPropsTo(sqlp, sqlId);
         return sqlp;
     }
 
@@ -252,12 +292,11 @@ public class BasicStatementFactory implements StatementFactory {
     private BasicSqlPStatement createParameterizedSqlPStatement(String sql,
             Connection con, DbExecutionContext context, SelectOption selectOption) throws SQLException {
         // 名前付きバインド変数の置き換え
-        SqlParameterParser parser = createParser();
-        parser.parse(sql);
-        String parsedSql = parser.getSql();
+        ParsedSql parsed = parseSql(sql);
+        String parsedSql = parsed.getSql();
         BasicSqlPStatement sqlp = new BasicSqlPStatement(parsedSql,
                                                          con.prepareStatement(parsedSql),
-                                                         parser.getNameList());
+                                                         parsed.getNameList());
         setCommonPropsTo(sqlp, context); // 共通設定
         setObjectFieldPropsTo(sqlp);   // オブジェクトのフィールドの値を扱う場合の設定
         setLikeConditionPropsTo(sqlp); // like条件用の設定
@@ -313,6 +352,26 @@ public class BasicStatementFactory implements StatementFactory {
         return parser;
     }
 
+    /**
+     * 名前付きバインド変数を持つSQL文を解析する。
+     * <p/>
+     * 解析結果のキャッシュが有効な場合は、キャッシュから解析結果を取得する。
+     * パーサはキャッシュに解析結果が存在しない場合にのみ生成する。
+     *
+     * @param sql 名前付きバインド変数を持つSQL文
+     * @return 解析結果
+     * @see #setParsedSqlCacheSize(int)
+     */
+    protected final ParsedSql parseSql(String sql) {
+        if (parsedSqlCache == null) {
+            SqlParameterParser parser = createParser();
+            parser.parse(sql);
+            return ParsedSql.of(parser);
+        }
+        final ParsedSql cached = parsedSqlCache.get(sql);
+        return cached != null ? cached : parsedSqlCache.parse(sql, createParser());
+    }
+
     /** {@inheritDoc} */
     public String getVariableConditionSql(String sql, Object condition) {
         if (condition == null) {
@@ -331,7 +390,11 @@ public class BasicStatementFactory implements StatementFactory {
      */
     public String getVariableConditionSqlBySqlId(String sqlId, Object condition) {
         String sql = getSql(sqlId);
-        return getVariableConditionSql(sql, condition);
+        String variableConditionSql = getVariableConditionSql(sql, condition);
+        if (sqlShapeStatistics != null) {
+            sqlShapeStatistics.record(sqlId, variableConditionSql);
+        }
+        return variableConditionSql;
     }
 
     @Override
@@ -426,6 +489,102 @@ public class BasicStatementFactory implements StatementFactory {
         this.likeEscapeChar = likeEscapeChar.charAt(0);
     }
 
+    /**
+     * 名前付きバインド変数の解析結果をキャッシュする件数を設定する。
+     * <p/>
+     * 1以上を設定した場合、解析前のSQL文をキーに解析結果をキャッシュし、
+     * 同一のSQL文に対するステートメント生成時に解析処理を省略する。
+     * 0以下を設定した場合は、キャッシュしない。(デフォルトはキャッシュしない)
+     * <p/>
+     * 本設定は、{@link SqlParameterParser}の解析結果が解析対象のSQL文のみで決まることを前提とする。
+     *
+     * @param parsedSqlCacheSize キャッシュ件数
+     */
+    public void setParsedSqlCacheSize(int parsedSqlCacheSize) {
+        parsedSqlCache = parsedSqlCacheSize > 0 ? new ParsedSqlCache(parsedSqlCacheSize) : null;
+    }
+
+    /**
+     * 名前付きバインド変数の解析結果のキャッシュを取得する。
+     * <p/>
+     * キャッシュのヒット件数、ミス件数の確認に使用する。
+     *
+     * @return 解析結果のキャッシュ(キャッシュしない場合はnull)
+     */
+    public ParsedSqlCache getParsedSqlCache() {
+        return parsedSqlCache;
+    }
+
+    /**
+     * SQLIDごとの変換後のSQL文の種類数の集計を設定する。
+     * <p/>
+     * 設定した場合、{@link #getVariableConditionSqlBySqlId(String, Object)}で変換したSQL文を、
+     * SQLIDごとに集計する。(デフォルトは集計しない)
+     *
+     * @param sqlShapeStatistics SQL文の種類数の集計
+     */
+    public void setSqlShapeStatistics(SqlShapeStatistics sqlShapeStatistics) {
+        this.sqlShapeStatistics = sqlShapeStatistics;
+    }
+
+    /**
+     * SQLIDごとの変換後のSQL文の種類数の集計を取得する。
+     *
+     * @return SQL文の種類数の集計(集計しない場合はnull)
+     */
+    public SqlShapeStatistics getSqlShapeStatistics() {
+        return sqlShapeStatistics;
+    }
+
+    /**
+     * 簡易検索の結果を一時ファイルに書き出す設定を設定する。
+     * <p/>
+     * 設定した場合、簡易検索はヒープに保持する上限を超えた行を一時ファイルに書き出す
+     * {@link SpillableSqlResultSet}を返却する。(デフォルトは書き出さない)
+     *
+     * @param resultSetSpillSetting 簡易検索の結果を一時ファイルに書き出す設定
+     */
+    public void setResultSetSpillSetting(ResultSetSpillSetting resultSetSpillSetting) {
+        this.resultSetSpillSetting = resultSetSpillSetting;
+    }
+
+    /**
+     * 更新系のSQL文の実行を通知するリスナを設定する。
+     * <p/>
+     * 更新したテーブルを参照する結果セットキャッシュを無効化する場合は、
+     * {@link nablarch.core.db.cache.ResultSetCacheInvalidator}を設定する。(デフォルトは通知しない)
+     *
+     * @param sqlWriteListener 更新系のSQL文の実行を通知するリスナ
+     */
+    public void setSqlWriteListener(SqlWriteListener sqlWriteListener) {
+        this.sqlWriteListener = sqlWriteListener;
+    }
+
+    /**
+     * 検索結果の同じ値を集約するSQL_IDを設定する。
+     * <p/>
+     * 設定したSQL_IDの検索結果は、カラムごとに同じ値の文字列と数値を1つのインスタンスに集約する。
+     * ステータスコードや区分値のように、少ない種類の値が多くの行で繰り返される検索結果で、
+     * 保持するヒープを削減するために使用する。(デフォルトは集約しない)
+     *
+     * @param valueDictionarySqlIds 検索結果の同じ値を集約するSQL_ID(SQLリソース名 + "#" + SQL_ID)
+     * @see BasicSqlPStatement#setValueDictionaryMaxEntries(int)
+     */
+    public void setValueDictionarySqlIds(List<String> valueDictionarySqlIds) {
+        this.valueDictionarySqlIds = new HashSet<String>(valueDictionarySqlIds);
+    }
+
+    /**
+     * 検索結果の同じ値を集約する際の、カラムごとの値の種類数の上限を設定する。
+     * <p/>
+     * 値の種類数が上限に達したカラムは、以降の集約を行わない。(デフォルトは256)
+     *
+     * @param valueDictionaryMaxEntries カラムごとの値の種類数の上限
+     */
+    public void setValueDictionaryMaxEntries(int valueDictionaryMaxEntries) {
+        this.valueDictionaryMaxEntries = valueDictionaryMaxEntries;
+    }
+
     /**
      * SQL文をロードするクラスを設定する。
      * @param sqlLoader SQL文をロードするクラス
@@ -0,0 +1,399 @@
+package nablarch.core.db.statement;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.core.beans.BeanUtil;
+import nablarch.core.beans.BeansException;
+import nablarch.core.beans.ConversionUtil;
+import nablarch.core.beans.CopyOptions;
+
+/**
+ * 検索結果の行を、{@link SqlRow}を経由せずにBean(またはレコード)に変換するマッパー。
+ * <p/>
+ * Beanのクラスごとに、インスタンスの生成方法(コンストラクタ)と、プロパティごとの設定方法(setterと型変換の方法)を事前に解決して保持する。
+ * さらに検索結果の形({@link ColumnIndexTable})ごとに、プロパティに対応するカラムを事前に解決するため、
+ * 行ごとにカラム名の解決やリフレクションによるプロパティの検索は行わない。
+ * <p/>
+ * プロパティとカラムの対応付けは、{@link SqlRow}からプロパティ名で値を取得する場合と同じ規則
+ * (大文字/小文字の違い、アンダースコアの有無を区別しない)で行う。
+ * 値の型変換は{@link BeanUtil#createAndCopy(Class, java.util.Map)}と同じく、
+ * Beanのクラスに指定された{@link CopyOptions}のコンバータ、または{@link ConversionUtil}を用いて行う。
+ * 対応するカラムが存在しないプロパティには値を設定しない。
+ *
+ * @param <T> Beanの型
+ */
+final class BeanRowMapper<T> {
+
+    /**
+     * Beanのクラスごとの変換方法。
+     * <p/>
+     * 変換方法はBeanのクラス自体に関連付けて保持するため、クラスローダがアンロードされる際に共に解放される。
+     */
+    private static final ClassValue<BeanMapping<?>> MAPPINGS = new ClassValue<BeanMapping<?>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected BeanMapping<?> computeValue(Class<?> beanClass) {
+            return new BeanMapping<Object>((Class<Object>) beanClass);
+        }
+    };
+
+    /** Beanの変換方法 */
+    private final BeanMapping<T> mapping;
+
+    /** 変換に使用したカラム名の対応表 */
+    private final ColumnIndexTable columns;
+
+    /** プロパティごとの、値を保持する配列のインデックス(対応するカラムが存在しない場合は-1) */
+    private final int[] indexes;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param mapping Beanの変換方法
+     * @param columns カラム名の対応表
+     */
+    private BeanRowMapper(final BeanMapping<T> mapping, final ColumnIndexTable columns) {
+        this.mapping = mapping;
+        this.columns = columns;
+        indexes = new int[mapping.properties.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = columns.resolve(mapping.properties[i].name);
+        }
+    }
+
+    /**
+     * 検索結果の形とBeanのクラスに対応するマッパーを生成する。
+     *
+     * @param beanClass Beanのクラス
+     * @param columns カラム名の対応表
+     * @param <T> Beanの型
+     * @return マッパー
+     */
+    static <T> BeanRowMapper<T> create(final Class<T> beanClass, final ColumnIndexTable columns) {
+        return new BeanRowMapper<T>(getMapping(beanClass), columns);
+    }
+
+    /**
+     * マッパーが、指定された検索結果の形とBeanのクラスに対応しているか否か。
+     *
+     * @param beanClass Beanのクラス
+     * @param columns カラム名の対応表
+     * @return 対応している場合{@code true}
+     */
+    boolean isApplicable(final Class<?> beanClass, final ColumnIndexTable columns) {
+        return mapping.beanClass == beanClass && this.columns == columns;
+    }
+
+    /**
+     * 1行分の値をBeanに変換する。
+     *
+     * @param values 1行分の値({@link ColumnIndexTable}のインデックス順)
+     * @return Bean
+     */
+    T map(final Object[] values) {
+        return mapping.create(values, indexes);
+    }
+
+    /**
+     * {@link SqlRow}のリストを、Beanのリストに変換する。
+     * <p/>
+     * 値を配列で保持している{@link SqlRow}は、配列から直接変換する。
+     * それ以外の{@link SqlRow}は、プロパティ名をキーに{@link SqlRow}から値を取得して変換する。
+     *
+     * @param beanClass Beanのクラス
+     * @param rows 変換対象の行
+     * @param <T> Beanの型
+     * @return Beanのリスト
+     */
+    static <T> List<T> mapRows(final Class<T> beanClass, final List<SqlRow> rows) {
+        final BeanMapping<T> mapping = getMapping(beanClass);
+        final List<T> result = new ArrayList<T>(rows.size());
+        BeanRowMapper<T> mapper = null;
+        for (SqlRow row : rows) {
+            final ColumnIndexTable columns = row.getCompactColumns();
+            if (columns == null) {
+                result.add(mapping.create(row));
+                continue;
+            }
+            if (mapper == null || mapper.columns != columns) {
+                mapper = new BeanRowMapper<T>(mapping, columns);
+            }
+            result.add(mapper.map(row.getCompactValues()));
+        }
+        return result;
+    }
+
+    /**
+     * Beanのクラスに対応する変換方法を取得する。
+     *
+     * @param beanClass Beanのクラス
+     * @param <T> Beanの型
+     * @return 変換方法
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> BeanMapping<T> getMapping(final Class<T> beanClass) {
+        return (BeanMapping<T>) MAPPINGS.get(beanClass);
+    }
+
+    /**
+     * Beanのクラスごとの変換方法。
+     *
+     * @param <T> Beanの型
+     */
+    private static final class BeanMapping<T> {
+
+        /** Beanのクラス */
+        private final Class<T> beanClass;
+
+        /** インスタンスを生成するコンストラクタ */
+        private final Constructor<T> constructor;
+
+        /** レコードか否か */
+        private final boolean record;
+
+        /** 値を設定するプロパティ(レコードの場合はコンストラクタの引数順) */
+        private final Property[] properties;
+
+        /** nullを設定対象外とするか否か */
+        private final boolean excludesNull;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param beanClass Beanのクラス
+         */
+        private BeanMapping(final Class<T> beanClass) {
+            this.beanClass = beanClass;
+            final CopyOptions options = CopyOptions.fromAnnotation(beanClass);
+            excludesNull = options.isExcludesNull();
+            record = beanClass.isRecord();
+            final List<Property> tmpProperties = new ArrayList<Property>();
+            try {
+                if (record) {
+                    final RecordComponent[] components = beanClass.getRecordComponents();
+                    final Class<?>[] types = new Class<?>[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        types[i] = components[i].getType();
+                        tmpProperties.add(new Property(components[i].getName(), types[i], null, options));
+                    }
+                    constructor = beanClass.getDeclaredConstructor(types);
+                } else {
+                    for (PropertyDescriptor descriptor : BeanUtil.getPropertyDescriptors(beanClass)) {
+                        final String name = descriptor.getName();
+                        final Method writeMethod = descriptor.getWriteMethod();
+                        if (writeMethod == null || !options.isTargetProperty(name)) {
+                            continue;
+                        }
+                        final Property property = new Property(name, descriptor.getPropertyType(), writeMethod,
+                                options);
+                        if (property.isConvertible()) {
+                            tmpProperties.add(property);
+                        }
+                    }
+                    constructor = beanClass.getDeclaredConstructor();
+                }
+            } catch (NoSuchMethodException e) {
+                throw new BeansException("Failed to resolve constructor. class name: " + beanClass.getName(), e);
+            }
+            properties = tmpProperties.toArray(new Property[tmpProperties.size()]);
+        }
+
+        /**
+         * 1行分の値の配列から、Beanを生成する。
+         *
+         * @param values 1行分の値
+         * @param indexes プロパティごとの、値を保持する配列のインデックス
+         * @return Bean
+         */
+        private T create(final Object[] values, final int[] indexes) {
+            final Object[] propertyValues = new Object[properties.length];
+            final boolean[] present = new boolean[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                if (indexes[i] >= 0) {
+                    propertyValues[i] = values[indexes[i]];
+                    present[i] = true;
+                }
+            }
+            return create(propertyValues, present);
+        }
+
+        /**
+         * {@link SqlRow}から、Beanを生成する。
+         *
+         * @param row 行
+         * @return Bean
+         */
+        private T create(final SqlRow row) {
+            final Object[] propertyValues = new Object[properties.length];
+            final boolean[] present = new boolean[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                final String name = properties[i].name;
+                if (row.containsKey(name)) {
+                    propertyValues[i] = row.get(name);
+                    present[i] = true;
+                }
+            }
+            return create(propertyValues, present);
+        }
+
+        /**
+         * プロパティごとの値から、Beanを生成する。
+         *
+         * @param propertyValues プロパティごとの値(変換前)
+         * @param present プロパティごとの、対応するカラムが存在するか否か
+         * @return Bean
+         */
+        private T create(final Object[] propertyValues, final boolean[] present) {
+            if (record) {
+                final Object[] args = new Object[properties.length];
+                for (int i = 0; i < properties.length; i++) {
+                    final Object value = present[i] ? properties[i].convert(propertyValues[i]) : null;
+                    args[i] = value == null ? properties[i].defaultValue : value;
+                }
+                return newInstance(args);
+            }
+            final T bean = newInstance();
+            for (int i = 0; i < properties.length; i++) {
+                if (!present[i] || (propertyValues[i] == null && excludesNull)) {
+                    continue;
+                }
+                properties[i].write(bean, properties[i].convert(propertyValues[i]));
+            }
+            return bean;
+        }
+
+        /**
+         * インスタンスを生成する。
+         *
+         * @param args コンストラクタの引数
+         * @return インスタンス
+         */
+        private T newInstance(final Object... args) {
+            try {
+                return constructor.newInstance(args);
+            } catch (InstantiationException e) {
+                throw new BeansException("Failed to instantiate. class name: " + beanClass.getName(), e);
+            } catch (IllegalAccessException e) {
+                throw new BeansException("Failed to instantiate. class name: " + beanClass.getName(), e);
+            } catch (InvocationTargetException e) {
+                throw new BeansException("Failed to instantiate. class name: " + beanClass.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 値を設定するプロパティ。
+     */
+    private static final class Property {
+
+        /** 型変換に{@link CopyOptions}の名前付きのコンバータを使用する */
+        private static final int NAMED_CONVERTER = 0;
+
+        /** 型変換に{@link CopyOptions}の型に対応するコンバータを使用する */
+        private static final int TYPED_CONVERTER = 1;
+
+        /** 型変換に{@link ConversionUtil}を使用する */
+        private static final int DEFAULT_CONVERTER = 2;
+
+        /** 型変換を行えない */
+        private static final int NO_CONVERTER = 3;
+
+        /** プロパティ名 */
+        private final String name;
+
+        /** プロパティの型 */
+        private final Class<?> type;
+
+        /** setter(レコードの場合は{@code null}) */
+        private final Method writeMethod;
+
+        /** 型変換に使用するオプション */
+        private final CopyOptions options;
+
+        /** 型変換の方法 */
+        private final int conversion;
+
+        /** 値が{@code null}の場合の値(プリミティブ型の場合はデフォルト値) */
+        private final Object defaultValue;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name プロパティ名
+         * @param type プロパティの型
+         * @param writeMethod setter
+         * @param options 型変換に使用するオプション
+         */
+        private Property(final String name, final Class<?> type, final Method writeMethod,
+                final CopyOptions options) {
+            this.name = name;
+            this.type = type;
+            this.writeMethod = writeMethod;
+            this.options = options;
+            if (options.hasNamedConverter(name, type)) {
+                conversion = NAMED_CONVERTER;
+            } else if (options.hasTypedConverter(type)) {
+                conversion = TYPED_CONVERTER;
+            } else if (ConversionUtil.hasConverter(type)) {
+                conversion = DEFAULT_CONVERTER;
+            } else {
+                conversion = NO_CONVERTER;
+            }
+            defaultValue = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+
+        /**
+         * 型変換を行えるか否か。
+         *
+         * @return 型変換を行える場合{@code true}
+         */
+        private boolean isConvertible() {
+            return conversion != NO_CONVERTER;
+        }
+
+        /**
+         * 値をプロパティの型に変換する。
+         *
+         * @param value 値
+         * @return 変換した値
+         */
+        private Object convert(final Object value) {
+            switch (conversion) {
+                case NAMED_CONVERTER:
+                    return options.convertByName(name, type, value);
+                case TYPED_CONVERTER:
+                    return options.convertByType(type, value);
+                case DEFAULT_CONVERTER:
+                    return ConversionUtil.convert(type, value);
+                default:
+                    return value;
+            }
+        }
+
+        /**
+         * プロパティに値を設定する。
+         * <p/>
+         * プリミティブ型のプロパティに{@code null}は設定しない。
+         *
+         * @param bean Bean
+         * @param value 値
+         */
+        private void write(final Object bean, final Object value) {
+            if (value == null && type.isPrimitive()) {
+                return;
+            }
+            try {
+                writeMethod.invoke(bean, value);
+            } catch (Exception e) {
+                throw new BeansException("Failed to write property. property name: " + name, e);
+            }
+        }
+    }
+}
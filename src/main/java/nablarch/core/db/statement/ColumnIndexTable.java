@@ -0,0 +1,218 @@
+package nablarch.core.db.statement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.util.StringUtil;
+
+/**
+ * 検索結果のカラム名と、1行分の値を保持する配列のインデックスとの対応表。
+ * <p/>
+ * 検索結果の形(カラム名とデータタイプの並び)ごとに1つだけ生成し、同じ検索結果の全ての{@link SqlRow}で共有する。
+ * 各{@link SqlRow}は、値の配列とこの対応表のみを保持するため、行ごとにカラム名をキーとするMapを生成する必要がない。
+ * <p/>
+ * 同名のカラムが複数存在する場合は、後ろのカラムの値が有効となる。
+ * (カラム名をキーとするMapに順に値を設定した場合と同じ結果となる。)
+ * <p/>
+ * 本クラスはスレッドセーフであり、複数スレッドから共有できる。
+ */
+final class ColumnIndexTable {
+
+    /** 共有する名前の変換表に保持する件数の上限 */
+    private static final int MAX_KEY_CONVERSIONS = 1024;
+
+    /** 同一インスタンスのカラム名で解決結果を保持する件数の上限 */
+    private static final int MAX_RESOLVED_NAMES = 256;
+
+    /** 重複を除いたカラム名(カラムの並び順) */
+    private final String[] names;
+
+    /** 検索結果のカラムごとの、値を保持する配列のインデックス */
+    private final int[] slots;
+
+    /** カラム名とインデックスの対応 */
+    private final Map<String, Integer> indexes;
+
+    /** カラム名とデータタイプの対応 */
+    private final Map<String, Integer> colTypes;
+
+    /** インデックスごとのデータタイプ */
+    private final Integer[] types;
+
+    /**
+     * 指定されたカラム名(インスタンスの同一性で比較する)とインデックスの対応。
+     * <p/>
+     * 更新時は複製して差し替えるため、参照時に同期は不要となる。
+     */
+    private volatile Map<String, Integer> resolvedNames = new IdentityHashMap<String, Integer>();
+
+    /** 指定されたカラム名(値で比較する)とインデックスの対応 */
+    private final ConcurrentMap<String, Integer> resolvedNameValues = new ConcurrentHashMap<String, Integer>();
+
+    /** 行間で共有する名前の変換表(正規化したカラム名または指定されたカラム名と、カラム名の対応) */
+    private final ConcurrentMap<String, String> keyConversions = new ConcurrentHashMap<String, String>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param colNames 検索結果のカラム名(カラムの並び順)
+     * @param colTypes カラム名とデータタイプの対応
+     */
+    ColumnIndexTable(final String[] colNames, final Map<String, Integer> colTypes) {
+        final List<String> uniqueNames = new ArrayList<String>(colNames.length);
+        final Map<String, Integer> tmpIndexes = new HashMap<String, Integer>((colNames.length * 3) / 2 + 1);
+        slots = new int[colNames.length];
+        for (int i = 0; i < colNames.length; i++) {
+            Integer index = tmpIndexes.get(colNames[i]);
+            if (index == null) {
+                index = uniqueNames.size();
+                uniqueNames.add(colNames[i]);
+                tmpIndexes.put(colNames[i], index);
+            }
+            slots[i] = index;
+        }
+        names = uniqueNames.toArray(new String[uniqueNames.size()]);
+        indexes = Collections.unmodifiableMap(tmpIndexes);
+        this.colTypes = colTypes;
+        types = new Integer[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keyConversions.put(StringUtil.lowerAndTrimUnderScore(names[i]), names[i]);
+            types[i] = colTypes.get(names[i]);
+        }
+    }
+
+    /**
+     * 重複を除いたカラム数を取得する。
+     *
+     * @return カラム数
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * 指定されたインデックスのカラム名を取得する。
+     *
+     * @param index インデックス
+     * @return カラム名
+     */
+    String getName(final int index) {
+        return names[index];
+    }
+
+    /**
+     * 検索結果のカラムの値を保持する、配列のインデックスを取得する。
+     *
+     * @param columnIndex 検索結果のカラムのインデックス(0始まり)
+     * @return 値を保持する配列のインデックス
+     */
+    int getSlot(final int columnIndex) {
+        return slots[columnIndex];
+    }
+
+    /**
+     * カラム名に対応するインデックスを取得する。
+     * <p/>
+     * カラム名は完全一致で検索する。
+     *
+     * @param name カラム名
+     * @return インデックス(存在しない場合は-1)
+     */
+    int indexOf(final Object name) {
+        final Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 指定されたカラム名を、大文字/小文字の違い、アンダースコアの有無を区別せずに解決し、対応するインデックスを取得する。
+     * <p/>
+     * 解決結果は指定されたカラム名ごとに保持し、同じ検索結果の全ての行で共有する。
+     * カラム名に文字列リテラルなど同一のインスタンスが指定された場合は、同一性による1回の検索で解決できる。
+     * 解決結果は、{@link SqlRow}のカラム名の変換({@link nablarch.core.util.map.MultipleKeyCaseMap}の変換)と同じとなる。
+     *
+     * @param name カラム名
+     * @return インデックス(存在しない場合は-1)
+     */
+    int resolve(final String name) {
+        Integer index = resolvedNames.get(name);
+        if (index != null) {
+            return index;
+        }
+        index = resolvedNameValues.get(name);
+        if (index == null) {
+            String actualName = keyConversions.get(name);
+            if (actualName == null) {
+                actualName = keyConversions.get(StringUtil.lowerAndTrimUnderScore(name));
+            }
+            index = indexOf(actualName == null ? name : actualName);
+            if (resolvedNameValues.size() < MAX_KEY_CONVERSIONS) {
+                resolvedNameValues.put(name, index);
+            }
+        }
+        if (resolvedNames.size() < MAX_RESOLVED_NAMES) {
+            addResolvedName(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * 同一インスタンスのカラム名で参照する解決結果を追加する。
+     * <p/>
+     * 保持する件数が上限に達している場合は追加しない。
+     *
+     * @param name カラム名
+     * @param index インデックス
+     */
+    private synchronized void addResolvedName(final String name, final Integer index) {
+        final Map<String, Integer> current = resolvedNames;
+        if (current.size() >= MAX_RESOLVED_NAMES || current.containsKey(name)) {
+            return;
+        }
+        final Map<String, Integer> copy = new IdentityHashMap<String, Integer>(current);
+        copy.put(name, index);
+        resolvedNames = copy;
+    }
+
+    /**
+     * 指定されたインデックスのカラムのデータタイプを取得する。
+     *
+     * @param index インデックス
+     * @return データタイプ
+     */
+    Integer getType(final int index) {
+        return types[index];
+    }
+
+    /**
+     * カラム名とデータタイプの対応を取得する。
+     *
+     * @return カラム名とデータタイプの対応
+     */
+    Map<String, Integer> getColTypes() {
+        return colTypes;
+    }
+
+    /**
+     * 行間で共有する名前の変換表を取得する。
+     *
+     * @return 名前の変換表
+     */
+    ConcurrentMap<String, String> getKeyConversions() {
+        return keyConversions;
+    }
+
+    /**
+     * 共有する名前の変換表に、変換結果を追加できるか否か。
+     *
+     * @return 追加できる場合{@code true}
+     */
+    boolean canAddKeyConversion() {
+        return keyConversions.size() < MAX_KEY_CONVERSIONS;
+    }
+}
@@ -0,0 +1,28 @@
+package nablarch.core.db.statement;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link ResultSet}から1カラムのデータを取得するインタフェース。
+ * <p/>
+ * 取得対象のカラムと取得方法は、{@link ResultSetConvertor#createColumnReader(java.sql.ResultSetMetaData, int)}で
+ * 検索結果ごとに一度だけ決定する。
+ * このため、本インタフェースの実装では、{@link java.sql.ResultSetMetaData}の参照やデータ型による分岐を行わずにデータを取得すること。
+ *
+ * @see ColumnReaders
+ */
+@Published(tag = "architect")
+public interface ColumnReader {
+
+    /**
+     * {@link ResultSet}の現在行から、カラムのデータを取得する。
+     *
+     * @param rs ResultSet
+     * @return ResultSetから取得した対象カラムのデータ
+     * @throws SQLException SQL例外発生時
+     */
+    Object read(ResultSet rs) throws SQLException;
+}
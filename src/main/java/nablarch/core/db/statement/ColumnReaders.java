@@ -0,0 +1,81 @@
+package nablarch.core.db.statement;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 標準的な{@link ColumnReader}を生成するクラス。
+ */
+@Published(tag = "architect")
+public final class ColumnReaders {
+
+    /** 隠蔽コンストラクタ。 */
+    private ColumnReaders() {
+    }
+
+    /**
+     * {@link ResultSet#getObject(int)}でデータを取得する{@link ColumnReader}を生成する。
+     *
+     * @param columnIndex カラムインデックス
+     * @return {@link ColumnReader}
+     */
+    public static ColumnReader object(final int columnIndex) {
+        return new ColumnReader() {
+            @Override
+            public Object read(ResultSet rs) throws SQLException {
+                return rs.getObject(columnIndex);
+            }
+        };
+    }
+
+    /**
+     * {@link ResultSet#getTimestamp(int)}でデータを取得する{@link ColumnReader}を生成する。
+     *
+     * @param columnIndex カラムインデックス
+     * @return {@link ColumnReader}
+     */
+    public static ColumnReader timestamp(final int columnIndex) {
+        return new ColumnReader() {
+            @Override
+            public Object read(ResultSet rs) throws SQLException {
+                return rs.getTimestamp(columnIndex);
+            }
+        };
+    }
+
+    /**
+     * {@link ResultSet#getBinaryStream(int)}でデータを取得する{@link ColumnReader}を生成する。
+     *
+     * @param columnIndex カラムインデックス
+     * @return {@link ColumnReader}
+     */
+    public static ColumnReader binaryStream(final int columnIndex) {
+        return new ColumnReader() {
+            @Override
+            public Object read(ResultSet rs) throws SQLException {
+                return rs.getBinaryStream(columnIndex);
+            }
+        };
+    }
+
+    /**
+     * {@link ResultSetConvertor#convert(ResultSet, ResultSetMetaData, int)}でデータを取得する{@link ColumnReader}を生成する。
+     *
+     * @param convertor {@link ResultSetConvertor}
+     * @param rsmd ResultSetMetaData
+     * @param columnIndex カラムインデックス
+     * @return {@link ColumnReader}
+     */
+    public static ColumnReader convert(final ResultSetConvertor convertor, final ResultSetMetaData rsmd,
+            final int columnIndex) {
+        return new ColumnReader() {
+            @Override
+            public Object read(ResultSet rs) throws SQLException {
+                return convertor.convert(rs, rsmd, columnIndex);
+            }
+        };
+    }
+}
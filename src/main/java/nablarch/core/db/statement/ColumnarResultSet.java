@@ -0,0 +1,530 @@
+package nablarch.core.db.statement;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 検索結果をカラムごとの配列で保持するクラス。
+ * <p/>
+ * {@link SqlResultSet}は行ごとに{@link SqlRow}を保持するが、本クラスはカラムごとに1つの配列で値を保持する。
+ * 数値のカラムは、値の型に応じてプリミティブ型の配列({@code int[]}、{@code long[]}、{@code double[]})と、
+ * {@code null}を表すビット列で保持するため、ラッパークラスのオブジェクトを保持しない。
+ * 数値以外のカラムは、カラムごとの{@link Object}の配列で保持する。
+ * <p/>
+ * 数値を保持する配列の型は、カラムの最初の{@code null}以外の値の型で決定する。
+ * <ul>
+ * <li>{@link Integer}の場合は{@code int[]}</li>
+ * <li>{@link Long}の場合は{@code long[]}</li>
+ * <li>{@link Double}の場合は{@code double[]}</li>
+ * <li>スケールが0で{@code long}で表現できる{@link BigDecimal}の場合は{@code long[]}</li>
+ * </ul>
+ * 以降の行で異なる型の値や、{@code long}で表現できない{@link BigDecimal}が現れた場合は、そのカラムを{@link Object}の配列に切り替える。
+ * このため、{@link #getColumn(String)}で取得した値や{@link #get(int)}で取得した行の値は、
+ * JDBCドライバが返却した値と等価({@link Object#equals(Object)}が{@code true})となる。
+ * <p/>
+ * 大量の数値を集計する場合は、{@link #getColumn(String)}で取得した{@link Column}から、行番号を指定して値を取得する。
+ * {@link SqlResultSet}と同様に行単位で扱う場合は、{@link #get(int)}で{@link SqlRow}を取得する。
+ * {@link #get(int)}は呼び出されるたびに{@link SqlRow}を生成し、生成した{@link SqlRow}を変更しても本クラスの値は変更されない。
+ * <p/>
+ * 本クラスは変更できない。
+ *
+ * @see SqlResultSet
+ */
+@Published
+public final class ColumnarResultSet extends AbstractList<SqlRow> implements RandomAccess {
+
+    /** 配列の初期容量 */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** カラム名と配列のインデックスとの対応表 */
+    private final ColumnIndexTable columnIndexTable;
+
+    /** カラムごとの値 */
+    private final Column[] columns;
+
+    /** 行数 */
+    private int size;
+
+    /**
+     * 検索結果から{@link ColumnarResultSet}のオブジェクトを構築する。
+     * <p/>
+     * 読み込み開始位置と最大行数の扱いは、{@link SqlResultSet#SqlResultSet(ResultSetIterator, int, int)}と同じとなる。
+     * 検索結果は、{@link ResultSetIterator#cursor()}で読み込む。
+     *
+     * @param rs 検索結果
+     * @param startPos 検索結果の取得開始位置
+     * @param max 取得最大件数
+     */
+    public ColumnarResultSet(final ResultSetIterator rs, final int startPos, final int max) {
+        columnIndexTable = rs.getColumnIndexTable();
+        final int capacity = max <= 0 ? INITIAL_CAPACITY : max;
+        columns = new Column[columnIndexTable.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(columnIndexTable.getName(i), capacity);
+        }
+
+        // 開始位置まで空回し
+        for (int i = 0; (i < (startPos - 1)) && rs.next(); i++) ;
+
+        final RowCursor cursor = rs.cursor();
+        while (cursor.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(size, cursor.getObject(i));
+            }
+            size++;
+        }
+    }
+
+    /**
+     * 検索結果から{@link ColumnarResultSet}のオブジェクトを構築する。
+     * <p/>
+     * 全ての行を読み込む。
+     *
+     * @param rs 検索結果
+     */
+    public ColumnarResultSet(final ResultSetIterator rs) {
+        this(rs, 1, 0);
+    }
+
+    /**
+     * 指定された行を{@link SqlRow}で取得する。
+     * <p/>
+     * 呼び出されるたびに、指定された行の値を保持する{@link SqlRow}を生成する。
+     *
+     * @param index 行番号(0始まり)
+     * @return 行
+     * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+     */
+    @Override
+    public SqlRow get(final int index) {
+        checkRowIndex(index);
+        final Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].getObject(index);
+        }
+        return new SqlRow(columnIndexTable, values);
+    }
+
+    /**
+     * 行数を取得する。
+     *
+     * @return 行数
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * カラム数を取得する。
+     *
+     * @return カラム数
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 指定されたカラムの値を取得する。
+     * <p/>
+     * カラム名は{@link SqlRow}と同じ規則(大文字/小文字の違い、アンダースコアの有無を区別しない)で解決する。
+     *
+     * @param columnName カラム名
+     * @return カラムの値
+     * @throws IllegalArgumentException 指定されたカラム名が存在しない場合
+     */
+    public Column getColumn(final String columnName) {
+        final int index = columnIndexTable.resolve(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("column name = [" + columnName + "] is not found");
+        }
+        return columns[index];
+    }
+
+    /**
+     * 指定されたインデックスのカラムの値を取得する。
+     *
+     * @param columnIndex カラムのインデックス(0始まり)
+     * @return カラムの値
+     * @throws IndexOutOfBoundsException インデックスが範囲外の場合
+     */
+    public Column getColumn(final int columnIndex) {
+        return columns[columnIndex];
+    }
+
+    /**
+     * 行番号が範囲内であることを検証する。
+     *
+     * @param index 行番号
+     * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+     */
+    private void checkRowIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index = [" + index + "], size = [" + size + ']');
+        }
+    }
+
+    /**
+     * 1カラム分の値を保持するクラス。
+     */
+    @Published
+    public final class Column {
+
+        /** 値を保持していない(全ての値が{@code null}) */
+        private static final int EMPTY = 0;
+
+        /** {@link Integer}を{@code int[]}で保持する */
+        private static final int INT = 1;
+
+        /** {@link Long}を{@code long[]}で保持する */
+        private static final int LONG = 2;
+
+        /** {@link Double}を{@code double[]}で保持する */
+        private static final int DOUBLE = 3;
+
+        /** スケールが0の{@link BigDecimal}を{@code long[]}で保持する */
+        private static final int DECIMAL = 4;
+
+        /** {@link Object}の配列で保持する */
+        private static final int OBJECT = 5;
+
+        /** カラム名 */
+        private final String name;
+
+        /** 値の保持方法 */
+        private int kind = EMPTY;
+
+        /** {@code int}の値 */
+        private int[] ints;
+
+        /** {@code long}の値 */
+        private long[] longs;
+
+        /** {@code double}の値 */
+        private double[] doubles;
+
+        /** {@link Object}の値 */
+        private Object[] objects;
+
+        /** {@code null}の行を表すビット列 */
+        private long[] nulls;
+
+        /** 配列の容量 */
+        private int capacity;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name カラム名
+         * @param capacity 配列の初期容量
+         */
+        private Column(final String name, final int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+            nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        /**
+         * カラム名を取得する。
+         *
+         * @return カラム名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 値をプリミティブ型の配列で保持しているか否か。
+         *
+         * @return プリミティブ型の配列で保持している場合は{@code true}
+         */
+        public boolean isPrimitive() {
+            return kind == INT || kind == LONG || kind == DOUBLE || kind == DECIMAL;
+        }
+
+        /**
+         * 指定された行の値が{@code null}か否か。
+         *
+         * @param row 行番号(0始まり)
+         * @return 値が{@code null}の場合は{@code true}
+         * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+         */
+        public boolean isNull(final int row) {
+            checkRowIndex(row);
+            return isNullAt(row);
+        }
+
+        /**
+         * 指定された行の値を{@code int}で取得する。
+         * <p/>
+         * 値が{@code null}の場合は{@code 0}を返却する。
+         *
+         * @param row 行番号(0始まり)
+         * @return 値
+         * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+         * @throws IllegalStateException 値が数値ではない場合
+         */
+        public int getInt(final int row) {
+            checkRowIndex(row);
+            if (kind == INT) {
+                return ints[row];
+            }
+            return (int) getLong(row);
+        }
+
+        /**
+         * 指定された行の値を{@code long}で取得する。
+         * <p/>
+         * 値が{@code null}の場合は{@code 0}を返却する。
+         * 値が小数の場合は、小数部分を切り捨てる。
+         *
+         * @param row 行番号(0始まり)
+         * @return 値
+         * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+         * @throws IllegalStateException 値が数値ではない場合
+         */
+        public long getLong(final int row) {
+            checkRowIndex(row);
+            switch (kind) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                case DECIMAL:
+                    return longs[row];
+                case DOUBLE:
+                    return (long) doubles[row];
+                default:
+                    final Number number = getNumber(row);
+                    return number == null ? 0L : number.longValue();
+            }
+        }
+
+        /**
+         * 指定された行の値を{@code double}で取得する。
+         * <p/>
+         * 値が{@code null}の場合は{@code 0}を返却する。
+         *
+         * @param row 行番号(0始まり)
+         * @return 値
+         * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+         * @throws IllegalStateException 値が数値ではない場合
+         */
+        public double getDouble(final int row) {
+            checkRowIndex(row);
+            switch (kind) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                case DECIMAL:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                default:
+                    final Number number = getNumber(row);
+                    return number == null ? 0d : number.doubleValue();
+            }
+        }
+
+        /**
+         * 指定された行の値を取得する。
+         * <p/>
+         * プリミティブ型の配列で保持している場合は、JDBCドライバが返却した型のオブジェクトを生成して返却する。
+         *
+         * @param row 行番号(0始まり)
+         * @return 値
+         * @throws IndexOutOfBoundsException 行番号が範囲外の場合
+         */
+        public Object getObject(final int row) {
+            checkRowIndex(row);
+            return getObjectAt(row);
+        }
+
+        /**
+         * {@link Object}の配列で保持している値を、{@link Number}で取得する。
+         *
+         * @param row 行番号
+         * @return 値
+         * @throws IllegalStateException 値が数値ではない場合
+         */
+        private Number getNumber(final int row) {
+            final Object value = kind == OBJECT ? objects[row] : null;
+            if (value == null || value instanceof Number) {
+                return (Number) value;
+            }
+            throw new IllegalStateException("data is not number type. column name = [" + name + ']');
+        }
+
+        /**
+         * 指定された行の値が{@code null}か否か。
+         *
+         * @param row 行番号
+         * @return 値が{@code null}の場合は{@code true}
+         */
+        private boolean isNullAt(final int row) {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * 値を追加する。
+         *
+         * @param row 追加する行番号
+         * @param value 値
+         */
+        private void add(final int row, final Object value) {
+            if (row >= capacity) {
+                grow();
+            }
+            if (value == null) {
+                nulls[row >>> 6] |= 1L << row;
+                return;
+            }
+            if (kind == EMPTY) {
+                initialize(value);
+            }
+            if (!store(row, value)) {
+                toObjects(row);
+                objects[row] = value;
+            }
+        }
+
+        /**
+         * 最初の{@code null}以外の値の型から、値の保持方法を決定する。
+         *
+         * @param value 値
+         */
+        private void initialize(final Object value) {
+            if (value instanceof Integer) {
+                kind = INT;
+                ints = new int[capacity];
+            } else if (value instanceof Long) {
+                kind = LONG;
+                longs = new long[capacity];
+            } else if (value instanceof Double) {
+                kind = DOUBLE;
+                doubles = new double[capacity];
+            } else if (value instanceof BigDecimal && isLongDecimal((BigDecimal) value)) {
+                kind = DECIMAL;
+                longs = new long[capacity];
+            } else {
+                kind = OBJECT;
+                objects = new Object[capacity];
+            }
+        }
+
+        /**
+         * 現在の保持方法で値を格納する。
+         *
+         * @param row 行番号
+         * @param value 値
+         * @return 格納できた場合は{@code true}、現在の保持方法で格納できない場合は{@code false}
+         */
+        private boolean store(final int row, final Object value) {
+            switch (kind) {
+                case INT:
+                    if (value instanceof Integer) {
+                        ints[row] = (Integer) value;
+                        return true;
+                    }
+                    return false;
+                case LONG:
+                    if (value instanceof Long) {
+                        longs[row] = (Long) value;
+                        return true;
+                    }
+                    return false;
+                case DOUBLE:
+                    if (value instanceof Double) {
+                        doubles[row] = (Double) value;
+                        return true;
+                    }
+                    return false;
+                case DECIMAL:
+                    if (value instanceof BigDecimal && isLongDecimal((BigDecimal) value)) {
+                        longs[row] = ((BigDecimal) value).longValue();
+                        return true;
+                    }
+                    return false;
+                default:
+                    objects[row] = value;
+                    return true;
+            }
+        }
+
+        /**
+         * 保持済みの値を{@link Object}の配列に移し、以降は{@link Object}の配列で保持する。
+         *
+         * @param rows 保持済みの行数
+         */
+        private void toObjects(final int rows) {
+            final Object[] tmp = new Object[capacity];
+            for (int i = 0; i < rows; i++) {
+                tmp[i] = getObjectAt(i);
+            }
+            objects = tmp;
+            ints = null;
+            longs = null;
+            doubles = null;
+            kind = OBJECT;
+        }
+
+        /**
+         * 行番号の範囲を検証せずに、指定された行の値を取得する。
+         *
+         * @param row 行番号
+         * @return 値
+         */
+        private Object getObjectAt(final int row) {
+            if (isNullAt(row)) {
+                return null;
+            }
+            switch (kind) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                case DECIMAL:
+                    return BigDecimal.valueOf(longs[row]);
+                case OBJECT:
+                    return objects[row];
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * 配列の容量を拡張する。
+         */
+        private void grow() {
+            capacity = capacity + (capacity >> 1) + 1;
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, capacity);
+            }
+            if (longs != null) {
+                longs = Arrays.copyOf(longs, capacity);
+            }
+            if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, capacity);
+            }
+            if (objects != null) {
+                objects = Arrays.copyOf(objects, capacity);
+            }
+        }
+
+        /**
+         * {@link BigDecimal}を、スケールを変えずに{@code long}で保持できるか否か。
+         *
+         * @param value 値
+         * @return 保持できる場合は{@code true}
+         */
+        private boolean isLongDecimal(final BigDecimal value) {
+            return value.scale() == 0 && value.unscaledValue().bitLength() < 64;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package nablarch.core.db.statement;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.List;
+
+import nablarch.core.beans.BeanUtil;
+import nablarch.core.beans.BeansException;
+import nablarch.core.beans.ConversionUtil;
+
+/**
+ * オブジェクトの属性をバインド変数に設定するためのプラン。
+ * <p/>
+ * 名前付きバインド変数ごとに、値を取得するアクセサ(getterまたはフィールド)を事前に解決して保持する。
+ * これにより、バインドの都度オブジェクト全体を{@link java.util.Map}にコピーすることなく、
+ * 必要な属性値のみを直接取得できる。
+ * <p/>
+ * 以下のいずれかに該当する場合、プランは適用不可({@link #isApplicable()}が{@code false})となる。
+ * 適用不可の場合、呼び出し側はオブジェクトを{@link java.util.Map}にコピーする従来の方式で値を設定すること。
+ * <ul>
+ * <li>パラメータ名に対応するプロパティ(フィールド)が存在しない場合</li>
+ * <li>パラメータ名がネストしたプロパティを表す場合(パラメータ名に"."を含む場合)</li>
+ * <li>getterアクセス時に、プロパティの型がネストしたBeanとして扱われる型の場合</li>
+ * </ul>
+ */
+final class ObjectBindPlan {
+
+    /** パラメータごとのアクセサ */
+    private final Accessor[] accessors;
+
+    /** フィールドアクセスで構築したプランか否か */
+    private final boolean fieldAccess;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param accessors パラメータごとのアクセサ
+     * @param fieldAccess フィールドアクセスで構築したプランか否か
+     */
+    private ObjectBindPlan(final Accessor[] accessors, final boolean fieldAccess) {
+        this.accessors = accessors;
+        this.fieldAccess = fieldAccess;
+    }
+
+    /**
+     * バインドプランを構築する。
+     *
+     * @param beanClass バインド対象のオブジェクトのクラス
+     * @param parameterNames 名前付きバインド変数のパラメータ名(バインド順)
+     * @param fieldAccess フィールドアクセスする場合{@code true}、getterでアクセスする場合{@code false}
+     * @return バインドプラン(適用できない場合は、{@link #isApplicable()}が{@code false}のプラン)
+     */
+    static ObjectBindPlan create(final Class<?> beanClass, final List<String> parameterNames,
+            final boolean fieldAccess) {
+        final Accessor[] accessors = new Accessor[parameterNames.size()];
+        for (int i = 0; i < accessors.length; i++) {
+            final String name = parameterNames.get(i);
+            final Accessor accessor = fieldAccess
+                    ? createFieldAccessor(beanClass, name)
+                    : createPropertyAccessor(beanClass, name);
+            if (accessor == null) {
+                return new ObjectBindPlan(null, fieldAccess);
+            }
+            accessors[i] = accessor;
+        }
+        return new ObjectBindPlan(accessors, fieldAccess);
+    }
+
+    /**
+     * プランが適用可能か否か。
+     *
+     * @return 適用可能な場合{@code true}
+     */
+    boolean isApplicable() {
+        return accessors != null;
+    }
+
+    /**
+     * フィールドアクセスで構築したプランか否か。
+     *
+     * @return フィールドアクセスで構築したプランの場合{@code true}
+     */
+    boolean isFieldAccess() {
+        return fieldAccess;
+    }
+
+    /**
+     * 指定されたパラメータの値をオブジェクトから取得する。
+     *
+     * @param data 取得対象のオブジェクト
+     * @param index パラメータのインデックス(0始まり)
+     * @return 取得した値
+     */
+    Object getValue(final Object data, final int index) {
+        return accessors[index].get(data);
+    }
+
+    /**
+     * getterを用いるアクセサを生成する。
+     * <p/>
+     * {@link BeanUtil#createMapAndCopy(Object)}でキーとして直接格納されるプロパティのみを対象とする。
+     *
+     * @param beanClass 対象のクラス
+     * @param name プロパティ名
+     * @return アクセサ(対象とならない場合は{@code null})
+     */
+    private static Accessor createPropertyAccessor(final Class<?> beanClass, final String name) {
+        if (name.indexOf('.') >= 0) {
+            return null;
+        }
+        Method readMethod = null;
+        Class<?> propertyType = null;
+        if (beanClass.isRecord()) {
+            for (RecordComponent component : beanClass.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    readMethod = component.getAccessor();
+                    propertyType = component.getType();
+                    break;
+                }
+            }
+        } else {
+            for (PropertyDescriptor descriptor : BeanUtil.getPropertyDescriptors(beanClass)) {
+                if (descriptor.getName().equals(name)) {
+                    readMethod = descriptor.getReadMethod();
+                    propertyType = descriptor.getPropertyType();
+                    break;
+                }
+            }
+        }
+        if (readMethod == null || !ConversionUtil.hasConverter(propertyType)) {
+            return null;
+        }
+        return new MethodAccessor(readMethod, name);
+    }
+
+    /**
+     * フィールドを用いるアクセサを生成する。
+     * <p/>
+     * 親クラスも再帰的に検索し、サブクラスで宣言されたフィールドを優先する。
+     *
+     * @param beanClass 対象のクラス
+     * @param name フィールド名
+     * @return アクセサ(フィールドが存在しない場合は{@code null})
+     */
+    private static Accessor createFieldAccessor(final Class<?> beanClass, final String name) {
+        for (Class<?> clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    field.setAccessible(true);
+                    return new FieldAccessor(field);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * オブジェクトから値を取得するアクセサ。
+     */
+    private interface Accessor {
+
+        /**
+         * 値を取得する。
+         *
+         * @param data 取得対象のオブジェクト
+         * @return 値
+         */
+        Object get(Object data);
+    }
+
+    /**
+     * getterを用いるアクセサ。
+     */
+    private static final class MethodAccessor implements Accessor {
+
+        /** getter */
+        private final Method readMethod;
+
+        /** プロパティ名 */
+        private final String propertyName;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param readMethod getter
+         * @param propertyName プロパティ名
+         */
+        private MethodAccessor(final Method readMethod, final String propertyName) {
+            this.readMethod = readMethod;
+            this.propertyName = propertyName;
+        }
+
+        @Override
+        public Object get(final Object data) {
+            try {
+                return readMethod.invoke(data);
+            } catch (Exception e) {
+                throw new BeansException("Failed to read property. property name: " + propertyName, e);
+            }
+        }
+    }
+
+    /**
+     * フィールドを用いるアクセサ。
+     */
+    private static final class FieldAccessor implements Accessor {
+
+        /** フィールド */
+        private final Field field;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param field フィールド
+         */
+        private FieldAccessor(final Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public Object get(final Object data) {
+            try {
+                return field.get(data);
+            } catch (IllegalAccessException e) {
+                // setAccessible(true) でアクセス可能にしているので、この例外がスローされることはない
+                throw new RuntimeException(String.format(
+                        "failed to access the filed [%s] of the class [%s].",
+                        field.getName(), field.getDeclaringClass().getName()), e);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nablarch.core.db.statement;
 
+import java.util.List;
 import java.util.Map;
 
 import nablarch.core.db.statement.exception.SqlStatementException;
@@ -69,6 +70,80 @@ public interface ParameterizedSqlPStatement extends SqlStatement {
      */
     SqlResultSet retrieve(int startPos, int max, Object data) throws SqlStatementException;
 
+    /**
+     * 簡易検索機能。
+     * <p/>
+     * 検索結果の各行を、{@link SqlRow}を経由せずに指定されたクラスのBean(またはレコード)に変換して返却する。
+     * 読み込み開始位置と最大行数は、{@link #retrieve(Map)}と同じとなる。
+     * プロパティとカラムの対応付け、値の型変換は{@link ResultSetIterator#getRow(Class)}と同じとなる。
+     * <p/>
+     * デフォルト実装では、{@link #retrieve(Map)}で取得した結果セットの各行をBeanに変換する。
+     *
+     * @param beanClass Beanのクラス
+     * @param data 検索条件を要素にもつMap
+     * @param <T> Beanの型
+     * @return 取得結果
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合
+     */
+    default <T> List<T> retrieveBeans(Class<T> beanClass, Map<String, ?> data) throws SqlStatementException {
+        return BeanRowMapper.mapRows(beanClass, retrieve(data));
+    }
+
+    /**
+     * 簡易検索機能。
+     * <p/>
+     * 検索結果の各行を、{@link SqlRow}を経由せずに指定されたクラスのBean(またはレコード)に変換して返却する。
+     * 読み込み開始位置と最大行数は、{@link #retrieve(Object)}と同じとなる。
+     * プロパティとカラムの対応付け、値の型変換は{@link ResultSetIterator#getRow(Class)}と同じとなる。
+     * <p/>
+     * デフォルト実装では、{@link #retrieve(Object)}で取得した結果セットの各行をBeanに変換する。
+     *
+     * @param beanClass Beanのクラス
+     * @param data 検索条件をフィールドにもつオブジェクト
+     * @param <T> Beanの型
+     * @return 取得結果
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合
+     */
+    default <T> List<T> retrieveBeans(Class<T> beanClass, Object data) throws SqlStatementException {
+        return BeanRowMapper.mapRows(beanClass, retrieve(data));
+    }
+
+    /**
+     * 検索結果を1行ずつ処理する。
+     * <p/>
+     * 検索結果を{@link SqlResultSet}に保持せずに、フェッチサイズに従って1行ずつ読み込みコールバックに渡す。
+     * 読み込み開始位置と最大行数は、{@link #retrieve(Map)}と同じとなる。
+     * <p/>
+     * デフォルト実装では、{@link #executeQueryByMap(Map)}で取得した全ての行をコールバックに渡す。
+     *
+     * @param data 検索条件を要素にもつMap
+     * @param callback 1行ごとに呼び出されるコールバック
+     * @return 処理した行数
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合
+     * @see SqlPStatement#forEachRow(SqlRowCallback)
+     */
+    default int forEachRow(Map<String, ?> data, SqlRowCallback callback) throws SqlStatementException {
+        return ResultSetIterator.forEachRow(executeQueryByMap(data), callback);
+    }
+
+    /**
+     * 検索結果を1行ずつ処理する。
+     * <p/>
+     * 検索結果を{@link SqlResultSet}に保持せずに、フェッチサイズに従って1行ずつ読み込みコールバックに渡す。
+     * 読み込み開始位置と最大行数は、{@link #retrieve(Object)}と同じとなる。
+     * <p/>
+     * デフォルト実装では、{@link #executeQueryByObject(Object)}で取得した全ての行をコールバックに渡す。
+     *
+     * @param data 検索条件をフィールドにもつオブジェクト
+     * @param callback 1行ごとに呼び出されるコールバック
+     * @return 処理した行数
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合
+     * @see SqlPStatement#forEachRow(SqlRowCallback)
+     */
+    default int forEachRow(Object data, SqlRowCallback callback) throws SqlStatementException {
+        return ResultSetIterator.forEachRow(executeQueryByObject(data), callback);
+    }
+
     /**
      * {@link java.sql.PreparedStatement#executeQuery}のラッパー。
      *
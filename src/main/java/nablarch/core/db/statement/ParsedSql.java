@@ -0,0 +1,61 @@
+package nablarch.core.db.statement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 名前付きバインド変数を持つSQL文の解析結果を保持するクラス。
+ * <p/>
+ * 本クラスは不変であり、複数スレッドから共有できる。
+ *
+ * @see SqlParameterParser
+ */
+public final class ParsedSql {
+
+    /** バインド変数を「?」に置き換えたSQL */
+    private final String sql;
+
+    /** 名前付きバインド変数のリスト */
+    private final List<String> nameList;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param sql バインド変数を「?」に置き換えたSQL
+     * @param nameList 名前付きバインド変数のリスト
+     */
+    public ParsedSql(String sql, List<String> nameList) {
+        this.sql = sql;
+        this.nameList = Collections.unmodifiableList(new ArrayList<String>(nameList));
+    }
+
+    /**
+     * 解析済みの{@link SqlParameterParser}から解析結果を生成する。
+     *
+     * @param parser 解析済みの{@link SqlParameterParser}
+     * @return 解析結果
+     */
+    public static ParsedSql of(SqlParameterParser parser) {
+        return new ParsedSql(parser.getSql(), parser.getNameList());
+    }
+
+    /**
+     * バインド変数を「?」に置き換えたSQLを取得する。
+     *
+     * @return SQL文
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 名前付きバインド変数のリストを取得する。<br>
+     * 名前付きバインド変数は、「?」の位置順にリストに格納されている。
+     *
+     * @return 名前付きバインド変数のリスト(変更不可)
+     */
+    public List<String> getNameList() {
+        return nameList;
+    }
+}
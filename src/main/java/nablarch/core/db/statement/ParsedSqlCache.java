@@ -0,0 +1,202 @@
+package nablarch.core.db.statement;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 名前付きバインド変数を持つSQL文の解析結果をキャッシュするクラス。
+ * <p/>
+ * 解析前のSQL文をキーに、解析結果({@link ParsedSql})を保持する。
+ * キャッシュ件数が上限に達した場合は、クロック方式(セカンドチャンス)で削除するエントリを決定する。
+ * 各エントリは参照されると参照ビットを立て、削除対象を探す際に、参照ビットが立っていないエントリを削除し、
+ * 立っているエントリは参照ビットを下ろして次のエントリに進む。
+ * これにより、繰り返し使用されるSQL文の解析結果は、一度だけ使用されたSQL文によって追い出されない。
+ * <p/>
+ * 本クラスはスレッドセーフであり、参照時にロックを取得しない。ロックは解析結果の登録時にのみ取得する。
+ * キャッシュのヒット件数、ミス件数を取得できるため、キャッシュの効果を確認できる。
+ */
+public class ParsedSqlCache {
+
+    /** キャッシュの実体 */
+    private final Map<String, Entry> cache;
+
+    /** 削除対象を探すためのエントリの配列(ロック内でのみ参照する) */
+    private final Entry[] ring;
+
+    /** 使用している配列の要素数(ロック内でのみ参照する) */
+    private int used;
+
+    /** 削除対象を探す位置(ロック内でのみ参照する) */
+    private int hand;
+
+    /** キャッシュ上限件数 */
+    private final int maxSize;
+
+    /** ヒット件数 */
+    private final LongAdder hitCount = new LongAdder();
+
+    /** ミス件数 */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxSize キャッシュ上限件数
+     */
+    public ParsedSqlCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0. maxSize = [" + maxSize + ']');
+        }
+        this.maxSize = maxSize;
+        cache = new ConcurrentHashMap<String, Entry>(Math.min(maxSize, 256));
+        ring = new Entry[maxSize];
+    }
+
+    /**
+     * キャッシュから解析結果を取得する。
+     * <p/>
+     * 本メソッドはロックを取得しない。
+     *
+     * @param sql 解析前のSQL文
+     * @return 解析結果(キャッシュに存在しない場合は{@code null})
+     */
+    public ParsedSql get(String sql) {
+        final Entry entry = cache.get(sql);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        entry.recordAccess();
+        return entry.parsed;
+    }
+
+    /**
+     * 指定されたパーサでSQL文を解析し、結果をキャッシュに格納する。
+     * <p/>
+     * {@link #get(String)}で解析結果を取得できなかった場合に使用する。
+     * 同一のSQL文に対する解析が同時に行われた場合は、先に格納された解析結果を返す。
+     *
+     * @param sql 解析前のSQL文
+     * @param parser 解析に使用するパーサ
+     * @return 解析結果
+     */
+    public ParsedSql parse(String sql, SqlParameterParser parser) {
+        parser.parse(sql);
+        final ParsedSql parsed = ParsedSql.of(parser);
+        synchronized (this) {
+            final Entry existing = cache.get(sql);
+            if (existing != null) {
+                return existing.parsed;
+            }
+            final int slot = used < ring.length ? used++ : evictOne();
+            final Entry entry = new Entry(sql, parsed);
+            ring[slot] = entry;
+            cache.put(sql, entry);
+        }
+        return parsed;
+    }
+
+    /**
+     * 参照ビットが立っていないエントリを1件削除する。
+     *
+     * @return 削除したエントリの配列の位置
+     */
+    private int evictOne() {
+        while (true) {
+            final Entry candidate = ring[hand];
+            final int slot = hand;
+            hand = (hand + 1) % ring.length;
+            if (candidate.referenced) {
+                candidate.referenced = false;
+            } else {
+                cache.remove(candidate.sql);
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * キャッシュをクリアする。
+     * <p/>
+     * ヒット件数、ミス件数はクリアしない。
+     */
+    public synchronized void clear() {
+        cache.clear();
+        Arrays.fill(ring, null);
+        used = 0;
+        hand = 0;
+    }
+
+    /**
+     * キャッシュされている件数を取得する。
+     *
+     * @return キャッシュ件数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * キャッシュ上限件数を取得する。
+     *
+     * @return キャッシュ上限件数
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * キャッシュのヒット件数を取得する。
+     *
+     * @return ヒット件数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * キャッシュのミス件数(SQL文を解析した件数)を取得する。
+     *
+     * @return ミス件数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * キャッシュのエントリ。
+     */
+    private static final class Entry {
+
+        /** 解析前のSQL文 */
+        private final String sql;
+
+        /** 解析結果 */
+        private final ParsedSql parsed;
+
+        /** 参照ビット */
+        private volatile boolean referenced;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param sql 解析前のSQL文
+         * @param parsed 解析結果
+         */
+        private Entry(String sql, ParsedSql parsed) {
+            this.sql = sql;
+            this.parsed = parsed;
+        }
+
+        /** 参照されたことを記録する。 */
+        private void recordAccess() {
+            // 参照のたびに書き込むと、CPU間でキャッシュラインの競合が発生するため、立っていない場合のみ書き込む。
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package nablarch.core.db.statement;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 検索結果の読み込みを別スレッドで先行して行う{@link Iterator}実装。
+ * <p/>
+ * 読み込み用のスレッドが、検索結果を指定された件数ごとのまとまり(チャンク)で読み込んで{@link SqlRow}に変換し、
+ * 上限のあるバッファに格納する。呼び出し元のスレッドはバッファから行を取り出して処理するため、
+ * 呼び出し元の行ごとの処理と、データベースからのフェッチを並行して行うことができる。
+ * <p/>
+ * 読み込み中に発生した例外は、呼び出し元のスレッドで{@link #hasNext()}または{@link #next()}から送出される。
+ * 検索結果の{@link java.sql.ResultSet}は、全ての行を読み終えた場合、例外が発生した場合、
+ * または{@link #close()}が呼び出された場合に、読み込み用のスレッドでクローズされる。
+ * <p/>
+ * 読み込み中は、読み込み用のスレッドが検索結果の属するコネクションを使用する。
+ * このため、全ての行を読み終えるか{@link #close()}を呼び出すまでは、同じコネクションで他のSQLを実行してはならない。
+ * <p/>
+ * 読み込み用のスレッドは本クラスのインスタンスを弱参照で保持する。
+ * {@link #close()}を呼び出さずに本クラスのインスタンスが破棄された場合も、
+ * 読み込み用のスレッドはバッファの空きを待つ間にそれを検知し、検索結果をクローズして終了する。
+ *
+ * @see ResultSetIterator#prefetch(int)
+ */
+@Published
+public final class PrefetchingRowIterator implements Iterator<SqlRow>, AutoCloseable {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(PrefetchingRowIterator.class);
+
+    /** バッファに保持するチャンクの数 */
+    private static final int BUFFER_CHUNKS = 2;
+
+    /** 全ての行を読み終えたことを表すマーカー */
+    private static final Object END = new Object();
+
+    /** 読み込み用のスレッドが、バッファの空きを待つ間に中止の要否を確認する間隔(ミリ秒) */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    /** クローズ時に、SQLの実行をキャンセルせずに読み込み用のスレッドの終了を待機する時間(ミリ秒)のデフォルト値 */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /** 読み込んだチャンクを受け渡すバッファ */
+    private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<Object>(BUFFER_CHUNKS);
+
+    /** 読み込みの中止を要求されたか否か(読み込み用のスレッドと共有する) */
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /** 検索結果 */
+    private final ResultSetIterator resultSet;
+
+    /** 読み込み用のスレッド */
+    private final Thread producer;
+
+    /** 処理中のチャンク */
+    private List<SqlRow> chunk = Collections.emptyList();
+
+    /** 処理中のチャンク内の位置 */
+    private int position;
+
+    /** 全ての行を取り出したか否か */
+    private boolean finished;
+
+    /** クローズされたか否か */
+    private boolean closed;
+
+    /** クローズ時に、SQLの実行をキャンセルせずに読み込み用のスレッドの終了を待機する時間(ミリ秒) */
+    private long closeTimeoutMillis = CLOSE_TIMEOUT_MILLIS;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 読み込み用のスレッドを開始する。
+     *
+     * @param resultSet 検索結果
+     * @param chunkSize 1つのチャンクの行数
+     */
+    PrefetchingRowIterator(final ResultSetIterator resultSet, final int chunkSize) {
+        this.resultSet = resultSet;
+        producer = new Thread(new Producer(this, buffer, stopped, resultSet, chunkSize), "nablarch-resultset-prefetch");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * 次の行が存在するか否か。
+     * <p/>
+     * 処理中のチャンクの行を全て取り出した場合は、次のチャンクが読み込まれるまで待機する。
+     *
+     * @return 次の行が存在する場合は{@code true}
+     * @throws RuntimeException 読み込み中に例外が発生した場合は、その例外
+     */
+    @Override
+    public boolean hasNext() {
+        if (position < chunk.size()) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        final Object next = take();
+        if (next == END) {
+            finished = true;
+            return false;
+        }
+        if (next instanceof Failure) {
+            finished = true;
+            final Throwable cause = ((Failure) next).cause;
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        @SuppressWarnings("unchecked")
+        final List<SqlRow> rows = (List<SqlRow>) next;
+        chunk = rows;
+        position = 0;
+        return true;
+    }
+
+    /**
+     * 次の行を取得する。
+     *
+     * @return 次の行
+     * @throws NoSuchElementException 次の行が存在しない場合
+     * @throws RuntimeException 読み込み中に例外が発生した場合は、その例外
+     */
+    @Override
+    public SqlRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.get(position++);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 本メソッドは、サポートしない。
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove operation is unsupported.");
+    }
+
+    /**
+     * 読み込みを中止し、検索結果をクローズする。
+     * <p/>
+     * 読み込み用のスレッドは、実行中のJDBCの呼び出しを中断せずに、行の読み込みの合間で停止して{@link java.sql.ResultSet}をクローズする。
+     * 本メソッドは、読み込み用のスレッドが終了するまで最大{@value #CLOSE_TIMEOUT_MILLIS}ミリ秒待機する。
+     * 待機しても終了しない場合は、フェッチ中のSQLの実行をキャンセルし、読み込み用のスレッドが終了するまで待機する。
+     * <p/>
+     * 本メソッドから正常に復帰した場合、読み込み用のスレッドは終了しており、コネクションを使用していない。
+     * 読み込み用のスレッドの終了を確認できない場合は例外を送出する。この場合は、同じコネクションを使用してはならない。
+     * 既にクローズされている場合は何もしない。
+     *
+     * @throws IllegalStateException SQLの実行をキャンセルできない場合、または終了を待機中に割り込まれた場合
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finished = true;
+        chunk = Collections.emptyList();
+        stopped.set(true);
+        // バッファの空きを待っている読み込み用のスレッドを、すぐに再開させる。
+        buffer.clear();
+        boolean interrupted = false;
+        try {
+            producer.join(closeTimeoutMillis);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        try {
+            if (producer.isAlive()) {
+                // フェッチが終わらないため、SQLの実行をキャンセルして読み込み用のスレッドを再開させる。
+                try {
+                    resultSet.cancel();
+                } catch (RuntimeException e) {
+                    LOGGER.logWarn("failed to cancel the prefetching statement.", e);
+                    throw new IllegalStateException(
+                            "prefetching thread is still fetching rows. the connection must not be used.", e);
+                }
+                // キャンセルによりフェッチが中断されるため、読み込み用のスレッドが終了するまで待機する。
+                try {
+                    producer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    throw new IllegalStateException(
+                            "interrupted while waiting for the prefetching thread. the connection must not be used.", e);
+                }
+            }
+        } finally {
+            buffer.clear();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * クローズ時に、SQLの実行をキャンセルせずに読み込み用のスレッドの終了を待機する時間を設定する。
+     * <p/>
+     * テストで待機時間を短縮するために使用する。
+     *
+     * @param closeTimeoutMillis 待機する時間(ミリ秒)
+     */
+    void setCloseTimeoutMillis(final long closeTimeoutMillis) {
+        this.closeTimeoutMillis = closeTimeoutMillis;
+    }
+
+    /**
+     * バッファから次のチャンクを取り出す。
+     *
+     * @return 次のチャンク、または終了を表すオブジェクト
+     * @throws IllegalStateException 待機中に割り込まれた場合
+     */
+    private Object take() {
+        try {
+            return buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("interrupted while waiting for prefetched rows.", e);
+        }
+    }
+
+    /**
+     * 検索結果を読み込み、バッファに格納する処理。
+     * <p/>
+     * 破棄された{@link PrefetchingRowIterator}を検知できるよう、{@link PrefetchingRowIterator}は弱参照で保持する。
+     */
+    private static final class Producer implements Runnable {
+
+        /** 読み込んだ行を取り出す{@link PrefetchingRowIterator} */
+        private final WeakReference<PrefetchingRowIterator> owner;
+
+        /** 読み込んだチャンクを受け渡すバッファ */
+        private final BlockingQueue<Object> buffer;
+
+        /** 読み込みの中止を要求されたか否か */
+        private final AtomicBoolean stopped;
+
+        /** 検索結果 */
+        private final ResultSetIterator resultSet;
+
+        /** 1つのチャンクの行数 */
+        private final int chunkSize;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param owner 読み込んだ行を取り出す{@link PrefetchingRowIterator}
+         * @param buffer 読み込んだチャンクを受け渡すバッファ
+         * @param stopped 読み込みの中止を要求されたか否か
+         * @param resultSet 検索結果
+         * @param chunkSize 1つのチャンクの行数
+         */
+        private Producer(final PrefetchingRowIterator owner, final BlockingQueue<Object> buffer,
+                final AtomicBoolean stopped, final ResultSetIterator resultSet, final int chunkSize) {
+            this.owner = new WeakReference<PrefetchingRowIterator>(owner);
+            this.buffer = buffer;
+            this.stopped = stopped;
+            this.resultSet = resultSet;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void run() {
+            Throwable error = null;
+            try {
+                List<SqlRow> rows = new ArrayList<SqlRow>(chunkSize);
+                while (!isStopped() && resultSet.next()) {
+                    rows.add(resultSet.getRow());
+                    if (rows.size() >= chunkSize) {
+                        if (!offer(rows)) {
+                            break;
+                        }
+                        rows = new ArrayList<SqlRow>(chunkSize);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    offer(rows);
+                }
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Error e) {
+                error = e;
+            } finally {
+                try {
+                    resultSet.close();
+                } catch (RuntimeException e) {
+                    if (error == null) {
+                        error = e;
+                    } else {
+                        LOGGER.logWarn("failed to close result set.", e);
+                    }
+                }
+            }
+            if (error != null && isStopped()) {
+                LOGGER.logWarn("failed to prefetch rows after the iterator was closed.", error);
+                return;
+            }
+            offer(error == null ? END : new Failure(error));
+        }
+
+        /**
+         * 読み込みの中止を要求されたか、{@link PrefetchingRowIterator}が破棄されたか否か。
+         *
+         * @return 読み込みを中止する場合は{@code true}
+         */
+        private boolean isStopped() {
+            return stopped.get() || owner.get() == null;
+        }
+
+        /**
+         * バッファに空きができるまで待機して格納する。
+         * <p/>
+         * 待機中に読み込みの中止を要求された場合は、格納せずに終了する。
+         *
+         * @param element 格納する要素
+         * @return 格納した場合は{@code true}
+         */
+        private boolean offer(final Object element) {
+            try {
+                while (!isStopped()) {
+                    if (buffer.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 読み込み中に発生した例外を、呼び出し元のスレッドに受け渡すためのクラス。
+     */
+    private static final class Failure {
+
+        /** 発生した例外 */
+        private final Throwable cause;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param cause 発生した例外
+         */
+        private Failure(final Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
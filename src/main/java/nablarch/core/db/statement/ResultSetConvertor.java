@@ -45,4 +45,27 @@ public interface ResultSetConvertor {
      */
     boolean isConvertible(ResultSetMetaData rsmd, int columnIndex) throws SQLException;
 
+    /**
+     * 指定されたカラムのデータを取得する{@link ColumnReader}を生成する。<br>
+     * <br>
+     * 本メソッドは、{@link ResultSetIterator}の生成時にカラムごとに一度だけ呼び出され、
+     * 生成した{@link ColumnReader}は全ての行のデータ取得に使用される。<br>
+     * データ型によって取得方法が異なる場合は、本メソッドをオーバーライドして{@link ResultSetMetaData}の参照を本メソッド内で行うことで、
+     * 行ごとの{@link ResultSetMetaData}の参照を不要にできる。<br>
+     * <br>
+     * デフォルト実装では、{@link #isConvertible(ResultSetMetaData, int)}の結果に応じて、
+     * {@link ResultSet#getObject(int)}または{@link #convert(ResultSet, ResultSetMetaData, int)}でデータを取得する{@link ColumnReader}を返却する。
+     *
+     * @param rsmd ResultSetMetaData
+     * @param columnIndex カラムインデックス
+     * @return {@link ColumnReader}
+     * @throws SQLException SQL例外発生時
+     */
+    default ColumnReader createColumnReader(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
+        if (isConvertible(rsmd, columnIndex)) {
+            return ColumnReaders.convert(this, rsmd, columnIndex);
+        }
+        return ColumnReaders.object(columnIndex);
+    }
+
 }
@@ -5,6 +5,7 @@ import java.sql.Blob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.Collections;
 import java.util.Date;
@@ -36,6 +37,9 @@ import nablarch.core.util.annotation.Published;
  */
 public class ResultSetIterator implements Iterable<SqlRow> {
 
+    /** フェッチサイズが設定されていない場合に、先行して読み込む行数 */
+    private static final int DEFAULT_PREFETCH_SIZE = 100;
+
     /**
      * ResultSet
      */
@@ -52,9 +56,29 @@ public class ResultSetIterator implements Iterable<SqlRow> {
     private Map<String, Integer> colTypeMap;
 
     /**
-     * ResultSetConvertorで変換するカラムか否か
+     * カラム名と1行分の値を保持する配列のインデックスとの対応表
+     */
+    private ColumnIndexTable columnIndexTable;
+
+    /**
+     * カラムごとのデータを取得する{@link ColumnReader}
+     */
+    private ColumnReader[] columnReaders;
+
+    /**
+     * 現在レコードをBeanに変換するマッパー
+     */
+    private BeanRowMapper<?> beanRowMapper;
+
+    /**
+     * Beanに変換する際に、1行分の値を読み込む配列
+     */
+    private Object[] beanValues;
+
+    /**
+     * 同じ値を集約する辞書(集約しない場合はnull)
      */
-    private boolean[] convertCols;
+    private ResultSetValueDictionary valueDictionary;
 
     /**
      * ResultSetMetaData
@@ -106,7 +130,7 @@ public class ResultSetIterator implements Iterable<SqlRow> {
             metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
             colNames = new String[columnCount];
-            convertCols = new boolean[columnCount];
+            columnReaders = new ColumnReader[columnCount];
 
             for (int i = 1; i <= columnCount; i++) {
                 String colName = metaData.getColumnLabel(i)
@@ -115,12 +139,13 @@ public class ResultSetIterator implements Iterable<SqlRow> {
                 colNames[i - 1] = colName;
                 tmpColTypeMap.put(colName, metaData.getColumnType(i));
 
-                // ResultSetConvertorでの変換対象かを判定する。
-                if (convertor != null) {
-                    convertCols[i - 1] = convertor.isConvertible(metaData, i);
-                }
+                // カラムのデータを取得するColumnReaderを決定する。
+                columnReaders[i - 1] = convertor != null
+                        ? convertor.createColumnReader(metaData, i)
+                        : ColumnReaders.object(i);
             }
             colTypeMap = Collections.unmodifiableMap(tmpColTypeMap);
+            columnIndexTable = new ColumnIndexTable(colNames, colTypeMap);
         } catch (SQLException e) {
             throw new DbAccessException("failed to initialization.", e);
         }
@@ -349,26 +374,131 @@ public class ResultSetIterator implements Iterable<SqlRow> {
      * 現在レコードのデータを取得する。
      * <p/>
      * 本メソッドでは、呼び出されるたびに{@link SqlRow}を生成する。
+     * 生成する{@link SqlRow}は値のみを配列で保持し、カラム名との対応表は同じ検索結果の全ての行で共有する。
      *
      * @return 現在レコードを保持したSqlRow
      * @throws DbAccessException {@link SQLException}が発生した場合
      */
     @Published
     public SqlRow getRow() {
-        Map<String, Object> tmpRow;
-        tmpRow = new HashMap<String, Object>((colNames.length * 3) / 2 + 1);
+        final Object[] values = new Object[columnIndexTable.size()];
         try {
-            for (int i = 0; i < colNames.length; i++) {
-                if (convertCols[i]) {
-                    tmpRow.put(colNames[i], convertor.convert(rs, metaData, i + 1));
-                } else {
-                    tmpRow.put(colNames[i], rs.getObject(i + 1));
-                }
-            }
+            readValues(values);
+        } catch (SQLException e) {
+            throw new DbAccessException("failed to getRow.", e);
+        }
+        return new SqlRow(columnIndexTable, values);
+    }
+
+    /**
+     * 現在レコードのデータを、指定されたクラスのBean(またはレコード)に変換して取得する。
+     * <p/>
+     * {@link SqlRow}を生成せずに、{@link ResultSet}から取得した値を直接Beanに設定する。
+     * プロパティとカラムの対応付けは、{@link SqlRow}からプロパティ名で値を取得する場合と同じ規則で行い、
+     * 値の型変換は{@link nablarch.core.beans.BeanUtil#createAndCopy(Class, Map)}と同じ方法で行う。
+     * 対応するカラムが存在しないプロパティには値を設定しない。
+     * <p/>
+     * プロパティとカラムの対応付けは、同じクラスに対して最初に呼び出された時点で解決し、以降の行ではその結果を使用する。
+     *
+     * @param beanClass Beanのクラス
+     * @param <T> Beanの型
+     * @return 現在レコードの値を設定したBean
+     * @throws DbAccessException {@link SQLException}が発生した場合
+     */
+    @Published
+    public <T> T getRow(Class<T> beanClass) {
+        @SuppressWarnings("unchecked")
+        BeanRowMapper<T> mapper = (BeanRowMapper<T>) beanRowMapper;
+        if (mapper == null || !mapper.isApplicable(beanClass, columnIndexTable)) {
+            mapper = BeanRowMapper.create(beanClass, columnIndexTable);
+            beanRowMapper = mapper;
+            beanValues = new Object[columnIndexTable.size()];
+        }
+        try {
+            readValues(beanValues);
         } catch (SQLException e) {
             throw new DbAccessException("failed to getRow.", e);
         }
-        return new SqlRow(tmpRow, colTypeMap);
+        return mapper.map(beanValues);
+    }
+
+    /**
+     * 現在レコードのデータを、値を保持する配列に読み込む。
+     *
+     * @param values 値を保持する配列
+     * @throws SQLException SQL例外発生時
+     */
+    void readValues(final Object[] values) throws SQLException {
+        if (valueDictionary == null) {
+            for (int i = 0; i < columnReaders.length; i++) {
+                values[columnIndexTable.getSlot(i)] = columnReaders[i].read(rs);
+            }
+            return;
+        }
+        for (int i = 0; i < columnReaders.length; i++) {
+            values[columnIndexTable.getSlot(i)] = valueDictionary.canonicalize(i, columnReaders[i].read(rs));
+        }
+    }
+
+    /**
+     * 読み込んだ値のうち、同じ値の文字列と数値をカラムごとに1つのインスタンスに集約する。
+     * <p/>
+     * 少ない種類の値が多くの行で繰り返される検索結果で、保持するヒープを削減するために使用する。
+     * 行の読み込みを開始する前に呼び出すこと。
+     *
+     * @param maxEntries カラムごとに集約する値の種類数の上限
+     * @see ResultSetValueDictionary
+     */
+    void enableValueDictionary(final int maxEntries) {
+        valueDictionary = new ResultSetValueDictionary(columnReaders.length, maxEntries);
+    }
+
+    /**
+     * カラム名と1行分の値を保持する配列のインデックスとの対応表を取得する。
+     *
+     * @return カラム名と配列のインデックスとの対応表
+     */
+    ColumnIndexTable getColumnIndexTable() {
+        return columnIndexTable;
+    }
+
+    /**
+     * 検索結果の全ての行をコールバックに渡す。
+     * <p/>
+     * 全ての行の処理が終わった場合、またはコールバックから例外が送出された場合は、検索結果をクローズする。
+     *
+     * @param rs 検索結果
+     * @param callback 1行ごとに呼び出されるコールバック
+     * @return 処理した行数
+     */
+    static int forEachRow(ResultSetIterator rs, SqlRowCallback callback) {
+        try {
+            int count = 0;
+            while (rs.next()) {
+                callback.handle(rs.getRow());
+                count++;
+            }
+            return count;
+        } finally {
+            rs.close();
+        }
+    }
+
+    /**
+     * 検索結果を取得した{@link Statement}の実行をキャンセルする。
+     *
+     * @throws DbAccessException {@link SQLException}が発生した場合
+     * @see Statement#cancel()
+     */
+    void cancel() {
+        try {
+            final Statement jdbcStatement = rs.getStatement();
+            if (jdbcStatement != null) {
+                jdbcStatement.cancel();
+            }
+        } catch (SQLException e) {
+            throw new DbAccessException("failed to cancel statement.", e);
+        }
     }
 
     /**
@@ -412,6 +542,72 @@ public class ResultSetIterator implements Iterable<SqlRow> {
         return new InnerIterator();
     }
 
+    /**
+     * 行ごとに{@link SqlRow}を生成せずに、1行分の値を保持する配列を再利用して検索結果を読み込むカーソルを返す。
+     * <p/>
+     * 大量の行を読み込む場合に、行ごとのオブジェクトの生成を抑えるために使用する。
+     * 本メソッドと{@link #iterator()}は、どちらか一方のみ使用できる。
+     *
+     * @return カーソル
+     * @throws IllegalStateException 既に本メソッドまたは{@link #iterator()}が呼び出されている場合
+     * @see RowCursor
+     */
+    @Published
+    public RowCursor cursor() {
+        if (makeIterator) {
+            throw new IllegalStateException("multiple method call is unsupported.");
+        }
+        makeIterator = true;
+        return new RowCursor(this, columnIndexTable);
+    }
+
+    /**
+     * 別スレッドで検索結果を先行して読み込む{@link Iterator}を返す。
+     * <p/>
+     * {@link ResultSet}に設定されたフェッチサイズを1回に読み込む行数とする。
+     * フェッチサイズが設定されていない場合は、{@value #DEFAULT_PREFETCH_SIZE}行ずつ読み込む。
+     *
+     * @return 先行して読み込む{@link Iterator}
+     * @throws IllegalStateException 既に{@link #iterator()}などが呼び出されている場合
+     * @throws DbAccessException {@link SQLException}が発生した場合
+     * @see #prefetch(int)
+     */
+    @Published
+    public PrefetchingRowIterator prefetch() {
+        final int fetchSize;
+        try {
+            fetchSize = rs.getFetchSize();
+        } catch (SQLException e) {
+            throw new DbAccessException("failed to getFetchSize.", e);
+        }
+        return prefetch(fetchSize > 0 ? fetchSize : DEFAULT_PREFETCH_SIZE);
+    }
+
+    /**
+     * 別スレッドで検索結果を先行して読み込む{@link Iterator}を返す。
+     * <p/>
+     * 読み込み用のスレッドが指定された行数ずつ検索結果を読み込み、呼び出し元の処理と並行して次の行を準備する。
+     * 呼び出し元の行ごとの処理が重い場合に、データベースからのフェッチの待ち時間を隠すために使用する。
+     * 本メソッドと{@link #iterator()}、{@link #cursor()}は、いずれか1つのみ使用できる。
+     *
+     * @param chunkSize 1回に読み込む行数
+     * @return 先行して読み込む{@link Iterator}
+     * @throws IllegalArgumentException 行数が1未満の場合
+     * @throws IllegalStateException 既に{@link #iterator()}などが呼び出されている場合
+     * @see PrefetchingRowIterator
+     */
+    @Published
+    public PrefetchingRowIterator prefetch(final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0. chunkSize = [" + chunkSize + ']');
+        }
+        if (makeIterator) {
+            throw new IllegalStateException("multiple method call is unsupported.");
+        }
+        makeIterator = true;
+        return new PrefetchingRowIterator(this, chunkSize);
+    }
+
     /**
      * Iterator実装。
      */
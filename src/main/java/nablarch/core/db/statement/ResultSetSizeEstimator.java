@@ -0,0 +1,86 @@
+package nablarch.core.db.statement;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+
+/**
+ * 結果セットが使用するヒープのバイト数を推定するクラス。
+ * <p/>
+ * 行数、カラム数、値の型と長さから概算値を算出する。
+ * 概算値はJVMの実装やオプションにより実際の値と異なるため、キャッシュの容量や、
+ * {@link SpillableSqlResultSet}がヒープに保持する行数を管理する目安として使用する。
+ * より正確な推定が必要な場合は、本クラスを継承して{@link #estimateValue(Object)}をオーバライドする。
+ */
+public class ResultSetSizeEstimator {
+
+    /** 結果セット自体のバイト数 */
+    private static final long RESULT_SET_OVERHEAD = 40;
+
+    /** 1行あたりのバイト数(値を除く) */
+    private static final long ROW_OVERHEAD = 96;
+
+    /** 1カラムあたりのバイト数(値を除く) */
+    private static final long COLUMN_OVERHEAD = 48;
+
+    /**
+     * 結果セットが使用するヒープのバイト数を推定する。
+     *
+     * @param resultSet 結果セット
+     * @return 推定バイト数
+     */
+    public long estimate(SqlResultSet resultSet) {
+        long bytes = RESULT_SET_OVERHEAD + 8L * resultSet.size();
+        for (SqlRow row : resultSet) {
+            final ColumnIndexTable columns = row.getCompactColumns();
+            bytes += estimateRow(columns != null ? row.getCompactValues() : row.values().toArray());
+        }
+        return bytes;
+    }
+
+    /**
+     * 1行分の値をヒープに保持した場合のバイト数を推定する。
+     *
+     * @param values 1行分の値
+     * @return 推定バイト数
+     */
+    public long estimateRow(Object[] values) {
+        long bytes = ROW_OVERHEAD;
+        for (Object value : values) {
+            bytes += COLUMN_OVERHEAD + estimateValue(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * 値が使用するヒープのバイト数を推定する。
+     *
+     * @param value 値
+     * @return 推定バイト数
+     */
+    protected long estimateValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal) {
+            return 40 + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+        }
+        if (value instanceof BigInteger) {
+            return 40 + ((BigInteger) value).bitLength() / 8;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof Boolean || value instanceof Float) {
+            return 16;
+        }
+        if (value instanceof Long || value instanceof Double || value instanceof Date) {
+            return 24;
+        }
+        return 64;
+    }
+}
@@ -0,0 +1,79 @@
+package nablarch.core.db.statement;
+
+import java.io.File;
+
+/**
+ * 簡易検索の結果をヒープに保持する上限と、上限を超えた行を書き出す一時ファイルの設定を保持するクラス。
+ * <p/>
+ * 本設定を{@link BasicStatementFactory#setResultSetSpillSetting(ResultSetSpillSetting)}に設定した場合、
+ * {@link SqlPStatement#retrieve()}などの簡易検索は、上限を超えた行を一時ファイルに書き出す{@link SpillableSqlResultSet}を返却する。
+ * <p/>
+ * 上限は行数と推定バイト数で指定し、いずれかを超えた時点で以降の行を一時ファイルに書き出す。
+ * 推定バイト数は、値の型と長さから算出した概算値である。
+ *
+ * @see SpillableSqlResultSet
+ */
+public class ResultSetSpillSetting {
+
+    /** ヒープに保持する最大行数(0以下の場合は行数で制限しない) */
+    private int maxHeapRows;
+
+    /** ヒープに保持する最大推定バイト数(0以下の場合はバイト数で制限しない) */
+    private long maxHeapBytes;
+
+    /** 一時ファイルを作成するディレクトリ({@code null}の場合はシステムの一時ディレクトリ) */
+    private File spillDirectory;
+
+    /**
+     * ヒープに保持する最大行数を設定する。
+     * <p/>
+     * 0以下を設定した場合は、行数で制限しない。(デフォルトは制限しない)
+     *
+     * @param maxHeapRows ヒープに保持する最大行数
+     */
+    public void setMaxHeapRows(int maxHeapRows) {
+        this.maxHeapRows = maxHeapRows;
+    }
+
+    /**
+     * ヒープに保持する最大推定バイト数を設定する。
+     * <p/>
+     * 0以下を設定した場合は、バイト数で制限しない。(デフォルトは制限しない)
+     *
+     * @param maxHeapBytes ヒープに保持する最大推定バイト数
+     */
+    public void setMaxHeapBytes(long maxHeapBytes) {
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    /**
+     * 一時ファイルを作成するディレクトリを設定する。
+     * <p/>
+     * 設定しない場合は、システムの一時ディレクトリ({@code java.io.tmpdir})に作成する。
+     *
+     * @param spillDirectory 一時ファイルを作成するディレクトリ
+     */
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = new File(spillDirectory);
+    }
+
+    /**
+     * 一時ファイルを作成するディレクトリを取得する。
+     *
+     * @return 一時ファイルを作成するディレクトリ(システムの一時ディレクトリを使用する場合は{@code null})
+     */
+    File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * ヒープに保持している行数と推定バイト数が、上限を超えたか否か。
+     *
+     * @param rows ヒープに保持している行数
+     * @param bytes ヒープに保持している推定バイト数
+     * @return 上限を超えた場合は{@code true}
+     */
+    boolean exceeds(int rows, long bytes) {
+        return (maxHeapRows > 0 && rows > maxHeapRows) || (maxHeapBytes > 0 && bytes > maxHeapBytes);
+    }
+}
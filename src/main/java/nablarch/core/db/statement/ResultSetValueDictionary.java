@@ -0,0 +1,97 @@
+package nablarch.core.db.statement;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 検索結果のカラムごとに、同じ値の{@link String}と{@link BigDecimal}を1つのインスタンスに集約する辞書。
+ * <p/>
+ * ステータスコードや区分値のように、少ない種類の値が多くの行で繰り返されるカラムでは、
+ * JDBCドライバが行ごとに生成した同じ値のインスタンスを集約することで、検索結果が保持するヒープを削減できる。
+ * <p/>
+ * カラムごとに保持する値の種類数には上限があり、上限に達したカラムは種類の多いカラムとみなして以降の集約を行わない。
+ * 長い文字列と桁数の大きい数値は、繰り返される可能性が低いため集約しない。
+ * <p/>
+ * 本クラスは1つの検索結果の読み込みでのみ使用するため、スレッドセーフではない。
+ */
+final class ResultSetValueDictionary {
+
+    /** 集約する文字列の最大長 */
+    private static final int MAX_STRING_LENGTH = 64;
+
+    /** 集約する数値の最大桁数 */
+    private static final int MAX_DECIMAL_PRECISION = 18;
+
+    /** 上限に達したカラムを表すMap */
+    private static final Map<Object, Object> SATURATED = new HashMap<Object, Object>(0);
+
+    /** カラムごとに保持する値の種類数の上限 */
+    private final int maxEntries;
+
+    /** カラムごとの値の辞書(上限に達したカラムは{@link #SATURATED}、未使用のカラムはnull) */
+    private final Map<Object, Object>[] dictionaries;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param columnCount 検索結果のカラム数
+     * @param maxEntries カラムごとに保持する値の種類数の上限
+     */
+    @SuppressWarnings("unchecked")
+    ResultSetValueDictionary(final int columnCount, final int maxEntries) {
+        this.maxEntries = maxEntries;
+        dictionaries = new Map[columnCount];
+    }
+
+    /**
+     * 値を集約する。
+     * <p/>
+     * 同じカラムで同じ値が既に現れている場合は、最初に現れたインスタンスを返却する。
+     * 集約の対象外の値の場合は、指定された値をそのまま返却する。
+     *
+     * @param column カラムのインデックス(0始まり)
+     * @param value 値
+     * @return 集約した値
+     */
+    Object canonicalize(final int column, final Object value) {
+        if (!isTarget(value)) {
+            return value;
+        }
+        Map<Object, Object> dictionary = dictionaries[column];
+        if (dictionary == SATURATED) {
+            return value;
+        }
+        if (dictionary == null) {
+            dictionary = new HashMap<Object, Object>();
+            dictionaries[column] = dictionary;
+        }
+        final Object canonical = dictionary.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (dictionary.size() >= maxEntries) {
+            // 種類の多いカラムは、以降の集約を行わずに辞書を解放する。
+            dictionaries[column] = SATURATED;
+            return value;
+        }
+        dictionary.put(value, value);
+        return value;
+    }
+
+    /**
+     * 集約の対象となる値か否か。
+     *
+     * @param value 値
+     * @return 集約の対象の場合は{@code true}
+     */
+    private static boolean isTarget(final Object value) {
+        if (value instanceof String) {
+            return ((String) value).length() <= MAX_STRING_LENGTH;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).precision() <= MAX_DECIMAL_PRECISION;
+        }
+        return false;
+    }
+}
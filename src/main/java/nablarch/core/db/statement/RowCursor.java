@@ -0,0 +1,278 @@
+package nablarch.core.db.statement;
+
+import java.math.BigDecimal;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import nablarch.core.db.DbAccessException;
+import nablarch.core.util.NumberUtil;
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 検索結果を1行ずつ読み込むカーソル。
+ * <p/>
+ * {@link ResultSetIterator#iterator()}とは異なり、行ごとに{@link SqlRow}を生成せずに、
+ * 1つの値の配列に現在行の値を読み込み、全ての行で再利用する。
+ * このため、行ごとに発生するオブジェクトの生成は、JDBCドライバが値を返却する際に生成するもののみとなる。
+ * <p/>
+ * カラムの値は、{@link #getColumnHandle(String)}で事前に解決したハンドルを指定して取得する。
+ * カラム名の解決は{@link SqlRow}と同じ規則(大文字/小文字の違い、アンダースコアの有無を区別しない)で行う。
+ * 以下に例を示す。
+ * <code>
+ * <pre>
+ * RowCursor cursor = statement.executeQuery().cursor();
+ * int amount = cursor.getColumnHandle("amount");
+ * long total = 0;
+ * while (cursor.next()) {
+ *     total += cursor.getLong(amount);
+ * }
+ * </pre>
+ * </code>
+ * 取得した値は、次に{@link #next()}を呼び出すまでの間のみ有効となる。
+ * 値を保持し続ける必要がある場合は、{@link #toRow()}で{@link SqlRow}に複製すること。
+ *
+ * @see ResultSetIterator#cursor()
+ */
+@Published
+public final class RowCursor {
+
+    /** 読み込み元の検索結果 */
+    private final ResultSetIterator resultSet;
+
+    /** カラム名と値を保持する配列のインデックスとの対応表 */
+    private final ColumnIndexTable columns;
+
+    /** 現在行の値を保持する配列(全ての行で再利用する) */
+    private final Object[] values;
+
+    /** 現在行が存在するか否か */
+    private boolean onRow;
+
+    /** 全ての行を読み終えたか否か */
+    private boolean finished;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param resultSet 読み込み元の検索結果
+     * @param columns カラム名と値を保持する配列のインデックスとの対応表
+     */
+    RowCursor(final ResultSetIterator resultSet, final ColumnIndexTable columns) {
+        this.resultSet = resultSet;
+        this.columns = columns;
+        values = new Object[columns.size()];
+    }
+
+    /**
+     * カラム名に対応するハンドルを取得する。
+     * <p/>
+     * 行の読み込みの前に解決し、取得したハンドルを全ての行で使用すること。
+     *
+     * @param columnName カラム名
+     * @return ハンドル
+     * @throws IllegalArgumentException 指定されたカラム名が存在しない場合
+     */
+    public int getColumnHandle(final String columnName) {
+        final int handle = columns.resolve(columnName);
+        if (handle < 0) {
+            throw new IllegalArgumentException("column name = [" + columnName + "] is not found");
+        }
+        return handle;
+    }
+
+    /**
+     * 次の行を読み込む。
+     * <p/>
+     * 次の行が存在しない場合は、{@link java.sql.ResultSet#close()}を行う。
+     *
+     * @return 次の行が存在する場合は{@code true}
+     * @throws DbAccessException {@link SQLException}が発生した場合
+     */
+    public boolean next() {
+        if (finished) {
+            return false;
+        }
+        onRow = resultSet.next();
+        if (!onRow) {
+            finished = true;
+            resultSet.close();
+            return false;
+        }
+        try {
+            resultSet.readValues(values);
+        } catch (SQLException e) {
+            throw new DbAccessException("failed to read row.", e);
+        }
+        return true;
+    }
+
+    /**
+     * 現在行の指定されたカラムの値が{@code null}か否か。
+     *
+     * @param handle ハンドル
+     * @return 値が{@code null}の場合は{@code true}
+     */
+    public boolean isNull(final int handle) {
+        return getObject(handle) == null;
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@link Object}で取得する。
+     *
+     * @param handle ハンドル
+     * @return カラムの値
+     * @throws IllegalStateException 現在行が存在しない場合
+     */
+    public Object getObject(final int handle) {
+        verifyOnRow();
+        return values[handle];
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@link String}で取得する。
+     * <p/>
+     * 変換方法は{@link SqlRow#getString(String)}と同じとなる。
+     *
+     * @param handle ハンドル
+     * @return カラムの値(値が{@code null}の場合は{@code null})
+     */
+    public String getString(final int handle) {
+        final Object o = getObject(handle);
+        if (o instanceof Clob) {
+            final Clob clob = (Clob) o;
+            try {
+                return clob.getSubString(1, (int) clob.length());
+            } catch (SQLException e) {
+                throw new DbAccessException("CLOB access failed.", e);
+            }
+        }
+        return o == null ? null : StringUtil.toString(o);
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@code int}で取得する。
+     * <p/>
+     * 値が数値型の場合は、ラッパークラスを生成せずに変換する。
+     * 値が{@code null}の場合は{@code 0}を返却するため、{@code null}と区別する場合は{@link #isNull(int)}を使用すること。
+     *
+     * @param handle ハンドル
+     * @return カラムの値
+     * @throws NumberFormatException 値の文字列表現を{@code int}に変換できない場合
+     * @throws ArithmeticException 値が{@link BigDecimal}で、{@code int}で表現できない場合
+     */
+    public int getInt(final int handle) {
+        final Object o = getObject(handle);
+        if (o == null) {
+            return 0;
+        }
+        if (o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return ((Number) o).intValue();
+        }
+        if (o instanceof BigDecimal) {
+            return ((BigDecimal) o).intValueExact();
+        }
+        return Integer.parseInt(o.toString());
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@code long}で取得する。
+     * <p/>
+     * 値が数値型の場合は、ラッパークラスを生成せずに変換する。
+     * 値が{@code null}の場合は{@code 0}を返却するため、{@code null}と区別する場合は{@link #isNull(int)}を使用すること。
+     *
+     * @param handle ハンドル
+     * @return カラムの値
+     * @throws NumberFormatException 値の文字列表現を{@code long}に変換できない場合
+     * @throws ArithmeticException 値が{@link BigDecimal}で、{@code long}で表現できない場合
+     */
+    public long getLong(final int handle) {
+        final Object o = getObject(handle);
+        if (o == null) {
+            return 0L;
+        }
+        if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return ((Number) o).longValue();
+        }
+        if (o instanceof BigDecimal) {
+            return ((BigDecimal) o).longValueExact();
+        }
+        return Long.parseLong(o.toString());
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@code double}で取得する。
+     * <p/>
+     * 値が{@code null}の場合は{@code 0}を返却するため、{@code null}と区別する場合は{@link #isNull(int)}を使用すること。
+     *
+     * @param handle ハンドル
+     * @return カラムの値
+     * @throws NumberFormatException 値の文字列表現を{@code double}に変換できない場合
+     */
+    public double getDouble(final int handle) {
+        final Object o = getObject(handle);
+        if (o == null) {
+            return 0d;
+        }
+        if (o instanceof Number) {
+            return ((Number) o).doubleValue();
+        }
+        return Double.parseDouble(o.toString());
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@link BigDecimal}で取得する。
+     * <p/>
+     * 変換方法は{@link SqlRow#getBigDecimal(String)}と同じとなる。
+     *
+     * @param handle ハンドル
+     * @return カラムの値(値が{@code null}の場合は{@code null})
+     */
+    public BigDecimal getBigDecimal(final int handle) {
+        final Object o = getObject(handle);
+        if (o == null || o instanceof BigDecimal) {
+            return (BigDecimal) o;
+        }
+        final BigDecimal result = new BigDecimal(o.toString());
+        NumberUtil.verifyBigDecimalScale(result);
+        return result;
+    }
+
+    /**
+     * 現在行の指定されたカラムの値を{@link Timestamp}で取得する。
+     *
+     * @param handle ハンドル
+     * @return カラムの値(値が{@code null}の場合は{@code null})
+     * @throws IllegalStateException 値が{@link Timestamp}ではない場合
+     */
+    public Timestamp getTimestamp(final int handle) {
+        final Object o = getObject(handle);
+        if (o == null || o instanceof Timestamp) {
+            return (Timestamp) o;
+        }
+        throw new IllegalStateException("data is not timestamp type. column name = [" + columns.getName(handle) + ']');
+    }
+
+    /**
+     * 現在行の値を複製した{@link SqlRow}を生成する。
+     *
+     * @return 現在行の値を保持する{@link SqlRow}
+     * @throws IllegalStateException 現在行が存在しない場合
+     */
+    public SqlRow toRow() {
+        verifyOnRow();
+        return new SqlRow(columns, values.clone());
+    }
+
+    /**
+     * 現在行が存在することを検証する。
+     *
+     * @throws IllegalStateException 現在行が存在しない場合
+     */
+    private void verifyOnRow() {
+        if (!onRow) {
+            throw new IllegalStateException("cursor is not positioned on a row.");
+        }
+    }
+}
@@ -0,0 +1,603 @@
+package nablarch.core.db.statement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import nablarch.core.db.DbAccessException;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * ヒープに保持する上限を超えた行を、一時ファイルに書き出す{@link SqlResultSet}実装クラス。
+ * <p/>
+ * {@link ResultSetSpillSetting}で指定された上限(行数または推定バイト数)までの行はヒープに保持し、
+ * 上限を超えた以降の行は一時ファイルに書き出す。一時ファイルに書き出した行は、{@link #get(int)}などで参照された時点で読み込む。
+ * 上限を超えなかった場合は、{@link SqlResultSet}と同じ動作となる。
+ * <p/>
+ * 一時ファイルに書き出した場合、本オブジェクトは変更できない。変更するメソッドを呼び出した場合は、
+ * {@link UnsupportedOperationException}を送出する。
+ * 一時ファイルから読み込んだ行は参照のたびに生成するため、行の値も変更できない。
+ * 行の値を変更した場合も、{@link UnsupportedOperationException}を送出する。
+ * <p/>
+ * 一時ファイルは{@link #close()}を呼び出した場合、または本オブジェクトがガベージコレクションの対象となった場合に削除する。
+ * {@link SqlPStatement#retrieve()}などの戻り値は{@link SqlResultSet}型のため、一時ファイルをすぐに削除する場合は、
+ * 戻り値が{@link Closeable}であるかを判定して{@link #close()}を呼び出すこと。
+ * <p/>
+ * LOB型など、値がデータベースへの参照であるカラムを含む場合は、一時ファイルに書き出さずに全ての行をヒープに保持する。
+ *
+ * @see ResultSetSpillSetting
+ */
+@Published
+public class SpillableSqlResultSet extends SqlResultSet implements Closeable {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(SpillableSqlResultSet.class);
+
+    /** 一時ファイルを削除するクリーナー */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /** 一時ファイルへの書き込みに使用するバッファのサイズ */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /** ヒープに保持する行のバイト数を推定するクラス */
+    private static final ResultSetSizeEstimator SIZE_ESTIMATOR = new ResultSetSizeEstimator();
+
+    /** カラム名と値を保持する配列のインデックスとの対応表 */
+    private final transient ColumnIndexTable columns;
+
+    /** 一時ファイル(書き出していない場合は{@code null}) */
+    private final transient SpillFile spillFile;
+
+    /** 一時ファイルを削除する処理(書き出していない場合は{@code null}) */
+    private final transient Cleaner.Cleanable cleanable;
+
+    /** 一時ファイルに書き出した行ごとの、ファイル内の開始位置 */
+    private transient long[] offsets;
+
+    /** 一時ファイルに書き出した行数 */
+    private final int spilledCount;
+
+    /** 一時ファイルのサイズ */
+    private final long spilledBytes;
+
+    /**
+     * 検索結果({@link java.sql.ResultSet})から{@link SpillableSqlResultSet}のオブジェクトを構築する。
+     *
+     * @param rs 検索結果
+     * @param startPos 検索結果の取得開始位置
+     * @param max 取得最大件数
+     * @param setting ヒープに保持する上限と、一時ファイルの設定
+     * @throws DbAccessException 検索結果の読み込みに失敗した場合
+     * @throws IllegalStateException 一時ファイルへの書き込みに失敗した場合
+     */
+    public SpillableSqlResultSet(ResultSetIterator rs, int startPos, int max, ResultSetSpillSetting setting) {
+        super(max == 0 ? 10 : max);
+        columns = rs.getColumnIndexTable();
+        final boolean spillable = isSpillable(columns);
+
+        // 開始位置まで空回し
+        for (int i = 0; (i < (startPos - 1)) && rs.next(); i++) ;
+
+        long heapBytes = 0;
+        SpillFile file = null;
+        int count = 0;
+        try {
+            while (rs.next()) {
+                final Object[] values = new Object[columns.size()];
+                try {
+                    rs.readValues(values);
+                } catch (SQLException e) {
+                    throw new DbAccessException("failed to getRow.", e);
+                }
+                if (file == null) {
+                    final long rowBytes = SIZE_ESTIMATOR.estimateRow(values);
+                    if (!spillable || !setting.exceeds(super.size() + 1, heapBytes + rowBytes)) {
+                        super.add(new SqlRow(columns, values));
+                        heapBytes += rowBytes;
+                        continue;
+                    }
+                    file = SpillFile.create(setting.getSpillDirectory());
+                    offsets = new long[16];
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count + (count >> 1));
+                }
+                offsets[count++] = file.write(values, columns);
+            }
+            if (file != null) {
+                file.flush();
+            }
+        } catch (RuntimeException e) {
+            if (file != null) {
+                file.run();
+            }
+            throw e;
+        } catch (IOException e) {
+            file.run();
+            throw new IllegalStateException("failed to write spill file.", e);
+        }
+        spillFile = file;
+        spilledCount = count;
+        spilledBytes = file == null ? 0 : file.size;
+        cleanable = file == null ? null : CLEANER.register(this, file);
+    }
+
+    /**
+     * 一時ファイルに書き出したか否か。
+     *
+     * @return 一時ファイルに書き出した場合は{@code true}
+     */
+    public boolean isSpilled() {
+        return spilledCount > 0;
+    }
+
+    /**
+     * 一時ファイルに書き出した行数を取得する。
+     *
+     * @return 一時ファイルに書き出した行数
+     */
+    public int getSpilledCount() {
+        return spilledCount;
+    }
+
+    /**
+     * 一時ファイルのサイズを取得する。
+     *
+     * @return 一時ファイルのサイズ(バイト)
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * 一時ファイルを削除する。
+     * <p/>
+     * 削除後は、一時ファイルに書き出した行を参照できない。
+     * 一時ファイルに書き出していない場合は何もしない。
+     */
+    @Override
+    public void close() {
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+    }
+
+    @Override
+    public SqlRow get(int index) {
+        final int heapSize = super.size();
+        if (index < heapSize || !isSpilled()) {
+            return super.get(index);
+        }
+        if (index >= heapSize + spilledCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        final int spilledIndex = index - heapSize;
+        final long start = offsets[spilledIndex];
+        final long end = spilledIndex + 1 < spilledCount ? offsets[spilledIndex + 1] : spilledBytes;
+        return SqlRow.unmodifiable(columns, spillFile.read(start, (int) (end - start), columns.size()));
+    }
+
+    @Override
+    public int size() {
+        return super.size() + spilledCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<SqlRow> iterator() {
+        return isSpilled() ? new View().iterator() : super.iterator();
+    }
+
+    @Override
+    public ListIterator<SqlRow> listIterator() {
+        return isSpilled() ? new View().listIterator() : super.listIterator();
+    }
+
+    @Override
+    public ListIterator<SqlRow> listIterator(int index) {
+        return isSpilled() ? new View().listIterator(index) : super.listIterator(index);
+    }
+
+    @Override
+    public List<SqlRow> subList(int fromIndex, int toIndex) {
+        return isSpilled() ? new View().subList(fromIndex, toIndex) : super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Spliterator<SqlRow> spliterator() {
+        return isSpilled() ? new View().spliterator() : super.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super SqlRow> action) {
+        if (isSpilled()) {
+            new View().forEach(action);
+        } else {
+            super.forEach(action);
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return isSpilled() ? new View().contains(o) : super.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return isSpilled() ? new View().indexOf(o) : super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return isSpilled() ? new View().lastIndexOf(o) : super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return isSpilled() ? new View().toArray() : super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return isSpilled() ? new View().toArray(a) : super.toArray(a);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return isSpilled() ? new View().equals(o) : super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return isSpilled() ? new View().hashCode() : super.hashCode();
+    }
+
+    @Override
+    public Object clone() {
+        verifyNotSpilled();
+        return super.clone();
+    }
+
+    @Override
+    public boolean add(SqlRow row) {
+        verifyNotSpilled();
+        return super.add(row);
+    }
+
+    @Override
+    public void add(int index, SqlRow element) {
+        verifyNotSpilled();
+        super.add(index, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends SqlRow> c) {
+        verifyNotSpilled();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends SqlRow> c) {
+        verifyNotSpilled();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public SqlRow set(int index, SqlRow element) {
+        verifyNotSpilled();
+        return super.set(index, element);
+    }
+
+    @Override
+    public SqlRow remove(int index) {
+        verifyNotSpilled();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        verifyNotSpilled();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        verifyNotSpilled();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        verifyNotSpilled();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super SqlRow> filter) {
+        verifyNotSpilled();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<SqlRow> operator) {
+        verifyNotSpilled();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super SqlRow> c) {
+        verifyNotSpilled();
+        super.sort(c);
+    }
+
+    @Override
+    public void clear() {
+        verifyNotSpilled();
+        super.clear();
+    }
+
+    /**
+     * シリアライズ時は、全ての行をヒープに保持する{@link SqlResultSet}に置き換える。
+     *
+     * @return 全ての行を保持する{@link SqlResultSet}
+     */
+    private Object writeReplace() {
+        final SqlResultSet replacement = new SqlResultSet(size());
+        for (SqlRow row : this) {
+            replacement.add(row);
+        }
+        return replacement;
+    }
+
+    /**
+     * 一時ファイルに書き出していないことを検証する。
+     *
+     * @throws UnsupportedOperationException 一時ファイルに書き出している場合
+     */
+    private void verifyNotSpilled() {
+        if (isSpilled()) {
+            throw new UnsupportedOperationException("spilled result set is unmodifiable.");
+        }
+    }
+
+    /**
+     * 検索結果の全てのカラムを、一時ファイルに書き出せるか否か。
+     *
+     * @param columns カラム名と値を保持する配列のインデックスとの対応表
+     * @return 書き出せる場合は{@code true}
+     */
+    private static boolean isSpillable(ColumnIndexTable columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            final Integer type = columns.getType(i);
+            if (type == null) {
+                continue;
+            }
+            switch (type) {
+                case Types.BLOB:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.ARRAY:
+                case Types.STRUCT:
+                case Types.REF:
+                case Types.JAVA_OBJECT:
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 全ての行を参照するビュー。
+     */
+    private final class View extends AbstractList<SqlRow> implements RandomAccess {
+
+        @Override
+        public SqlRow get(int index) {
+            return SpillableSqlResultSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return SpillableSqlResultSet.this.size();
+        }
+    }
+
+    /**
+     * 一時ファイル。
+     * <p/>
+     * {@link Cleaner}から呼び出された場合は、ファイルを閉じて削除する。
+     */
+    private static final class SpillFile implements Runnable {
+
+        /** ファイルのパス */
+        private final Path path;
+
+        /** ファイルのチャネル */
+        private final FileChannel channel;
+
+        /** 書き込みバッファ */
+        private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+        /** 1行分の値をエンコードするバッファ */
+        private final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream(256);
+
+        /** 1行分の値をエンコードするストリーム */
+        private final DataOutputStream rowOut = new DataOutputStream(rowBytes);
+
+        /** 書き込んだバイト数 */
+        private long size;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param path ファイルのパス
+         * @param channel ファイルのチャネル
+         */
+        private SpillFile(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * 一時ファイルを作成する。
+         *
+         * @param directory 一時ファイルを作成するディレクトリ({@code null}の場合はシステムの一時ディレクトリ)
+         * @return 一時ファイル
+         * @throws IllegalStateException 一時ファイルの作成に失敗した場合
+         */
+        private static SpillFile create(File directory) {
+            try {
+                final Path path = directory == null
+                        ? Files.createTempFile("nablarch-resultset", ".spill")
+                        : Files.createTempFile(directory.toPath(), "nablarch-resultset", ".spill");
+                final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                return new SpillFile(path, channel);
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to create spill file.", e);
+            }
+        }
+
+        /**
+         * 1行分の値を書き込む。
+         *
+         * @param values 1行分の値
+         * @param columns カラム名と値を保持する配列のインデックスとの対応表
+         * @return 書き込んだ位置
+         * @throws IOException 書き込みに失敗した場合
+         */
+        private long write(Object[] values, ColumnIndexTable columns) throws IOException {
+            rowBytes.reset();
+            for (int i = 0; i < values.length; i++) {
+                writeValue(values[i], columns.getName(i));
+            }
+            rowOut.flush();
+            final long position = size;
+            final byte[] bytes = rowBytes.toByteArray();
+            if (bytes.length > writeBuffer.remaining()) {
+                flush();
+            }
+            if (bytes.length > writeBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                writeBuffer.put(bytes);
+            }
+            size += bytes.length;
+            return position;
+        }
+
+        /**
+         * 値を型に応じてエンコードする。
+         *
+         * @param value 値
+         * @param columnName カラム名
+         * @throws IOException エンコードに失敗した場合
+         * @throws IllegalStateException 値を書き出せない型の場合
+         */
+        private void writeValue(Object value, String columnName) throws IOException {
+            if (!ValueCodec.writeValue(rowOut, value)) {
+                throw new IllegalStateException("value can not be written to spill file. column name = ["
+                        + columnName + "], class = [" + value.getClass().getName() + ']');
+            }
+        }
+
+        /**
+         * 書き込みバッファの内容をファイルに書き込む。
+         *
+         * @throws IOException 書き込みに失敗した場合
+         */
+        private void flush() throws IOException {
+            writeBuffer.flip();
+            writeFully(writeBuffer);
+            writeBuffer.clear();
+        }
+
+        /**
+         * バッファの内容を全てファイルに書き込む。
+         *
+         * @param buffer バッファ
+         * @throws IOException 書き込みに失敗した場合
+         */
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * 1行分の値を読み込む。
+         *
+         * @param position 読み込む位置
+         * @param length 読み込むバイト数
+         * @param columnCount カラム数
+         * @return 1行分の値
+         * @throws IllegalStateException 読み込みに失敗した場合
+         */
+        private Object[] read(long position, int length, int columnCount) {
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("unexpected end of spill file.");
+                    }
+                }
+                final DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+                final Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = ValueCodec.readValue(in);
+                }
+                return values;
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to read spill file. path = [" + path + ']', e);
+            }
+        }
+
+        /**
+         * ファイルを閉じて削除する。
+         */
+        @Override
+        public void run() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.logWarn("failed to close spill file. path = [" + path + ']', e);
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.logWarn("failed to delete spill file. path = [" + path + ']', e);
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
+import java.util.List;
 
 import nablarch.core.db.statement.exception.SqlStatementException;
 import nablarch.core.util.annotation.Published;
@@ -52,6 +53,44 @@ public interface SqlPStatement extends SqlStatement {
      */
     SqlResultSet retrieve(int start, int max) throws SqlStatementException;
 
+    /**
+     * 簡易検索機能。
+     * <p/>
+     * 検索結果の各行を、{@link SqlRow}を経由せずに指定されたクラスのBean(またはレコード)に変換して返却する。
+     * 読み込み開始位置と最大行数は、{@link #retrieve()}と同じとなる。
+     * プロパティとカラムの対応付け、値の型変換は{@link ResultSetIterator#getRow(Class)}と同じとなる。
+     * <p/>
+     * デフォルト実装では、{@link #retrieve()}で取得した結果セットの各行をBeanに変換する。
+     *
+     * @param beanClass Beanのクラス
+     * @param <T> Beanの型
+     * @return 取得結果
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合。
+     */
+    default <T> List<T> retrieveBeans(Class<T> beanClass) throws SqlStatementException {
+        return BeanRowMapper.mapRows(beanClass, retrieve());
+    }
+
+    /**
+     * 検索結果を1行ずつ処理する。
+     * <p/>
+     * {@link #retrieve()}とは異なり、検索結果を{@link SqlResultSet}に保持せずに、
+     * {@link #setFetchSize(int)}で設定されたフェッチサイズに従って1行ずつ読み込み、コールバックに渡す。
+     * このため、検索結果の件数に関わらず一定のメモリで処理を行うことができる。
+     * <p/>
+     * 読み込み開始位置と最大行数は、{@link #retrieve()}と同じとなる。
+     * 全ての行の処理が終わった場合、またはコールバックから例外が送出された場合は、{@link java.sql.ResultSet}をクローズする。
+     * <p/>
+     * デフォルト実装では、{@link #executeQuery()}で取得した全ての行をコールバックに渡す。
+     *
+     * @param callback 1行ごとに呼び出されるコールバック
+     * @return 処理した行数
+     * @throws SqlStatementException SQL実行時に{@link java.sql.SQLException}が発生した場合。
+     */
+    default int forEachRow(SqlRowCallback callback) throws SqlStatementException {
+        return ResultSetIterator.forEachRow(executeQuery(), callback);
+    }
+
     /**
      * {@link java.sql.PreparedStatement#executeQuery}のラッパー。
      *
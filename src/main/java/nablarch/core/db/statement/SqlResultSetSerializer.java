@@ -0,0 +1,145 @@
+package nablarch.core.db.statement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SqlResultSet}をバイト配列に変換するクラス。
+ * <p/>
+ * 結果セットをヒープ外に保持するために使用する。
+ * 行ごとにカラム名、データタイプ、値を出力するが、前の行とカラム構成が同じ場合はカラム名とデータタイプを省略する。
+ * 復元した行は、カラム構成ごとに1つの{@link ColumnIndexTable}を共有する。
+ * <p/>
+ * 値は{@link SpillableSqlResultSet}の一時ファイルと同じ形式で出力する。
+ * 変換できない型の値(LOBなど、{@link java.io.Serializable}でない値)を含む結果セットは変換できない。
+ */
+public final class SqlResultSetSerializer {
+
+    /** 隠蔽コンストラクタ。 */
+    private SqlResultSetSerializer() {
+    }
+
+    /**
+     * 結果セットをバイト配列に変換する。
+     *
+     * @param resultSet 結果セット
+     * @return バイト配列(変換できない型の値を含む場合は{@code null})
+     */
+    public static byte[] serialize(SqlResultSet resultSet) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(resultSet.size());
+            String[] previousNames = null;
+            Integer[] previousTypes = null;
+            for (SqlRow row : resultSet) {
+                final int size = row.size();
+                final String[] names = new String[size];
+                final Integer[] types = new Integer[size];
+                final Object[] values = new Object[size];
+                final Map<String, Integer> colTypes = row.getColTypes();
+                int i = 0;
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    names[i] = column.getKey();
+                    types[i] = colTypes == null ? null : colTypes.get(names[i]);
+                    values[i] = column.getValue();
+                    i++;
+                }
+                final boolean sameColumns = Arrays.equals(names, previousNames) && Arrays.equals(types, previousTypes);
+                out.writeBoolean(!sameColumns);
+                if (!sameColumns) {
+                    writeColumns(out, names, types);
+                    previousNames = names;
+                    previousTypes = types;
+                }
+                for (Object value : values) {
+                    if (!ValueCodec.writeValue(out, value)) {
+                        return null;
+                    }
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // メモリ上への出力のため発生しない。
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * {@link #serialize(SqlResultSet)}で変換したバイト配列から、結果セットを復元する。
+     *
+     * @param bytes バイト配列
+     * @return 結果セット
+     * @throws IllegalArgumentException バイト配列の形式が不正な場合
+     */
+    public static SqlResultSet deserialize(byte[] bytes) {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            final int rowCount = in.readInt();
+            final SqlResultSet resultSet = new SqlResultSet(rowCount);
+            ColumnIndexTable columns = null;
+            for (int i = 0; i < rowCount; i++) {
+                if (in.readBoolean()) {
+                    columns = readColumns(in);
+                }
+                if (columns == null) {
+                    throw new IllegalArgumentException("columns were not found.");
+                }
+                final Object[] values = new Object[columns.size()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = ValueCodec.readValue(in);
+                }
+                resultSet.add(new SqlRow(columns, values));
+            }
+            return resultSet;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid serialized result set.", e);
+        }
+    }
+
+    /**
+     * カラム名とデータタイプを出力する。
+     *
+     * @param out 出力先
+     * @param names カラム名
+     * @param types データタイプ(データタイプが無いカラムは{@code null})
+     * @throws IOException 入出力エラー
+     */
+    private static void writeColumns(DataOutputStream out, String[] names, Integer[] types) throws IOException {
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            ValueCodec.writeString(out, names[i]);
+            out.writeBoolean(types[i] != null);
+            if (types[i] != null) {
+                out.writeInt(types[i]);
+            }
+        }
+    }
+
+    /**
+     * カラム名とデータタイプを読み込み、{@link ColumnIndexTable}を生成する。
+     *
+     * @param in 入力元
+     * @return カラム名と値の配列のインデックスとの対応表
+     * @throws IOException 入出力エラー
+     */
+    private static ColumnIndexTable readColumns(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final String[] names = new String[size];
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>((size * 3) / 2 + 1);
+        for (int i = 0; i < size; i++) {
+            names[i] = ValueCodec.readString(in);
+            if (in.readBoolean()) {
+                colTypes.put(names[i], in.readInt());
+            }
+        }
+        return new ColumnIndexTable(names, colTypes);
+    }
+}
@@ -5,8 +5,16 @@ import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import nablarch.core.db.DbAccessException;
 import nablarch.core.util.NumberUtil;
@@ -36,6 +44,12 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
     /** データタイプ情報 */
     private Map<String, Integer> colType;
 
+    /** 値を配列で保持する場合の値を保持するMap(Mapを元に構築した場合は{@code null}) */
+    private final CompactRowMap compactRow;
+
+    /** 値を配列で保持する場合のカラム名の変換表(Mapを元に構築した場合は{@code null}) */
+    private final KeyConversionMap compactKeys;
+
     /**
      * 指定されたMapを元にオブジェクトを構築する。
      *
@@ -45,6 +59,8 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
     public SqlRow(Map<String, Object> row, Map<String, Integer> colType) {
         super(row);
         this.colType = colType;
+        compactRow = null;
+        compactKeys = null;
     }
 
     /**
@@ -57,6 +73,49 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
     public SqlRow(Map<String, Object> row, Map<String, Integer> colType, Map<String, String> ignored) {
         super(row);
         this.colType = colType;
+        compactRow = null;
+        compactKeys = null;
+    }
+
+    /**
+     * 値の配列とカラム名の対応表を元にオブジェクトを構築する。
+     * <p/>
+     * 値は配列で保持し、カラム名との対応表は同じ検索結果の行間で共有する。
+     * 存在しないカラム名の値を設定した場合や、値を削除した場合など、
+     * カラム構成が変わる操作を行った時点で、この行の値のみ{@link HashMap}に変換して保持する。
+     *
+     * @param columns カラム名と値の配列のインデックスとの対応表
+     * @param values 1行分の値
+     */
+    SqlRow(ColumnIndexTable columns, Object[] values) {
+        this(new CompactRowMap(columns, values, false), new KeyConversionMap(columns), columns);
+    }
+
+    /**
+     * 値の配列とカラム名の対応表を元に、値を変更できないオブジェクトを構築する。
+     * <p/>
+     * 値の設定や削除など、行を変更する操作を行った場合は{@link UnsupportedOperationException}を送出する。
+     *
+     * @param columns カラム名と値の配列のインデックスとの対応表
+     * @param values 1行分の値
+     * @return 値を変更できない行
+     */
+    static SqlRow unmodifiable(ColumnIndexTable columns, Object[] values) {
+        return new SqlRow(new CompactRowMap(columns, values, true), new KeyConversionMap(columns), columns);
+    }
+
+    /**
+     * 値の配列とカラム名の変換表を元にオブジェクトを構築する。
+     *
+     * @param compactRow 値の配列を保持するMap
+     * @param compactKeys カラム名の変換表
+     * @param columns カラム名と値の配列のインデックスとの対応表
+     */
+    private SqlRow(CompactRowMap compactRow, KeyConversionMap compactKeys, ColumnIndexTable columns) {
+        super(compactRow, compactKeys);
+        this.compactRow = compactRow;
+        this.compactKeys = compactKeys;
+        this.colType = columns.getColTypes();
     }
 
     /**
@@ -66,6 +125,8 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
     protected SqlRow(SqlRow orig) {
         super(orig);
         this.colType = copyValueOf(orig.colType);
+        compactRow = null;
+        compactKeys = null;
     }
 
     /**
@@ -338,6 +399,10 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
      * @throws IllegalArgumentException 指定されたカラム名が存在しない場合
      */
     private Object getObject(String colName) {
+        final int index = resolveCompactIndex(colName);
+        if (index >= 0) {
+            return compactRow.values[index];
+        }
         if (!containsKey(colName)) {
             throw new IllegalArgumentException("column name = [" + colName + "] is not found");
         }
@@ -351,7 +416,364 @@ public class SqlRow extends MultipleKeyCaseMap<Object> {
      * @return カラムタイプ
      */
     protected int getColType(String colName) {
+        final int index = resolveCompactIndex(colName);
+        if (index >= 0) {
+            return compactRow.columns.getType(index);
+        }
         return colType.get(getActualDataKey(colName));
     }
-}
 
+    /**
+     * カラム名とデータタイプの対応を取得する。
+     *
+     * @return カラム名とデータタイプの対応
+     */
+    Map<String, Integer> getColTypes() {
+        return colType;
+    }
+
+    /**
+     * 値の配列を直接参照できる場合に、カラム名と配列のインデックスとの対応表を取得する。
+     * <p/>
+     * カラム構成が変わる操作が行われた行など、配列を参照できない場合は{@code null}を返す。
+     *
+     * @return カラム名と配列のインデックスとの対応表(配列を参照できない場合は{@code null})
+     */
+    ColumnIndexTable getCompactColumns() {
+        if (compactRow == null || compactRow.inflated != null || compactKeys.own != null) {
+            return null;
+        }
+        return compactRow.columns;
+    }
+
+    /**
+     * 値の配列を取得する。
+     * <p/>
+     * {@link #getCompactColumns()}が{@code null}以外を返す場合のみ使用できる。
+     *
+     * @return 値の配列
+     */
+    Object[] getCompactValues() {
+        return compactRow.values;
+    }
+
+    /**
+     * 値を配列で保持している場合に、カラム名に対応する配列のインデックスを解決する。
+     * <p/>
+     * カラム名の解決結果は、{@link ColumnIndexTable}で同じ検索結果の全ての行で共有する。
+     * カラム構成が変わる操作が行われた行など、配列を参照できない場合は-1を返す。
+     * この場合、呼び出し側は{@link Map}のメソッドで値を取得すること。
+     *
+     * @param colName カラム名
+     * @return インデックス(解決できない場合は-1)
+     */
+    private int resolveCompactIndex(String colName) {
+        final ColumnIndexTable columns = getCompactColumns();
+        if (columns == null) {
+            return -1;
+        }
+        return columns.resolve(colName);
+    }
+
+    /**
+     * 1行分の値を配列で保持する{@link Map}。
+     * <p/>
+     * カラム名と配列のインデックスとの対応は、{@link ColumnIndexTable}を参照する。
+     * 既存のカラムの値の変更は配列に直接反映する。
+     * カラム構成が変わる操作が行われた場合は、値を{@link HashMap}に変換し、以降は変換した{@link HashMap}に委譲する。
+     */
+    private static final class CompactRowMap extends AbstractMap<String, Object> {
+
+        /** カラム名と配列のインデックスとの対応表 */
+        private final ColumnIndexTable columns;
+
+        /** 1行分の値 */
+        private Object[] values;
+
+        /** カラム構成が変わった場合に値を保持するMap */
+        private Map<String, Object> inflated;
+
+        /** 値を変更できないか否か */
+        private final boolean unmodifiable;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param columns カラム名と配列のインデックスとの対応表
+         * @param values 1行分の値
+         * @param unmodifiable 値を変更できない場合は{@code true}
+         */
+        private CompactRowMap(ColumnIndexTable columns, Object[] values, boolean unmodifiable) {
+            this.columns = columns;
+            this.values = values;
+            this.unmodifiable = unmodifiable;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (inflated != null) {
+                return inflated.get(key);
+            }
+            final int index = columns.indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (inflated != null) {
+                return inflated.containsKey(key);
+            }
+            return columns.indexOf(key) >= 0;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            verifyModifiable();
+            if (inflated == null) {
+                final int index = columns.indexOf(key);
+                if (index >= 0) {
+                    final Object old = values[index];
+                    values[index] = value;
+                    return old;
+                }
+            }
+            return inflate().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (inflated == null && columns.indexOf(key) < 0) {
+                return null;
+            }
+            return inflate().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            inflate().clear();
+        }
+
+        @Override
+        public int size() {
+            return inflated != null ? inflated.size() : columns.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    if (inflated != null) {
+                        return inflated.entrySet().iterator();
+                    }
+                    return new EntryIterator(values);
+                }
+
+                @Override
+                public int size() {
+                    return CompactRowMap.this.size();
+                }
+            };
+        }
+
+        /**
+         * 値を{@link HashMap}に変換する。
+         *
+         * @return 変換した{@link HashMap}
+         */
+        private Map<String, Object> inflate() {
+            verifyModifiable();
+            if (inflated == null) {
+                final Map<String, Object> map = new HashMap<String, Object>((columns.size() * 3) / 2 + 1);
+                for (int i = 0; i < values.length; i++) {
+                    map.put(columns.getName(i), values[i]);
+                }
+                inflated = map;
+                values = null;
+            }
+            return inflated;
+        }
+
+        /**
+         * 値を変更できることを検証する。
+         *
+         * @throws UnsupportedOperationException 値を変更できない場合
+         */
+        private void verifyModifiable() {
+            if (unmodifiable) {
+                throw new UnsupportedOperationException("this row is unmodifiable.");
+            }
+        }
+
+        /**
+         * 値の配列を順に参照する{@link Iterator}。
+         * <p/>
+         * 走査中に値が{@link HashMap}に変換された場合、エントリの参照と変更は変換後の{@link HashMap}に対して行う。
+         */
+        private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+            /** 走査開始時点の値の配列 */
+            private final Object[] snapshot;
+
+            /** 次に返すインデックス */
+            private int next;
+
+            /** 最後に返したインデックス(削除済みの場合は-1) */
+            private int last = -1;
+
+            /**
+             * コンストラクタ。
+             *
+             * @param snapshot 走査開始時点の値の配列
+             */
+            private EntryIterator(Object[] snapshot) {
+                this.snapshot = snapshot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return new RowEntry(last, snapshot);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                inflate().remove(columns.getName(last));
+                last = -1;
+            }
+        }
+
+        /**
+         * 値の配列の要素を参照するエントリ。
+         */
+        private final class RowEntry implements Entry<String, Object> {
+
+            /** インデックス */
+            private final int index;
+
+            /** 値の配列 */
+            private final Object[] array;
+
+            /**
+             * コンストラクタ。
+             *
+             * @param index インデックス
+             * @param array 値の配列
+             */
+            private RowEntry(int index, Object[] array) {
+                this.index = index;
+                this.array = array;
+            }
+
+            @Override
+            public String getKey() {
+                return columns.getName(index);
+            }
+
+            @Override
+            public Object getValue() {
+                return inflated != null ? inflated.get(getKey()) : array[index];
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                verifyModifiable();
+                if (inflated != null) {
+                    return inflated.put(getKey(), value);
+                }
+                final Object old = array[index];
+                array[index] = value;
+                return old;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                final Entry<?, ?> e = (Entry<?, ?>) o;
+                final Object value = getValue();
+                return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+            }
+
+            @Override
+            public int hashCode() {
+                final Object value = getValue();
+                return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+            }
+
+            @Override
+            public String toString() {
+                return getKey() + "=" + getValue();
+            }
+        }
+    }
+
+    /**
+     * カラム名の変換表。
+     * <p/>
+     * 変換表は{@link ColumnIndexTable}で行間で共有し、共有する変換表と同じ変換結果となる追加は、共有する変換表に反映する。
+     * 異なる変換結果となる追加(カラム構成が変わる値の設定)が行われた場合は、この行専用の変換表を作成して以降はそれを使用する。
+     */
+    private static final class KeyConversionMap extends AbstractMap<String, String> {
+
+        /** カラム名と配列のインデックスとの対応表 */
+        private final ColumnIndexTable columns;
+
+        /** この行専用の変換表 */
+        private Map<String, String> own;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param columns カラム名と配列のインデックスとの対応表
+         */
+        private KeyConversionMap(ColumnIndexTable columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public String get(Object key) {
+            return own != null ? own.get(key) : columns.getKeyConversions().get(key);
+        }
+
+        @Override
+        public String put(String key, String value) {
+            if (own == null) {
+                final ConcurrentMap<String, String> shared = columns.getKeyConversions();
+                if (value.equals(shared.get(StringUtil.lowerAndTrimUnderScore(key)))) {
+                    // 共有する変換表と同じ変換結果のため、共有する変換表に追加する。(上限を超える場合は追加しない)
+                    if (columns.canAddKeyConversion()) {
+                        shared.putIfAbsent(key, value);
+                    }
+                    return null;
+                }
+                own = new HashMap<String, String>();
+                for (int i = 0; i < columns.size(); i++) {
+                    final String name = columns.getName(i);
+                    own.put(StringUtil.lowerAndTrimUnderScore(name), name);
+                }
+            }
+            return own.put(key, value);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            if (own != null) {
+                return own.entrySet();
+            }
+            return Collections.unmodifiableSet(columns.getKeyConversions().entrySet());
+        }
+    }
+}
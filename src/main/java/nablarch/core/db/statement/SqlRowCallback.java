@@ -0,0 +1,24 @@
+package nablarch.core.db.statement;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 検索結果を1行ずつ処理するコールバックインタフェース。
+ * <p/>
+ * {@link SqlPStatement#forEachRow(SqlRowCallback)}などで、検索結果の行ごとに呼び出される。
+ *
+ * @see SqlPStatement#forEachRow(SqlRowCallback)
+ */
+@Published
+public interface SqlRowCallback {
+
+    /**
+     * 検索結果の1行分のデータを処理する。
+     * <p/>
+     * 本メソッドから送出された例外は、呼び出し元にそのまま送出される。
+     * その場合、残りの行の処理は行われない。
+     *
+     * @param row 1行分のデータ
+     */
+    void handle(SqlRow row);
+}
@@ -0,0 +1,103 @@
+package nablarch.core.db.statement;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQLIDごとに、可変条件構文を変換したSQL文の種類数を集計するクラス。
+ * <p/>
+ * 可変IN構文などにより、同一のSQLIDから異なるSQL文が生成されると、
+ * ステートメントやデータベースの実行計画が再利用されなくなる。
+ * 本クラスは、SQLIDごとに生成されたSQL文の種類数を集計し、その状況を確認できるようにする。
+ * <p/>
+ * 種類数を正確に集計するため、SQL文そのものを保持して比較する。
+ * 保持するSQL文の数は、SQLIDごとに{@link #setMaxShapesPerSqlId(int)}で設定した上限までとし、
+ * 上限に達した後に生成された新たなSQL文は記録しない。
+ * このため、種類数が上限値と等しい場合は、上限値以上の種類のSQL文が生成されたことを表す。
+ * (SQLIDの数はSQL定義の数に限られるため、上限を設けない)
+ * <p/>
+ * 本クラスはスレッドセーフである。
+ *
+ * @see BasicStatementFactory#setSqlShapeStatistics(SqlShapeStatistics)
+ * @see nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor#setPaddingStep(int)
+ */
+public class SqlShapeStatistics {
+
+    /** SQLIDごとのSQL文 */
+    private final ConcurrentMap<String, Set<String>> shapes = new ConcurrentHashMap<String, Set<String>>();
+
+    /** SQLIDごとに保持するSQL文の数の上限 */
+    private int maxShapesPerSqlId = 256;
+
+    /**
+     * SQLIDごとに保持するSQL文の数の上限を設定する。(デフォルトは256)
+     * <p/>
+     * 上限に達した後に生成された新たなSQL文は記録しない。
+     * 同時に記録した場合は、上限をわずかに超えて記録することがある。
+     *
+     * @param maxShapesPerSqlId SQLIDごとに保持するSQL文の数の上限
+     */
+    public void setMaxShapesPerSqlId(int maxShapesPerSqlId) {
+        this.maxShapesPerSqlId = maxShapesPerSqlId;
+    }
+
+    /**
+     * 変換後のSQL文を記録する。
+     *
+     * @param sqlId SQLID
+     * @param sql 可変条件構文を変換したSQL文
+     */
+    public void record(String sqlId, String sql) {
+        Set<String> sqls = shapes.get(sqlId);
+        if (sqls == null) {
+            final Set<String> newSqls = ConcurrentHashMap.newKeySet();
+            sqls = shapes.putIfAbsent(sqlId, newSqls);
+            if (sqls == null) {
+                sqls = newSqls;
+            }
+        }
+        if (sqls.size() < maxShapesPerSqlId) {
+            sqls.add(sql);
+        }
+    }
+
+    /**
+     * 指定されたSQLIDから生成されたSQL文の種類数を取得する。
+     *
+     * @param sqlId SQLID
+     * @return SQL文の種類数(記録されていない場合は0、上限に達した場合は上限値)
+     */
+    public int getShapeCount(String sqlId) {
+        final Set<String> sqls = shapes.get(sqlId);
+        return sqls == null ? 0 : sqls.size();
+    }
+
+    /**
+     * SQLIDごとのSQL文の種類数を取得する。
+     *
+     * @return SQLIDをキー、SQL文の種類数を値とするMap(SQLIDの昇順)
+     */
+    public Map<String, Integer> getShapeCounts() {
+        final Map<String, Integer> result = new TreeMap<String, Integer>();
+        for (Map.Entry<String, Set<String>> entry : shapes.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().size());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 集計結果をクリアする。
+     */
+    public void clear() {
+        shapes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + getShapeCounts();
+    }
+}
@@ -0,0 +1,120 @@
+package nablarch.core.db.statement;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import nablarch.core.db.statement.sqlconvertor.VariableSyntaxSqlTemplate;
+
+/**
+ * Nablarchの拡張構文を持つSQL文を解析したテンプレート({@link VariableSyntaxSqlTemplate})をキャッシュするクラス。
+ * <p/>
+ * 変換前のSQL文をキーにテンプレートを保持する。
+ * テンプレートを使用できないSQL文の場合も、その判定結果を保持し再解析を行わない。
+ * キャッシュ件数が上限に達した場合、任意のエントリを1件削除してから追加する。
+ * <p/>
+ * 本クラスはスレッドセーフであり、参照時にロックを取得しない。
+ */
+public class SqlTemplateCache {
+
+    /** テンプレートを使用できないことを表す値 */
+    private static final Object NOT_COMPILABLE = new Object();
+
+    /** キャッシュの実体 */
+    private final Map<String, Object> cache;
+
+    /** キャッシュ上限件数 */
+    private final int maxSize;
+
+    /** ヒット件数 */
+    private final LongAdder hitCount = new LongAdder();
+
+    /** ミス件数 */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxSize キャッシュ上限件数
+     */
+    public SqlTemplateCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0. maxSize = [" + maxSize + ']');
+        }
+        this.maxSize = maxSize;
+        cache = new ConcurrentHashMap<String, Object>(Math.min(maxSize, 256));
+    }
+
+    /**
+     * テンプレートを取得する。
+     * <p/>
+     * キャッシュに存在しない場合は、SQL文を解析してテンプレートを生成し、キャッシュに格納する。
+     *
+     * @param sql 変換前のSQL文
+     * @param sqlConvertors SQL文の変換に使用する{@link SqlConvertor}
+     * @return テンプレート(テンプレートを使用できない場合は{@code null})
+     */
+    public VariableSyntaxSqlTemplate get(String sql, SqlConvertor[] sqlConvertors) {
+        Object template = cache.get(sql);
+        if (template != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            template = VariableSyntaxSqlTemplate.compile(sql, sqlConvertors);
+            if (template == null) {
+                template = NOT_COMPILABLE;
+            }
+            if (cache.size() >= maxSize) {
+                evictOne();
+            }
+            cache.put(sql, template);
+        }
+        return template == NOT_COMPILABLE ? null : (VariableSyntaxSqlTemplate) template;
+    }
+
+    /** 任意のエントリを1件削除する。 */
+    private void evictOne() {
+        final Iterator<String> keys = cache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * キャッシュをクリアする。
+     * <p/>
+     * ヒット件数、ミス件数はクリアしない。
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * キャッシュされている件数を取得する。
+     *
+     * @return キャッシュ件数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * キャッシュのヒット件数を取得する。
+     *
+     * @return ヒット件数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * キャッシュのミス件数(SQL文を解析した件数)を取得する。
+     *
+     * @return ミス件数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+}
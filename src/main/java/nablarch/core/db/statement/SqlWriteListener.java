@@ -0,0 +1,35 @@
+package nablarch.core.db.statement;
+
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 更新系のSQL文の実行を通知されるインタフェース。
+ * <p/>
+ * {@link BasicSqlPStatement}は、{@link SqlPStatement#executeUpdate()}、{@link SqlPStatement#executeBatch()}などの
+ * 実行後に、更新したテーブルを通知する。
+ * 更新するテーブルの抽出はSQL文ごとに1度のみ行い、実行のたびには行わない。
+ *
+ * @see BasicStatementFactory#setSqlWriteListener(SqlWriteListener)
+ */
+@Published(tag = "architect")
+public interface SqlWriteListener {
+
+    /**
+     * SQL文が更新するテーブルを取得する。
+     * <p/>
+     * 本メソッドはステートメントごとに、最初の更新の通知前に1度のみ呼び出される。
+     *
+     * @param sql SQL文
+     * @return 更新するテーブル名(更新するテーブルを抽出できない場合は{@code null})
+     */
+    String getWrittenTable(String sql);
+
+    /**
+     * テーブルを更新したことを通知する。
+     *
+     * @param connection 更新を行ったコネクション
+     * @param table {@link #getWrittenTable(String)}で取得したテーブル名
+     */
+    void onWritten(TransactionManagerConnection connection, String table);
+}
@@ -0,0 +1,308 @@
+package nablarch.core.db.statement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * 検索結果の値を、型を表すタグとともにバイト列に変換するクラス。
+ * <p/>
+ * {@link SqlResultSetSerializer}と{@link SpillableSqlResultSet}の一時ファイルで、同じ形式を使用するために共有する。
+ * 変換できる値の型は、以下のとおり。
+ * <ul>
+ * <li>{@link String}、{@link BigDecimal}、{@link BigInteger}</li>
+ * <li>{@link Integer}、{@link Long}、{@link Short}、{@link Byte}、{@link Double}、{@link Float}、{@link Boolean}</li>
+ * <li>{@link Date}、{@link java.sql.Date}、{@link Time}、{@link Timestamp}</li>
+ * <li>byte配列</li>
+ * <li>上記以外の{@link Serializable}な値(Javaのシリアライズで変換する)</li>
+ * </ul>
+ * 復元した値が元の値と同じクラスとなるよう、上記の型はクラスの一致で判定し、サブクラスの値は{@link Serializable}として変換する。
+ */
+final class ValueCodec {
+
+    /** 文字列の文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** null */
+    private static final int NULL = 0;
+
+    /** {@link String} */
+    private static final int STRING = 1;
+
+    /** {@link BigDecimal} */
+    private static final int BIG_DECIMAL = 2;
+
+    /** {@link BigInteger} */
+    private static final int BIG_INTEGER = 3;
+
+    /** {@link Integer} */
+    private static final int INTEGER = 4;
+
+    /** {@link Long} */
+    private static final int LONG = 5;
+
+    /** {@link Short} */
+    private static final int SHORT = 6;
+
+    /** {@link Byte} */
+    private static final int BYTE = 7;
+
+    /** {@link Double} */
+    private static final int DOUBLE = 8;
+
+    /** {@link Float} */
+    private static final int FLOAT = 9;
+
+    /** {@link Boolean} */
+    private static final int BOOLEAN = 10;
+
+    /** {@link Date} */
+    private static final int DATE = 11;
+
+    /** {@link java.sql.Date} */
+    private static final int SQL_DATE = 12;
+
+    /** {@link Time} */
+    private static final int TIME = 13;
+
+    /** {@link Timestamp} */
+    private static final int TIMESTAMP = 14;
+
+    /** byte配列 */
+    private static final int BYTES = 15;
+
+    /** 上記以外の{@link Serializable}な値 */
+    private static final int SERIALIZABLE = 16;
+
+    /** 隠蔽コンストラクタ。 */
+    private ValueCodec() {
+    }
+
+    /**
+     * 値を型ごとの形式で出力する。
+     * <p/>
+     * 変換できない型の値の場合は、何も出力せずに偽を返す。
+     *
+     * @param out 出力先
+     * @param value 値
+     * @return 出力した場合は真(変換できない型の値の場合は偽)
+     * @throws IOException 入出力エラー
+     */
+    static boolean writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return true;
+        }
+        // サブクラスの値を親クラスとして復元しないよう、クラスの一致で判定する。
+        final Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (type == BigDecimal.class) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(((BigDecimal) value).scale());
+            writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (type == BigInteger.class) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (type == java.sql.Date.class) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (type == Time.class) {
+            out.writeByte(TIME);
+            out.writeLong(((Date) value).getTime());
+        } else if (type == Timestamp.class) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof Serializable) {
+            final byte[] serialized = serialize(value);
+            if (serialized == null) {
+                return false;
+            }
+            out.writeByte(SERIALIZABLE);
+            writeBytes(out, serialized);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@link #writeValue(DataOutput, Object)}で出力した値を読み込む。
+     *
+     * @param in 入力元
+     * @return 値
+     * @throws IOException 入出力エラー、または形式が不正な場合
+     */
+    static Object readValue(DataInput in) throws IOException {
+        final int type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BIG_DECIMAL:
+                final int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DATE:
+                return new Date(in.readLong());
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case TIME:
+                return new Time(in.readLong());
+            case TIMESTAMP:
+                final Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case BYTES:
+                return readBytes(in);
+            case SERIALIZABLE:
+                return deserialize(readBytes(in));
+            default:
+                throw new IOException("unknown value type. type = [" + type + ']');
+        }
+    }
+
+    /**
+     * 文字列を出力する。
+     * {@link DataOutput#writeUTF(String)}は64KBを超える文字列を出力できないため、長さとバイト配列で出力する。
+     *
+     * @param out 出力先
+     * @param value 文字列
+     * @throws IOException 入出力エラー
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value.getBytes(UTF_8));
+    }
+
+    /**
+     * {@link #writeString(DataOutput, String)}で出力した文字列を読み込む。
+     *
+     * @param in 入力元
+     * @return 文字列
+     * @throws IOException 入出力エラー
+     */
+    static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), UTF_8);
+    }
+
+    /**
+     * バイト配列を、長さとともに出力する。
+     *
+     * @param out 出力先
+     * @param value バイト配列
+     * @throws IOException 入出力エラー
+     */
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * {@link #writeBytes(DataOutput, byte[])}で出力したバイト配列を読み込む。
+     *
+     * @param in 入力元
+     * @return バイト配列
+     * @throws IOException 入出力エラー
+     */
+    private static byte[] readBytes(DataInput in) throws IOException {
+        final byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * 値をJavaのシリアライズでバイト配列に変換する。
+     *
+     * @param value 値
+     * @return バイト配列(シリアライズできないオブジェクトを含む場合は{@code null})
+     * @throws IOException 入出力エラー
+     */
+    private static byte[] serialize(Object value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        try {
+            out.writeObject(value);
+        } catch (ObjectStreamException e) {
+            // シリアライズできないオブジェクトを含む場合
+            return null;
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * {@link #serialize(Object)}で変換したバイト配列から、値を復元する。
+     *
+     * @param bytes バイト配列
+     * @return 値
+     * @throws IOException 入出力エラー、またはクラスが見つからない場合
+     */
+    private static Object deserialize(byte[] bytes) throws IOException {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+}
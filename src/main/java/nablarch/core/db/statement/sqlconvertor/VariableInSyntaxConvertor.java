@@ -3,6 +3,7 @@ package nablarch.core.db.statement.sqlconvertor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import nablarch.core.db.dialect.Dialect;
 import nablarch.core.db.util.DbUtil;
 
 /**
@@ -16,7 +17,29 @@ public class VariableInSyntaxConvertor extends SqlConvertorSupport {
      * 可変IN構文を示す正規表現<br>
      * :kbn[]を抜き出す正規表現
      */
-    private static final Pattern VARIABLE_IN_SYNTAX = Pattern.compile(":([a-zA-Z0-9_]+)\\[\\]");
+    static final Pattern VARIABLE_IN_SYNTAX = Pattern.compile(":([a-zA-Z0-9_]+)\\[\\]");
+
+    /** 可変IN構文の直前の「IN (」(「NOT IN (」)を抜き出す正規表現 */
+    private static final Pattern IN_LIST_PREFIX = Pattern.compile("(\\bNOT\\s+)?\\bIN\\s*\\(\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    /** 可変IN構文の直後の「)」を抜き出す正規表現 */
+    private static final Pattern IN_LIST_SUFFIX = Pattern.compile("\\s*\\)");
+
+    /** IN句の項目数を切り上げる単位(0以下の場合は切り上げない) */
+    private int paddingStep;
+
+    /** IN句の項目数を2のべき乗に切り上げるか否か */
+    private boolean powerOfTwoPadding;
+
+    /** 切り上げ後のIN句の項目数の上限 */
+    private int maxPaddedSize = Integer.MAX_VALUE;
+
+    /** IN句の要素の一覧を1つのバインド変数で指定する要素数の閾値(0以下の場合は使用しない) */
+    private int inListParameterThreshold;
+
+    /** IN句の要素の一覧を1つのバインド変数で指定する条件を構築する{@link Dialect} */
+    private Dialect dialect;
 
     /**
      * SQL文の可変IN構文を変換する。
@@ -64,12 +87,30 @@ public class VariableInSyntaxConvertor extends SqlConvertorSupport {
         StringBuilder sb = new StringBuilder(sqlLength);
         int start = 0;
         while (matcher.find()) {
+            final String parameterName = matcher.group(1);
+            final Object value = getInValue(parameterName, obj);
+
+            if (isInListParameterTarget(value)) {
+                // 「IN (:kbn[])」全体を、要素の一覧を1つのバインド変数で指定する条件に置き換える。
+                final Matcher prefix = IN_LIST_PREFIX.matcher(sql)
+                        .region(start, matcher.start())
+                        .useTransparentBounds(true);
+                final Matcher suffix = IN_LIST_SUFFIX.matcher(sql)
+                        .region(matcher.end(), sqlLength);
+                if (prefix.find() && suffix.lookingAt()) {
+                    sb.append(sql, start, prefix.start());
+                    sb.append(dialect.convertInListCondition(
+                            ':' + parameterName + "[*]", prefix.group(1) != null));
+                    start = suffix.end();
+                    continue;
+                }
+            }
 
             // 可変IN構文までのSQL文を構築する。
-            sb.append(sql.substring(start, matcher.start()));
+            sb.append(sql, start, matcher.start());
 
             // INパラメータ部分を構築する。
-            sb.append(makeInParameter(matcher.group(1), obj));
+            sb.append(buildInParameter(parameterName, value));
 
             start = matcher.end();
         }
@@ -84,8 +125,18 @@ public class VariableInSyntaxConvertor extends SqlConvertorSupport {
      * @param obj 条件フィールドを持つオブジェクト
      * @return INパラメータ
      */
-    private String makeInParameter(String parameterName, Object obj) {
-        StringBuilder sb = new StringBuilder();
+    String makeInParameter(String parameterName, Object obj) {
+        return buildInParameter(parameterName, getInValue(parameterName, obj));
+    }
+
+    /**
+     * INパラメータの値を取得する。
+     *
+     * @param parameterName パラメータ名称
+     * @param obj 条件フィールドを持つオブジェクト
+     * @return INパラメータの値(配列またはCollection)
+     */
+    private Object getInValue(String parameterName, Object obj) {
         Object value = getBindValue(obj, parameterName);
         if (!DbUtil.isArrayObject(value)) {
             // フィールドのタイプが配列か、Collectionでない場合はエラー
@@ -93,11 +144,27 @@ public class VariableInSyntaxConvertor extends SqlConvertorSupport {
                     "object type in field is invalid. valid object type is Collection or Array."
                             + " field name = [%s].", parameterName));
         }
+        return value;
+    }
+
+    /**
+     * INパラメータ部分を構築する。<br>
+     *
+     * @param parameterName パラメータ名称
+     * @param value INパラメータの値(配列またはCollection)
+     * @return INパラメータ
+     */
+    private String buildInParameter(String parameterName, Object value) {
+        StringBuilder sb = new StringBuilder();
         int size = DbUtil.getArraySize(value);
         if (size == 0) {
             return ':' + parameterName + "[]";
         }
-        for (int i = 0; i < size; i++) {
+        int paddedSize = toPaddedSize(size);
+        // 切り上げる場合は、要素数によらず同一のSQL文となるよう、全ての項目を"[添字*]"形式とする。
+        // "[添字*]"形式の項目は、要素数が足りない場合に最後の要素がバインドされる。
+        boolean padding = isPaddingEnabled();
+        for (int i = 0; i < paddedSize; i++) {
             if (i != 0) {
                 sb.append(',');
             }
@@ -105,8 +172,138 @@ public class VariableInSyntaxConvertor extends SqlConvertorSupport {
             sb.append(parameterName);
             sb.append('[');
             sb.append(i);
+            if (padding) {
+                sb.append('*');
+            }
             sb.append(']');
         }
         return sb.toString();
     }
+
+    /**
+     * IN句の要素の一覧を1つのバインド変数で指定する対象か否か。
+     *
+     * @param value INパラメータの値(配列またはCollection)
+     * @return 対象の場合{@code true}
+     */
+    private boolean isInListParameterTarget(Object value) {
+        return isInListParameterEnabled() && DbUtil.getArraySize(value) >= inListParameterThreshold;
+    }
+
+    /**
+     * IN句の要素数によって、要素の一覧を1つのバインド変数で指定する設定か否か。
+     *
+     * @return 設定されている場合{@code true}
+     */
+    boolean isInListParameterEnabled() {
+        return inListParameterThreshold > 0 && dialect != null && dialect.supportsInListParameter();
+    }
+
+    /**
+     * 切り上げ後のIN句の項目数を算出する。
+     * <p/>
+     * 切り上げ後の項目数が上限を超える場合は上限(要素数が上限を超える場合は要素数)とする。
+     *
+     * @param size 要素数
+     * @return 切り上げ後の項目数
+     */
+    int toPaddedSize(int size) {
+        long padded = size;
+        if (powerOfTwoPadding) {
+            padded = Long.highestOneBit(size);
+            if (padded < size) {
+                padded <<= 1;
+            }
+        } else if (paddingStep > 0) {
+            padded = ((long) size + paddingStep - 1) / paddingStep * paddingStep;
+        }
+        return (int) Math.max(size, Math.min(padded, maxPaddedSize));
+    }
+
+    /**
+     * IN句の項目数を切り上げる設定か否か。
+     *
+     * @return 切り上げる設定の場合{@code true}
+     */
+    private boolean isPaddingEnabled() {
+        return powerOfTwoPadding || paddingStep > 0;
+    }
+
+    /**
+     * IN句の項目数を切り上げる単位を設定する。
+     * <p/>
+     * 1以上を設定した場合、IN句の項目数を指定された単位の倍数に切り上げる。
+     * 切り上げにより追加した項目には、配列またはCollectionの最後の要素を繰り返しバインドする。
+     * このため、IN句の各項目は{@code :userKbn[0*]}のように、添字の後ろに"*"を付加した形式となる。
+     * これにより、要素数が異なってもSQL文が同一となり、ステートメントや実行計画を再利用できる。
+     * IN句の結果は重複した値の有無に依存しないため、検索結果は変わらない。
+     * <p/>
+     * 0以下を設定した場合は、切り上げない。(デフォルトは切り上げない)
+     * {@link #setPowerOfTwoPadding(boolean)}に{@code true}を設定した場合は、本設定は使用しない。
+     *
+     * @param paddingStep 切り上げる単位
+     */
+    public void setPaddingStep(int paddingStep) {
+        this.paddingStep = paddingStep;
+    }
+
+    /**
+     * IN句の項目数を2のべき乗に切り上げるか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合、IN句の項目数を2のべき乗(1, 2, 4, 8, ...)に切り上げる。
+     * (デフォルトは切り上げない)
+     *
+     * @param powerOfTwoPadding 2のべき乗に切り上げる場合{@code true}
+     * @see #setPaddingStep(int)
+     */
+    public void setPowerOfTwoPadding(boolean powerOfTwoPadding) {
+        this.powerOfTwoPadding = powerOfTwoPadding;
+    }
+
+    /**
+     * 切り上げ後のIN句の項目数の上限を設定する。
+     * <p/>
+     * 切り上げ後の項目数が上限を超える場合、上限までしか切り上げない。
+     * 要素数自体が上限を超える場合は、要素数の項目を構築する。
+     * (デフォルトは上限なし)
+     * <p/>
+     * IN句に指定できる項目数に制限のあるデータベース(例えばOracleの1000)を使用する場合に設定する。
+     *
+     * @param maxPaddedSize 切り上げ後の項目数の上限
+     */
+    public void setMaxPaddedSize(int maxPaddedSize) {
+        this.maxPaddedSize = maxPaddedSize;
+    }
+
+    /**
+     * IN句の要素の一覧を1つのバインド変数で指定する要素数の閾値を設定する。
+     * <p/>
+     * 要素数が閾値以上の場合、「{@code USER_KBN IN (:userKbn[])}」の「{@code IN (:userKbn[])}」を、
+     * {@link Dialect#convertInListCondition(String, boolean)}で変換した条件に置き換える。
+     * 変換後の条件では、要素の一覧は{@code :userKbn[*]}形式の1つのバインド変数となり、
+     * 値の設定は{@link Dialect#setInListParameter(java.sql.PreparedStatement, int, String, Object[])}で行う。
+     * これにより、要素数が多い場合でもSQL文が長大にならず、データベースやドライバのバインド変数の数の上限も超えない。
+     * 要素数が閾値未満の場合は、要素ごとのバインド変数に展開する。
+     * <p/>
+     * 本設定は、{@link #setDialect(Dialect)}を設定し、かつ{@link Dialect#supportsInListParameter()}が{@code true}の場合に有効となる。
+     * また、可変IN構文が「{@code IN (:userKbn[])}」の形式で記述されている場合のみ置き換える。
+     * 0以下を設定した場合は、使用しない。(デフォルトは使用しない)
+     *
+     * @param inListParameterThreshold 要素数の閾値
+     */
+    public void setInListParameterThreshold(int inListParameterThreshold) {
+        this.inListParameterThreshold = inListParameterThreshold;
+    }
+
+    /**
+     * IN句の要素の一覧を1つのバインド変数で指定する条件を構築する{@link Dialect}を設定する。
+     * <p/>
+     * データベース接続で使用する{@link Dialect}と同じものを設定すること。
+     *
+     * @param dialect {@link Dialect}
+     * @see #setInListParameterThreshold(int)
+     */
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
 }
@@ -18,7 +18,7 @@ public class VariableOrderBySyntaxConvertor extends SqlConvertorSupport {
      * グループ2: "(1 USER_ID)(2 KANJI_NAME)(3 KANA_NAME)(default USER_ID)"
      * </pre>
      */
-    private static final Pattern VARIABLE_ORDER_BY_SYNTAX
+    static final Pattern VARIABLE_ORDER_BY_SYNTAX
         = Pattern.compile("^\\$sort[ ]*\\(([a-zA-Z0-9_]+)\\)[ ]*\\{[ ]*([^\\}]+)[ ]*\\}");
 
     /**
@@ -36,6 +36,9 @@ public class VariableOrderBySyntaxConvertor extends SqlConvertorSupport {
      */
     private static final String ORDER_BY_CASE_FORMAT = "\\([ ]*(%s)[ ]+([^\\)]+)\\)";
 
+    /** 可変ORDER BY構文を表す文字列 */
+    static final String SORT_SYNTAX = "$sort";
+
     /** デフォルトのケースに使用するソートID */
     private static final String DEFAULT_CASE_SORT_ID = "default";
     
@@ -105,7 +108,7 @@ public class VariableOrderBySyntaxConvertor extends SqlConvertorSupport {
     @Override
     public String convert(String sql, Object obj) {
 
-        int orderBySyntaxStart = sql.indexOf("$sort");
+        int orderBySyntaxStart = sql.indexOf(SORT_SYNTAX);
         if (orderBySyntaxStart == -1) {
             return sql;
         }
@@ -129,25 +132,15 @@ public class VariableOrderBySyntaxConvertor extends SqlConvertorSupport {
             // ケースを取得する。
             String cases = orderByMatcher.group(2);
             
-            String orderBy = null;
-            
-            // ソートIDが取得できた場合は、ソートIDのケースを取得する。
-            if (sortIdObj != null) {
-                orderBy = getCase(cases, sortIdObj.toString());
-            }
-            
-            // ソートIDのケースが取得できない場合は、デフォルトのケースを取得する。
-            if (orderBy == null) {
-                orderBy = getCase(cases, DEFAULT_CASE_SORT_ID);
-            }
-            
+            String orderBy = findOrderBy(cases, sortIdObj == null ? null : sortIdObj.toString());
+
             // ORDER BY句が取得できた場合は追加する。
             if (orderBy != null) {
                 sb.append("ORDER BY " + orderBy.trim());
             }
             
             start = orderByMatcher.end();
-            orderBySyntaxStart = sql.indexOf("$sort", start);
+            orderBySyntaxStart = sql.indexOf(SORT_SYNTAX, start);
             orderByMatcher.region(orderBySyntaxStart != -1 ? orderBySyntaxStart : sqlLength, sqlLength);
         }
         sb.append(sql.substring(start));
@@ -155,6 +148,30 @@ public class VariableOrderBySyntaxConvertor extends SqlConvertorSupport {
         return sb.toString();
     }
     
+    /**
+     * 可変ORDER BY構文のケース部分からソートIDに該当するケースを抜き出す。
+     * <p/>
+     * ソートIDに該当するケースが存在しない場合は、デフォルトのケースを抜き出す。
+     *
+     * @param cases 可変ORDER BY構文のケース部分
+     * @param sortId ソートID(ソートIDが取得できない場合はnull)
+     * @return ケース。該当するケース、デフォルトのケースのいずれも見つからない場合はnull
+     */
+    String findOrderBy(String cases, String sortId) {
+        String orderBy = null;
+
+        // ソートIDが取得できた場合は、ソートIDのケースを取得する。
+        if (sortId != null) {
+            orderBy = getCase(cases, sortId);
+        }
+
+        // ソートIDのケースが取得できない場合は、デフォルトのケースを取得する。
+        if (orderBy == null) {
+            orderBy = getCase(cases, DEFAULT_CASE_SORT_ID);
+        }
+        return orderBy;
+    }
+
     /**
      * 可変ORDER BY構文のケース部分から指定されたソートIDに該当するケースを抜き出す。
      * @param cases 可変ORDER BY構文のケース部分
@@ -0,0 +1,379 @@
+package nablarch.core.db.statement.sqlconvertor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+import nablarch.core.db.statement.SqlConvertor;
+
+/**
+ * Nablarchの拡張構文(可変条件、可変IN、可変ORDER BY)を持つSQL文を事前に解析したテンプレート。
+ * <p/>
+ * SQL文を一度だけ解析し、リテラル部分、$if構文、$sort構文、可変IN構文のノードに分解して保持する。
+ * {@link #convert(Object)}では、ノードを順に評価するのみで正規表現による解析は行わないため、
+ * 同一のSQL文に対する変換を繰り返し行う場合に、{@link SqlConvertor}を都度適用するよりも高速に変換できる。
+ * <p/>
+ * 変換結果は、以下の{@link SqlConvertor}をこの順に適用した場合と同じとなる。
+ * そのため、テンプレートは{@link SqlConvertor}がこの構成の場合のみ使用できる。
+ * <ol>
+ * <li>{@link VariableConditionSyntaxConvertor}</li>
+ * <li>{@link VariableInSyntaxConvertor}</li>
+ * <li>{@link VariableOrderBySyntaxConvertor}</li>
+ * </ol>
+ * 上記以外の構成の場合や、テンプレートでは同じ変換結果を保証できないSQL文の場合(例えば$if構文の中に$sort構文がある場合)、
+ * {@link #compile(String, SqlConvertor[])}は{@code null}を返す。
+ * この場合、呼び出し側は{@link SqlConvertor}を使用してSQL文を変換すること。
+ * <p/>
+ * 本クラスはスレッドセーフであり、複数スレッドから共有できる。
+ */
+public final class VariableSyntaxSqlTemplate {
+
+    /** $sort構文ごとに保持するソートIDの評価結果の上限数 */
+    private static final int MAX_SORT_CASE_CACHE_SIZE = 64;
+
+    /** 元のSQL文 */
+    private final String sql;
+
+    /** ノード */
+    private final Node[] nodes;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param sql 元のSQL文
+     * @param nodes ノード
+     */
+    private VariableSyntaxSqlTemplate(String sql, List<Node> nodes) {
+        this.sql = sql;
+        this.nodes = nodes.toArray(new Node[nodes.size()]);
+    }
+
+    /**
+     * SQL文を解析し、テンプレートを生成する。
+     *
+     * @param sql SQL文
+     * @param sqlConvertors SQL文の変換に使用する{@link SqlConvertor}
+     * @return テンプレート(テンプレートを使用できない場合は{@code null})
+     */
+    public static VariableSyntaxSqlTemplate compile(String sql, SqlConvertor[] sqlConvertors) {
+        if (!isStandardConvertors(sqlConvertors)) {
+            return null;
+        }
+        final VariableConditionSyntaxConvertor conditionConvertor = (VariableConditionSyntaxConvertor) sqlConvertors[0];
+        final VariableInSyntaxConvertor inConvertor = (VariableInSyntaxConvertor) sqlConvertors[1];
+        final VariableOrderBySyntaxConvertor orderByConvertor = (VariableOrderBySyntaxConvertor) sqlConvertors[2];
+
+        final List<Node> nodes = new ArrayList<Node>();
+
+        // 可変条件構文の解析(VariableConditionSyntaxConvertorと同じ手順で解析する)
+        final int sqlLength = sql.length();
+        int conditionStart = sql.indexOf(VariableConditionSyntaxConvertor.IF_CONDITION);
+        int start = 0;
+        if (conditionStart != -1) {
+            final Matcher matcher = VariableConditionSyntaxConvertor.VARIABLE_CONDITION.matcher(sql);
+            matcher.region(conditionStart, sqlLength);
+            while (matcher.find()) {
+                if (!addTextNodes(nodes, sql.substring(start, matcher.start()), inConvertor, orderByConvertor)) {
+                    return null;
+                }
+                final String body = matcher.group(2);
+                if (body.contains(VariableOrderBySyntaxConvertor.SORT_SYNTAX)) {
+                    // $if構文の中の$sort構文は、$if構文の外と組み合わせて解釈される可能性があるため対象外とする。
+                    return null;
+                }
+                final List<Node> bodyNodes = new ArrayList<Node>();
+                addInNodes(bodyNodes, body, inConvertor);
+                nodes.add(new ConditionNode(matcher.group(1), bodyNodes, conditionConvertor));
+                start = matcher.end();
+                conditionStart = sql.indexOf(VariableConditionSyntaxConvertor.IF_CONDITION, start);
+                matcher.region(conditionStart != -1 ? conditionStart : sqlLength, sqlLength);
+            }
+        }
+        if (!addTextNodes(nodes, sql.substring(start), inConvertor, orderByConvertor)) {
+            return null;
+        }
+        return new VariableSyntaxSqlTemplate(sql, nodes);
+    }
+
+    /**
+     * 標準の{@link SqlConvertor}構成か否か。
+     * <p/>
+     * {@link VariableInSyntaxConvertor}が、IN句の要素数によって変換方法を切り替える設定の場合は、標準の構成とはみなさない。
+     *
+     * @param sqlConvertors {@link SqlConvertor}
+     * @return 標準の構成の場合{@code true}
+     */
+    private static boolean isStandardConvertors(SqlConvertor[] sqlConvertors) {
+        return sqlConvertors.length == 3
+                && sqlConvertors[0].getClass() == VariableConditionSyntaxConvertor.class
+                && sqlConvertors[1].getClass() == VariableInSyntaxConvertor.class
+                && sqlConvertors[2].getClass() == VariableOrderBySyntaxConvertor.class
+                && !((VariableInSyntaxConvertor) sqlConvertors[1]).isInListParameterEnabled();
+    }
+
+    /**
+     * $if構文の外側の文字列を解析し、ノードを追加する。
+     * <p/>
+     * 文字列中の$sort構文は、全て構文として解析できる場合のみ対象とする。
+     *
+     * @param nodes 追加先のノード
+     * @param text $if構文の外側の文字列
+     * @param inConvertor 可変IN構文の変換に使用する{@link VariableInSyntaxConvertor}
+     * @param orderByConvertor 可変ORDER BY構文の変換に使用する{@link VariableOrderBySyntaxConvertor}
+     * @return テンプレートで扱える場合{@code true}
+     */
+    private static boolean addTextNodes(List<Node> nodes, String text,
+            VariableInSyntaxConvertor inConvertor, VariableOrderBySyntaxConvertor orderByConvertor) {
+        int sortStart = text.indexOf(VariableOrderBySyntaxConvertor.SORT_SYNTAX);
+        if (sortStart == -1) {
+            addInNodes(nodes, text, inConvertor);
+            return true;
+        }
+        final int textLength = text.length();
+        final Matcher matcher = VariableOrderBySyntaxConvertor.VARIABLE_ORDER_BY_SYNTAX.matcher(text);
+        int start = 0;
+        while (sortStart != -1) {
+            matcher.region(sortStart, textLength);
+            if (!matcher.find()) {
+                // 構文として解析できない$sortは対象外とする。
+                return false;
+            }
+            final String cases = matcher.group(2);
+            if (cases.indexOf(':') != -1) {
+                // ケース部分は可変IN構文の変換対象となりうるため対象外とする。
+                return false;
+            }
+            addInNodes(nodes, text.substring(start, matcher.start()), inConvertor);
+            nodes.add(new OrderByNode(matcher.group(1), cases, orderByConvertor));
+            start = matcher.end();
+            sortStart = text.indexOf(VariableOrderBySyntaxConvertor.SORT_SYNTAX, start);
+        }
+        addInNodes(nodes, text.substring(start), inConvertor);
+        return true;
+    }
+
+    /**
+     * 文字列を可変IN構文で分割し、ノードを追加する。
+     *
+     * @param nodes 追加先のノード
+     * @param text 文字列
+     * @param inConvertor 可変IN構文の変換に使用する{@link VariableInSyntaxConvertor}
+     */
+    private static void addInNodes(List<Node> nodes, String text, VariableInSyntaxConvertor inConvertor) {
+        final Matcher matcher = VariableInSyntaxConvertor.VARIABLE_IN_SYNTAX.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            addLiteralNode(nodes, text.substring(start, matcher.start()));
+            nodes.add(new InNode(matcher.group(1), inConvertor));
+            start = matcher.end();
+        }
+        addLiteralNode(nodes, text.substring(start));
+    }
+
+    /**
+     * リテラルのノードを追加する。
+     *
+     * @param nodes 追加先のノード
+     * @param text リテラル
+     */
+    private static void addLiteralNode(List<Node> nodes, String text) {
+        if (!text.isEmpty()) {
+            nodes.add(new LiteralNode(text));
+        }
+    }
+
+    /**
+     * 検索条件をもとにJDBC標準のSQL文に変換する。
+     *
+     * @param obj 検索条件をもつオブジェクト
+     * @return 変換後のSQL文
+     */
+    public String convert(Object obj) {
+        if (nodes.length == 1 && nodes[0] instanceof LiteralNode) {
+            return sql;
+        }
+        final StringBuilder sb = new StringBuilder(sql.length() + 32);
+        for (Node node : nodes) {
+            node.appendTo(sb, obj);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * テンプレートを構成するノード。
+     */
+    private interface Node {
+
+        /**
+         * ノードを評価し、結果をSQL文に追加する。
+         *
+         * @param sb 追加先
+         * @param obj 検索条件をもつオブジェクト
+         */
+        void appendTo(StringBuilder sb, Object obj);
+    }
+
+    /**
+     * リテラルを表すノード。
+     */
+    private static final class LiteralNode implements Node {
+
+        /** リテラル */
+        private final String text;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param text リテラル
+         */
+        LiteralNode(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Object obj) {
+            sb.append(text);
+        }
+    }
+
+    /**
+     * $if構文を表すノード。
+     */
+    private static final class ConditionNode implements Node {
+
+        /** 入力チェックを行うフィールド名 */
+        private final String parameterName;
+
+        /** 条件部分のノード */
+        private final Node[] body;
+
+        /** 条件の評価に使用する{@link VariableConditionSyntaxConvertor} */
+        private final VariableConditionSyntaxConvertor convertor;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param parameterName 入力チェックを行うフィールド名
+         * @param body 条件部分のノード
+         * @param convertor 条件の評価に使用する{@link VariableConditionSyntaxConvertor}
+         */
+        ConditionNode(String parameterName, List<Node> body, VariableConditionSyntaxConvertor convertor) {
+            this.parameterName = parameterName;
+            this.body = body.toArray(new Node[body.size()]);
+            this.convertor = convertor;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Object obj) {
+            sb.append(convertor.toConditionPrefix(obj, parameterName));
+            for (Node node : body) {
+                node.appendTo(sb, obj);
+            }
+            sb.append("))");
+        }
+    }
+
+    /**
+     * 可変IN構文を表すノード。
+     */
+    private static final class InNode implements Node {
+
+        /** パラメータ名 */
+        private final String parameterName;
+
+        /** INパラメータの構築に使用する{@link VariableInSyntaxConvertor} */
+        private final VariableInSyntaxConvertor convertor;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param parameterName パラメータ名
+         * @param convertor INパラメータの構築に使用する{@link VariableInSyntaxConvertor}
+         */
+        InNode(String parameterName, VariableInSyntaxConvertor convertor) {
+            this.parameterName = parameterName;
+            this.convertor = convertor;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Object obj) {
+            sb.append(convertor.makeInParameter(parameterName, obj));
+        }
+    }
+
+    /**
+     * $sort構文を表すノード。
+     * <p/>
+     * ソートIDに対応するORDER BY句はケース部分のみで決まるため、ソートIDごとに評価結果を保持して再利用する。
+     */
+    private static final class OrderByNode implements Node {
+
+        /** ORDER BY句が存在しないことを表す値 */
+        private static final String NONE = new String();
+
+        /** ソートIDを取得するフィールド名 */
+        private final String propertyName;
+
+        /** ケース部分 */
+        private final String cases;
+
+        /** ケースの評価に使用する{@link VariableOrderBySyntaxConvertor} */
+        private final VariableOrderBySyntaxConvertor convertor;
+
+        /** ソートIDごとのORDER BY句 */
+        private final Map<String, String> orderByCache = new ConcurrentHashMap<String, String>();
+
+        /** ソートIDが取得できない場合のORDER BY句 */
+        private final String defaultOrderBy;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param propertyName ソートIDを取得するフィールド名
+         * @param cases ケース部分
+         * @param convertor ケースの評価に使用する{@link VariableOrderBySyntaxConvertor}
+         */
+        OrderByNode(String propertyName, String cases, VariableOrderBySyntaxConvertor convertor) {
+            this.propertyName = propertyName;
+            this.cases = cases;
+            this.convertor = convertor;
+            defaultOrderBy = toOrderBy(null);
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Object obj) {
+            final Object sortIdObj = convertor.getBindValue(obj, propertyName);
+            final String orderBy;
+            if (sortIdObj == null) {
+                orderBy = defaultOrderBy;
+            } else {
+                final String sortId = sortIdObj.toString();
+                final String cached = orderByCache.get(sortId);
+                if (cached != null) {
+                    orderBy = cached;
+                } else {
+                    orderBy = toOrderBy(sortId);
+                    if (orderByCache.size() < MAX_SORT_CASE_CACHE_SIZE) {
+                        orderByCache.put(sortId, orderBy);
+                    }
+                }
+            }
+            if (orderBy != NONE) {
+                sb.append(orderBy);
+            }
+        }
+
+        /**
+         * ソートIDに対応するORDER BY句を構築する。
+         *
+         * @param sortId ソートID(取得できない場合はnull)
+         * @return ORDER BY句(存在しない場合は{@link #NONE})
+         */
+        private String toOrderBy(String sortId) {
+            final String orderBy = convertor.findOrderBy(cases, sortId);
+            return orderBy == null ? NONE : "ORDER BY " + orderBy.trim();
+        }
+    }
+}
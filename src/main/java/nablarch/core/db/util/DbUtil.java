@@ -5,7 +5,10 @@ import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import nablarch.core.repository.SystemRepository;
@@ -83,6 +86,10 @@ public final class DbUtil {
      * <p/>
      * オブジェクトが配列または、Collection以外の場合は、{@link IllegalArgumentException}。<br/>
      * オブジェクトがnullの場合は、nullを返却する。
+     * <p/>
+     * 配列と{@link RandomAccess}を実装した{@link List}は、添字で直接要素を取得する。
+     * それ以外のCollectionは要素を先頭から走査するため、全ての要素を取得する場合は、
+     * 呼び出し側で一度だけ配列などに変換してから使用すること。
      *
      * @param object オブジェクト(配列または、Collection)
      * @param pos 要素
@@ -102,9 +109,17 @@ public final class DbUtil {
                     "specified position is out of range. actual size = [%d], specified position = [%d]",
                     size, pos));
         }
-        if (isCollection(object)) {
-            Object[] objects = ((Collection<?>) object).toArray();
-            return objects[pos];
+        if (object instanceof List<?> && object instanceof RandomAccess) {
+            return ((List<?>) object).get(pos);
+        } else if (isCollection(object)) {
+            // 添字でアクセスできないCollectionは、配列に変換せずに指定された要素まで走査する。
+            final Iterator<?> iterator = ((Collection<?>) object).iterator();
+            for (int i = 0; i < pos; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        } else if (object instanceof Object[]) {
+            return ((Object[]) object)[pos];
         } else {
             return Array.get(object, pos);
         }
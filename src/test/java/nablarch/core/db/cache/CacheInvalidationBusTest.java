@@ -0,0 +1,322 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nablarch.core.db.cache.InMemoryResultSetCacheTest.MockSqlResultSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link CacheInvalidationBus}のテストクラス。
+ */
+public class CacheInvalidationBusTest {
+
+    /** メッセージの文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** ノード間でメッセージを配信するハブ */
+    private final InProcessInvalidationTransport.Hub hub = new InProcessInvalidationTransport.Hub();
+
+    /** ノード1 */
+    private final CacheInvalidationBus node1 = createBus();
+
+    /** ノード2 */
+    private final CacheInvalidationBus node2 = createBus();
+
+    @Before
+    public void setUp() {
+        node1.initialize();
+        node2.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        node1.dispose();
+        node2.dispose();
+    }
+
+    /** テーブルの更新が他のノードに通知され、送信元のノードでは再度無効化されないこと。 */
+    @Test
+    public void testTableInvalidation() {
+        final ResultSetCacheInvalidator invalidator1 = new ResultSetCacheInvalidator();
+        invalidator1.setInvalidationBus(node1);
+        final ResultSetCacheInvalidator invalidator2 = new ResultSetCacheInvalidator();
+        invalidator2.setInvalidationBus(node2);
+
+        final ResultSetCacheInvalidator.Snapshot snapshot1 = invalidator1.snapshot("SQL#FIND", "SELECT * FROM users");
+        final ResultSetCacheInvalidator.Snapshot snapshot2 = invalidator2.snapshot("SQL#FIND", "SELECT * FROM users");
+
+        invalidator1.invalidate("users");
+        assertThat(snapshot1.isStale(), is(true));
+        assertThat("送信前は他のノードに反映されないこと", snapshot2.isStale(), is(false));
+
+        final ResultSetCacheInvalidator.Snapshot renewed1 = invalidator1.snapshot("SQL#FIND", "SELECT * FROM users");
+        node1.flush();
+        assertThat(snapshot2.isStale(), is(true));
+        assertThat("自ノードが送信したメッセージは無視されること", renewed1.isStale(), is(false));
+    }
+
+    /** 送信間隔内の通知は、重複を除いて1つのメッセージにまとめて送信されること。 */
+    @Test
+    public void testCoalesce() {
+        final ResultSetCacheInvalidator invalidator = new ResultSetCacheInvalidator();
+        invalidator.setInvalidationBus(node2);
+        final ResultSetCacheInvalidator.Snapshot users = invalidator.snapshot("SQL#USERS", "SELECT * FROM users");
+        final ResultSetCacheInvalidator.Snapshot roles = invalidator.snapshot("SQL#ROLES", "SELECT * FROM roles");
+
+        for (int i = 0; i < 100; i++) {
+            node1.publishTable("USERS");
+            node1.publishTable("ROLES");
+        }
+        node1.flush();
+        node1.flush();
+
+        assertThat(hub.getSentCount(), is(1));
+        assertThat(users.isStale(), is(true));
+        assertThat(roles.isStale(), is(true));
+    }
+
+    /** 未送信の通知数が上限に達した場合、送信間隔を待たずに、定期的な送信を行うスレッドで送信されること。 */
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        node1.setMaxBatchSize(3);
+        final ResultSetCacheInvalidator invalidator = new ResultSetCacheInvalidator();
+        invalidator.setInvalidationBus(node2);
+        final ResultSetCacheInvalidator.Snapshot snapshot = invalidator.snapshot("SQL#T3", "SELECT * FROM T3");
+
+        node1.publishTable("T1");
+        node1.publishTable("T2");
+        Thread.sleep(100);
+        assertThat(hub.getSentCount(), is(0));
+        node1.publishTable("T3");
+        node1.publishTable("T4");
+        awaitSentCount(1);
+        assertThat(snapshot.isStale(), is(true));
+        Thread.sleep(100);
+        assertThat("再度上限に達するまでは送信されないこと", hub.getSentCount(), is(1));
+    }
+
+    /** 初期化前と廃棄後の通知は、送信せずに破棄されること。 */
+    @Test
+    public void testPublishWhenNotRunning() {
+        final CacheInvalidationBus bus = createBus();
+        bus.setMaxBatchSize(1);
+        bus.publishTable("USERS");
+        bus.publishClear();
+
+        node1.setMaxBatchSize(1);
+        node1.dispose();
+        node1.publishSqlId("SQL#FIND");
+        node1.flush();
+        assertThat(hub.getSentCount(), is(0));
+    }
+
+    /** 送信に失敗した場合も、通知したスレッドには例外が送出されず、以降の通知が送信されること。 */
+    @Test
+    public void testSendFailure() throws Exception {
+        final CacheInvalidationBus bus = new CacheInvalidationBus();
+        final InProcessInvalidationTransport delegate = new InProcessInvalidationTransport(hub);
+        final AtomicBoolean failed = new AtomicBoolean();
+        bus.setTransport(new InvalidationTransport() {
+            @Override
+            public void start(Receiver receiver) {
+                delegate.start(receiver);
+            }
+
+            @Override
+            public void send(byte[] message) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("send error");
+                }
+                delegate.send(message);
+            }
+
+            @Override
+            public void stop() {
+                delegate.stop();
+            }
+        });
+        bus.setBatchInterval(3600000);
+        bus.setMaxBatchSize(1);
+        bus.initialize();
+        try {
+            bus.publishTable("USERS");
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (!failed.get() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(failed.get(), is(true));
+            bus.publishTable("ROLES");
+            awaitSentCount(1);
+        } finally {
+            bus.dispose();
+        }
+    }
+
+    /** クラスタIDが異なるノードからのメッセージは無視されること。 */
+    @Test
+    public void testClusterIdMismatch() {
+        node1.setClusterId("app-a");
+        node2.setClusterId("app-b");
+        final ResultSetCacheInvalidator invalidator = new ResultSetCacheInvalidator();
+        invalidator.setInvalidationBus(node2);
+        final ResultSetCacheInvalidator.Snapshot snapshot = invalidator.snapshot("SQL#FIND", "SELECT * FROM users");
+
+        node1.publishTable("USERS");
+        node1.flush();
+        assertThat(hub.getSentCount(), is(1));
+        assertThat(snapshot.isStale(), is(false));
+
+        node2.setClusterId("app-a");
+        node1.publishTable("USERS");
+        node1.flush();
+        assertThat(snapshot.isStale(), is(true));
+    }
+
+    /** 共有鍵が設定されている場合、同じ共有鍵で署名されたメッセージのみ受け付けること。 */
+    @Test
+    public void testSharedSecret() {
+        node2.setSharedSecret("secret");
+        final ResultSetCacheInvalidator invalidator = new ResultSetCacheInvalidator();
+        invalidator.setInvalidationBus(node2);
+        final ResultSetCacheInvalidator.Snapshot snapshot = invalidator.snapshot("SQL#FIND", "SELECT * FROM users");
+
+        node1.publishTable("USERS");
+        node1.flush();
+        assertThat("署名の無いメッセージは無視されること", snapshot.isStale(), is(false));
+
+        node1.setSharedSecret("other");
+        node1.publishTable("USERS");
+        node1.flush();
+        assertThat("異なる共有鍵で署名されたメッセージは無視されること", snapshot.isStale(), is(false));
+
+        node1.setSharedSecret("secret");
+        node1.publishTable("USERS");
+        node1.flush();
+        assertThat(snapshot.isStale(), is(true));
+    }
+
+    /** 署名の後に内容が改ざんされたメッセージは無視されること。 */
+    @Test
+    public void testTamperedMessage() {
+        final CacheInvalidationBus sender = new CacheInvalidationBus();
+        sender.setSharedSecret("secret");
+        final byte[][] sent = new byte[1][];
+        sender.setTransport(new InvalidationTransport() {
+            @Override
+            public void start(Receiver receiver) {
+            }
+
+            @Override
+            public void send(byte[] message) {
+                sent[0] = message;
+            }
+
+            @Override
+            public void stop() {
+            }
+        });
+        sender.setBatchInterval(3600000);
+        sender.initialize();
+        sender.publishTable("ROLES");
+        sender.dispose();
+
+        node2.setSharedSecret("secret");
+        final ResultSetCacheInvalidator invalidator = new ResultSetCacheInvalidator();
+        invalidator.setInvalidationBus(node2);
+        final ResultSetCacheInvalidator.Snapshot users = invalidator.snapshot("SQL#USERS", "SELECT * FROM users");
+        final ResultSetCacheInvalidator.Snapshot roles = invalidator.snapshot("SQL#ROLES", "SELECT * FROM roles");
+
+        final byte[] tampered = new String(sent[0], UTF_8).replace("T:ROLES", "T:USERS").getBytes(UTF_8);
+        node2.dispatch(tampered);
+        assertThat(users.isStale(), is(false));
+        assertThat(roles.isStale(), is(false));
+
+        node2.dispatch(sent[0]);
+        assertThat(users.isStale(), is(false));
+        assertThat(roles.isStale(), is(true));
+    }
+
+    /** クラスタIDに改行を含めることはできないこと。 */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidClusterId() {
+        node1.setClusterId("app\nC:");
+    }
+
+    /** キャッシュの削除とクリアが、他のノードのキャッシュに反映されること。 */
+    @Test
+    public void testDistributedResultSetCache() {
+        final DistributedResultSetCache cache1 = createCache(node1);
+        final DistributedResultSetCache cache2 = createCache(node2);
+
+        final ResultSetCacheKey user1 = new ResultSetCacheKeyBuilder("SQL#USER").addParam("id", 1).build();
+        final ResultSetCacheKey user2 = new ResultSetCacheKeyBuilder("SQL#USER").addParam("id", 2).build();
+        final ResultSetCacheKey role = new ResultSetCacheKeyBuilder("SQL#ROLE").build();
+        cache1.addUnlimited(user1, new MockSqlResultSet());
+        for (ResultSetCacheKey key : new ResultSetCacheKey[] {user1, user2, role}) {
+            cache2.addUnlimited(key, new MockSqlResultSet());
+        }
+
+        cache1.remove(user1);
+        assertThat(cache1.getIfNotExpired(user1), is(nullValue()));
+        node1.flush();
+        assertThat("他のノードではSQL IDの全てのエントリが削除されること", cache2.getIfNotExpired(user1), is(nullValue()));
+        assertThat(cache2.getIfNotExpired(user2), is(nullValue()));
+        assertThat(cache2.getIfNotExpired(role), is(notNullValue()));
+
+        cache1.addUnlimited(role, new MockSqlResultSet());
+        cache2.clear();
+        node2.flush();
+        assertThat(cache1.getIfNotExpired(role), is(nullValue()));
+    }
+
+    /**
+     * 送信したメッセージ数が、指定した数に達するまで待機する。
+     *
+     * @param expected 送信したメッセージ数
+     * @throws InterruptedException 割り込みが発生した場合
+     */
+    private void awaitSentCount(int expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (hub.getSentCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(hub.getSentCount(), is(expected));
+    }
+
+    /**
+     * テスト用の{@link CacheInvalidationBus}を生成する。
+     * 定期的な送信が行われないよう、送信間隔を長く設定する。
+     *
+     * @return {@link CacheInvalidationBus}
+     */
+    private CacheInvalidationBus createBus() {
+        final CacheInvalidationBus bus = new CacheInvalidationBus();
+        bus.setTransport(new InProcessInvalidationTransport(hub));
+        bus.setBatchInterval(3600000);
+        return bus;
+    }
+
+    /**
+     * テスト用の{@link DistributedResultSetCache}を生成する。
+     *
+     * @param bus 無効化を通知するクラス
+     * @return {@link DistributedResultSetCache}
+     */
+    private static DistributedResultSetCache createCache(CacheInvalidationBus bus) {
+        final ConcurrentResultSetCache delegate = new ConcurrentResultSetCache();
+        delegate.setCacheSize(10);
+        final DistributedResultSetCache cache = new DistributedResultSetCache();
+        cache.setResultSetCache(delegate);
+        cache.setInvalidationBus(bus);
+        return cache;
+    }
+}
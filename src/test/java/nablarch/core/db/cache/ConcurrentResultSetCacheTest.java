@@ -0,0 +1,199 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.db.cache.InMemoryResultSetCacheTest.MockSqlResultSet;
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.util.DateUtil;
+import nablarch.util.FixedSystemTimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link ConcurrentResultSetCache}のテストクラス。
+ */
+public class ConcurrentResultSetCacheTest {
+
+    /** テスト対象 */
+    private ManualClockResultSetCache target = new ManualClockResultSetCache();
+
+    /** キャッシュキー */
+    private ResultSetCacheKey key = new ResultSetCacheKeyBuilder("001").addParam("name", "yamada").build();
+
+    @Before
+    public void setUp() {
+        target.setCacheSize(3);
+        target.setSystemTimeProvider(new FixedSystemTimeProvider("20140101000000"));
+    }
+
+    /** キャッシュにエントリを追加・取得・削除できること。 */
+    @Test
+    public void testAddAndRemove() {
+        assertThat(target.getIfNotExpired(key), is(nullValue()));
+
+        final SqlResultSet registered = new MockSqlResultSet();
+        target.add(key, registered, DateUtil.getDate("20140102"));
+        assertThat(target.getIfNotExpired(key), is(sameInstance(registered)));
+
+        final SqlResultSet replaced = new MockSqlResultSet();
+        target.addUnlimited(key, replaced);
+        assertThat("同じキーで登録した場合は置き換えられること", target.getIfNotExpired(key), is(sameInstance(replaced)));
+
+        target.remove(key);
+        assertThat(target.getIfNotExpired(key), is(nullValue()));
+
+        target.addUnlimited(key, registered);
+        target.clear();
+        assertThat(target.getIfNotExpired(key), is(nullValue()));
+    }
+
+    /** 登録時の残り時間を経過した場合、有効期限切れとなること。 */
+    @Test
+    public void testExpired() {
+        target.add(key, new MockSqlResultSet(), new FixedSystemTimeProvider("20140101010000").getDate());
+
+        target.now += TimeUnit.MINUTES.toNanos(60);
+        assertThat("期限ちょうどは有効であること", target.getIfNotExpired(key), is(notNullValue()));
+
+        target.now += 1;
+        assertThat(target.getIfNotExpired(key), is(nullValue()));
+
+        target.add(key, new MockSqlResultSet(), DateUtil.getDate("20131231"));
+        assertThat("登録時に期限切れの場合", target.getIfNotExpired(key), is(nullValue()));
+
+        target.addUnlimited(key, new MockSqlResultSet());
+        target.now += TimeUnit.DAYS.toNanos(365L * 1000);
+        assertThat("有効期限無しの場合", target.getIfNotExpired(key), is(notNullValue()));
+    }
+
+    /** 上限を超過した場合、参照されていないエントリが削除されること。 */
+    @Test
+    public void testEvictUnreferenced() {
+        final ResultSetCacheKey one = new ResultSetCacheKeyBuilder("SQL_001").build();
+        final ResultSetCacheKey two = new ResultSetCacheKeyBuilder("SQL_002").build();
+        final ResultSetCacheKey three = new ResultSetCacheKeyBuilder("SQL_003").build();
+        final ResultSetCacheKey four = new ResultSetCacheKeyBuilder("SQL_004").build();
+        target.addUnlimited(one, new MockSqlResultSet());
+        target.addUnlimited(two, new MockSqlResultSet());
+        target.addUnlimited(three, new MockSqlResultSet());
+
+        target.getIfNotExpired(one);
+        target.getIfNotExpired(three);
+
+        target.addUnlimited(four, new MockSqlResultSet());
+        assertThat(target.getIfNotExpired(one), is(notNullValue()));
+        assertThat("参照されていないエントリが削除されること", target.getIfNotExpired(two), is(nullValue()));
+        assertThat(target.getIfNotExpired(three), is(notNullValue()));
+        assertThat(target.getIfNotExpired(four), is(notNullValue()));
+    }
+
+    /** 上限を超過した場合、頻繁に参照されるエントリは残ること。 */
+    @Test
+    public void testKeepFrequentlyUsed() {
+        final ResultSetCacheKey hot = new ResultSetCacheKeyBuilder("HOT").build();
+        target.addUnlimited(hot, new MockSqlResultSet());
+        for (int i = 0; i < 3; i++) {
+            target.getIfNotExpired(hot);
+        }
+        for (int i = 0; i < 10; i++) {
+            target.addUnlimited(new ResultSetCacheKeyBuilder("SCAN_" + i).build(), new MockSqlResultSet());
+            target.getIfNotExpired(hot);
+        }
+        assertThat(target.getIfNotExpired(hot), is(notNullValue()));
+    }
+
+    /** 上限を超えて登録しても、上限を超えるエントリを保持しないこと。 */
+    @Test
+    public void testCacheSize() {
+        for (int i = 0; i < 10; i++) {
+            target.addUnlimited(new ResultSetCacheKeyBuilder("SQL_" + i).build(), new MockSqlResultSet());
+        }
+        int count = 0;
+        for (int i = 0; i < 10; i++) {
+            if (target.getIfNotExpired(new ResultSetCacheKeyBuilder("SQL_" + i).build()) != null) {
+                count++;
+            }
+        }
+        assertThat(count, is(3));
+    }
+
+    /** キャッシュ上限値が設定されていない場合、例外が送出されること。 */
+    @Test(expected = IllegalStateException.class)
+    public void testCacheSizeNotSet() {
+        new ConcurrentResultSetCache().getIfNotExpired(key);
+    }
+
+    /** キャッシュ上限値に1未満を設定した場合、例外が送出されること。 */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCacheSize() {
+        new ConcurrentResultSetCache().setCacheSize(0);
+    }
+
+    /** 複数スレッドから同時に参照・登録・削除できること。 */
+    @Test(timeout = 30 * 1000)
+    public void testMultiThread() throws Exception {
+        final ConcurrentResultSetCache cache = new ConcurrentResultSetCache();
+        cache.setCacheSize(8);
+        final ExecutorService service = Executors.newFixedThreadPool(16);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 16; t++) {
+                final int seed = t;
+                futures.add(service.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < 10000; i++) {
+                            final ResultSetCacheKey each = new ResultSetCacheKeyBuilder("SQL_" + ((i + seed) % 16)).build();
+                            if (cache.getIfNotExpired(each) == null) {
+                                cache.addUnlimited(each, new MockSqlResultSet());
+                            }
+                            if (i % 1000 == 0) {
+                                cache.remove(each);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            service.shutdownNow();
+        }
+        int count = 0;
+        for (int i = 0; i < 16; i++) {
+            if (cache.getIfNotExpired(new ResultSetCacheKeyBuilder("SQL_" + i).build()) != null) {
+                count++;
+            }
+        }
+        assertThat(count <= 8, is(true));
+    }
+
+    /**
+     * 有効期限の判定に使用する時刻を、テストから操作できる{@link ConcurrentResultSetCache}サブクラス。
+     */
+    private static class ManualClockResultSetCache extends ConcurrentResultSetCache {
+
+        /** 現在時刻 */
+        private long now = 1000L;
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+}
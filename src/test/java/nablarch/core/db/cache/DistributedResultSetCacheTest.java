@@ -0,0 +1,107 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import nablarch.core.cache.expirable.ExpirableCacheListener;
+import nablarch.core.db.cache.InMemoryResultSetCacheTest.MockSqlResultSet;
+import nablarch.core.db.statement.SqlResultSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * {@link DistributedResultSetCache}のテストクラス。
+ */
+public class DistributedResultSetCacheTest {
+
+    /** 委譲先のキャッシュ */
+    private final ResultSetCache delegate = mock(ResultSetCache.class);
+
+    /** 無効化を通知するクラス */
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+
+    /** テスト対象 */
+    private final DistributedResultSetCache sut = new DistributedResultSetCache();
+
+    /** キャッシュキー */
+    private final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SQL#USER").addParam("id", 1).build();
+
+    @Before
+    public void setUp() {
+        sut.setResultSetCache(delegate);
+        sut.setInvalidationBus(bus);
+    }
+
+    /** 取得、追加、リスナーの設定は、通知せずに委譲先のキャッシュに委譲されること。 */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDelegate() {
+        final SqlResultSet value = new MockSqlResultSet();
+        when(delegate.getIfNotExpired(key)).thenReturn(value);
+        assertThat(sut.getIfNotExpired(key), sameInstance(value));
+
+        final Date timeout = new Date();
+        sut.add(key, value, timeout);
+        verify(delegate).add(key, value, timeout);
+
+        sut.addUnlimited(key, value);
+        verify(delegate).addUnlimited(key, value);
+
+        final ExpirableCacheListener<ResultSetCacheKey> listener = mock(ExpirableCacheListener.class);
+        sut.setCacheListener(listener);
+        verify(delegate).setCacheListener(listener);
+
+        verify(bus, never()).publishSqlId(any(String.class));
+        verify(bus, never()).publishClear();
+    }
+
+    /** キャッシュキーの削除は、SQL IDの削除として他のノードに通知されること。 */
+    @Test
+    public void testRemove() {
+        sut.remove(key);
+        verify(delegate).remove(key);
+        verify(bus).publishSqlId("SQL#USER");
+    }
+
+    /** SQL IDの削除が、他のノードに通知されること。 */
+    @Test
+    public void testRemoveBySqlId() {
+        sut.removeBySqlId("SQL#USER");
+        verify(delegate).removeBySqlId("SQL#USER");
+        verify(bus).publishSqlId("SQL#USER");
+    }
+
+    /** クリアが、他のノードに通知されること。 */
+    @Test
+    public void testClear() {
+        sut.clear();
+        verify(delegate).clear();
+        verify(bus).publishClear();
+    }
+
+    /** 他のノードから通知された削除とクリアが、委譲先のキャッシュに反映され、再度通知されないこと。 */
+    @Test
+    public void testReceive() {
+        final ArgumentCaptor<CacheInvalidationBus.Listener> listener =
+                ArgumentCaptor.forClass(CacheInvalidationBus.Listener.class);
+        verify(bus).addListener(listener.capture());
+
+        listener.getValue().onTableInvalidated("USERS");
+        listener.getValue().onSqlIdInvalidated("SQL#USER");
+        verify(delegate).removeBySqlId("SQL#USER");
+        listener.getValue().onCleared();
+        verify(delegate).clear();
+
+        verify(bus, never()).publishSqlId(any(String.class));
+        verify(bus, never()).publishClear();
+    }
+}
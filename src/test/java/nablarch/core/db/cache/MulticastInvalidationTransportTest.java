@@ -0,0 +1,129 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * {@link MulticastInvalidationTransport}のテストクラス。
+ * <p/>
+ * マルチキャストを使用できない環境では、送受信のテストをスキップする。
+ */
+public class MulticastInvalidationTransportTest {
+
+    /** メッセージの文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** テスト対象 */
+    private final MulticastInvalidationTransport sut = new MulticastInvalidationTransport();
+
+    /** 受信したメッセージ */
+    private final BlockingQueue<byte[]> received = new LinkedBlockingQueue<byte[]>();
+
+    @After
+    public void tearDown() {
+        sut.stop();
+    }
+
+    /** 送信したメッセージが、同じグループとポートで受信を開始したノードに配信されること。 */
+    @Test
+    public void testSendAndReceive() throws Exception {
+        start();
+
+        sut.send("message".getBytes(UTF_8));
+        final byte[] message = received.poll(5, TimeUnit.SECONDS);
+        Assume.assumeThat("マルチキャストのループバックが無効な環境ではスキップする", message, notNullValue());
+        assertThat(new String(message, UTF_8), is("message"));
+    }
+
+    /** 受信処理で例外が発生しても、受信を継続すること。 */
+    @Test
+    public void testReceiverFailure() throws Exception {
+        start(new InvalidationTransport.Receiver() {
+            @Override
+            public void onReceive(byte[] message) {
+                received.add(message);
+                if ("fail".equals(new String(message, UTF_8))) {
+                    throw new IllegalStateException("fail");
+                }
+            }
+        });
+
+        sut.send("fail".getBytes(UTF_8));
+        Assume.assumeThat(received.poll(5, TimeUnit.SECONDS), notNullValue());
+        sut.send("message".getBytes(UTF_8));
+        final byte[] message = received.poll(5, TimeUnit.SECONDS);
+        assertThat(message, notNullValue());
+        assertThat(new String(message, UTF_8), is("message"));
+    }
+
+    /** 停止後は送信できず、停止を繰り返しても例外が発生しないこと。 */
+    @Test
+    public void testStop() throws Exception {
+        start();
+        sut.stop();
+        sut.stop();
+        try {
+            sut.send("message".getBytes(UTF_8));
+            throw new AssertionError("IllegalStateException must be thrown.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("transport is not started."));
+        }
+    }
+
+    /** 受信を開始する前は送信できないこと。 */
+    @Test(expected = IllegalStateException.class)
+    public void testSendBeforeStart() {
+        sut.send("message".getBytes(UTF_8));
+    }
+
+    /** グループとポートが設定されていない場合は、受信を開始できないこと。 */
+    @Test(expected = IllegalStateException.class)
+    public void testStartWithoutGroup() {
+        sut.setPort(20000);
+        sut.start(new InvalidationTransport.Receiver() {
+            @Override
+            public void onReceive(byte[] message) {
+            }
+        });
+    }
+
+    /**
+     * 受信したメッセージを保持するクラスで、受信を開始する。
+     */
+    private void start() {
+        start(new InvalidationTransport.Receiver() {
+            @Override
+            public void onReceive(byte[] message) {
+                received.add(message);
+            }
+        });
+    }
+
+    /**
+     * ループバックのみで配信されるよう、TTLを0に設定して受信を開始する。
+     * マルチキャストグループに参加できない環境では、テストをスキップする。
+     *
+     * @param receiver 受信したメッセージを処理するクラス
+     */
+    private void start(InvalidationTransport.Receiver receiver) {
+        sut.setGroup("239.255.77.77");
+        sut.setPort(ThreadLocalRandom.current().nextInt(20000, 30000));
+        sut.setTimeToLive(0);
+        try {
+            sut.start(receiver);
+        } catch (IllegalStateException e) {
+            Assume.assumeNoException(e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.db.statement.SqlRow;
+import nablarch.core.util.DateUtil;
+import nablarch.util.FixedSystemTimeProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link OffHeapResultSetStore}のテストクラス。
+ */
+public class OffHeapResultSetStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** 有効期限 */
+    private final Date expiredDate = DateUtil.getDate("20140102");
+
+    /** 保持した結果セットを取り出せること。取り出した結果セットは削除されること。 */
+    @Test
+    public void testStoreAndTake() {
+        final OffHeapResultSetStore target = new OffHeapResultSetStore();
+        target.setMaxBytes("1KB");
+        final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SQL_001").build();
+
+        assertThat(target.store(key, createResultSet("yamada"), expiredDate), is(true));
+        final OffHeapResultSetStore.Entry entry = target.take(key);
+        assertThat(entry.getValue().get(0).getString("name"), is("yamada"));
+        assertThat(entry.getExpiredDate(), is(expiredDate));
+        assertThat(target.take(key), is(nullValue()));
+    }
+
+    /** 行データ以外の情報が、{@link RestorableResultSet.Restorer}で復元されること。 */
+    @Test
+    public void testRestore() {
+        final OffHeapResultSetStore target = new OffHeapResultSetStore();
+        final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SQL_001").build();
+
+        target.store(key, new LabeledResultSet(createResultSet("yamada"), "label"), expiredDate);
+        final SqlResultSet restored = target.take(key).getValue();
+        assertThat(restored, is(instanceOf(LabeledResultSet.class)));
+        assertThat(((LabeledResultSet) restored).label, is("label"));
+        assertThat(restored.get(0).getString("name"), is("yamada"));
+    }
+
+    /** 領域の末尾に達した場合、古い結果セットから上書きされること。 */
+    @Test
+    public void testOverwriteOldest() {
+        final OffHeapResultSetStore target = new OffHeapResultSetStore();
+        target.setMaxBytes("64");
+        final ResultSetCacheKey[] keys = new ResultSetCacheKey[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new ResultSetCacheKeyBuilder("SQL_00" + i).build();
+            target.store(keys[i], createResultSet("name" + i), expiredDate);
+        }
+        assertThat("最も古い結果セットは上書きされること", target.take(keys[0]), is(nullValue()));
+        assertThat(target.take(keys[4]).getValue().get(0).getString("name"), is("name4"));
+
+        target.removeBySqlId("SQL_003");
+        assertThat(target.take(keys[3]), is(nullValue()));
+    }
+
+    /** 圧縮して保持した結果セットを、ファイルにマッピングした領域から取り出せること。 */
+    @Test
+    public void testCompressionWithFile() throws IOException {
+        final OffHeapResultSetStore target = new OffHeapResultSetStore();
+        target.setMaxBytes("64KB");
+        target.setCompression(true);
+        target.setFile(new File(folder.getRoot(), "rs-cache.dat").getPath());
+        final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SQL_001").build();
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            name.append("yamada");
+        }
+
+        assertThat(target.store(key, createResultSet(name.toString()), expiredDate), is(true));
+        assertThat(target.take(key).getValue().get(0).getString("name"), is(name.toString()));
+    }
+
+    /** {@link InMemoryResultSetCache}から追い出された結果セットが移動し、ヒット時にヒープ上に戻ること。 */
+    @Test
+    public void testInMemoryResultSetCache() {
+        final InMemoryResultSetCache cache = new InMemoryResultSetCache();
+        cache.setCacheSize(1);
+        cache.setSystemTimeProvider(new FixedSystemTimeProvider("20140101000000"));
+        cache.setOffHeapStore(new OffHeapResultSetStore());
+        final ResultSetCacheKey one = new ResultSetCacheKeyBuilder("SQL_001").build();
+        final ResultSetCacheKey two = new ResultSetCacheKeyBuilder("SQL_002").build();
+
+        cache.add(one, createResultSet("one"), expiredDate);
+        final SqlResultSet second = createResultSet("two");
+        cache.add(two, second, expiredDate);
+
+        final SqlResultSet promoted = cache.getIfNotExpired(one);
+        assertThat(promoted, is(notNullValue()));
+        assertThat(promoted.get(0).getString("name"), is("one"));
+        assertThat("戻した結果セットは、ヒープ上で2回目以降もヒットすること",
+                cache.getIfNotExpired(one), is(sameInstance(promoted)));
+
+        final SqlResultSet demoted = cache.getIfNotExpired(two);
+        assertThat(demoted.get(0).getString("name"), is("two"));
+
+        cache.clear();
+        assertThat(cache.getIfNotExpired(one), is(nullValue()));
+        assertThat(cache.getIfNotExpired(two), is(nullValue()));
+    }
+
+    /**
+     * 1行の結果セットを生成する。
+     *
+     * @param name 名前
+     * @return 結果セット
+     */
+    private static SqlResultSet createResultSet(String name) {
+        final Map<String, Object> row = new HashMap<String, Object>();
+        row.put("name", name);
+        final SqlResultSet resultSet = new SqlResultSet(1);
+        resultSet.add(new SqlRow(row, Collections.singletonMap("name", java.sql.Types.VARCHAR)));
+        return resultSet;
+    }
+
+    /**
+     * 行データ以外の情報を持つ結果セット。
+     */
+    private static class LabeledResultSet extends SqlResultSet implements RestorableResultSet {
+
+        /** ラベル */
+        private final String label;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param rows 行データ
+         * @param label ラベル
+         */
+        LabeledResultSet(SqlResultSet rows, String label) {
+            super(rows.size());
+            addAll(rows);
+            this.label = label;
+        }
+
+        @Override
+        public Restorer getRestorer() {
+            return new Restorer() {
+                @Override
+                public SqlResultSet restore(SqlResultSet rows) {
+                    return new LabeledResultSet(rows, label);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.cache.expirable.BasicExpirationSetting;
+import nablarch.core.db.statement.ResultSetSizeEstimator;
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.db.statement.SqlRow;
+import nablarch.util.FixedSystemTimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link RegionalResultSetCache}のテストクラス。
+ */
+public class RegionalResultSetCacheTest {
+
+    /** テスト対象 */
+    private final RegionalResultSetCache target = new RegionalResultSetCache();
+
+    /** 有効期限設定 */
+    private final BasicExpirationSetting expirationSetting = new BasicExpirationSetting();
+
+    @Before
+    public void setUp() {
+        final Map<String, String> mapping = new HashMap<String, String>();
+        mapping.put("LARGE_001", "large");
+        mapping.put("LARGE_002", "large");
+        expirationSetting.setRegion(mapping);
+
+        final Map<String, String> regions = new HashMap<String, String>();
+        regions.put("large", "1KB");
+        target.setRegions(regions);
+        target.setDefaultMaxBytes("512");
+        target.setCacheSize(10);
+        target.setExpirationSetting(expirationSetting);
+        target.setSystemTimeProvider(new FixedSystemTimeProvider("20140101000000"));
+        target.setSizeEstimator(new ResultSetSizeEstimator() {
+            @Override
+            public long estimate(SqlResultSet resultSet) {
+                return ((SizedResultSet) resultSet).bytes;
+            }
+        });
+    }
+
+    /** 大きな結果セットを登録しても、他のキャッシュ領域のエントリが削除されないこと。 */
+    @Test
+    public void testRegionIsolation() {
+        final ResultSetCacheKey small = new ResultSetCacheKeyBuilder("SMALL_001").build();
+        final SqlResultSet smallResult = new SizedResultSet(100);
+        target.addUnlimited(small, smallResult);
+
+        final ResultSetCacheKey large1 = new ResultSetCacheKeyBuilder("LARGE_001").build();
+        final ResultSetCacheKey large2 = new ResultSetCacheKeyBuilder("LARGE_002").build();
+        target.addUnlimited(large1, new SizedResultSet(600));
+        target.addUnlimited(large2, new SizedResultSet(600));
+
+        assertThat("同じキャッシュ領域の上限を超過したため削除されること", target.getIfNotExpired(large1), is(nullValue()));
+        assertThat(target.getIfNotExpired(large2), is(notNullValue()));
+        assertThat("他のキャッシュ領域のエントリは残ること", target.getIfNotExpired(small), is(sameInstance(smallResult)));
+
+        target.remove(large2);
+        assertThat(target.getIfNotExpired(large2), is(nullValue()));
+
+        target.clear();
+        assertThat(target.getIfNotExpired(small), is(nullValue()));
+    }
+
+    /** キャッシュ領域の上限を超える結果セットはキャッシュされないこと。 */
+    @Test
+    public void testTooLarge() {
+        final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SMALL_001").build();
+        target.addUnlimited(key, new SizedResultSet(100));
+        target.add(key, new SizedResultSet(513), new FixedSystemTimeProvider("20140102000000").getDate());
+        assertThat("古い結果セットも破棄されること", target.getIfNotExpired(key), is(nullValue()));
+    }
+
+    /** 設定されていないキャッシュ領域名がSQL IDに対応付けられている場合、初期化時に例外が送出されること。 */
+    @Test
+    public void testRegionNotFound() {
+        target.initialize();
+        expirationSetting.setRegion(Collections.singletonMap("INVALID", "notExists"));
+        target.setExpirationSetting(expirationSetting);
+        try {
+            target.initialize();
+            fail("do not run.");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("region was not found. sqlId = [INVALID], region = [notExists]"));
+        }
+    }
+
+    /** 推定バイト数の上限の形式が不正な場合、例外が送出されること。 */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        target.setDefaultMaxBytes("10TB");
+        target.getIfNotExpired(new ResultSetCacheKeyBuilder("SMALL_001").build());
+    }
+
+    /** 有効期限設定が設定されていない場合、例外が送出されること。 */
+    @Test(expected = IllegalStateException.class)
+    public void testExpirationSettingNotSet() {
+        final RegionalResultSetCache sut = new RegionalResultSetCache();
+        sut.setCacheSize(10);
+        sut.getIfNotExpired(new ResultSetCacheKeyBuilder("SMALL_001").build());
+    }
+
+    /** 行数、カラム数、値の型から推定バイト数が算出されること。 */
+    @Test
+    public void testEstimate() {
+        final ResultSetSizeEstimator estimator = new ResultSetSizeEstimator();
+        final long empty = estimator.estimate(new SizedResultSet(0));
+
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>();
+        colTypes.put("NAME", Types.VARCHAR);
+        colTypes.put("AMOUNT", Types.DECIMAL);
+        final Map<String, Object> shortRow = new HashMap<String, Object>();
+        shortRow.put("NAME", "a");
+        shortRow.put("AMOUNT", BigDecimal.ONE);
+        final Map<String, Object> longRow = new HashMap<String, Object>();
+        longRow.put("NAME", "abcdefghijklmnopqrstuvwxyz");
+        longRow.put("AMOUNT", null);
+
+        final SqlResultSet one = new SizedResultSet(0);
+        one.add(new SqlRow(shortRow, colTypes));
+        final SqlResultSet two = new SizedResultSet(0);
+        two.add(new SqlRow(shortRow, colTypes));
+        two.add(new SqlRow(longRow, colTypes));
+
+        assertThat(estimator.estimate(one) > empty, is(true));
+        assertThat("行数が多いほど大きくなること", estimator.estimate(two) > estimator.estimate(one) * 3 / 2, is(true));
+    }
+
+    /** 推定バイト数を保持する{@link SqlResultSet}。 */
+    private static class SizedResultSet extends SqlResultSet {
+
+        /** 推定バイト数 */
+        private final long bytes;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bytes 推定バイト数
+         */
+        SizedResultSet(long bytes) {
+            super(0);
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.util.Collections;
+
+import nablarch.core.db.connection.BasicDbConnection;
+import nablarch.core.db.connection.TransactionManagerConnection;
+
+import org.junit.Test;
+
+/**
+ * {@link ResultSetCacheInvalidator}のテストクラス。
+ */
+public class ResultSetCacheInvalidatorTest {
+
+    /** テスト対象 */
+    private final ResultSetCacheInvalidator target = new ResultSetCacheInvalidator();
+
+    /** 参照するテーブルが更新された場合、無効となること。 */
+    @Test
+    public void testStaleAfterWrite() {
+        final ResultSetCacheInvalidator.Snapshot snapshot = target.snapshot(
+                "SQL#FIND_USER", "SELECT * FROM users u INNER JOIN roles r ON u.role_id = r.role_id");
+        assertThat(snapshot.isStale(), is(false));
+
+        write(mock(TransactionManagerConnection.class), "UPDATE orders SET status = ?");
+        assertThat("参照しないテーブルの更新では無効とならないこと", snapshot.isStale(), is(false));
+
+        write(mock(TransactionManagerConnection.class), "DELETE FROM roles WHERE role_id = ?");
+        assertThat(snapshot.isStale(), is(true));
+        assertThat("更新後に取得した場合は有効であること",
+                target.snapshot("SQL#FIND_USER", "SELECT * FROM users").isStale(), is(false));
+    }
+
+    /** 設定されたテーブル名が、SQL文から抽出したテーブル名より優先されること。 */
+    @Test
+    public void testCacheTables() {
+        target.setCacheTables(Collections.singletonMap("SQL#FIND_VIEW", "users, roles"));
+        final ResultSetCacheInvalidator.Snapshot snapshot = target.snapshot("SQL#FIND_VIEW", "SELECT * FROM user_view");
+
+        target.invalidate("user_view");
+        assertThat(snapshot.isStale(), is(false));
+
+        target.invalidate("ROLES");
+        assertThat(snapshot.isStale(), is(true));
+    }
+
+    /** 更新時に加えて、コミット後にも無効化されること。 */
+    @Test
+    public void testInvalidateOnCommit() {
+        final BasicDbConnection connection = new BasicDbConnection(mock(Connection.class));
+        write(connection, "INSERT INTO users VALUES (?)");
+        write(connection, "UPDATE users SET name = ?");
+
+        // コミット前に他のトランザクションが更新前の結果をキャッシュした場合
+        final ResultSetCacheInvalidator.Snapshot snapshot = target.snapshot("SQL#FIND_USER", "SELECT * FROM users");
+        assertThat(snapshot.isStale(), is(false));
+        connection.commit();
+        assertThat(snapshot.isStale(), is(true));
+
+        final ResultSetCacheInvalidator.Snapshot committed = target.snapshot("SQL#FIND_USER", "SELECT * FROM users");
+        connection.commit();
+        assertThat("コミット後の処理は1度のみ実行されること", committed.isStale(), is(false));
+    }
+
+    /** ロールバックした場合も、ロールバック後に無効化されること。 */
+    @Test
+    public void testInvalidateOnRollback() {
+        final BasicDbConnection connection = new BasicDbConnection(mock(Connection.class));
+        write(connection, "DELETE FROM users");
+
+        // 更新したトランザクション内で、取り消される更新を含む結果をキャッシュした場合
+        final ResultSetCacheInvalidator.Snapshot snapshot = target.snapshot("SQL#FIND_USER", "SELECT * FROM users");
+        assertThat(snapshot.isStale(), is(false));
+        connection.rollback();
+        assertThat(snapshot.isStale(), is(true));
+
+        final ResultSetCacheInvalidator.Snapshot rolledBack = target.snapshot("SQL#FIND_USER", "SELECT * FROM users");
+        connection.commit();
+        assertThat("ロールバック後の処理は1度のみ実行されること", rolledBack.isStale(), is(false));
+    }
+
+    /** 更新したテーブルを抽出できないSQL文の場合、何もしないこと。 */
+    @Test
+    public void testUnknownStatement() {
+        final ResultSetCacheInvalidator.Snapshot snapshot = target.snapshot("SQL#FIND_USER", "SELECT * FROM users");
+        assertThat(target.getWrittenTable("CALL refresh_users()"), is(nullValue()));
+        write(mock(TransactionManagerConnection.class), "CALL refresh_users()");
+        assertThat(snapshot.isStale(), is(false));
+    }
+
+    /** 参照するテーブルをトランザクション内で更新済みか、トランザクションの終了まで判定できること。 */
+    @Test
+    public void testWrittenInTransaction() {
+        final BasicDbConnection connection = new BasicDbConnection(mock(Connection.class));
+        final String users = "SELECT * FROM users u INNER JOIN roles r ON u.role_id = r.role_id";
+        assertThat(target.isWrittenInTransaction(connection, "SQL#FIND_USER", users), is(false));
+
+        write(connection, "UPDATE roles SET name = ?");
+        assertThat(target.isWrittenInTransaction(connection, "SQL#FIND_USER", users), is(true));
+        assertThat("参照しないテーブルの更新は対象外であること",
+                target.isWrittenInTransaction(connection, "SQL#FIND_ORDER", "SELECT * FROM orders"), is(false));
+        assertThat("他のコネクションは対象外であること",
+                target.isWrittenInTransaction(new BasicDbConnection(mock(Connection.class)), "SQL#FIND_USER", users),
+                is(false));
+        assertThat("トランザクション内の更新を判定できないコネクションは対象外であること",
+                target.isWrittenInTransaction(mock(TransactionManagerConnection.class), "SQL#FIND_USER", users),
+                is(false));
+
+        connection.rollback();
+        assertThat(target.isWrittenInTransaction(connection, "SQL#FIND_USER", users), is(false));
+    }
+
+    /**
+     * {@link nablarch.core.db.statement.BasicSqlPStatement}と同じく、更新したテーブルを抽出して通知する。
+     *
+     * @param connection 更新を行ったコネクション
+     * @param sql 実行したSQL文
+     */
+    private void write(TransactionManagerConnection connection, String sql) {
+        final String table = target.getWrittenTable(sql);
+        if (table != null) {
+            target.onWritten(connection, table);
+        }
+    }
+}
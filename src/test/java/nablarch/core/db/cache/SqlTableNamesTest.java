@@ -0,0 +1,59 @@
+package nablarch.core.db.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * {@link SqlTableNames}のテストクラス。
+ */
+public class SqlTableNamesTest {
+
+    /** FROM句、JOIN句から参照するテーブル名が抽出できること。 */
+    @Test
+    public void testReadTables() {
+        assertThat(SqlTableNames.readTables("SELECT * FROM users WHERE user_id = ?"), is(tables("USERS")));
+        assertThat(SqlTableNames.readTables(
+                "SELECT u.name, r.name FROM app.USERS u, \"Roles\" AS r WHERE u.role_id = r.role_id"),
+                is(tables("USERS", "ROLES")));
+        assertThat(SqlTableNames.readTables(
+                "SELECT * FROM users u INNER JOIN user_roles ur ON u.id = ur.id LEFT OUTER JOIN roles ON 1 = 1"),
+                is(tables("USERS", "USER_ROLES", "ROLES")));
+        assertThat("副問い合わせのテーブル名も抽出されること", SqlTableNames.readTables(
+                "SELECT * FROM (SELECT id FROM orders) o WHERE o.id IN (SELECT id FROM order_items)"),
+                is(tables("ORDERS", "ORDER_ITEMS")));
+        assertThat("文字列リテラルとコメントは無視されること", SqlTableNames.readTables(
+                "SELECT 'from dummy' FROM /* from comment */ users -- from other\n WHERE 1 = 1"),
+                is(tables("USERS")));
+    }
+
+    /** 更新系のSQL文から更新するテーブル名が抽出できること。 */
+    @Test
+    public void testWrittenTable() {
+        assertThat(SqlTableNames.writtenTable("INSERT INTO users (id) VALUES (?)"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("update app.users set name = ?"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("DELETE FROM \"Users\" WHERE id = ?"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("DELETE users WHERE id = ?"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("MERGE INTO users u USING dual ON (1 = 1)"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("TRUNCATE TABLE users"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("/* comment */ INSERT INTO users VALUES (?)"), is("USERS"));
+        assertThat(SqlTableNames.writtenTable("SELECT * FROM users"), is(nullValue()));
+        assertThat(SqlTableNames.writtenTable(""), is(nullValue()));
+    }
+
+    /**
+     * テーブル名の集合を生成する。
+     *
+     * @param names テーブル名
+     * @return テーブル名の集合
+     */
+    private static Set<String> tables(String... names) {
+        return new LinkedHashSet<String>(Arrays.asList(names));
+    }
+}
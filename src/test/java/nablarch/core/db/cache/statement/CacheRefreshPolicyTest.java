@@ -0,0 +1,104 @@
+package nablarch.core.db.cache.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.util.FixedSystemTimeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link CacheRefreshPolicy}のテストクラス。
+ */
+public class CacheRefreshPolicyTest {
+
+    /** 期限前の再読み込みの対象となるSQL ID */
+    private static final String TARGET = "TEST#TARGET";
+
+    /** 期限前の再読み込みの対象でないSQL ID */
+    private static final String OTHER = "TEST#OTHER";
+
+    /** テスト対象 */
+    private final ManualClockRefreshPolicy target = new ManualClockRefreshPolicy();
+
+    /** 現在日時 */
+    private final FixedSystemTimeProvider systemTimeProvider = new FixedSystemTimeProvider("20140101000000");
+
+    @Before
+    public void setUp() {
+        target.setRefreshAheadSqlIds(Arrays.asList(TARGET));
+        target.setRefreshAheadTime(TimeUnit.MINUTES.toMillis(1));
+        target.setStaleWhileRevalidateTime(TimeUnit.MINUTES.toMillis(5));
+        target.setSystemTimeProvider(systemTimeProvider);
+    }
+
+    /** 有効期限の指定時間前を経過した場合、再読み込みを開始する時刻となること。 */
+    @Test
+    public void testRefreshTime() {
+        final Date expiredDate = new Date(systemTimeProvider.getDate().getTime() + TimeUnit.MINUTES.toMillis(10));
+        final long refreshAt = target.getRefreshAt(TARGET, expiredDate);
+
+        target.now += TimeUnit.MINUTES.toNanos(9) - 1;
+        assertThat(target.isRefreshTime(refreshAt), is(false));
+
+        target.now += 1;
+        assertThat("有効期限の1分前から再読み込みを開始すること", target.isRefreshTime(refreshAt), is(true));
+    }
+
+    /** 有効期限後も指定時間はキャッシュに保持すること。 */
+    @Test
+    public void testRetainUntil() {
+        final Date expiredDate = systemTimeProvider.getDate();
+        assertThat(target.getRetainUntil(TARGET, expiredDate).getTime() - expiredDate.getTime(),
+                is(TimeUnit.MINUTES.toMillis(5)));
+    }
+
+    /** 期限前の再読み込みの対象でないSQL IDの場合、有効期限が変更されず再読み込みも行わないこと。 */
+    @Test
+    public void testNotTarget() {
+        final Date expiredDate = systemTimeProvider.getDate();
+        assertThat(target.getRetainUntil(OTHER, expiredDate), is(sameInstance(expiredDate)));
+
+        final long refreshAt = target.getRefreshAt(OTHER, expiredDate);
+        target.now += TimeUnit.DAYS.toNanos(365);
+        assertThat(target.isRefreshTime(refreshAt), is(false));
+    }
+
+    /** 有効期限から最大値までのランダムな時間が差し引かれること。 */
+    @Test
+    public void testJitter() {
+        final Date expiredDate = systemTimeProvider.getDate();
+        assertThat("設定されていない場合は変更されないこと", target.applyJitter(expiredDate), is(sameInstance(expiredDate)));
+
+        target.setExpirationJitter(1000);
+        final Set<Long> differences = new HashSet<Long>();
+        for (int i = 0; i < 100; i++) {
+            final long difference = expiredDate.getTime() - target.applyJitter(expiredDate).getTime();
+            assertThat(difference >= 0 && difference <= 1000, is(true));
+            differences.add(difference);
+        }
+        assertThat("有効期限が分散されること", differences.size() > 1, is(true));
+    }
+
+    /**
+     * 再読み込みの判定に使用する時刻を、テストから操作できる{@link CacheRefreshPolicy}サブクラス。
+     */
+    private static class ManualClockRefreshPolicy extends CacheRefreshPolicy {
+
+        /** 現在時刻 */
+        private long now = 1000L;
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    }
+}
@@ -8,9 +8,11 @@ import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 import nablarch.core.ThreadContext;
 import nablarch.core.cache.expirable.BasicExpirationSetting;
+import nablarch.core.db.DbAccessException;
 import nablarch.core.db.DbExecutionContext;
 import nablarch.core.db.cache.InMemoryResultSetCache;
 import nablarch.core.db.cache.ResultSetCache;
+import nablarch.core.db.cache.ResultSetCacheInvalidator;
 import nablarch.core.db.cache.ResultSetCacheKey;
 import nablarch.core.db.cache.ResultSetCacheKeyBuilder;
 import nablarch.core.db.connection.ConnectionFactory;
@@ -25,6 +27,7 @@ import nablarch.core.transaction.TransactionContext;
 import nablarch.core.util.Builder;
 import nablarch.test.support.SystemRepositoryResource;
 import nablarch.test.support.db.helper.DatabaseTestRunner;
+import nablarch.test.support.db.helper.TargetDb;
 import nablarch.test.support.db.helper.VariousDbTestHelper;
 import org.junit.After;
 import org.junit.Before;
@@ -37,15 +40,22 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 
@@ -119,6 +129,72 @@ public class CacheableStatementFactoryTest {
 
     }
 
+    /**
+     * 期限前の再読み込みでDBアクセスに失敗した場合、キャッシュされた結果セットを返却せずに例外が送出されること。
+     * <p/>
+     * 再読み込みは呼び出し元のトランザクションで行うため、失敗を隠蔽してはならない。
+     */
+    @Test
+    public void testRefreshFailure() throws SQLException {
+        String sqlId = PREFIX + "TEST_NO_PARAM";
+        sut.setRefreshAheadSqlIds(Collections.singletonList(sqlId));
+        try {
+            SqlPStatement stmt = conn.prepareStatementBySqlId(sqlId);
+            assertThat(stmt.retrieve().size(), is(5));
+
+            // 有効期限は固定日時を基準とするため、次の参照で再読み込みが行われる。
+            stmt.close();
+            try {
+                stmt.retrieve();
+                fail("do not run.");
+            } catch (DbAccessException ignored) {
+                // 再読み込みの失敗がそのまま送出される。
+            }
+        } finally {
+            sut.setRefreshAheadSqlIds(Collections.<String>emptyList());
+        }
+    }
+
+    /**
+     * 参照するテーブルを更新したトランザクション内の検索結果はキャッシュされず、
+     * ロールバック前に他のスレッドが検索しても、取り消される更新を参照しないこと。
+     */
+    @Test
+    @TargetDb(include = TargetDb.Db.H2)
+    public void testNotCachedAfterWriteInTransaction() throws Exception {
+        final String sqlId = PREFIX + "TEST_NO_PARAM";
+        sut.setResultSetCacheInvalidator(new ResultSetCacheInvalidator());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            conn.prepareStatement("DELETE FROM CACHE_STATEMENT_TEST_TABLE WHERE COL_NAME_1 = '10001'")
+                .executeUpdate();
+            assertThat("未確定の更新を含む結果が返却されること",
+                    conn.prepareStatementBySqlId(sqlId).retrieve().size(), is(4));
+            assertThat("未確定の更新を含む結果はキャッシュされないこと",
+                    cache.getIfNotExpired(new ResultSetCacheKeyBuilder(sqlId).build()), is(nullValue()));
+
+            final Future<Integer> other = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    final ConnectionFactory factory = repositoryResource.getComponent("connectionFactory");
+                    final TransactionManagerConnection otherConn =
+                            factory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+                    try {
+                        return otherConn.prepareStatementBySqlId(sqlId).retrieve().size();
+                    } finally {
+                        otherConn.terminate();
+                    }
+                }
+            });
+            assertThat("他のスレッドは確定済みの結果を参照すること", other.get(10, TimeUnit.SECONDS), is(5));
+            conn.rollback();
+            assertThat(conn.prepareStatementBySqlId(sqlId).retrieve().size(), is(5));
+        } finally {
+            executor.shutdownNow();
+            sut.setResultSetCacheInvalidator(null);
+        }
+    }
+
     /** キャッシュ対象でないSQLの場合、キャッシュされないこと。（パラメータ無しステートメント） */
     @Test
     public void testNoParamNoCache() throws SQLException {
@@ -0,0 +1,144 @@
+package nablarch.core.db.cache.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.db.statement.SqlRow;
+
+import org.junit.Test;
+
+/**
+ * {@link ImmutableSqlResultSet}のテストクラス。
+ */
+public class ImmutableSqlResultSetTest {
+
+    /** 元の結果セットの値を参照できること。 */
+    @Test
+    public void testGet() {
+        final ImmutableSqlResultSet sut = new ImmutableSqlResultSet(createOriginal());
+        assertThat(sut.size(), is(2));
+        assertThat(sut.get(0).getString("userId"), is("001"));
+        assertThat(sut.get(1).getString("user_name"), is("name2"));
+        assertThat(sut.get(1).keySet().size(), is(2));
+
+        int count = 0;
+        for (SqlRow row : sut) {
+            count++;
+            assertThat(row.getString("userId"), is("00" + count));
+        }
+        assertThat(count, is(2));
+        assertThat(sut.get(0), is(sameInstance(sut.get(0))));
+    }
+
+    /** 行の追加・削除ができないこと。 */
+    @Test
+    public void testResultSetUnmodifiable() {
+        final ImmutableSqlResultSet sut = new ImmutableSqlResultSet(createOriginal());
+        try {
+            sut.add(sut.get(0));
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertThat(e.getMessage(), is("cached result set is unmodifiable."));
+        }
+        try {
+            sut.remove(0);
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            sut.clear();
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            final Iterator<SqlRow> iterator = sut.iterator();
+            iterator.next();
+            iterator.remove();
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            sut.subList(0, 1).clear();
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            sut.sort(null);
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        assertThat(sut.size(), is(2));
+    }
+
+    /** 行の値を変更できないこと。 */
+    @Test
+    public void testRowUnmodifiable() {
+        final SqlRow row = new ImmutableSqlResultSet(createOriginal()).get(0);
+        try {
+            row.put("USER_NAME", "changed");
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            row.putAll(Collections.<String, Object>singletonMap("USER_NAME", "changed"));
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            row.remove("USER_NAME");
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            row.entrySet().iterator().next().setValue("changed");
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            row.keySet().clear();
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        assertThat(row.getString("userName"), is("name1"));
+    }
+
+    /** 元の結果セットを変更しても影響しないこと。 */
+    @Test
+    public void testIndependentOfOriginal() {
+        final SqlResultSet original = createOriginal();
+        final ImmutableSqlResultSet sut = new ImmutableSqlResultSet(original);
+        original.get(0).put("USER_NAME", "changed");
+        original.remove(1);
+        assertThat(sut.size(), is(2));
+        assertThat(sut.get(0).getString("userName"), is("name1"));
+    }
+
+    /**
+     * 元となる結果セットを生成する。
+     *
+     * @return 結果セット
+     */
+    private SqlResultSet createOriginal() {
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>();
+        colTypes.put("USER_ID", Types.CHAR);
+        colTypes.put("USER_NAME", Types.VARCHAR);
+        final SqlResultSet original = new SqlResultSet(2) {
+        };
+        for (int i = 1; i <= 2; i++) {
+            final Map<String, Object> values = new HashMap<String, Object>();
+            values.put("USER_ID", "00" + i);
+            values.put("USER_NAME", "name" + i);
+            original.add(new SqlRow(values, colTypes));
+        }
+        return original;
+    }
+}
@@ -0,0 +1,95 @@
+package nablarch.core.db.cache.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nablarch.core.db.cache.ResultSetCacheKey;
+import nablarch.core.db.cache.ResultSetCacheKeyBuilder;
+import nablarch.core.db.statement.SqlResultSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * {@link InFlightLoads}のテストクラス。
+ */
+public class InFlightLoadsTest {
+
+    /** テスト対象 */
+    private final InFlightLoads target = new InFlightLoads();
+
+    /** キャッシュキー */
+    private final ResultSetCacheKey key = new ResultSetCacheKeyBuilder("SQL_001").build();
+
+    /** 待ち合わせを行うスレッド */
+    private final ExecutorService service = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        service.shutdownNow();
+    }
+
+    /** 実行中の検索が存在する場合、その検索結果を待ち合わせること。 */
+    @Test(timeout = 10 * 1000)
+    public void testAwait() throws Exception {
+        final InFlightLoads.Load load = target.start(key);
+        assertThat(load, is(notNullValue()));
+        assertThat("実行中の場合は開始できないこと", target.start(key), is(nullValue()));
+
+        final Future<SqlResultSet> waiting = service.submit(new Callable<SqlResultSet>() {
+            @Override
+            public SqlResultSet call() {
+                return target.await(key, 10 * 1000);
+            }
+        });
+        Thread.sleep(100);
+        final SqlResultSet result = new MockSqlResultSet();
+        target.complete(key, load, result);
+        assertThat(waiting.get(), is(sameInstance(result)));
+
+        assertThat("終了後は再度開始できること", target.start(key), is(notNullValue()));
+    }
+
+    /** 待ち合わせがタイムアウトした場合、nullが返却されること。 */
+    @Test(timeout = 10 * 1000)
+    public void testTimeout() {
+        target.start(key);
+        assertThat(target.await(key, 10), is(nullValue()));
+    }
+
+    /** 実行中の検索が失敗した場合、nullが返却されること。 */
+    @Test(timeout = 10 * 1000)
+    public void testFailed() throws Exception {
+        final InFlightLoads.Load load = target.start(key);
+        final Future<SqlResultSet> waiting = service.submit(new Callable<SqlResultSet>() {
+            @Override
+            public SqlResultSet call() {
+                return target.await(key, 10 * 1000);
+            }
+        });
+        Thread.sleep(100);
+        target.complete(key, load, null);
+        assertThat(waiting.get(), is(nullValue()));
+    }
+
+    /** 実行中の検索が存在しない場合、待ち合わせずにnullが返却されること。 */
+    @Test
+    public void testNotInFlight() {
+        assertThat(target.await(key, 10 * 1000), is(nullValue()));
+    }
+
+    /** {@link SqlResultSet}のモッククラス。 */
+    private static class MockSqlResultSet extends SqlResultSet {
+        MockSqlResultSet() {
+            super(0);
+        }
+    }
+}
@@ -10,11 +10,14 @@ import nablarch.core.db.connection.exception.BasicDbAccessExceptionFactory;
 import nablarch.core.db.connection.exception.DbConnectionException;
 import nablarch.core.db.dialect.DefaultDialect;
 import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.dialect.H2Dialect;
 import nablarch.core.db.statement.BasicSqlLoader;
 import nablarch.core.db.statement.BasicSqlParameterParserFactory;
 import nablarch.core.db.statement.BasicStatementFactory;
 import nablarch.core.db.statement.ParameterizedSqlPStatement;
+import nablarch.core.db.statement.ResultSetIterator;
 import nablarch.core.db.statement.SelectOption;
+import nablarch.core.db.statement.SqlResultSet;
 import nablarch.core.db.statement.SqlCStatement;
 import nablarch.core.db.statement.SqlPStatement;
 import nablarch.core.db.statement.SqlStatement;
@@ -41,6 +44,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static java.lang.Integer.MIN_VALUE;
@@ -235,6 +239,32 @@ public class BasicDbConnectionTest {
         target.rollback();
     }
 
+    /**
+     * トランザクションの終了後に実行する処理が例外を送出しても、残りの処理が実行され、コミットが成功すること。
+     */
+    @Test
+    public void commit_completionActionFail() throws Exception {
+        final Connection mockedConnection = mock(Connection.class);
+        BasicDbConnection target = createTarget(mockedConnection);
+
+        final Runnable failed = mock(Runnable.class);
+        doThrow(new IllegalStateException("action error")).when(failed).run();
+        final Runnable next = mock(Runnable.class);
+        target.addCompletionAction(failed);
+        target.addCompletionAction(next);
+        assertTrue(target.hasCompletionAction(next));
+
+        target.commit();
+        verify(mockedConnection).commit();
+        verify(failed).run();
+        verify(next).run();
+        assertFalse(target.hasCompletionAction(next));
+        assertLog("failed to run the action after the transaction completed.");
+
+        target.commit();
+        verify(next, times(1)).run();
+    }
+
     /**
      * terminate時のロールバックで例外が発生する
      * @throws Exception Exception
@@ -1444,6 +1474,72 @@ public class BasicDbConnectionTest {
                 not(sameInstance(target.prepareStatement("sql", new SelectOption(2, 3)))));
     }
 
+    /**
+     * ページングの取得範囲をバインド変数で指定する場合、取得範囲が異なっても同一のステートメントが再利用されること。
+     */
+    @Test
+    @TargetDb(include = TargetDb.Db.H2)
+    public void testPrepareStatementWithOptionPaginationParameterBinding() throws Exception {
+        deleteTestTable();
+        for (int i = 1; i <= 10; i++) {
+            VariousDbTestHelper.insert(createUser(String.format("%04d", i)));
+        }
+        sut.setStatementReuse(true);
+        sut.setPaginationParameterBinding(true);
+        sut.setContext(new DbExecutionContext(sut, new H2Dialect(), TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+
+        final String namedSql = "SELECT USER_ID FROM " + TEST_TABLE + " WHERE USER_ID >= :userId ORDER BY USER_ID";
+        final ParameterizedSqlPStatement page1 = sut.prepareParameterizedSqlStatement(namedSql, new SelectOption(1, 3));
+        assertUserIds(page1.retrieve(Collections.singletonMap("userId", "0001")), "0001", "0002", "0003");
+
+        final ParameterizedSqlPStatement page2 = sut.prepareParameterizedSqlStatement(namedSql, new SelectOption(4, 3));
+        assertThat("取得範囲が異なっても同一のインスタンスが返却される", page2, sameInstance(page1));
+        assertUserIds(page2.retrieve(Collections.singletonMap("userId", "0001")), "0004", "0005", "0006");
+
+        final String sql = "SELECT USER_ID FROM " + TEST_TABLE + " WHERE USER_ID >= ? AND USER_NAME <> '?' ORDER BY USER_ID";
+        final SqlPStatement last = sut.prepareStatement(sql, new SelectOption(9, 3));
+        last.setString(1, "0001");
+        assertUserIds(last.retrieve(), "0009", "0010");
+
+        final SqlPStatement offsetOnly = sut.prepareStatement(sql, new SelectOption(8, 0));
+        offsetOnly.setString(1, "0001");
+        final ResultSetIterator rows = offsetOnly.executeQuery();
+        try {
+            assertThat(rows.next(), is(true));
+            assertThat(rows.getRow().getString("userId"), is("0008"));
+        } finally {
+            rows.close();
+        }
+        assertThat("limitの有無でSQL文が異なるため別のインスタンスが返却される", offsetOnly, not(sameInstance(last)));
+    }
+
+    /**
+     * テスト用のユーザを生成する。
+     *
+     * @param userId ユーザID
+     * @return ユーザ
+     */
+    private static UserTestEntity createUser(String userId) {
+        final UserTestEntity user = new UserTestEntity();
+        user.userId = userId;
+        user.userName = "name";
+        user.tel = "tel";
+        return user;
+    }
+
+    /**
+     * 検索結果のユーザIDを検証する。
+     *
+     * @param actual 検索結果
+     * @param expected 期待するユーザID
+     */
+    private static void assertUserIds(SqlResultSet actual, String... expected) {
+        assertThat(actual.size(), is(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(actual.get(i).getString("userId"), is(expected[i]));
+        }
+    }
+
     /**
      * Optionを指定する場合の再利用のテスト。
      */
@@ -18,6 +18,7 @@ import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 
 import nablarch.core.db.statement.ResultSetConvertor;
+import nablarch.core.db.statement.SelectOption;
 import nablarch.test.support.db.helper.DatabaseTestRunner;
 import nablarch.test.support.db.helper.TargetDb;
 import nablarch.test.support.db.helper.VariousDbTestHelper;
@@ -157,6 +158,69 @@ public class DefaultDialectTest {
         assertThat(sut.convertPaginationSql("sql", null), is("sql"));
     }
 
+    /**
+     * 取得範囲をバインド変数で指定するページングはサポートしない。
+     */
+    @Test
+    public void testSupportsPaginationParameterBinding() {
+        assertThat(sut.supportsPaginationParameterBinding(), is(false));
+    }
+
+    /**
+     * 取得範囲をバインド変数で指定するページング用のSQL文への変換はサポートしない。
+     */
+    @Test
+    public void testConvertPaginationSqlWithParameters() {
+        exception.expect(UnsupportedOperationException.class);
+        exception.expectMessage("pagination parameter binding is unsupported.");
+
+        sut.convertPaginationSqlWithParameters("sql", new SelectOption(1, 10));
+    }
+
+    /**
+     * 一時表が設定されていない場合、IN句の要素の一覧を1つのバインド変数で指定する機能はサポートしない。
+     */
+    @Test
+    public void testSupportsInListParameter() {
+        assertThat(sut.supportsInListParameter(), is(false));
+        assertThat(sut.getInListTemporaryTableName(), is(nullValue()));
+        sut.setInListTemporaryTableName("IN_LIST_TEMP");
+        assertThat(sut.supportsInListParameter(), is(true));
+        assertThat(sut.getInListTemporaryTableName(), is("IN_LIST_TEMP"));
+    }
+
+    /**
+     * 一時表を検索する条件に変換する。
+     */
+    @Test
+    public void testConvertInListCondition() {
+        sut.setInListTemporaryTableName("IN_LIST_TEMP");
+        assertThat(sut.convertInListCondition("?", false), is("IN (SELECT VAL FROM IN_LIST_TEMP WHERE LIST_ID = ?)"));
+        assertThat(sut.convertInListCondition("?", true), is("NOT IN (SELECT VAL FROM IN_LIST_TEMP WHERE LIST_ID = ?)"));
+    }
+
+    /**
+     * 一時表が設定されていない場合、一時表を検索する条件への変換はサポートしない。
+     */
+    @Test
+    public void testConvertInListConditionWithoutTemporaryTable() {
+        exception.expect(UnsupportedOperationException.class);
+        exception.expectMessage("in list parameter is unsupported.");
+
+        sut.convertInListCondition("?", false);
+    }
+
+    /**
+     * 配列型のバインド変数による要素の一覧の設定はサポートしない。
+     */
+    @Test
+    public void testSetInListParameter() throws Exception {
+        exception.expect(UnsupportedOperationException.class);
+        exception.expectMessage("in list parameter is unsupported.");
+
+        sut.setInListParameter(null, 1, "ids", new Object[] {"1"});
+    }
+
     /**
      * レコード数取得用のSQL文に変換する。
      */
@@ -28,6 +28,7 @@ import java.util.Date;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -322,6 +323,150 @@ public class H2DialectTest {
         }
     }
 
+    /**
+     * {@link H2Dialect#supportsPaginationParameterBinding()}のテスト。
+     */
+    @Test
+    public void supportsPaginationParameterBinding() throws Exception {
+        assertThat(sut.supportsPaginationParameterBinding(), is(true));
+    }
+
+    /**
+     * {@link H2Dialect#convertPaginationSqlWithParameters(String, SelectOption)}のテスト。
+     */
+    @Test
+    public void convertPaginationSqlWithParameters() throws Exception {
+        assertThat("取得範囲がバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(5, 10)),
+                is("select * from dual limit ? offset ?"));
+
+        assertThat("取得範囲の値によらず同一のSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(0, 25)),
+                is("select * from dual limit ? offset ?"));
+
+        assertThat("limitを指定しない場合は、offsetのみがバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(50, 0)),
+                is("select * from dual offset ?"));
+    }
+
+    /**
+     * {@link H2Dialect#convertPaginationSqlWithParameters(String, SelectOption)}で生成したSQL文に、
+     * {@link H2Dialect#setPaginationParameters(PreparedStatement, int, SelectOption)}で取得範囲を設定して実行できること。
+     * <p/>
+     * 同一のステートメントで、取得範囲を変えて実行できること。
+     */
+    @Test
+    public void setPaginationParameters_execute() throws Exception {
+        VariousDbTestHelper.delete(DialectEntity.class);
+        for (int i = 0; i < 100; i++) {
+            VariousDbTestHelper.insert(new DialectEntity((long) i + 1, "name_" + i));
+        }
+        connection = VariousDbTestHelper.getNativeConnection();
+
+        String sql = "select entity_id, str from dialect where str like ? order by entity_id";
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(
+                    sut.convertPaginationSqlWithParameters(sql, new SelectOption(1, 15)));
+            statement.setString(1, "name%");
+
+            assertEntityIds(statement, new SelectOption(1, 15), 1, 15);
+            assertEntityIds(statement, new SelectOption(31, 15), 31, 45);
+            assertEntityIds(statement, new SelectOption(91, 15), 91, 100);
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+
+        try {
+            statement = connection.prepareStatement(
+                    sut.convertPaginationSqlWithParameters(sql, new SelectOption(50, 0)));
+            statement.setString(1, "name%");
+            assertEntityIds(statement, new SelectOption(50, 0), 50, 100);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * {@link H2Dialect#supportsInListParameter()}のテスト。
+     */
+    @Test
+    public void supportsInListParameter() throws Exception {
+        assertThat(sut.supportsInListParameter(), is(true));
+    }
+
+    /**
+     * {@link H2Dialect#getInListTemporaryTableName()}のテスト。
+     * 一時表の名前が設定されていても、配列型のバインド変数を使用すること。
+     */
+    @Test
+    public void getInListTemporaryTableName() throws Exception {
+        sut.setInListTemporaryTableName("IN_LIST_TEMP");
+        assertThat(sut.getInListTemporaryTableName(), is(nullValue()));
+    }
+
+    /**
+     * {@link H2Dialect#convertInListCondition(String, boolean)}のテスト。
+     */
+    @Test
+    public void convertInListCondition() throws Exception {
+        assertThat(sut.convertInListCondition("?", false), is("= ANY(?)"));
+        assertThat(sut.convertInListCondition("?", true), is("<> ALL(?)"));
+    }
+
+    /**
+     * {@link H2Dialect#convertInListCondition(String, boolean)}で変換した条件に、
+     * {@link H2Dialect#setInListParameter(PreparedStatement, int, String, Object[])}で要素の一覧を設定して実行できること。
+     */
+    @Test
+    public void setInListParameter_execute() throws Exception {
+        VariousDbTestHelper.delete(DialectEntity.class);
+        for (int i = 0; i < 10; i++) {
+            VariousDbTestHelper.insert(new DialectEntity((long) i + 1, "name_" + i));
+        }
+        connection = VariousDbTestHelper.getNativeConnection();
+
+        PreparedStatement statement = connection.prepareStatement(
+                "select count(*) from dialect where entity_id " + sut.convertInListCondition("?", false)
+                        + " and str " + sut.convertInListCondition("?", true));
+        try {
+            sut.setInListParameter(statement, 1, "ids", new Object[] {1L, 3L, 5L, 20L});
+            sut.setInListParameter(statement, 2, "names", new Object[] {"name_2"});
+            ResultSet rs = statement.executeQuery();
+            assertThat(rs.next(), is(true));
+            assertThat(rs.getInt(1), is(2));
+            rs.close();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 取得範囲を設定して実行し、取得したレコードを検証する。
+     *
+     * @param statement ステートメント
+     * @param selectOption 取得範囲
+     * @param first 最初のレコード番号
+     * @param last 最後のレコード番号
+     */
+    private void assertEntityIds(PreparedStatement statement, SelectOption selectOption, int first, int last)
+            throws SQLException {
+        sut.setPaginationParameters(statement, statement.getParameterMetaData().getParameterCount(), selectOption);
+        ResultSet rs = statement.executeQuery();
+        try {
+            int index = first - 1;
+            while (rs.next()) {
+                index++;
+                assertThat(rs.getLong(1), is((long) index));
+            }
+            assertThat("最後のレコード番号", index, is(last));
+        } finally {
+            rs.close();
+        }
+    }
+
     /**
      * {@link H2Dialect#buildSequenceGeneratorSql(String)}のテスト。
      */
@@ -287,6 +287,32 @@ public class OracleDialectTest {
                         + " WHERE SUB2.ROWNUM_ <= 25"));
     }
 
+    /**
+     * {@link OracleDialect#supportsPaginationParameterBinding()}のテスト。
+     */
+    @Test
+    public void supportsPaginationParameterBinding() throws Exception {
+        assertThat(sut.supportsPaginationParameterBinding(), is(true));
+    }
+
+    /**
+     * {@link OracleDialect#convertPaginationSqlWithParameters(String, SelectOption)}のテスト。
+     */
+    @Test
+    public void convertPaginationSqlWithParameters() throws Exception {
+        assertThat("取得範囲がバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(5, 10)),
+                is("SELECT SUB2.* FROM (SELECT SUB1.*, ROWNUM ROWNUM_ FROM (select * from dual) SUB1 ) SUB2 WHERE SUB2.ROWNUM_ > ? AND SUB2.ROWNUM_ <= ?"));
+
+        assertThat("取得範囲の値によらず同一のSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(0, 25)),
+                is("SELECT SUB2.* FROM (SELECT SUB1.*, ROWNUM ROWNUM_ FROM (select * from dual) SUB1 ) SUB2 WHERE SUB2.ROWNUM_ > ? AND SUB2.ROWNUM_ <= ?"));
+
+        assertThat("limitを指定しない場合は、offsetのみがバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(50, 0)),
+                is("SELECT SUB2.* FROM (SELECT SUB1.*, ROWNUM ROWNUM_ FROM (select * from dual) SUB1 ) SUB2 WHERE SUB2.ROWNUM_ > ?"));
+    }
+
     /**
      * {@link OracleDialect#convertPaginationSql(String, SelectOption)}で生成したSQL文が実行できること。
      * <p>
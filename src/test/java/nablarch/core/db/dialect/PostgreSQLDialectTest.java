@@ -2,6 +2,7 @@ package nablarch.core.db.dialect;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.math.BigDecimal;
@@ -324,6 +325,138 @@ public class PostgreSQLDialectTest {
         }
     }
 
+    /**
+     * {@link PostgreSQLDialect#supportsInListParameter()}のテスト。
+     */
+    @Test
+    public void supportsInListParameter() throws Exception {
+        assertThat(sut.supportsInListParameter(), is(true));
+    }
+
+    /**
+     * {@link PostgreSQLDialect#getInListTemporaryTableName()}のテスト。
+     * 一時表の名前が設定されていても、配列型のバインド変数を使用すること。
+     */
+    @Test
+    public void getInListTemporaryTableName() throws Exception {
+        sut.setInListTemporaryTableName("IN_LIST_TEMP");
+        assertThat(sut.getInListTemporaryTableName(), is(nullValue()));
+    }
+
+    /**
+     * {@link PostgreSQLDialect#convertInListCondition(String, boolean)}のテスト。
+     */
+    @Test
+    public void convertInListCondition() throws Exception {
+        assertThat(sut.convertInListCondition("?", false), is("= ANY(?)"));
+        assertThat(sut.convertInListCondition("?", true), is("<> ALL(?)"));
+    }
+
+    /**
+     * 要素の型に対応する配列の型名が決定されること。
+     */
+    @Test
+    public void toArrayTypeName() throws Exception {
+        assertThat(PostgreSQLDialect.toArrayTypeName(new Object[] {null, 1L}), is("int8"));
+        assertThat(PostgreSQLDialect.toArrayTypeName(new Object[] {1}), is("int4"));
+        assertThat(PostgreSQLDialect.toArrayTypeName(new Object[] {new BigDecimal("1")}), is("numeric"));
+        assertThat(PostgreSQLDialect.toArrayTypeName(new Object[] {"1"}), is("varchar"));
+        assertThat("対応する型名が無い場合はvarcharとなること",
+                PostgreSQLDialect.toArrayTypeName(new Object[] {new Object()}), is("varchar"));
+        assertThat("全ての要素がnullの場合はvarcharとなること",
+                PostgreSQLDialect.toArrayTypeName(new Object[] {null}), is("varchar"));
+    }
+
+    /**
+     * {@link PostgreSQLDialect#supportsPaginationParameterBinding()}のテスト。
+     */
+    @Test
+    public void supportsPaginationParameterBinding() throws Exception {
+        assertThat(sut.supportsPaginationParameterBinding(), is(true));
+    }
+
+    /**
+     * {@link PostgreSQLDialect#convertPaginationSqlWithParameters(String, SelectOption)}のテスト。
+     */
+    @Test
+    public void convertPaginationSqlWithParameters() throws Exception {
+        assertThat("取得範囲がバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(5, 10)),
+                is("select * from dual offset ? limit ?"));
+
+        assertThat("取得範囲の値によらず同一のSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(0, 25)),
+                is("select * from dual offset ? limit ?"));
+
+        assertThat("limitを指定しない場合は、offsetのみがバインド変数で指定されたSQL文に変換されること",
+                sut.convertPaginationSqlWithParameters("select * from dual", new SelectOption(50, 0)),
+                is("select * from dual offset ?"));
+    }
+
+    /**
+     * {@link PostgreSQLDialect#convertPaginationSqlWithParameters(String, SelectOption)}で生成したSQL文に、
+     * {@link PostgreSQLDialect#setPaginationParameters(PreparedStatement, int, SelectOption)}で取得範囲を設定して実行できること。
+     * <p/>
+     * 同一のステートメントで、取得範囲を変えて実行できること。
+     */
+    @Test
+    public void setPaginationParameters_execute() throws Exception {
+        VariousDbTestHelper.delete(DialectEntity.class);
+        for (int i = 0; i < 100; i++) {
+            VariousDbTestHelper.insert(new DialectEntity((long) i + 1, "name_" + i));
+        }
+        connection = VariousDbTestHelper.getNativeConnection();
+
+        String sql = "select entity_id, str from dialect where str like ? order by entity_id";
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(
+                    sut.convertPaginationSqlWithParameters(sql, new SelectOption(1, 15)));
+            statement.setString(1, "name%");
+
+            assertEntityIds(statement, new SelectOption(1, 15), 1, 15);
+            assertEntityIds(statement, new SelectOption(31, 15), 31, 45);
+            assertEntityIds(statement, new SelectOption(91, 15), 91, 100);
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+
+        try {
+            statement = connection.prepareStatement(
+                    sut.convertPaginationSqlWithParameters(sql, new SelectOption(50, 0)));
+            statement.setString(1, "name%");
+            assertEntityIds(statement, new SelectOption(50, 0), 50, 100);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 取得範囲を設定して実行し、取得したレコードを検証する。
+     *
+     * @param statement ステートメント
+     * @param selectOption 取得範囲
+     * @param first 最初のレコード番号
+     * @param last 最後のレコード番号
+     */
+    private void assertEntityIds(PreparedStatement statement, SelectOption selectOption, int first, int last)
+            throws SQLException {
+        sut.setPaginationParameters(statement, statement.getParameterMetaData().getParameterCount(), selectOption);
+        ResultSet rs = statement.executeQuery();
+        try {
+            int index = first - 1;
+            while (rs.next()) {
+                index++;
+                assertThat(rs.getLong(1), is((long) index));
+            }
+            assertThat("最後のレコード番号", index, is(last));
+        } finally {
+            rs.close();
+        }
+    }
+
     /**
      * {@link PostgreSQLDialect#buildSequenceGeneratorSql(String)}のテスト。
      */
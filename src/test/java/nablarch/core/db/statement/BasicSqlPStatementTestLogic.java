@@ -47,10 +47,12 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -741,6 +743,103 @@ public abstract class BasicSqlPStatementTestLogic {
         assertThat("テーブルの全てのレコードが取得できる", actual.size(), is(4));
     }
 
+    /**
+     * {@link BasicSqlPStatement#forEachRow(SqlRowCallback)}のテスト。
+     */
+    @Test
+    public void forEachRow() throws Exception {
+        final SqlPStatement sut = dbCon.prepareStatement("SELECT * FROM STATEMENT_TEST_TABLE ORDER BY ENTITY_ID");
+        final List<String> actual = new ArrayList<String>();
+        final int count = sut.forEachRow(new SqlRowCallback() {
+            @Override
+            public void handle(SqlRow row) {
+                actual.add(row.getString("entityId"));
+            }
+        });
+
+        assertThat("テーブルの全てのレコードが処理される", count, is(4));
+        assertThat(actual, is(Arrays.asList("10001", "10002", "10003", "10004")));
+    }
+
+    /**
+     * {@link BasicSqlPStatement#forEachRow(Map, SqlRowCallback)}のテスト。
+     */
+    @Test
+    public void forEachRow_map() throws Exception {
+        final ParameterizedSqlPStatement sut = dbCon.prepareParameterizedSqlStatement(
+                "SELECT * FROM STATEMENT_TEST_TABLE WHERE ENTITY_ID = :id");
+        final Map<String, String> condition = new HashMap<String, String>();
+        condition.put("id", "10002");
+
+        final List<String> actual = new ArrayList<String>();
+        final int count = sut.forEachRow(condition, new SqlRowCallback() {
+            @Override
+            public void handle(SqlRow row) {
+                actual.add(row.getString("entityId"));
+            }
+        });
+
+        assertThat("1レコード処理されること", count, is(1));
+        assertThat(actual, is(Arrays.asList("10002")));
+    }
+
+    /**
+     * {@link BasicSqlPStatement#forEachRow(SqlRowCallback)}のSQLログのテスト。
+     * <p/>
+     * フェッチサイズは変更されずに、設定された値が使用されること。
+     */
+    @Test
+    public void forEachRow_writeSqlLog() throws Exception {
+        final SqlPStatement sut = dbCon.prepareStatement("SELECT * FROM STATEMENT_TEST_TABLE");
+        sut.setFetchSize(100);
+        sut.setQueryTimeout(123);
+
+        sut.forEachRow(new SqlRowCallback() {
+            @Override
+            public void handle(SqlRow row) {
+            }
+        });
+
+        assertLog("開始ログ", Pattern.compile(
+                "nablarch.core.db.statement.BasicSqlPStatement#forEachRow SQL = \\Q[SELECT * FROM STATEMENT_TEST_TABLE]\\E"
+                        + Logger.LS + "\tstart position = \\Q[1] size = [0] queryTimeout = [123] fetchSize = [100]\\E"
+        ));
+        assertLog("終了ログ", Pattern.compile("nablarch.core.db.statement.BasicSqlPStatement#forEachRow"
+                        + Logger.LS
+                        + "\texecute time\\(ms\\) = \\[[0-9]+\\] retrieve time\\(ms\\) = \\[[0-9]+\\] count = \\[4\\]"
+        ));
+        assertThat("フェッチサイズは変更されないこと", sut.getFetchSize(), is(100));
+    }
+
+    /**
+     * {@link BasicSqlPStatement#forEachRow(SqlRowCallback)}でコールバックから例外が送出された場合、
+     * 例外がそのまま送出され、{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void forEachRow_callbackError() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(mockRs.next()).thenReturn(true);
+        final PreparedStatement mockStatement = mock(PreparedStatement.class);
+        when(mockStatement.executeQuery()).thenReturn(mockRs);
+
+        final SqlPStatement sut = dbCon.prepareStatement("SELECT * FROM STATEMENT_TEST_TABLE");
+        ReflectionUtil.setFieldValue(sut, "statement", mockStatement);
+
+        final IllegalStateException exception = new IllegalStateException("callback error");
+        try {
+            sut.forEachRow(new SqlRowCallback() {
+                @Override
+                public void handle(SqlRow row) {
+                    throw exception;
+                }
+            });
+            fail("とおらない");
+        } catch (IllegalStateException e) {
+            assertThat(e, sameInstance(exception));
+        }
+        verify(mockRs).close();
+    }
+
     /**
      * {@link BasicSqlPStatement#retrieve()}でリミット指定した検索処理ができること
      * @throws Exception
@@ -3862,6 +3961,29 @@ public abstract class BasicSqlPStatementTestLogic {
         OnMemoryLogWriter.assertLogContains("writer.memory", "inCondition[1] = [b]");
     }
 
+    /**
+     * {@link BasicSqlPStatement#retrieve(Object)}でIN条件を持つSQL文に、添字でアクセスできないListを条件で指定するテスト。
+     * <p/>
+     * 同じListの内容を変更して再度検索した場合、変更後の内容で検索されること。
+     */
+    @Test
+    public void retrieve_withLinkedListCondition() throws Exception {
+        final LinkedList<String> list = new LinkedList<String>(Arrays.asList("b", "a"));
+        final ListCondition condition = new ListCondition(list);
+        final ParameterizedSqlPStatement statement = dbCon.prepareParameterizedSqlStatement(
+                "select * from statement_test_table where varchar_col in (:inCondition[]) order by entity_id",
+                condition);
+        SqlResultSet actual = statement.retrieve(condition);
+        assertThat(actual, hasSize(2));
+        OnMemoryLogWriter.assertLogContains("writer.memory", "inCondition[0] = [b]");
+        OnMemoryLogWriter.assertLogContains("writer.memory", "inCondition[1] = [a]");
+
+        list.set(0, "zz");
+        actual = statement.retrieve(condition);
+        assertThat(actual, hasSize(1));
+        assertThat(actual.get(0).getString("varcharCol"), is("a"));
+    }
+
     /**
      * {@link BasicSqlPStatement#retrieve(Object)}でIN条件を持つSQL文のにListを条件で指定するテスト(Fieldアクセステスト用)
      */
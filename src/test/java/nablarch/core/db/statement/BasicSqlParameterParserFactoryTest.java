@@ -8,6 +8,8 @@ import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -37,4 +39,28 @@ public class BasicSqlParameterParserFactoryTest {
         assertThat(convertors.length, is(1));
         assertThat(convertors[0], is(instanceOf(VariableInSyntaxConvertor.class)));
     }
-}
\ No newline at end of file
+
+    /**
+     * テンプレートのキャッシュ件数を設定した場合
+     */
+    @Test
+    public void createSqlParameterParserWithTemplateCache() throws Exception {
+        assertThat("デフォルトはキャッシュしない", sut.getSqlTemplateCache(), is(nullValue()));
+
+        sut.setSqlTemplateCacheSize(10);
+        final SqlTemplateCache cache = sut.getSqlTemplateCache();
+        final SqlParameterParser parser1 = sut.createSqlParameterParser();
+        final SqlParameterParser parser2 = sut.createSqlParameterParser();
+        assertThat(ReflectionUtil.<SqlTemplateCache>getFieldValue(parser1, "sqlTemplateCache"), is(sameInstance(cache)));
+        assertThat(ReflectionUtil.<SqlTemplateCache>getFieldValue(parser2, "sqlTemplateCache"), is(sameInstance(cache)));
+
+        parser1.convertToJdbcSql("select * from test where col in (:col[])",
+                Collections.<String, Object>singletonMap("col", new String[2]));
+        assertThat(cache.size(), is(1));
+        sut.setSqlConvertors(Collections.<SqlConvertor>singletonList(new VariableInSyntaxConvertor()));
+        assertThat("SqlConvertorを変更した場合はクリアされること", cache.size(), is(0));
+
+        sut.setSqlTemplateCacheSize(0);
+        assertThat(sut.getSqlTemplateCache(), is(nullValue()));
+    }
+}
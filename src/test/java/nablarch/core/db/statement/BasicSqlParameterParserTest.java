@@ -787,6 +787,80 @@ public class BasicSqlParameterParserTest {
                  + "$SORT (HOGE5) {(1 HOGE1) (2 HOGE2) (3 HOGE4) (DEFAULT FOO)}"));
     }
     
+    /**
+     * テンプレートのキャッシュを設定した場合も、同じ変換結果となること。
+     */
+    @Test
+    public void testConvertToJdbcSqlWithTemplateCache() {
+        final SqlTemplateCache cache = new SqlTemplateCache(10);
+        BasicSqlParameterParser parser = new BasicSqlParameterParser();
+        parser.setSqlTemplateCache(cache);
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("hoge", new String[1]);
+        map.put("hoge4", new ArrayList<String>());
+        map.put("hoge5", "2");
+
+        String sql = "select * from hoge where $if (hoge) {hoge1 in (:hoge[])} and $if (hoge4) {hoge4 in (:hoge4[])} "
+                   + "$sort (hoge5) {(1 hoge1) (2 hoge2) (3 hoge4) (default foo)}";
+        String expected = "select * from hoge where (0 = 1 or (hoge1 in (:hoge[0]))) and (0 = 0 or (hoge4 in (:hoge4[])))"
+                        + " ORDER BY hoge2";
+        assertThat(parser.convertToJdbcSql(sql, map), is(expected));
+        assertThat(parser.convertToJdbcSql(sql, map), is(expected));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(1L));
+
+        // テンプレートを使用できないSQL文は、SqlConvertorで変換されること。
+        String sortInCondition = "select * from hoge where $if (hoge) {hoge1 = :hoge $sort (hoge5) {(2 hoge2)}}";
+        assertThat(parser.convertToJdbcSql(sortInCondition, map),
+                is(new BasicSqlParameterParser().convertToJdbcSql(sortInCondition, map)));
+        assertThat(cache.size(), is(2));
+    }
+
+    /**
+     * テンプレートのキャッシュが上限件数を超えないこと。
+     */
+    @Test
+    public void testSqlTemplateCacheMaxSize() {
+        final SqlTemplateCache cache = new SqlTemplateCache(2);
+        BasicSqlParameterParser parser = new BasicSqlParameterParser();
+        parser.setSqlTemplateCache(cache);
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> map = new HashMap<String, Object>();
+            map.put("col" + i, "value");
+            parser.convertToJdbcSql("select * from hoge where $if(col" + i + ") {col = :col" + i + '}', map);
+        }
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getMissCount(), is(5L));
+        cache.clear();
+        assertThat(cache.size(), is(0));
+
+        try {
+            new SqlTemplateCache(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("maxSize must be greater than 0. maxSize = [0]"));
+        }
+    }
+
+    /**
+     * IN句の項目数を切り上げる設定をした場合、最後の要素を繰り返して項目数が切り上げられること。
+     */
+    @Test
+    public void testInPadding() {
+        VariableInSyntaxConvertor inConvertor = new VariableInSyntaxConvertor();
+        inConvertor.setPaddingStep(5);
+        BasicSqlParameterParser parser = new BasicSqlParameterParser();
+        parser.setSqlConvertors(Arrays.<SqlConvertor>asList(inConvertor));
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("hoge", new String[] {"a", "b"});
+        map.put("hoge2", new String[0]);
+        assertThat(parser.convertToJdbcSql("select * from hoge where hoge in (:hoge[]) and hoge2 in (:hoge2[])", map),
+                is("select * from hoge where hoge in (:hoge[0*],:hoge[1*],:hoge[2*],:hoge[3*],:hoge[4*])"
+                        + " and hoge2 in (:hoge2[])"));
+    }
+
     public static class Entity {
 
         private String userId;
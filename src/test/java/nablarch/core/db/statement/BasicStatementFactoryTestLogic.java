@@ -5,8 +5,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import nablarch.core.db.DbExecutionContext;
+import nablarch.core.db.connection.BasicDbConnection;
 import nablarch.core.db.connection.TransactionManagerConnection;
 import nablarch.core.db.dialect.DefaultDialect;
+import nablarch.core.db.dialect.H2Dialect;
+import nablarch.core.db.statement.sqlconvertor.VariableConditionSyntaxConvertor;
+import nablarch.core.db.statement.sqlconvertor.VariableInSyntaxConvertor;
+import nablarch.core.db.statement.sqlconvertor.VariableOrderBySyntaxConvertor;
 import nablarch.core.transaction.TransactionContext;
 import nablarch.test.support.db.helper.DatabaseTestRunner;
 import nablarch.test.support.db.helper.TargetDb;
@@ -19,15 +24,26 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * {@link BasicStatementFactory}のテストクラス。
@@ -51,6 +67,7 @@ public abstract class BasicStatementFactoryTestLogic {
 
     @Before
     public void setUp() throws Exception {
+        VariousDbTestHelper.delete(TestEntity.class);
         connection = VariousDbTestHelper.getNativeConnection();
     }
 
@@ -177,6 +194,41 @@ public abstract class BasicStatementFactoryTestLogic {
         assertThat(statement, instanceOf(ParameterizedSqlPStatement.class));
     }
 
+    /**
+     * 解析結果のキャッシュが有効な場合、同一SQLの解析結果がキャッシュから取得されること。
+     */
+    @Test
+    public void testGetParameterizedSqlPStatementWithParsedSqlCache() throws Exception {
+        BasicStatementFactory sut = createStatementFactory();
+        final int[] createdParsers = new int[1];
+        sut.setSqlParameterParserFactory(new BasicSqlParameterParserFactory() {
+            @Override
+            public SqlParameterParser createSqlParameterParser() {
+                createdParsers[0]++;
+                return super.createSqlParameterParser();
+            }
+        });
+        assertThat("デフォルトはキャッシュしない", sut.getParsedSqlCache(), is(nullValue()));
+        sut.setParsedSqlCacheSize(10);
+
+        final String sql = "SELECT ENTITY_ID FROM STATEMENT_FACTORY_TEST WHERE ENTITY_ID = :id";
+        for (int i = 0; i < 3; i++) {
+            ParameterizedSqlPStatement statement = sut.getParameterizedSqlPStatement(sql, connection, createContext());
+            HashMap<String, Object> data = new HashMap<String, Object>();
+            data.put("id", "1");
+            assertThat(statement.retrieve(data).size(), is(0));
+        }
+
+        final ParsedSqlCache cache = sut.getParsedSqlCache();
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(2L));
+        assertThat("パーサはキャッシュに存在しない場合のみ生成されること", createdParsers[0], is(1));
+
+        sut.setParsedSqlCacheSize(0);
+        assertThat("0を設定した場合はキャッシュしない", sut.getParsedSqlCache(), is(nullValue()));
+    }
+
     /** SelectOptionが正しく設定されることの確認 */
     @Test
     public void testGetParameterizedSqlPStatementWithSelectOption() throws Exception {
@@ -315,6 +367,208 @@ public abstract class BasicStatementFactoryTestLogic {
 
     }
 
+    /**
+     * IN句の項目数を切り上げた場合に、SQLIDごとのSQL文の種類数が切り上げ後の項目数の種類数となること。
+     */
+    @Test
+    public void testGetVariableConditionSqlBySqlIdWithInPadding() throws Exception {
+        BasicStatementFactory sut = createStatementFactory();
+        final VariableInSyntaxConvertor inConvertor = new VariableInSyntaxConvertor();
+        inConvertor.setPowerOfTwoPadding(true);
+        final BasicSqlParameterParserFactory parserFactory = new BasicSqlParameterParserFactory();
+        parserFactory.setSqlConvertors(Arrays.<SqlConvertor>asList(
+                new VariableConditionSyntaxConvertor(), inConvertor, new VariableOrderBySyntaxConvertor()));
+        sut.setSqlParameterParserFactory(parserFactory);
+        sut.setSqlLoader(new BasicSqlLoader());
+        assertThat("デフォルトは集計しない", sut.getSqlShapeStatistics(), is(nullValue()));
+        sut.setSqlShapeStatistics(new SqlShapeStatistics());
+
+        final String sqlId = SQL_FILE_PATH + "#SQL5";
+        for (int size = 1; size <= 8; size++) {
+            final String[] ids = new String[size];
+            Arrays.fill(ids, "1");
+            sut.getVariableConditionSqlBySqlId(sqlId, Collections.singletonMap("ids", ids));
+        }
+        assertThat("1, 2, 4, 8の4種類", sut.getSqlShapeStatistics().getShapeCount(sqlId), is(4));
+        assertThat(sut.getSqlShapeStatistics().getShapeCounts(), is(Collections.singletonMap(sqlId, 4)));
+
+        final String sql = sut.getVariableConditionSqlBySqlId(
+                sqlId, Collections.singletonMap("ids", Arrays.asList("1", "2", "3")));
+        assertThat("要素数によらず切り上げ後の項目数で同一のSQL文となること", sql,
+                is(sut.getVariableConditionSqlBySqlId(
+                        sqlId, Collections.singletonMap("ids", Arrays.asList("1", "2", "3", "4")))));
+        assertThat(sql, is("select * from statement_factory_test where entity_id in (:ids[0*],:ids[1*],:ids[2*],:ids[3*])"));
+
+        final TestEntity[] entities = new TestEntity[4];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new TestEntity();
+            entities[i].id = String.valueOf(i + 1);
+        }
+        VariousDbTestHelper.setUpTable(entities);
+        ParameterizedSqlPStatement statement = sut.getParameterizedSqlPStatement(sql, connection, createContext());
+        assertThat("足りない項目には最後の要素がバインドされること",
+                statement.retrieve(Collections.singletonMap("ids", Arrays.asList("1", "3"))).size(), is(2));
+        assertThat(statement.retrieve(Collections.singletonMap("ids", new String[] {"1", "2", "3", "4"})).size(), is(4));
+    }
+
+    /**
+     * IN句の要素数が閾値以上の場合に、要素の一覧を1つのバインド変数で指定して検索できること。
+     */
+    @Test
+    @TargetDb(include = TargetDb.Db.H2)
+    public void testGetVariableConditionSqlBySqlIdWithInListParameter() throws Exception {
+        final TestEntity[] entities = new TestEntity[5];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new TestEntity();
+            entities[i].id = String.valueOf(i + 1);
+        }
+        VariousDbTestHelper.setUpTable(entities);
+        final String sqlId = SQL_FILE_PATH + "#SQL5";
+
+        // 配列型のバインド変数を使用する場合
+        final H2Dialect h2Dialect = new H2Dialect();
+        BasicStatementFactory sut = createStatementFactoryWithInListParameter(h2Dialect);
+        assertThat("閾値未満は要素ごとのバインド変数に展開されること",
+                sut.getVariableConditionSqlBySqlId(sqlId, Collections.singletonMap("ids", new String[] {"1", "2"})),
+                is("select * from statement_factory_test where entity_id in (:ids[0],:ids[1])"));
+        String sql = sut.getVariableConditionSqlBySqlId(
+                sqlId, Collections.singletonMap("ids", new String[] {"1", "2", "3"}));
+        assertThat(sql, is("select * from statement_factory_test where entity_id = ANY(:ids[*])"));
+        ParameterizedSqlPStatement statement = sut.getParameterizedSqlPStatement(sql, connection,
+                new DbExecutionContext(mockConnection, h2Dialect, TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+        assertThat(statement.retrieve(Collections.singletonMap("ids", Arrays.asList("1", "3", "5", "9"))).size(), is(3));
+
+        assertThat("バインドした要素の一覧が入れ替わること",
+                statement.retrieve(Collections.singletonMap("ids", Arrays.asList("2", "4", "6"))).size(), is(2));
+    }
+
+    /**
+     * 更新系のSQL文の実行がリスナに通知され、更新するテーブルの抽出はステートメントごとに1度のみ行われること。
+     */
+    @Test
+    public void testSqlWriteListener() throws Exception {
+        final SqlWriteListener listener = mock(SqlWriteListener.class);
+        when(listener.getWrittenTable(anyString())).thenReturn("STATEMENT_FACTORY_TEST");
+        BasicStatementFactory sut = createStatementFactory();
+        sut.setSqlWriteListener(listener);
+
+        final DbExecutionContext context = createContext();
+        SqlPStatement statement = sut.getSqlPStatement("DELETE FROM STATEMENT_FACTORY_TEST", connection, context);
+        statement.executeUpdate();
+        statement.executeUpdate();
+
+        verify(listener).getWrittenTable("DELETE FROM STATEMENT_FACTORY_TEST");
+        verify(listener, times(2)).onWritten(context.getConnection(), "STATEMENT_FACTORY_TEST");
+
+        SqlPStatement select = sut.getSqlPStatement("SELECT * FROM STATEMENT_FACTORY_TEST", connection, context);
+        select.retrieve();
+        verify(listener, never()).getWrittenTable("SELECT * FROM STATEMENT_FACTORY_TEST");
+    }
+
+    /**
+     * 一時表を使用する場合に、バインドごとに要素の一覧が一時表に登録され、検索できること。
+     */
+    @Test
+    @TargetDb(include = TargetDb.Db.H2)
+    public void testInListParameterWithTemporaryTable() throws Exception {
+        final TestEntity[] entities = new TestEntity[5];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new TestEntity();
+            entities[i].id = String.valueOf(i + 1);
+        }
+        VariousDbTestHelper.setUpTable(entities);
+        final Statement ddl = connection.createStatement();
+        try {
+            ddl.execute("CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS IN_LIST_TEMP (LIST_ID VARCHAR(36), VAL VARCHAR(100))");
+            ddl.execute("DELETE FROM IN_LIST_TEMP");
+        } finally {
+            ddl.close();
+        }
+        final DefaultDialect dialect = new DefaultDialect();
+        dialect.setInListTemporaryTableName("IN_LIST_TEMP");
+        final BasicStatementFactory sut = createStatementFactoryWithInListParameter(dialect);
+        final String sql = sut.getVariableConditionSqlBySqlId(
+                SQL_FILE_PATH + "#SQL5", Collections.singletonMap("ids", new String[] {"1", "2", "3"}));
+        assertThat(sql, is("select * from statement_factory_test where entity_id "
+                + "IN (SELECT VAL FROM IN_LIST_TEMP WHERE LIST_ID = :ids[*])"));
+
+        // 一時表への登録は、同じコネクションから生成したステートメントで行われる。
+        final BasicDbConnection dbConnection = new BasicDbConnection(connection);
+        dbConnection.setFactory(sut);
+        final DbExecutionContext context = new DbExecutionContext(
+                dbConnection, dialect, TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+        dbConnection.setContext(context);
+
+        final ParameterizedSqlPStatement first = sut.getParameterizedSqlPStatement(sql, connection, context);
+        final ResultSetIterator opened = first.executeQueryByMap(
+                Collections.singletonMap("ids", Arrays.asList("1", "3", "5", "9")));
+        final ParameterizedSqlPStatement second = sut.getParameterizedSqlPStatement(sql, connection, context);
+        assertThat(second.retrieve(Collections.singletonMap("ids", Arrays.asList("2", "4", "6"))).size(), is(2));
+        int count = 0;
+        while (opened.next()) {
+            count++;
+        }
+        opened.close();
+        assertThat("他のバインドの要素の一覧と混在しないこと", count, is(3));
+        assertThat("要素が無い場合は何も検索されないこと",
+                second.retrieve(Collections.singletonMap("ids", Collections.emptyList())).size(), is(0));
+
+        final Statement select = connection.createStatement();
+        try {
+            final ResultSet rs = select.executeQuery("SELECT COUNT(DISTINCT LIST_ID), COUNT(*) FROM IN_LIST_TEMP");
+            rs.next();
+            assertThat("バインドごとに異なる識別子で登録されること", rs.getInt(1), is(2));
+            assertThat(rs.getInt(2), is(7));
+        } finally {
+            select.close();
+        }
+    }
+
+    /**
+     * 一時表を使用する場合に、読み取り専用のコネクションでは例外が送出されること。
+     */
+    @Test
+    public void testInListParameterWithTemporaryTableOnReadOnlyConnection() throws Exception {
+        final DefaultDialect dialect = new DefaultDialect();
+        dialect.setInListTemporaryTableName("IN_LIST_TEMP");
+        final BasicStatementFactory sut = createStatementFactoryWithInListParameter(dialect);
+        final String sql = sut.getVariableConditionSqlBySqlId(
+                SQL_FILE_PATH + "#SQL5", Collections.singletonMap("ids", new String[] {"1", "2", "3"}));
+
+        final PreparedStatement preparedStatement = mock(PreparedStatement.class, RETURNS_DEEP_STUBS);
+        when(preparedStatement.getConnection().isReadOnly()).thenReturn(true);
+        final Connection readOnly = mock(Connection.class);
+        when(readOnly.prepareStatement(anyString())).thenReturn(preparedStatement);
+        final ParameterizedSqlPStatement statement = sut.getParameterizedSqlPStatement(sql, readOnly,
+                new DbExecutionContext(mockConnection, dialect, TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+        try {
+            statement.retrieve(Collections.singletonMap("ids", Arrays.asList("1", "2", "3")));
+            fail("do not run.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(),
+                    is("in list temporary table can not be used with a read-only connection. table = [IN_LIST_TEMP]"));
+        }
+    }
+
+    /**
+     * IN句の要素数が3以上の場合に、要素の一覧を1つのバインド変数で指定するファクトリを生成する。
+     *
+     * @param dialect 使用する{@link nablarch.core.db.dialect.Dialect}
+     * @return ファクトリ
+     */
+    private BasicStatementFactory createStatementFactoryWithInListParameter(DefaultDialect dialect) {
+        final BasicStatementFactory factory = createStatementFactory();
+        final VariableInSyntaxConvertor inConvertor = new VariableInSyntaxConvertor();
+        inConvertor.setDialect(dialect);
+        inConvertor.setInListParameterThreshold(3);
+        final BasicSqlParameterParserFactory parserFactory = new BasicSqlParameterParserFactory();
+        parserFactory.setSqlConvertors(Arrays.<SqlConvertor>asList(
+                new VariableConditionSyntaxConvertor(), inConvertor, new VariableOrderBySyntaxConvertor()));
+        factory.setSqlParameterParserFactory(parserFactory);
+        factory.setSqlLoader(new BasicSqlLoader());
+        return factory;
+    }
+
     /**
      * SQLの解析クラスなどをセットアップする。
      *
@@ -0,0 +1,158 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Test;
+
+/**
+ * {@link ColumnarResultSet}のテストクラス。
+ */
+public class ColumnarResultSetTest {
+
+    /** 数値のカラムはプリミティブ型の配列で保持され、カラムごと、行ごとに値を取得できること。 */
+    @Test
+    public void testPrimitiveColumns() throws Exception {
+        final ResultSet rs = createMockResultSet(3);
+        when(rs.getObject(1)).thenReturn(1, 2, null);
+        when(rs.getObject(2)).thenReturn(new BigDecimal("100"), null, new BigDecimal("300"));
+        when(rs.getObject(3)).thenReturn(1.5d, 2.5d, 3.5d);
+        when(rs.getObject(4)).thenReturn("a", "b", "c");
+
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(rs, null));
+        assertThat(sut.size(), is(3));
+        assertThat(sut.getColumnCount(), is(4));
+
+        final ColumnarResultSet.Column id = sut.getColumn("id");
+        assertThat(id.isPrimitive(), is(true));
+        assertThat(id.getInt(0), is(1));
+        assertThat(id.getLong(1), is(2L));
+        assertThat(id.isNull(2), is(true));
+        assertThat(id.getInt(2), is(0));
+        assertThat(id.getObject(2), is(nullValue()));
+
+        final ColumnarResultSet.Column amount = sut.getColumn("AMOUNT");
+        assertThat(amount.isPrimitive(), is(true));
+        assertThat(amount.getLong(0), is(100L));
+        assertThat(amount.isNull(1), is(true));
+        assertThat("元の型で取得できること", amount.getObject(2), is((Object) new BigDecimal("300")));
+
+        final ColumnarResultSet.Column rate = sut.getColumn("rate");
+        assertThat(rate.isPrimitive(), is(true));
+        assertThat(rate.getDouble(1), is(2.5d));
+
+        final ColumnarResultSet.Column name = sut.getColumn("name");
+        assertThat(name.isPrimitive(), is(false));
+        assertThat(name.getObject(2), is((Object) "c"));
+    }
+
+    /** 行単位で取得した場合、{@link SqlRow}と同じ規則で値を取得できること。 */
+    @Test
+    public void testRowView() throws Exception {
+        final ResultSet rs = createMockResultSet(2);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn(new BigDecimal("100"), new BigDecimal("200"));
+        when(rs.getObject(3)).thenReturn(1.5d, null);
+        when(rs.getObject(4)).thenReturn("a", "b");
+
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(rs, null));
+        final SqlRow row = sut.get(1);
+        assertThat(row.getInteger("id"), is(2));
+        assertThat(row.getBigDecimal("amount"), is(new BigDecimal("200")));
+        assertThat(row.get("RATE"), is(nullValue()));
+        assertThat(row.getString("name"), is("b"));
+
+        row.put("NAME", "changed");
+        assertThat("行を変更しても元の値は変わらないこと", sut.get(1).getString("name"), is("b"));
+
+        int count = 0;
+        for (SqlRow each : sut) {
+            count++;
+            assertThat(each.getInteger("id"), is(count));
+        }
+        assertThat(count, is(2));
+    }
+
+    /** 異なる型の値が現れた場合、Objectの配列に切り替えて値を保持すること。 */
+    @Test
+    public void testPromoteToObjects() throws Exception {
+        final ResultSet rs = createMockResultSet(3);
+        when(rs.getObject(1)).thenReturn(1, null, 3);
+        when(rs.getObject(2)).thenReturn(new BigDecimal("100"), null, new BigDecimal("1.5"));
+        when(rs.getObject(3)).thenReturn(1.5d, 2.5d, 3.5d);
+        when(rs.getObject(4)).thenReturn("a", "b", "c");
+
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(rs, null));
+        final ColumnarResultSet.Column amount = sut.getColumn("amount");
+        assertThat(amount.isPrimitive(), is(false));
+        assertThat(amount.getObject(0), is((Object) new BigDecimal("100")));
+        assertThat(amount.isNull(1), is(true));
+        assertThat(amount.getObject(2), is((Object) new BigDecimal("1.5")));
+        assertThat(amount.getDouble(2), is(1.5d));
+    }
+
+    /** 取得開始位置を指定した場合、開始位置以降の行のみ保持すること。 */
+    @Test
+    public void testStartPosition() throws Exception {
+        final ResultSet rs = createMockResultSet(3);
+        when(rs.getObject(1)).thenReturn(3);
+
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(rs, null), 3, 0);
+        assertThat(sut.size(), is(1));
+        assertThat(sut.getColumn("id").getInt(0), is(3));
+    }
+
+    /** 存在しないカラムを指定した場合、例外が送出されること。 */
+    @Test(expected = IllegalArgumentException.class)
+    public void testColumnNotFound() throws Exception {
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(createMockResultSet(0), null));
+        sut.getColumn("unknown");
+    }
+
+    /** 範囲外の行を指定した場合、例外が送出されること。 */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowIndexOutOfBounds() throws Exception {
+        final ResultSet rs = createMockResultSet(1);
+        when(rs.getObject(1)).thenReturn(1);
+
+        final ColumnarResultSet sut = new ColumnarResultSet(new ResultSetIterator(rs, null));
+        sut.getColumn("id").getInt(1);
+    }
+
+    /**
+     * ID、AMOUNT、RATE、NAMEのカラムをもつ、モックの{@link ResultSet}を生成する。
+     *
+     * @param rows 行数
+     * @return モックの{@link ResultSet}
+     */
+    private ResultSet createMockResultSet(final int rows) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnLabel(1)).thenReturn("ID");
+        when(metaData.getColumnLabel(2)).thenReturn("AMOUNT");
+        when(metaData.getColumnLabel(3)).thenReturn("RATE");
+        when(metaData.getColumnLabel(4)).thenReturn("NAME");
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.DECIMAL);
+        when(metaData.getColumnType(3)).thenReturn(Types.DOUBLE);
+        when(metaData.getColumnType(4)).thenReturn(Types.VARCHAR);
+        // 指定された行数だけtrueを返し、その後falseを返す
+        final Boolean[] following = new Boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            following[i] = i < rows - 1;
+        }
+        when(rs.next()).thenReturn(rows > 0, following);
+        return rs;
+    }
+}
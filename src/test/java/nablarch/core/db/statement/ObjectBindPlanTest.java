@@ -0,0 +1,139 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link ObjectBindPlan}のテストクラス。
+ */
+public class ObjectBindPlanTest {
+
+    /** getterアクセスで、パラメータ順に値が取得できること。 */
+    @Test
+    public void testPropertyAccess() {
+        final ObjectBindPlan sut = ObjectBindPlan.create(
+                Bean.class, Arrays.asList("amount", "name", "name"), false);
+        assertThat(sut.isApplicable(), is(true));
+        assertThat(sut.isFieldAccess(), is(false));
+
+        final Bean bean = new Bean();
+        bean.setName("なまえ");
+        bean.setAmount(new BigDecimal("1.5"));
+        assertThat(sut.getValue(bean, 0), is((Object) new BigDecimal("1.5")));
+        assertThat(sut.getValue(bean, 1), is((Object) "なまえ"));
+        assertThat(sut.getValue(bean, 2), is((Object) "なまえ"));
+
+        bean.setName(null);
+        assertThat(sut.getValue(bean, 1), is(nullValue()));
+    }
+
+    /** 名前付きパラメータが無い場合でも適用可能なこと。 */
+    @Test
+    public void testNoParameter() {
+        final ObjectBindPlan sut = ObjectBindPlan.create(Bean.class, Collections.<String>emptyList(), false);
+        assertThat(sut.isApplicable(), is(true));
+    }
+
+    /** 存在しないプロパティを含む場合は適用不可となること。 */
+    @Test
+    public void testUnknownProperty() {
+        final ObjectBindPlan sut = ObjectBindPlan.create(Bean.class, Arrays.asList("name", "unknown"), false);
+        assertThat(sut.isApplicable(), is(false));
+    }
+
+    /** ネストしたプロパティを含む場合は適用不可となること。 */
+    @Test
+    public void testNestedProperty() {
+        assertThat(ObjectBindPlan.create(Bean.class, Arrays.asList("child.name"), false).isApplicable(), is(false));
+        assertThat(ObjectBindPlan.create(Bean.class, Arrays.asList("child"), false).isApplicable(), is(false));
+    }
+
+    /** レコードのコンポーネントから値が取得できること。 */
+    @Test
+    public void testRecord() {
+        final ObjectBindPlan sut = ObjectBindPlan.create(Rec.class, Arrays.asList("id", "name"), false);
+        assertThat(sut.isApplicable(), is(true));
+        final Rec rec = new Rec(10L, "rec");
+        assertThat(sut.getValue(rec, 0), is((Object) 10L));
+        assertThat(sut.getValue(rec, 1), is((Object) "rec"));
+    }
+
+    /** フィールドアクセスで、親クラスのフィールドも含めて値が取得できること。 */
+    @Test
+    public void testFieldAccess() {
+        final List<String> names = Arrays.asList("id", "name", "child");
+        final ObjectBindPlan sut = ObjectBindPlan.create(FieldSub.class, names, true);
+        assertThat(sut.isApplicable(), is(true));
+        assertThat(sut.isFieldAccess(), is(true));
+
+        final FieldSub data = new FieldSub();
+        data.id = "sub";
+        ((FieldBase) data).id = "base";
+        ((FieldBase) data).name = "name";
+        assertThat("サブクラスのフィールドが優先されること", sut.getValue(data, 0), is((Object) "sub"));
+        assertThat(sut.getValue(data, 1), is((Object) "name"));
+        assertThat(sut.getValue(data, 2), is(nullValue()));
+    }
+
+    /** フィールドアクセスで存在しないフィールドを含む場合は適用不可となること。 */
+    @Test
+    public void testFieldAccessUnknownField() {
+        final ObjectBindPlan sut = ObjectBindPlan.create(FieldSub.class, Arrays.asList("unknown"), true);
+        assertThat(sut.isApplicable(), is(false));
+        assertThat(sut.isFieldAccess(), is(true));
+    }
+
+    public static class Bean {
+
+        private String name;
+
+        private BigDecimal amount;
+
+        private Bean child;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public Bean getChild() {
+            return child;
+        }
+
+        public void setChild(Bean child) {
+            this.child = child;
+        }
+    }
+
+    public record Rec(Long id, String name) {
+    }
+
+    public static class FieldBase {
+        private String id;
+        private String name;
+    }
+
+    public static class FieldSub extends FieldBase {
+        private String id;
+        private Object child;
+    }
+}
@@ -0,0 +1,107 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link ParsedSqlCache}のテストクラス。
+ */
+public class ParsedSqlCacheTest {
+
+    /** 同一SQLの2回目以降は、解析せずにキャッシュから取得できること。 */
+    @Test
+    public void testGet() {
+        final ParsedSqlCache sut = new ParsedSqlCache(10);
+        final String sql = "SELECT * FROM TEST WHERE ID = :id AND NAME LIKE :name%";
+
+        assertThat(sut.get(sql), is(nullValue()));
+        final ParsedSql first = sut.parse(sql, new BasicSqlParameterParser());
+        assertThat(first.getSql(), is("SELECT * FROM TEST WHERE ID = ? AND NAME LIKE ? escape '\u0000'"));
+        assertThat(first.getNameList(), is(Arrays.asList("id", "name%")));
+        assertThat(sut.getMissCount(), is(1L));
+        assertThat(sut.getHitCount(), is(0L));
+
+        final ParsedSql second = sut.get(sql);
+        assertThat(second, sameInstance(first));
+        assertThat(sut.getMissCount(), is(1L));
+        assertThat(sut.getHitCount(), is(1L));
+        assertThat(sut.size(), is(1));
+    }
+
+    /** 解析結果の名前付きバインド変数リストは変更できないこと。 */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNameListIsUnmodifiable() {
+        final ParsedSqlCache sut = new ParsedSqlCache(10);
+        final List<String> nameList = sut.parse("SELECT * FROM TEST WHERE ID = :id", new BasicSqlParameterParser())
+                                         .getNameList();
+        nameList.add("other");
+    }
+
+    /** キャッシュ件数が上限を超えないこと。 */
+    @Test
+    public void testMaxSize() {
+        final ParsedSqlCache sut = new ParsedSqlCache(3);
+        for (int i = 0; i < 10; i++) {
+            final String sql = "SELECT * FROM TEST WHERE ID" + i + " = :id";
+            if (sut.get(sql) == null) {
+                sut.parse(sql, new BasicSqlParameterParser());
+            }
+            assertThat(sut.size() <= 3, is(true));
+        }
+        assertThat(sut.size(), is(3));
+        assertThat(sut.getMaxSize(), is(3));
+        assertThat(sut.getMissCount(), is(10L));
+
+        sut.clear();
+        assertThat(sut.size(), is(0));
+        assertThat("クリアしても統計情報は保持されること", sut.getMissCount(), is(10L));
+    }
+
+    /** 同時に解析された場合は、先に格納された解析結果が返されること。 */
+    @Test
+    public void testParseConcurrently() {
+        final ParsedSqlCache sut = new ParsedSqlCache(10);
+        final String sql = "SELECT * FROM TEST WHERE ID = :id";
+        final ParsedSql first = sut.parse(sql, new BasicSqlParameterParser());
+        assertThat(sut.parse(sql, new BasicSqlParameterParser()), sameInstance(first));
+        assertThat(sut.size(), is(1));
+    }
+
+    /** 上限を超えた場合、参照されたエントリは残り、参照されていないエントリが削除されること。 */
+    @Test
+    public void testEviction() {
+        final ParsedSqlCache sut = new ParsedSqlCache(3);
+        for (int i = 0; i < 3; i++) {
+            sut.parse("SELECT * FROM TEST WHERE ID" + i + " = :id", new BasicSqlParameterParser());
+        }
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID0 = :id"), is(notNullValue()));
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID2 = :id"), is(notNullValue()));
+
+        sut.parse("SELECT * FROM TEST WHERE ID3 = :id", new BasicSqlParameterParser());
+        assertThat(sut.size(), is(3));
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID1 = :id"), is(nullValue()));
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID0 = :id"), is(notNullValue()));
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID2 = :id"), is(notNullValue()));
+        assertThat(sut.get("SELECT * FROM TEST WHERE ID3 = :id"), is(notNullValue()));
+    }
+
+    /** 上限件数に0以下を指定した場合、例外が送出されること。 */
+    @Test
+    public void testInvalidMaxSize() {
+        try {
+            new ParsedSqlCache(0);
+            fail("do not run.");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("maxSize must be greater than 0. maxSize = [0]"));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.TemporalType;
 import nablarch.core.db.DbAccessException;
 import nablarch.core.db.connection.ConnectionFactory;
 import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.db.dialect.OracleDialect;
 import nablarch.core.transaction.TransactionContext;
 import nablarch.test.support.SystemRepositoryResource;
 import nablarch.test.support.db.helper.DatabaseTestRunner;
@@ -20,6 +21,8 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.math.BigDecimal;
 import java.sql.Blob;
@@ -28,10 +31,17 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
@@ -40,9 +50,14 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -175,6 +190,514 @@ public class ResultSetIteratorTest {
 
     }
 
+    /**
+     * {@link ResultSetIterator#getRow()}で{@link ColumnReader}を生成するConvertorが設定されているケース。
+     * <p/>
+     * {@link ColumnReader}はカラムごとに一度だけ生成され、全ての行で使用されること。
+     */
+    @Test
+    public void getRowWithColumnReader() throws Exception {
+
+        class Convertor implements ResultSetConvertor {
+
+            int createCount;
+
+            @Override
+            public Object convert(ResultSet rs, ResultSetMetaData rsmd, int columnIndex) throws SQLException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean isConvertible(ResultSetMetaData rsmd, int columnIndex) throws SQLException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ColumnReader createColumnReader(ResultSetMetaData rsmd, final int columnIndex) throws SQLException {
+                createCount++;
+                if (columnIndex != 1) {
+                    return ColumnReaders.object(columnIndex);
+                }
+                return new ColumnReader() {
+                    @Override
+                    public Object read(ResultSet rs) throws SQLException {
+                        return rs.getString(columnIndex).substring(4);
+                    }
+                };
+            }
+        }
+
+        final PreparedStatement statement = connection.getConnection()
+                                                      .prepareStatement(
+                                                              "SELECT CHAR_COL, VARCHAR_COL FROM RS_TEST ORDER BY CHAR_COL");
+        final ResultSet rs = statement.executeQuery();
+        final Convertor convertor = new Convertor();
+        final ResultSetIterator sut = new ResultSetIterator(rs, convertor);
+
+        int index = 1;
+        for (SqlRow row : sut) {
+            assertThat("最後の一文字だけかえされる", row.getString("charCol"), is(String.valueOf(index)));
+            index++;
+        }
+        assertThat("全ての行を取得できること", index, is(4));
+        assertThat("ColumnReaderはカラム数分だけ生成されること", convertor.createCount, is(2));
+    }
+
+    /**
+     * {@link ResultSetIterator#getRow()}で{@link nablarch.core.db.dialect.OracleDialect}のConvertorを使用するケース。
+     * <p/>
+     * データタイプの参照はカラムごとに一度だけで、行ごとには行われないこと。
+     */
+    @Test
+    public void getRowWithOracleConvertor() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class);
+        final ResultSetMetaData mockMetaData = mock(ResultSetMetaData.class);
+        final Timestamp timestamp = Timestamp.valueOf("2015-03-17 10:20:30.997");
+        when(mockRs.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getColumnCount()).thenReturn(2);
+        when(mockMetaData.getColumnLabel(1)).thenReturn("ID");
+        when(mockMetaData.getColumnLabel(2)).thenReturn("CREATED");
+        when(mockMetaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+        when(mockMetaData.getColumnType(2)).thenReturn(Types.DATE);
+        when(mockRs.next()).thenReturn(true, true, true, false);
+        when(mockRs.getObject(1)).thenReturn("1", "2", "3");
+        when(mockRs.getTimestamp(2)).thenReturn(timestamp);
+
+        final ResultSetIterator sut = new ResultSetIterator(mockRs,
+                new OracleDialect().getResultSetConvertor());
+        int count = 0;
+        for (SqlRow row : sut) {
+            count++;
+            assertThat(row.getString("id"), is(String.valueOf(count)));
+            assertThat("DATE型はTimestampで取得されること", row.get("created"), is((Object) timestamp));
+        }
+        assertThat(count, is(3));
+        // データタイプの保持とColumnReaderの生成で参照され、行数には依存しないこと
+        verify(mockMetaData, times(2)).getColumnType(1);
+        verify(mockMetaData, times(2)).getColumnType(2);
+        verify(mockRs, never()).getObject(2);
+    }
+
+    /**
+     * {@link ResultSetIterator#getRow(Class)}のテスト。
+     * <p/>
+     * {@link SqlRow}と同じ規則でカラムとプロパティが対応付けられ、プロパティの型に変換されること。
+     */
+    @Test
+    public void getRowAsBean() throws Exception {
+        final ResultSetIterator sut = createResultSetIterator("00002");
+
+        assertThat(sut.next(), is(true));
+        final RowBean bean = sut.getRow(RowBean.class);
+        assertThat(bean.getCharCol(), is("00002"));
+        assertThat(bean.getVarcharCol(), is("あいうえお"));
+        assertThat("プリミティブ型に変換されること", bean.getIntCol(), is(12345));
+        assertThat("文字列に変換されること", bean.getLongCol(), is("1234554321"));
+        assertThat("対応するカラムがないプロパティは設定されないこと", bean.getUnknown(), is("default"));
+        assertThat(sut.next(), is(false));
+    }
+
+    /**
+     * {@link ResultSetIterator#getRow(Class)}でレコードに変換するケース。
+     * <p/>
+     * 値が{@code null}のカラムは、プリミティブ型の場合はデフォルト値となること。
+     */
+    @Test
+    public void getRowAsRecord() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement(
+                "SELECT CHAR_COL, INT_COL, LONG_COL FROM RS_TEST ORDER BY CHAR_COL");
+        final ResultSetIterator sut = statement.executeQuery();
+
+        assertThat(sut.next(), is(true));
+        final RowRecord first = sut.getRow(RowRecord.class);
+        assertThat(first.charCol(), is("00001"));
+        assertThat("nullはデフォルト値となること", first.intCol(), is(0));
+        assertThat(first.longCol(), is(nullValue()));
+
+        assertThat(sut.next(), is(true));
+        final RowRecord second = sut.getRow(RowRecord.class);
+        assertThat(second.charCol(), is("00002"));
+        assertThat(second.intCol(), is(12345));
+        assertThat(second.longCol(), is(1234554321L));
+    }
+
+    /**
+     * {@link SqlPStatement#retrieveBeans(Class)}のテスト。
+     */
+    @Test
+    public void retrieveBeans() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement(
+                "SELECT CHAR_COL, VARCHAR_COL FROM RS_TEST ORDER BY CHAR_COL");
+        final List<RowBean> result = statement.retrieveBeans(RowBean.class);
+
+        assertThat(result.size(), is(3));
+        assertThat(result.get(0).getCharCol(), is("00001"));
+        assertThat(result.get(0).getVarcharCol(), is(nullValue()));
+        assertThat(result.get(1).getCharCol(), is("00002"));
+        assertThat(result.get(1).getVarcharCol(), is("あいうえお"));
+        assertThat(result.get(2).getCharCol(), is("00003"));
+    }
+
+    /**
+     * {@link SqlPStatement#retrieveBeans(Class)}のデフォルト実装のテスト。
+     * <p/>
+     * {@link SqlPStatement#retrieve()}で取得した行がBeanに変換されること。
+     */
+    @Test
+    public void retrieveBeans_defaultMethod() throws Exception {
+        final Map<String, Object> row = new HashMap<String, Object>();
+        row.put("CHAR_COL", "00001");
+        row.put("VARCHAR_COL", "あいうえお");
+        final SqlResultSet rows = new SqlResultSet(1);
+        rows.add(new SqlRow(row, new HashMap<String, Integer>()));
+        final SqlPStatement statement = mock(SqlPStatement.class, CALLS_REAL_METHODS);
+        doReturn(rows).when(statement).retrieve();
+
+        final List<RowBean> result = statement.retrieveBeans(RowBean.class);
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getCharCol(), is("00001"));
+        assertThat(result.get(0).getVarcharCol(), is("あいうえお"));
+    }
+
+    /**
+     * {@link SqlPStatement#forEachRow(SqlRowCallback)}のデフォルト実装のテスト。
+     * <p/>
+     * {@link SqlPStatement#executeQuery()}で取得した全ての行がコールバックに渡され、{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void forEachRow_defaultMethod() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(mockRs.next()).thenReturn(true, true, false);
+        final SqlPStatement statement = mock(SqlPStatement.class, CALLS_REAL_METHODS);
+        doReturn(new ResultSetIterator(mockRs, null)).when(statement).executeQuery();
+
+        final List<SqlRow> rows = new ArrayList<SqlRow>();
+        assertThat(statement.forEachRow(new SqlRowCallback() {
+            @Override
+            public void handle(SqlRow row) {
+                rows.add(row);
+            }
+        }), is(2));
+        assertThat(rows.size(), is(2));
+        verify(mockRs).close();
+    }
+
+    /**
+     * {@link SqlPStatement#forEachRow(SqlRowCallback)}のデフォルト実装で、
+     * コールバックから例外が送出された場合も{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void forEachRow_defaultMethodCallbackFailed() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(mockRs.next()).thenReturn(true, true, false);
+        final SqlPStatement statement = mock(SqlPStatement.class, CALLS_REAL_METHODS);
+        doReturn(new ResultSetIterator(mockRs, null)).when(statement).executeQuery();
+
+        try {
+            statement.forEachRow(new SqlRowCallback() {
+                @Override
+                public void handle(SqlRow row) {
+                    throw new IllegalStateException("callback failed.");
+                }
+            });
+            fail("例外が発生すること");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("callback failed."));
+        }
+        verify(mockRs).close();
+    }
+
+    /**
+     * {@link ResultSetIterator#cursor()}のテスト。
+     * <p/>
+     * 事前に解決したハンドルで、全ての行の値を取得できること。
+     */
+    @Test
+    public void cursor() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement(
+                "SELECT CHAR_COL, INT_COL, LONG_COL, FLOAT_COL FROM RS_TEST ORDER BY CHAR_COL");
+        final RowCursor sut = statement.executeQuery().cursor();
+        final int charCol = sut.getColumnHandle("charCol");
+        final int intCol = sut.getColumnHandle("INT_COL");
+        final int longCol = sut.getColumnHandle("long_col");
+        final int floatCol = sut.getColumnHandle("floatCol");
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.getString(charCol), is("00001"));
+        assertThat("nullの場合", sut.isNull(intCol), is(true));
+        assertThat("nullの場合は0", sut.getInt(intCol), is(0));
+        assertThat(sut.getBigDecimal(floatCol), is(nullValue()));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.getString(charCol), is("00002"));
+        assertThat(sut.isNull(intCol), is(false));
+        assertThat(sut.getInt(intCol), is(12345));
+        assertThat(sut.getLong(longCol), is(1234554321L));
+        assertThat(sut.getDouble(floatCol), is(12.3d));
+        assertThat(sut.getBigDecimal(floatCol).compareTo(new BigDecimal("12.3")), is(0));
+        final SqlRow row = sut.toRow();
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.getString(charCol), is("00003"));
+        assertThat("複製した行は次の行の影響を受けないこと", row.getString("charCol"), is("00002"));
+        assertThat(row.getInteger("intCol"), is(12345));
+
+        assertThat(sut.next(), is(false));
+        assertThat("読み終えた後もfalseが返されること", sut.next(), is(false));
+    }
+
+    /**
+     * {@link RowCursor#getColumnHandle(String)}に存在しないカラムを指定した場合、例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cursor_columnNotFound() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement("SELECT CHAR_COL FROM RS_TEST");
+        statement.executeQuery().cursor().getColumnHandle("unknown");
+    }
+
+    /**
+     * 行を読み込む前に値を取得した場合、例外が送出されること。
+     */
+    @Test(expected = IllegalStateException.class)
+    public void cursor_beforeNext() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement("SELECT CHAR_COL FROM RS_TEST");
+        final RowCursor sut = statement.executeQuery().cursor();
+        sut.getString(sut.getColumnHandle("charCol"));
+    }
+
+    /**
+     * {@link ResultSetIterator#iterator()}の後に{@link ResultSetIterator#cursor()}を呼び出した場合、例外が送出されること。
+     */
+    @Test(expected = IllegalStateException.class)
+    public void cursor_afterIterator() throws Exception {
+        final SqlPStatement statement = connection.prepareStatement("SELECT CHAR_COL FROM RS_TEST");
+        final ResultSetIterator sut = statement.executeQuery();
+        sut.iterator();
+        sut.cursor();
+    }
+
+    /**
+     * 全ての行を読み終えた場合、{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void cursor_closeAtEnd() throws Exception {
+        final ResultSet mockRs = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(mockRs.next()).thenReturn(true, false);
+
+        final RowCursor sut = new ResultSetIterator(mockRs, null).cursor();
+        assertThat(sut.next(), is(true));
+        verify(mockRs, never()).close();
+        assertThat(sut.next(), is(false));
+        verify(mockRs).close();
+    }
+
+    /**
+     * {@link ResultSetIterator#prefetch(int)}のテスト。
+     * <p/>
+     * チャンクの境界に関わらず全ての行を順に取得でき、読み終えた後に{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void prefetch() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        when(mockRs.next()).thenReturn(true, true, true, true, true, false);
+        when(mockRs.getObject(1)).thenReturn("1", "2", "3", "4", "5");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(2);
+        int count = 0;
+        while (sut.hasNext()) {
+            count++;
+            assertThat(sut.next().getString("id"), is(String.valueOf(count)));
+        }
+        assertThat(count, is(5));
+        assertThat(sut.hasNext(), is(false));
+        sut.close();
+        verify(mockRs).close();
+    }
+
+    /**
+     * {@link ResultSetIterator#prefetch()}で、{@link ResultSet}のフェッチサイズごとに読み込まれること。
+     */
+    @Test
+    public void prefetch_fetchSize() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        when(mockRs.getFetchSize()).thenReturn(3);
+        when(mockRs.next()).thenReturn(true, true, false);
+        when(mockRs.getObject(1)).thenReturn("1", "2");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch();
+        assertThat(sut.next().getString("id"), is("1"));
+        assertThat(sut.next().getString("id"), is("2"));
+        assertThat(sut.hasNext(), is(false));
+    }
+
+    /**
+     * 読み込み中に例外が発生した場合、呼び出し元に送出され、{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void prefetch_error() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        when(mockRs.next()).thenReturn(true)
+                           .thenThrow(new SQLException("next error"));
+        when(mockRs.getObject(1)).thenReturn("1");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(10);
+        try {
+            sut.hasNext();
+            fail("とおらない");
+        } catch (DbAccessException e) {
+            assertThat(e.getMessage(), is("ResultSet fetch failed."));
+        }
+        assertThat("例外発生後は次の行はない", sut.hasNext(), is(false));
+        verify(mockRs).close();
+    }
+
+    /**
+     * 全ての行を読み終える前にクローズした場合、読み込みが中止され{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void prefetch_close() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        when(mockRs.next()).thenReturn(true);
+        when(mockRs.getObject(1)).thenReturn("1");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(1);
+        assertThat(sut.next().getString("id"), is("1"));
+        sut.close();
+
+        assertThat(sut.hasNext(), is(false));
+        verify(mockRs).close();
+    }
+
+    /**
+     * フェッチ中にクローズした場合、フェッチが割り込まれずに完了し、その後に{@link ResultSet}がクローズされること。
+     */
+    @Test
+    public void prefetch_closeWhileFetching() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        when(mockRs.next()).thenReturn(true).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                fetching.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return true;
+            }
+        });
+        when(mockRs.getObject(1)).thenReturn("1");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(1);
+        assertThat(sut.next().getString("id"), is("1"));
+        fetching.await();
+        sut.close();
+
+        assertThat("フェッチ中のスレッドが割り込まれないこと", interrupted.get(), is(false));
+        assertThat(sut.hasNext(), is(false));
+        verify(mockRs).close();
+    }
+
+    /**
+     * 待機してもフェッチが終わらない場合、SQLの実行がキャンセルされ、読み込み用のスレッドが
+     * {@link ResultSet}をクローズして終了するまでクローズが完了しないこと。
+     */
+    @Test
+    public void prefetch_closeWithCancel() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        final java.sql.Statement mockStatement = mock(java.sql.Statement.class);
+        when(mockRs.getStatement()).thenReturn(mockStatement);
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                cancelled.countDown();
+                return null;
+            }
+        }).when(mockStatement).cancel();
+        when(mockRs.next()).thenReturn(true).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                fetching.countDown();
+                cancelled.await();
+                // キャンセルされたフェッチを、少し遅れて終了させる。
+                Thread.sleep(100);
+                throw new SQLException("cancelled");
+            }
+        });
+        when(mockRs.getObject(1)).thenReturn("1");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(1);
+        sut.setCloseTimeoutMillis(10);
+        assertThat(sut.next().getString("id"), is("1"));
+        fetching.await();
+        sut.close();
+
+        verify(mockStatement).cancel();
+        verify(mockRs).close();
+        assertThat(sut.hasNext(), is(false));
+    }
+
+    /**
+     * SQLの実行をキャンセルできない場合、読み込み用のスレッドが終了していないため例外が送出されること。
+     */
+    @Test
+    public void prefetch_closeWithCancelFailure() throws Exception {
+        final ResultSet mockRs = createMockResultSet();
+        when(mockRs.getStatement()).thenThrow(new SQLException("statement is unavailable."));
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockRs.next()).thenReturn(true).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                fetching.countDown();
+                release.await();
+                return false;
+            }
+        });
+        when(mockRs.getObject(1)).thenReturn("1");
+
+        final PrefetchingRowIterator sut = new ResultSetIterator(mockRs, null).prefetch(1);
+        sut.setCloseTimeoutMillis(10);
+        assertThat(sut.next().getString("id"), is("1"));
+        fetching.await();
+        try {
+            sut.close();
+            fail("do not run.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("prefetching thread is still fetching rows. the connection must not be used."));
+            assertThat(e.getCause(), instanceOf(DbAccessException.class));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * 1回に読み込む行数に1未満を指定した場合、例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetch_invalidChunkSize() throws Exception {
+        new ResultSetIterator(createMockResultSet(), null).prefetch(0);
+    }
+
+    /**
+     * カラムを1つ(ID)もつ、モックの{@link ResultSet}を生成する。
+     *
+     * @return モックの{@link ResultSet}
+     */
+    private ResultSet createMockResultSet() throws SQLException {
+        final ResultSet mockRs = mock(ResultSet.class);
+        final ResultSetMetaData mockMetaData = mock(ResultSetMetaData.class);
+        when(mockRs.getMetaData()).thenReturn(mockMetaData);
+        when(mockMetaData.getColumnCount()).thenReturn(1);
+        when(mockMetaData.getColumnLabel(1)).thenReturn("ID");
+        when(mockMetaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+        return mockRs;
+    }
+
     /**
      * {@link ResultSetIterator#iterator()}のテスト。
      */
@@ -842,6 +1365,62 @@ public class ResultSetIteratorTest {
         return statement.executeQuery();
     }
 
+    public static class RowBean {
+
+        private String charCol;
+
+        private String varcharCol;
+
+        private int intCol;
+
+        private String longCol;
+
+        private String unknown = "default";
+
+        public String getCharCol() {
+            return charCol;
+        }
+
+        public void setCharCol(String charCol) {
+            this.charCol = charCol;
+        }
+
+        public String getVarcharCol() {
+            return varcharCol;
+        }
+
+        public void setVarcharCol(String varcharCol) {
+            this.varcharCol = varcharCol;
+        }
+
+        public int getIntCol() {
+            return intCol;
+        }
+
+        public void setIntCol(int intCol) {
+            this.intCol = intCol;
+        }
+
+        public String getLongCol() {
+            return longCol;
+        }
+
+        public void setLongCol(String longCol) {
+            this.longCol = longCol;
+        }
+
+        public String getUnknown() {
+            return unknown;
+        }
+
+        public void setUnknown(String unknown) {
+            this.unknown = unknown;
+        }
+    }
+
+    public record RowRecord(String charCol, int intCol, Long longCol) {
+    }
+
     @Entity
     @Table(name = "RS_TEST")
     public static class TestEntity {
@@ -0,0 +1,95 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import org.junit.Test;
+
+/**
+ * {@link ResultSetValueDictionary}のテストクラス。
+ */
+public class ResultSetValueDictionaryTest {
+
+    /** 同じカラムの同じ値は、最初に現れたインスタンスに集約されること。 */
+    @Test
+    public void testCanonicalize() {
+        final ResultSetValueDictionary sut = new ResultSetValueDictionary(2, 10);
+        final String first = new String("01");
+        final String second = new String("01");
+        assertThat(sut.canonicalize(0, first), is(sameInstance((Object) first)));
+        assertThat(sut.canonicalize(0, second), is(sameInstance((Object) first)));
+
+        assertThat("カラムごとに集約されること", sut.canonicalize(1, second), is(sameInstance((Object) second)));
+
+        final BigDecimal decimal = new BigDecimal("1.5");
+        assertThat(sut.canonicalize(1, decimal), is(sameInstance((Object) decimal)));
+        assertThat(sut.canonicalize(1, new BigDecimal("1.5")), is(sameInstance((Object) decimal)));
+        assertThat("スケールが異なる値は集約しないこと",
+                sut.canonicalize(1, new BigDecimal("1.50")), is(not(sameInstance((Object) decimal))));
+
+        assertThat(sut.canonicalize(0, null), is(nullValue()));
+        final Integer integer = 1000;
+        assertThat("対象外の型はそのまま返却されること", sut.canonicalize(0, integer), is(sameInstance((Object) integer)));
+    }
+
+    /** 長い文字列と桁数の大きい数値は集約しないこと。 */
+    @Test
+    public void testNotTarget() {
+        final ResultSetValueDictionary sut = new ResultSetValueDictionary(1, 10);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 65; i++) {
+            builder.append('a');
+        }
+        final String longString = builder.toString();
+        sut.canonicalize(0, longString);
+        assertThat(sut.canonicalize(0, new String(longString)), is(not(sameInstance((Object) longString))));
+
+        final BigDecimal large = new BigDecimal("1234567890123456789");
+        sut.canonicalize(0, large);
+        assertThat(sut.canonicalize(0, new BigDecimal("1234567890123456789")), is(not(sameInstance((Object) large))));
+    }
+
+    /** 値の種類数が上限に達したカラムは、以降の集約を行わないこと。 */
+    @Test
+    public void testSaturated() {
+        final ResultSetValueDictionary sut = new ResultSetValueDictionary(1, 2);
+        final String a = new String("a");
+        sut.canonicalize(0, a);
+        sut.canonicalize(0, "b");
+        assertThat(sut.canonicalize(0, new String("a")), is(sameInstance((Object) a)));
+
+        final String c = new String("c");
+        assertThat(sut.canonicalize(0, c), is(sameInstance((Object) c)));
+        assertThat("上限に達した後は集約しないこと",
+                sut.canonicalize(0, new String("a")), is(not(sameInstance((Object) a))));
+    }
+
+    /** {@link ResultSetIterator}で有効にした場合、行の値が集約されること。 */
+    @Test
+    public void testResultSetIterator() throws Exception {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("STATUS");
+        when(metaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getObject(1)).thenReturn(new String("10"), new String("10"));
+
+        final ResultSetIterator iterator = new ResultSetIterator(rs, null);
+        iterator.enableValueDictionary(10);
+        final SqlResultSet result = new SqlResultSet(iterator, 1, 0);
+        assertThat(result.size(), is(2));
+        assertThat(result.get(1).get("status"), is(sameInstance(result.get(0).get("status"))));
+    }
+}
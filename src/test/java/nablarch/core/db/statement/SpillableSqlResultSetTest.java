@@ -0,0 +1,250 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link SpillableSqlResultSet}のテストクラス。
+ */
+public class SpillableSqlResultSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** 上限を超えない場合、全ての行をヒープに保持すること。 */
+    @Test
+    public void testNotSpilled() throws Exception {
+        final ResultSet rs = createMockResultSet(3, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2, 3);
+        when(rs.getObject(2)).thenReturn("a", "b", "c");
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(3));
+        assertThat(sut.isSpilled(), is(false));
+        assertThat(sut.size(), is(3));
+        assertThat(sut.get(2).getString("name"), is("c"));
+        assertThat(folder.getRoot().list().length, is(0));
+
+        sut.add(new SqlRow(sut.get(0)));
+        assertThat("書き出していない場合は変更できること", sut.size(), is(4));
+        sut.close();
+    }
+
+    /** 上限を超えた行は一時ファイルに書き出し、参照時に読み込むこと。 */
+    @Test
+    public void testSpilled() throws Exception {
+        final Timestamp timestamp = Timestamp.valueOf("2026-01-02 03:04:05.123456789");
+        final ResultSet rs = createMockResultSet(5, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2, 3L, new BigDecimal("-12345678901234567890.123"), null);
+        when(rs.getObject(2)).thenReturn("a", "b", "日本語", timestamp, new byte[] {1, 2, 3});
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(2));
+        assertThat(sut.isSpilled(), is(true));
+        assertThat(sut.getSpilledCount(), is(3));
+        assertThat(sut.size(), is(5));
+        assertThat(folder.getRoot().list().length, is(1));
+
+        assertThat(sut.get(0).getInteger("id"), is(1));
+        assertThat(sut.get(2).getLong("id"), is(3L));
+        assertThat(sut.get(2).getString("name"), is("日本語"));
+        assertThat(sut.get(3).getBigDecimal("id"), is(new BigDecimal("-12345678901234567890.123")));
+        assertThat(sut.get(3).get("name"), is((Object) timestamp));
+        assertThat(sut.get(4).get("id"), is(nullValue()));
+        assertThat((byte[]) sut.get(4).get("name"), is(new byte[] {1, 2, 3}));
+
+        final List<Object> names = new ArrayList<Object>();
+        for (SqlRow row : sut) {
+            names.add(row.get("name"));
+        }
+        assertThat(names.size(), is(5));
+        assertThat(names.get(1), is((Object) "b"));
+        assertThat(names.get(2), is((Object) "日本語"));
+
+        sut.close();
+        assertThat("クローズ時に一時ファイルが削除されること", folder.getRoot().list().length, is(0));
+    }
+
+    /** 推定バイト数の上限を超えた場合も、一時ファイルに書き出すこと。 */
+    @Test
+    public void testSpilledByBytes() throws Exception {
+        final ResultSet rs = createMockResultSet(3, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2, 3);
+        when(rs.getObject(2)).thenReturn("a", "b", "c");
+
+        final ResultSetSpillSetting setting = new ResultSetSpillSetting();
+        setting.setMaxHeapBytes(1);
+        setting.setSpillDirectory(folder.getRoot().getPath());
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(new ResultSetIterator(rs, null), 1, 0, setting);
+        assertThat(sut.getSpilledCount(), is(3));
+        assertThat(sut.get(0).getString("name"), is("a"));
+        sut.close();
+    }
+
+    /** 一時ファイルに書き出した場合、変更できないこと。 */
+    @Test
+    public void testUnmodifiable() throws Exception {
+        final ResultSet rs = createMockResultSet(2, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn("a", "b");
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(1));
+        try {
+            sut.add(new SqlRow(sut.get(0)));
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertThat(e.getMessage(), is("spilled result set is unmodifiable."));
+        }
+        try {
+            sut.remove(0);
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        sut.close();
+    }
+
+    /** 一時ファイルから読み込んだ行は、値を変更できないこと。 */
+    @Test
+    public void testSpilledRowUnmodifiable() throws Exception {
+        final ResultSet rs = createMockResultSet(2, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn("a", "b");
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(1));
+        sut.get(0).put("name", "changed");
+        assertThat("ヒープに保持した行は変更できること", sut.get(0).getString("name"), is("changed"));
+
+        final SqlRow spilled = sut.get(1);
+        try {
+            spilled.put("name", "changed");
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertThat(e.getMessage(), is("this row is unmodifiable."));
+        }
+        try {
+            spilled.remove("name");
+            fail("must be thrown UnsupportedOperationException");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        assertThat(sut.get(1).getString("name"), is("b"));
+        assertThat("複製した行は変更できること", new SqlRow(spilled).put("name", "changed"), is((Object) "b"));
+        sut.close();
+    }
+
+    /** 範囲外の行を指定した場合、例外が送出されること。 */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() throws Exception {
+        final ResultSet rs = createMockResultSet(2, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn("a", "b");
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(1));
+        try {
+            sut.get(2);
+        } finally {
+            sut.close();
+        }
+    }
+
+    /** 取得開始位置を指定した場合、開始位置以降の行のみ保持すること。 */
+    @Test
+    public void testStartPosition() throws Exception {
+        final ResultSet rs = createMockResultSet(3, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(2, 3);
+        when(rs.getObject(2)).thenReturn("b", "c");
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 2, 0, createSetting(1));
+        assertThat(sut.size(), is(2));
+        assertThat(sut.get(1).getInteger("id"), is(3));
+        sut.close();
+    }
+
+    /** LOB型のカラムを含む場合、一時ファイルに書き出さないこと。 */
+    @Test
+    public void testLobColumnNotSpilled() throws Exception {
+        final ResultSet rs = createMockResultSet(3, Types.BLOB);
+        when(rs.getObject(1)).thenReturn(1, 2, 3);
+
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(
+                new ResultSetIterator(rs, null), 1, 0, createSetting(1));
+        assertThat(sut.isSpilled(), is(false));
+        assertThat(sut.size(), is(3));
+        assertThat(folder.getRoot().list().length, is(0));
+    }
+
+    /** 一時ファイルのディレクトリを指定しない場合、システムの一時ディレクトリに書き出すこと。 */
+    @Test
+    public void testDefaultSpillDirectory() throws Exception {
+        final ResultSet rs = createMockResultSet(2, Types.VARCHAR);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn("a", "b");
+
+        final ResultSetSpillSetting setting = new ResultSetSpillSetting();
+        setting.setMaxHeapRows(1);
+        assertThat(setting.getSpillDirectory(), is(nullValue(File.class)));
+        final SpillableSqlResultSet sut = new SpillableSqlResultSet(new ResultSetIterator(rs, null), 1, 0, setting);
+        assertThat(sut.isSpilled(), is(true));
+        assertThat(sut.get(1).getString("name"), is("b"));
+        sut.close();
+    }
+
+    /**
+     * ヒープに保持する最大行数を指定した設定を生成する。
+     *
+     * @param maxHeapRows ヒープに保持する最大行数
+     * @return 設定
+     */
+    private ResultSetSpillSetting createSetting(int maxHeapRows) {
+        final ResultSetSpillSetting setting = new ResultSetSpillSetting();
+        setting.setMaxHeapRows(maxHeapRows);
+        setting.setSpillDirectory(folder.getRoot().getPath());
+        return setting;
+    }
+
+    /**
+     * ID、NAMEのカラムをもつ、モックの{@link ResultSet}を生成する。
+     *
+     * @param rows 行数
+     * @param nameType NAMEカラムのデータタイプ
+     * @return モックの{@link ResultSet}
+     */
+    private ResultSet createMockResultSet(final int rows, final int nameType) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("ID");
+        when(metaData.getColumnLabel(2)).thenReturn("NAME");
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(nameType);
+        // 指定された行数だけtrueを返し、その後falseを返す
+        final Boolean[] following = new Boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            following[i] = i < rows - 1;
+        }
+        when(rs.next()).thenReturn(rows > 0, following);
+        return rs;
+    }
+}
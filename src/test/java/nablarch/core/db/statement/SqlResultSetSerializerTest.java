@@ -0,0 +1,78 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * {@link SqlResultSetSerializer}のテストクラス。
+ */
+public class SqlResultSetSerializerTest {
+
+    /** 値とデータタイプが復元されること。 */
+    @Test
+    public void testRoundTrip() {
+        final Timestamp timestamp = Timestamp.valueOf("2014-01-01 12:34:56.123456789");
+        final SqlResultSet original = new SqlResultSet(2);
+        original.add(createRow("yamada", new BigDecimal("123.45"), timestamp, new byte[] {1, 2, 3}));
+        original.add(createRow(null, BigDecimal.ZERO, null, null));
+
+        final SqlResultSet restored = SqlResultSetSerializer.deserialize(SqlResultSetSerializer.serialize(original));
+
+        assertThat(restored.size(), is(2));
+        final SqlRow first = restored.get(0);
+        assertThat(first.getString("name"), is("yamada"));
+        assertThat(first.getBigDecimal("amount"), is(new BigDecimal("123.45")));
+        assertThat(first.getTimestamp("updatedAt"), is(timestamp));
+        assertThat(first.getBytes("data"), is(new byte[] {1, 2, 3}));
+        assertThat(first.keySet(), is(original.get(0).keySet()));
+
+        final SqlRow second = restored.get(1);
+        assertThat(second.getString("name"), is(nullValue()));
+        assertThat(second.getBigDecimal("amount"), is(BigDecimal.ZERO));
+        assertThat("データタイプが復元されること", second.getBytes("data"), is(nullValue()));
+    }
+
+    /** 変換できない型の値を含む場合は、nullが返却されること。 */
+    @Test
+    public void testUnsupportedValue() {
+        final Map<String, Object> row = new HashMap<String, Object>();
+        row.put("value", new Object());
+        final SqlResultSet resultSet = new SqlResultSet(1);
+        resultSet.add(new SqlRow(row, new HashMap<String, Integer>()));
+
+        assertThat(SqlResultSetSerializer.serialize(resultSet), is(nullValue()));
+    }
+
+    /**
+     * テスト用の行を生成する。
+     *
+     * @param name 名前
+     * @param amount 金額
+     * @param updatedAt 更新日時
+     * @param data バイナリデータ
+     * @return 行
+     */
+    private static SqlRow createRow(String name, BigDecimal amount, Timestamp updatedAt, byte[] data) {
+        final Map<String, Object> row = new LinkedHashMap<String, Object>();
+        row.put("name", name);
+        row.put("amount", amount);
+        row.put("updatedAt", updatedAt);
+        row.put("data", data);
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>();
+        colTypes.put("name", Types.VARCHAR);
+        colTypes.put("amount", Types.DECIMAL);
+        colTypes.put("updatedAt", Types.TIMESTAMP);
+        colTypes.put("data", Types.VARBINARY);
+        return new SqlRow(row, colTypes);
+    }
+}
@@ -9,13 +9,16 @@ import java.math.BigDecimal;
 import java.sql.Clob;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -37,6 +40,7 @@ import nablarch.core.transaction.TransactionContext;
 import nablarch.core.util.FileUtil;
 import nablarch.test.support.db.helper.TargetDb;
 import nablarch.test.support.db.helper.VariousDbTestHelper;
+import nablarch.test.support.reflection.ReflectionUtil;
 
 import org.junit.After;
 import org.junit.BeforeClass;
@@ -1010,6 +1014,106 @@ public abstract class SqlRowTestLogic {
         assertMapSqlRow(new SqlRow(new HashMap<String, Object>(), new HashMap<String, Integer>()));
     }
 
+    /**
+     * 値を配列で保持する{@link SqlRow}のMapインタフェースのテスト。
+     * <p/>
+     * カラム名の対応表を共有する行の間で、値やカラム構成の変更が影響しないことも合わせて確認する。
+     */
+    @Test
+    public void testCompactRow() throws Exception {
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>();
+        colTypes.put("USER_ID", Types.CHAR);
+        colTypes.put("USER_NAME", Types.VARCHAR);
+        final ColumnIndexTable columns = new ColumnIndexTable(
+                new String[] {"USER_ID", "USER_NAME", "USER_ID"}, colTypes);
+        assertThat("重複したカラムは1つとなること", columns.size(), is(2));
+        assertThat("重複したカラムは同じインデックスとなること", columns.getSlot(2), is(0));
+
+        final SqlRow row1 = new SqlRow(columns, new Object[] {"001", "name1"});
+        final SqlRow row2 = new SqlRow(columns, new Object[] {"002", "name2"});
+
+        assertThat(row1.size(), is(2));
+        assertThat(row1.getString("userName"), is("name1"));
+        assertThat(row1.getString("user_name"), is("name1"));
+        assertThat(row2.getString("USERNAME"), is("name2"));
+        assertThat(row1.getColType("userId"), is(Types.CHAR));
+        assertThat(row1.containsKey("userId"), is(true));
+        assertThat(row1.containsKey("unknown"), is(false));
+        assertThat("カラムの並び順で走査できること", new ArrayList<String>(row1.keySet()),
+                is(Arrays.asList("USER_ID", "USER_NAME")));
+        assertThat("同じ内容のMapと等価であること", row1.equals(new SqlRow(new HashMap<String, Object>(row1),
+                colTypes)), is(true));
+
+        // 既存のカラムの値の変更
+        assertThat((String) row1.put("USER_NAME", "changed"), is("name1"));
+        assertThat(row1.getString("userName"), is("changed"));
+        for (Map.Entry<String, Object> entry : row1.entrySet()) {
+            if (entry.getKey().equals("USER_ID")) {
+                entry.setValue("100");
+            }
+        }
+        assertThat(row1.getString("userId"), is("100"));
+        assertThat("他の行には影響しないこと", row2.getString("userName"), is("name2"));
+
+        // カラム構成の変更
+        row1.put("extra", "value");
+        assertThat(row1.size(), is(3));
+        assertThat((String) row1.get("EXTRA"), is("value"));
+        assertThat(row1.getString("userName"), is("changed"));
+        assertThat("他の行には影響しないこと", row2.containsKey("extra"), is(false));
+        assertThat(row2.size(), is(2));
+
+        final Iterator<String> keys = row2.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().equals("USER_ID")) {
+                keys.remove();
+            }
+        }
+        assertThat(row2.containsKey("userId"), is(false));
+        assertThat(row2.getString("userName"), is("name2"));
+        assertThat("他の行には影響しないこと", row1.getString("userId"), is("100"));
+
+        final SqlRow row3 = new SqlRow(columns, new Object[] {"003", "name3"});
+        assertThat(row3.getString("userId"), is("003"));
+        row3.clear();
+        assertThat(row3.isEmpty(), is(true));
+        assertThat(row3.containsKey("userId"), is(false));
+    }
+
+    /**
+     * カラム名の解決結果が、同じ検索結果の行間で共有されること。
+     */
+    @Test
+    public void testResolveColumnName() throws Exception {
+        final Map<String, Integer> colTypes = new HashMap<String, Integer>();
+        colTypes.put("USER_ID", Types.CHAR);
+        colTypes.put("USER_NAME", Types.VARCHAR);
+        final ColumnIndexTable columns = new ColumnIndexTable(new String[] {"USER_ID", "USER_NAME"}, colTypes);
+        assertThat(columns.resolve("userName"), is(1));
+        assertThat(columns.resolve("USER_ID"), is(0));
+        assertThat(columns.resolve(new StringBuilder("user_").append("name").toString()), is(1));
+        assertThat(columns.resolve("unknown"), is(-1));
+        final Map<String, Integer> resolvedNames = ReflectionUtil.getFieldValue(columns, "resolvedNames");
+        assertThat(resolvedNames.get("userName"), is(1));
+
+        final SqlRow row1 = new SqlRow(columns, new Object[] {"001", "name1"});
+        final SqlRow row2 = new SqlRow(columns, new Object[] {"002", "name2"});
+        assertThat(row1.getString("userName"), is("name1"));
+        assertThat(row2.getString("userName"), is("name2"));
+        assertThat(row2.getColType("userName"), is(Types.VARCHAR));
+
+        // カラム構成が変わった行は、Mapのメソッドで解決されること
+        row1.put("userName", "other");
+        assertThat(row1.getString("userName"), is("other"));
+        assertThat(row2.getString("userName"), is("name2"));
+        try {
+            row2.getString("unknown");
+            fail("存在しないカラムの場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("column name = [unknown] is not found"));
+        }
+    }
+
     private void assertMapSqlRow(final SqlRow sut) throws Exception {
         assertThat("初期化後のサイズは0", sut.size(), is(0));
         assertThat("初期化直後は空", sut.isEmpty(), is(true));
@@ -0,0 +1,41 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link SqlShapeStatistics}のテストクラス。
+ */
+public class SqlShapeStatisticsTest {
+
+    /** テスト対象 */
+    private final SqlShapeStatistics sut = new SqlShapeStatistics();
+
+    /** ハッシュ値が同じ異なるSQL文を、別の種類として集計すること。 */
+    @Test
+    public void testHashCollision() {
+        // "Aa"と"BB"はハッシュ値が等しい
+        assertThat("Aa".hashCode(), is("BB".hashCode()));
+        sut.record("SQL_ID", "Aa");
+        sut.record("SQL_ID", "BB");
+        sut.record("SQL_ID", "BB");
+
+        assertThat(sut.getShapeCount("SQL_ID"), is(2));
+        assertThat(sut.getShapeCount("OTHER"), is(0));
+    }
+
+    /** SQLIDごとに保持するSQL文の数が上限を超えないこと。 */
+    @Test
+    public void testMaxShapesPerSqlId() {
+        sut.setMaxShapesPerSqlId(3);
+        for (int i = 0; i < 10; i++) {
+            sut.record("SQL_ID", "select * from t where id in (" + i + ")");
+        }
+        sut.record("OTHER", "select 1");
+
+        assertThat(sut.getShapeCount("SQL_ID"), is(3));
+        assertThat(sut.getShapeCount("OTHER"), is(1));
+    }
+}
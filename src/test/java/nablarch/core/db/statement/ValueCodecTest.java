@@ -0,0 +1,143 @@
+package nablarch.core.db.statement;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * {@link ValueCodec}のテストクラス。
+ */
+public class ValueCodecTest {
+
+    /** 変換できる全ての型の値が、同じクラスと値で復元されること。 */
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Timestamp timestamp = Timestamp.valueOf("2014-01-01 12:34:56.123456789");
+        final Object[] values = {
+                null,
+                "あいうえお",
+                new BigDecimal("-123.4500"),
+                new BigInteger("123456789012345678901234567890"),
+                Integer.MIN_VALUE,
+                Long.MAX_VALUE,
+                (short) 12,
+                (byte) -1,
+                1.5d,
+                2.5f,
+                Boolean.TRUE,
+                new Date(1000L),
+                java.sql.Date.valueOf("2014-01-01"),
+                Time.valueOf("12:34:56"),
+                timestamp,
+                UUID.fromString("123e4567-e89b-12d3-a456-426614174000")
+        };
+        for (Object value : values) {
+            final Object restored = roundTrip(value);
+            if (value == null) {
+                assertThat(restored, is(nullValue()));
+            } else {
+                assertThat(restored, is(value));
+                assertThat(restored.getClass().getName(), is(value.getClass().getName()));
+            }
+        }
+        assertThat(((Timestamp) roundTrip(timestamp)).getNanos(), is(123456789));
+        assertThat((byte[]) roundTrip(new byte[] {1, 2, 3}), is(new byte[] {1, 2, 3}));
+    }
+
+    /** 変換できる型のサブクラスの値は、サブクラスのまま復元されること。 */
+    @Test
+    public void testSubclass() throws Exception {
+        final Object restored = roundTrip(new CustomTimestamp(1000L));
+        assertThat(restored, instanceOf(CustomTimestamp.class));
+        assertThat(((Timestamp) restored).getTime(), is(1000L));
+    }
+
+    /** 64KBを超える文字列が復元されること。 */
+    @Test
+    public void testLongString() throws Exception {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            value.append('あ');
+        }
+        assertThat((String) roundTrip(value.toString()), is(value.toString()));
+    }
+
+    /** 変換できない型の値の場合は、何も出力せずに偽が返却されること。 */
+    @Test
+    public void testUnsupportedValue() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        assertThat(ValueCodec.writeValue(out, new Object()), is(false));
+        assertThat("シリアライズできないオブジェクトを含む場合",
+                ValueCodec.writeValue(out, new NotSerializableHolder()), is(false));
+        out.flush();
+        assertThat(bytes.size(), is(0));
+    }
+
+    /** 不明な型の値を読み込んだ場合は、IOExceptionが送出されること。 */
+    @Test
+    public void testUnknownType() {
+        try {
+            ValueCodec.readValue(new DataInputStream(new ByteArrayInputStream(new byte[] {99})));
+            fail("do not run.");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("unknown value type. type = [99]"));
+        }
+    }
+
+    /**
+     * 値を出力し、読み込んだ値を返す。
+     *
+     * @param value 値
+     * @return 読み込んだ値
+     * @throws IOException 入出力エラー
+     */
+    private static Object roundTrip(Object value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        assertThat(ValueCodec.writeValue(out, value), is(true));
+        out.flush();
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        final Object restored = ValueCodec.readValue(in);
+        assertThat("全て読み込まれること", in.available(), is(0));
+        return restored;
+    }
+
+    /** {@link Timestamp}のサブクラス。 */
+    private static class CustomTimestamp extends Timestamp {
+
+        /**
+         * コンストラクタ。
+         *
+         * @param time 時刻
+         */
+        CustomTimestamp(long time) {
+            super(time);
+        }
+    }
+
+    /** シリアライズできないフィールドを持つクラス。 */
+    private static class NotSerializableHolder implements Serializable {
+
+        /** シリアライズできない値 */
+        private final Object value = new Object();
+    }
+}
@@ -0,0 +1,106 @@
+package nablarch.core.db.statement.sqlconvertor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.db.dialect.DefaultDialect;
+import nablarch.core.db.dialect.H2Dialect;
+import org.junit.Test;
+
+/**
+ * {@link VariableInSyntaxConvertor}のテストクラス。
+ */
+public class VariableInSyntaxConvertorTest {
+
+    private final VariableInSyntaxConvertor sut = new VariableInSyntaxConvertor();
+
+    /** デフォルトでは、IN句の項目数を切り上げないこと。 */
+    @Test
+    public void testNoPadding() {
+        assertThat(sut.toPaddedSize(1), is(1));
+        assertThat(sut.toPaddedSize(7), is(7));
+        assertThat(sut.convert("select * from t where id in (:ids[])",
+                Collections.singletonMap("ids", Arrays.asList("1", "2", "3"))),
+                is("select * from t where id in (:ids[0],:ids[1],:ids[2])"));
+    }
+
+    /** 指定した単位の倍数に切り上げられること。 */
+    @Test
+    public void testPaddingStep() {
+        sut.setPaddingStep(5);
+        assertThat(sut.toPaddedSize(1), is(5));
+        assertThat(sut.toPaddedSize(5), is(5));
+        assertThat(sut.toPaddedSize(6), is(10));
+    }
+
+    /** 2のべき乗に切り上げられること。 */
+    @Test
+    public void testPowerOfTwoPadding() {
+        sut.setPaddingStep(5);
+        sut.setPowerOfTwoPadding(true);
+        assertThat("2のべき乗の設定が優先されること", sut.toPaddedSize(1), is(1));
+        assertThat(sut.toPaddedSize(3), is(4));
+        assertThat(sut.toPaddedSize(600), is(1024));
+        assertThat(sut.convert("select * from t where id in (:ids[])",
+                Collections.singletonMap("ids", new Integer[] {1, 2, 3})),
+                is("select * from t where id in (:ids[0*],:ids[1*],:ids[2*],:ids[3*])"));
+    }
+
+    /** 切り上げ後の項目数が上限を超えないこと。 */
+    @Test
+    public void testMaxPaddedSize() {
+        sut.setPowerOfTwoPadding(true);
+        sut.setMaxPaddedSize(1000);
+        assertThat("上限までしか切り上げないこと", sut.toPaddedSize(600), is(1000));
+        assertThat("要素数が上限を超える場合は要素数となること", sut.toPaddedSize(1200), is(1200));
+    }
+
+    /** 要素数が閾値以上の場合、要素の一覧を1つのバインド変数で指定する条件に変換されること。 */
+    @Test
+    public void testInListParameter() {
+        sut.setDialect(new H2Dialect());
+        sut.setInListParameterThreshold(3);
+        assertThat("閾値未満は要素ごとに展開されること", sut.convert("select * from t where id in (:ids[])",
+                Collections.singletonMap("ids", new String[] {"1", "2"})),
+                is("select * from t where id in (:ids[0],:ids[1])"));
+        assertThat(sut.convert("select * from t where id in (:ids[])",
+                Collections.singletonMap("ids", new String[] {"1", "2", "3"})),
+                is("select * from t where id = ANY(:ids[*])"));
+
+        final Map<String, Object> condition = new HashMap<String, Object>();
+        condition.put("ids", Arrays.asList("1", "2", "3", "4"));
+        condition.put("kbn", Arrays.asList("1", "2"));
+        assertThat(sut.convert("select * from t where id NOT IN ( :ids[] ) and kbn in(:kbn[])", condition),
+                is("select * from t where id <> ALL(:ids[*]) and kbn in(:kbn[0],:kbn[1])"));
+        assertThat("IN (:ids[])の形式でない場合は要素ごとに展開されること",
+                sut.convert("select * from t where id in (:ids[], 'x') or point(:kbn[])", condition),
+                is("select * from t where id in (:ids[0],:ids[1],:ids[2],:ids[3], 'x') or point(:kbn[0],:kbn[1])"));
+        assertThat("識別子の一部のINは対象としないこと",
+                sut.convert("select * from t where fn_min(:ids[])", condition),
+                is("select * from t where fn_min(:ids[0],:ids[1],:ids[2],:ids[3])"));
+    }
+
+    /** 一時表を使用するDialectの場合、一時表を検索する条件に変換されること。 */
+    @Test
+    public void testInListParameterWithTemporaryTable() {
+        final DefaultDialect dialect = new DefaultDialect();
+        sut.setDialect(dialect);
+        sut.setInListParameterThreshold(1);
+        assertThat("一時表が設定されていない場合は要素ごとに展開されること",
+                sut.convert("select * from t where id in (:ids[])", Collections.singletonMap("ids", new String[] {"1"})),
+                is("select * from t where id in (:ids[0])"));
+
+        dialect.setInListTemporaryTableName("IN_LIST_TEMP");
+        assertThat(sut.convert("select * from t where id not in (:ids[])",
+                Collections.singletonMap("ids", new String[] {"1"})),
+                is("select * from t where id NOT IN (SELECT VAL FROM IN_LIST_TEMP WHERE LIST_ID = :ids[*])"));
+        assertThat("要素が無い場合は従来通りとなること", sut.convert("select * from t where id in (:ids[])",
+                Collections.singletonMap("ids", new String[0])),
+                is("select * from t where id in (:ids[])"));
+    }
+}
@@ -0,0 +1,141 @@
+package nablarch.core.db.statement.sqlconvertor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.db.statement.SqlConvertor;
+
+import org.junit.Test;
+
+/**
+ * {@link VariableSyntaxSqlTemplate}のテストクラス。
+ */
+public class VariableSyntaxSqlTemplateTest {
+
+    /** 標準構成のSqlConvertor */
+    private final SqlConvertor[] convertors = {
+            new VariableConditionSyntaxConvertor(),
+            new VariableInSyntaxConvertor(),
+            new VariableOrderBySyntaxConvertor()
+    };
+
+    /** $if構文がSqlConvertorと同じ結果に変換されること。 */
+    @Test
+    public void testCondition() {
+        final String sql = "select * from test where $if(col1){col1 = :col1} and (col2 = :col2 or $if(col3){col3 like :%col3%})";
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("col1", null);
+        params.put("col3", null);
+        assertSameResult(sql, params);
+        params.put("col1", "1");
+        assertSameResult(sql, params);
+        params.put("col3", "");
+        assertSameResult(sql, params);
+        params.put("col3", "3");
+        assertSameResult(sql, params);
+
+        params.put("cond", "");
+        assertSameResult("select * from test where $if(cond){col1 <= :cond} and $if(cond){col1 >= :cond}", params);
+    }
+
+    /** 配列の要素が空文字列のみの場合の$if構文の扱いが設定に従うこと。 */
+    @Test
+    public void testConditionArrayEmptyString() {
+        final String sql = "select * from test where $if(col1){col1 in (:col1[])}";
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("col1", new String[] {""});
+        assertSameResult(sql, params);
+
+        final VariableConditionSyntaxConvertor condition = new VariableConditionSyntaxConvertor();
+        condition.setAllowArrayEmptyString(false);
+        convertors[0] = condition;
+        assertSameResult(sql, params);
+    }
+
+    /** IN構文がSqlConvertorと同じ結果に変換されること。 */
+    @Test
+    public void testIn() {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("hoge", new String[1]);
+        params.put("hoge1", Arrays.asList("a", "b"));
+        params.put("hoge2", new String[3]);
+        params.put("hoge3", new String[0]);
+        assertSameResult("select * from hoge where hoge in (:hoge[]) and hoge1 in (:hoge1[]) and hoge2 in(:hoge2[])", params);
+        assertSameResult("select * from hoge where hoge3 in (:hoge3[])", params);
+        assertSameResult("select * from hoge where $if (hoge) {hoge1 in (:hoge[])} and $if (hoge3) {hoge3 in (:hoge3[])}", params);
+        assertSameResult("select * from hoge where hoge = :hoge[] and hoge1 = :hoge1[] and hoge2 = :hoge2[2]", params);
+    }
+
+    /** $sort構文がSqlConvertorと同じ結果に変換されること。 */
+    @Test
+    public void testOrderBy() {
+        final String sql = "select * from user where userId = :userId $sort(sortId) {(1 userId asc) (2 userId desc) (default userId)}";
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("sortId", null);
+        assertSameResult(sql, params);
+        params.put("sortId", "1");
+        assertSameResult(sql, params);
+        assertSameResult(sql, params);
+        params.put("sortId", "2");
+        assertSameResult(sql, params);
+        params.put("sortId", "9");
+        assertSameResult(sql, params);
+
+        final String noDefault = "select * from user $sort(sortId) {(1 userId asc) (2 userId desc)}";
+        assertSameResult(noDefault, params);
+        params.put("sortId", null);
+        assertSameResult(noDefault, params);
+        params.put("sortId", "1");
+        assertSameResult(noDefault, params);
+    }
+
+    /** 拡張構文を含まないSQL文は、そのまま返却されること。 */
+    @Test
+    public void testNoSyntax() {
+        final String sql = "select * from user where userId = :userId";
+        final VariableSyntaxSqlTemplate sut = VariableSyntaxSqlTemplate.compile(sql, convertors);
+        assertThat(sut.convert(new HashMap<String, Object>()), is(sql));
+    }
+
+    /** 標準構成以外のSqlConvertorの場合、テンプレートは構築されないこと。 */
+    @Test
+    public void testNotStandardConvertors() {
+        final String sql = "select * from hoge where hoge in (:hoge[])";
+        assertThat(VariableSyntaxSqlTemplate.compile(sql, new SqlConvertor[] {new VariableInSyntaxConvertor()}),
+                is(nullValue()));
+        assertThat(VariableSyntaxSqlTemplate.compile(sql, new SqlConvertor[] {
+                new VariableInSyntaxConvertor(),
+                new VariableConditionSyntaxConvertor(),
+                new VariableOrderBySyntaxConvertor()}), is(nullValue()));
+        assertThat(VariableSyntaxSqlTemplate.compile(sql, convertors), is(notNullValue()));
+    }
+
+    /** $if構文の中に$sort構文を含む場合、テンプレートは構築されないこと。 */
+    @Test
+    public void testSortInCondition() {
+        final String sql = "select * from hoge where $if(hoge) {hoge = :hoge $sort(sortId) {(1 hoge)}}";
+        assertThat(VariableSyntaxSqlTemplate.compile(sql, convertors), is(nullValue()));
+    }
+
+    /**
+     * SqlConvertorを順に適用した結果とテンプレートの変換結果が一致することを検証する。
+     *
+     * @param sql SQL文
+     * @param obj 条件オブジェクト
+     */
+    private void assertSameResult(String sql, Object obj) {
+        String expected = sql;
+        for (SqlConvertor convertor : convertors) {
+            expected = convertor.convert(expected, obj);
+        }
+        final VariableSyntaxSqlTemplate sut = VariableSyntaxSqlTemplate.compile(sql, convertors);
+        assertThat(sut, is(notNullValue()));
+        assertThat(sut.convert(obj), is(expected));
+    }
+}
@@ -8,9 +8,13 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -135,6 +139,17 @@ public class DbUtilTest {
         list.add("b");
         assertThat("配列のrangeない指定", (String) DbUtil.getArrayValue(list, 0), is("a"));
         assertThat("配列のrangeない指定", (String) DbUtil.getArrayValue(list, 1), is("b"));
+
+        // 添字でアクセスできないCollection指定
+        List<String> linkedList = new LinkedList<String>(Arrays.asList("x", "y", "z"));
+        assertThat((String) DbUtil.getArrayValue(linkedList, 0), is("x"));
+        assertThat((String) DbUtil.getArrayValue(linkedList, 2), is("z"));
+        Set<String> set = new LinkedHashSet<String>(Arrays.asList("s1", "s2"));
+        assertThat((String) DbUtil.getArrayValue(set, 1), is("s2"));
+
+        // プリミティブ型の配列指定
+        int[] ints = {10, 20, 30};
+        assertThat((Integer) DbUtil.getArrayValue(ints, 1), is(20));
     }
 
     /**
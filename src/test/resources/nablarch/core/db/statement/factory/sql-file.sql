@@ -4,4 +4,6 @@ SQL2 = select entity_id from statement_factory_test
 
 SQL3 = select '1' from statement_factory_test
 
-SQL4 = select * from statement_factory_test where $if(id){entity_id = :id}
\ No newline at end of file
+SQL4 = select * from statement_factory_test where $if(id){entity_id = :id}
+
+SQL5 = select * from statement_factory_test where entity_id in (:ids[])
\ No newline at end of file